@@ -0,0 +1,306 @@
+package ru.cod331n.annotation.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Процессор аннотаций времени компиляции, который записывает индекс аннотаций в
+ * {@value #INDEX_RESOURCE}.
+ *
+ * <p>Индекс содержит все процессоры, помеченные {@code @AnnotationProcessor}, вместе с обрабатываемой ими
+ * аннотацией, заголовки всех скомпилированных классов и все элементы, помеченные аннотациями с временем жизни
+ * {@code RUNTIME}. Рантайм-библиотека берет из него сведения о классах вместо чтения class-файлов.</p>
+ *
+ * <p>Индекс, оставшийся от прошлой компиляции в том же каталоге, дополняется, а не заменяется: записи
+ * перекомпилированных классов обновляются, остальные сохраняются, поэтому частичная компиляция не теряет классы.
+ * Анонимные и локальные классы процессору аннотаций не видны и в индекс не попадают; записи удаленных классов
+ * могут в нем остаться. И то и другое рантайм-библиотека проверяет по списку class-файлов корня.</p>
+ *
+ * <p>Формат файла - строки из полей, разделенных табуляцией:</p>
+ * <pre>
+ * processor   &lt;процессор&gt;   &lt;аннотация&gt;
+ * class       &lt;класс&gt;       &lt;флаги доступа&gt;   &lt;суперкласс или -&gt;   &lt;интерфейсы через запятую или -&gt;
+ * annotation  &lt;класс&gt;       &lt;аннотация&gt;        &lt;вид элемента&gt;       &lt;элемент или -&gt;
+ * </pre>
+ */
+@SupportedAnnotationTypes("*")
+public final class AnnotationIndexProcessor extends AbstractProcessor {
+    public static final String INDEX_RESOURCE = "META-INF/ru.cod331n/annotation-index";
+
+    private static final String HEADER = "# ru.cod331n annotation index v1";
+    private static final String ANNOTATION_PROCESSOR = "ru.cod331n.annotation.AnnotationProcessor";
+    private static final String PACKAGE_INFO = "package-info";
+    private static final String NONE = "-";
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_SYNTHETIC = 0x1000;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+
+    private final Map<String, List<String>> entries = new TreeMap<>();
+    private boolean previousIndexRead;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!previousIndexRead) {
+            previousIndexRead = true;
+            readPreviousIndex();
+        }
+
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                indexType((TypeElement) element);
+            } else if (element instanceof PackageElement) {
+                indexPackage((PackageElement) element);
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+
+        return false;
+    }
+
+    private void indexPackage(PackageElement pkg) {
+        String className = pkg.getQualifiedName() + "." + PACKAGE_INFO;
+        List<String> lines = new ArrayList<>();
+
+        lines.add(line("class", className, Integer.toString(ACC_INTERFACE | ACC_ABSTRACT | ACC_SYNTHETIC), NONE, NONE));
+        annotations(pkg, className, "PACKAGE", NONE, lines);
+
+        entries.put(className, lines);
+    }
+
+    private void indexType(TypeElement type) {
+        String className = binaryName(type);
+        List<String> lines = new ArrayList<>();
+
+        String superName = type.getSuperclass().getKind() == TypeKind.DECLARED
+                ? binaryName(type.getSuperclass())
+                : type.getKind().isInterface() ? Object.class.getName() : NONE;
+        String interfaces = type.getInterfaces().stream().map(this::binaryName).collect(Collectors.joining(","));
+        lines.add(line("class", className, Integer.toString(access(type)), superName, interfaces.isEmpty() ? NONE : interfaces));
+
+        Optional.ofNullable(processorAnnotation(type)).ifPresent(annotation ->
+                lines.add(line("processor", className, annotation)));
+
+        annotations(type, className, "TYPE", NONE, lines);
+        typeAnnotations(type.getSuperclass(), className, NONE, lines);
+        type.getInterfaces().forEach(mirror -> typeAnnotations(mirror, className, NONE, lines));
+        type.getTypeParameters().forEach(parameter ->
+                annotations(parameter, className, "TYPE_PARAMETER", parameter.getSimpleName().toString(), lines));
+
+        for (Element enclosed : type.getEnclosedElements()) {
+            switch (enclosed.getKind()) {
+                case FIELD:
+                case ENUM_CONSTANT:
+                    String fieldName = enclosed.getSimpleName().toString();
+                    annotations(enclosed, className, "FIELD", fieldName, lines);
+                    typeAnnotations(enclosed.asType(), className, fieldName, lines);
+                    break;
+                case METHOD:
+                case CONSTRUCTOR:
+                    indexExecutable((ExecutableElement) enclosed, className, lines);
+                    break;
+                default:
+                    if (enclosed instanceof TypeElement) {
+                        indexType((TypeElement) enclosed);
+                    }
+                    break;
+            }
+        }
+
+        entries.put(className, lines);
+    }
+
+    private void indexExecutable(ExecutableElement executable, String className, List<String> lines) {
+        boolean constructor = executable.getKind() == ElementKind.CONSTRUCTOR;
+        String signature = (constructor ? "<init>" : executable.getSimpleName().toString()) + executable.getParameters().stream()
+                .map(parameter -> typeName(processingEnv.getTypeUtils().erasure(parameter.asType())))
+                .collect(Collectors.joining(",", "(", ")"));
+
+        annotations(executable, className, constructor ? "CONSTRUCTOR" : "METHOD", signature, lines);
+        typeAnnotations(executable.getReturnType(), className, signature, lines);
+        executable.getTypeParameters().forEach(parameter ->
+                annotations(parameter, className, "TYPE_PARAMETER", signature + "<" + parameter.getSimpleName() + ">", lines));
+
+        List<? extends VariableElement> parameters = executable.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            annotations(parameters.get(i), className, "PARAMETER", signature + "#" + i, lines);
+            typeAnnotations(parameters.get(i).asType(), className, signature + "#" + i, lines);
+        }
+    }
+
+    private void annotations(Element element, String className, String kind, String member, List<String> lines) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (isRuntimeVisible(mirror)) {
+                lines.add(line("annotation", className, binaryName(mirror.getAnnotationType()), kind, member));
+            }
+        }
+    }
+
+    private void typeAnnotations(TypeMirror type, String className, String member, List<String> lines) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (isRuntimeVisible(mirror)) {
+                lines.add(line("annotation", className, binaryName(mirror.getAnnotationType()), "TYPE_USE", member));
+            }
+        }
+
+        if (type instanceof DeclaredType) {
+            ((DeclaredType) type).getTypeArguments().forEach(argument -> typeAnnotations(argument, className, member, lines));
+        } else if (type instanceof ArrayType) {
+            typeAnnotations(((ArrayType) type).getComponentType(), className, member, lines);
+        }
+    }
+
+    private String processorAnnotation(TypeElement type) {
+        boolean processor = type.getAnnotationMirrors().stream()
+                .anyMatch(mirror -> binaryName(mirror.getAnnotationType()).equals(ANNOTATION_PROCESSOR));
+
+        if (!processor || !(type.getSuperclass() instanceof DeclaredType)) {
+            return null;
+        }
+
+        List<? extends TypeMirror> arguments = ((DeclaredType) type.getSuperclass()).getTypeArguments();
+        return !arguments.isEmpty() && arguments.get(0).getKind() == TypeKind.DECLARED ? binaryName(arguments.get(0)) : null;
+    }
+
+    private boolean isRuntimeVisible(AnnotationMirror mirror) {
+        Retention retention = mirror.getAnnotationType().asElement().getAnnotation(Retention.class);
+        return retention != null && retention.value() == RetentionPolicy.RUNTIME;
+    }
+
+    private int access(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        int access = 0;
+
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            access |= ACC_PUBLIC;
+        }
+
+        if (modifiers.contains(Modifier.FINAL)) {
+            access |= ACC_FINAL;
+        }
+
+        if (modifiers.contains(Modifier.ABSTRACT)) {
+            access |= ACC_ABSTRACT;
+        }
+
+        switch (type.getKind()) {
+            case ANNOTATION_TYPE:
+                access |= ACC_ANNOTATION | ACC_INTERFACE | ACC_ABSTRACT;
+                break;
+            case INTERFACE:
+                access |= ACC_INTERFACE | ACC_ABSTRACT;
+                break;
+            case ENUM:
+                access |= ACC_ENUM | ACC_SUPER;
+                break;
+            default:
+                access |= ACC_SUPER;
+                break;
+        }
+
+        return access;
+    }
+
+    private String typeName(TypeMirror type) {
+        switch (type.getKind()) {
+            case DECLARED:
+                return binaryName(type);
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            default:
+                return type.getKind().name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private String binaryName(TypeMirror type) {
+        return binaryName((TypeElement) ((DeclaredType) type).asElement());
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private static String line(String... fields) {
+        return String.join("\t", fields);
+    }
+
+    /**
+     * Загружает записи индекса прошлой компиляции; записи классов текущей компиляции затем их заменят.
+     */
+    private void readPreviousIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t");
+
+                    if (!line.startsWith("#") && fields.length > 1) {
+                        entries.computeIfAbsent(fields[1], key -> new ArrayList<>()).add(line);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // индекса прошлой компиляции нет
+        }
+    }
+
+    private void writeIndex() {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.write('\n');
+
+                for (List<String> lines : entries.values()) {
+                    for (String line : lines) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write annotation index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.cod331n.annotation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.cod331n.annotation.benchmark.fixture.Marked;
+import ru.cod331n.annotation.reflect.JavaClassesReflection;
+import ru.cod331n.annotation.reflect.ScanSettings;
+import ru.cod331n.util.tuple.Pair;
+
+import java.io.IOException;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.TypeVariable;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск аннотированных элементов методами {@link JavaClassesReflection}. Загрузчик общий для всех вызовов,
+ * поэтому классы загружаются только при первом из них, а измеряется отбор кандидатов и обход элементов рефлексией.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnotatedElementsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ReflectionState {
+        @Param({"false", "true"})
+        public boolean bytecodeFilter;
+
+        private URLClassLoader classLoader;
+        private JavaClassesReflection reflection;
+
+        @Setup(Level.Trial)
+        public void setup(SyntheticClasspathState classpath) {
+            classLoader = classpath.newClassLoader();
+            reflection = new JavaClassesReflection(
+                    classpath.getPackageName(),
+                    classLoader,
+                    ScanSettings.builder().bytecodeFilter(bytecodeFilter).build()
+            );
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            classLoader.close();
+        }
+    }
+
+    @Benchmark
+    public Collection<Class<?>> getAnnotatedClasses(ReflectionState state) {
+        return state.reflection.getAnnotatedClasses(Marked.class);
+    }
+
+    @Benchmark
+    public Collection<Pair<Class<?>, Method>> getAnnotatedMethods(ReflectionState state) {
+        return state.reflection.getAnnotatedMethods(Marked.class);
+    }
+
+    @Benchmark
+    public Collection<Pair<Class<?>, Field>> getAnnotatedFields(ReflectionState state) {
+        return state.reflection.getAnnotatedFields(Marked.class);
+    }
+
+    @Benchmark
+    public Collection<Pair<Class<?>, Constructor<?>>> getAnnotatedConstructors(ReflectionState state) {
+        return state.reflection.getAnnotatedConstructors(Marked.class);
+    }
+
+    @Benchmark
+    public Collection<Pair<Class<?>, Parameter>> getAnnotatedParameters(ReflectionState state) {
+        return state.reflection.getAnnotatedParameters(Marked.class);
+    }
+
+    @Benchmark
+    public Collection<Package> getAnnotatedPackages(ReflectionState state) {
+        return state.reflection.getAnnotatedPackages(Marked.class);
+    }
+
+    @Benchmark
+    public Collection<Pair<Class<?>, AnnotatedType>> getAnnotatedTypesUse(ReflectionState state) {
+        return state.reflection.getAnnotatedTypesUse(Marked.class);
+    }
+
+    @Benchmark
+    public Collection<Pair<Class<?>, TypeVariable<?>>> getAnnotatedTypeParameters(ReflectionState state) {
+        return state.reflection.getAnnotatedTypeParameters(Marked.class);
+    }
+
+    @Benchmark
+    public Collection<Pair<Class<?>, Class<?>>> getAnnotatedAnnotationTypes(ReflectionState state) {
+        return state.reflection.getAnnotatedAnnotationTypes(Marked.class);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.cod331n.annotation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.cod331n.annotation.benchmark.fixture.MarkedProcessor;
+import ru.cod331n.annotation.reflect.ScanSettings;
+import ru.cod331n.annotation.starter.AnnotationProcessBootstrap;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сквозной запуск {@link AnnotationProcessBootstrap#run}: поиск процессоров, сканирование синтетического пакета
+ * и передача элементов {@link MarkedProcessor}. Каждый вызов использует новый загрузчик, как при старте приложения.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BootstrapBenchmark {
+    @Param({"false", "true"})
+    public boolean bytecodeFilter;
+
+    @Benchmark
+    public long run(SyntheticClasspathState state) throws IOException {
+        try (URLClassLoader classLoader = state.newClassLoader()) {
+            AnnotationProcessBootstrap.run(
+                    Arrays.asList(state.getPackageName(), MarkedProcessor.class.getPackage().getName()),
+                    classLoader,
+                    ScanSettings.builder().bytecodeFilter(bytecodeFilter).build()
+            );
+        }
+
+        return MarkedProcessor.PROCESSED.sum();
+    }
+}
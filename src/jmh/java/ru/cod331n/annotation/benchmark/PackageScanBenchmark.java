@@ -0,0 +1,42 @@
+package ru.cod331n.annotation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.cod331n.annotation.reflect.ClassLoaderHelper;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сканирование пакета из каталога и из jar-файла. Каждый вызов использует новый загрузчик, поэтому измеряется
+ * холодный запуск: обход корня, чтение class-файлов и, для {@link #getPackageClasses}, загрузка классов.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackageScanBenchmark {
+
+    @Benchmark
+    public Collection<Class<?>> getPackageClasses(SyntheticClasspathState state) throws IOException {
+        try (URLClassLoader classLoader = state.newClassLoader()) {
+            return new ClassLoaderHelper(state.getPackageName(), classLoader).getPackageClasses();
+        }
+    }
+
+    @Benchmark
+    public Collection<ClassFileInfo> getPackageClassInfos(SyntheticClasspathState state) throws IOException {
+        try (URLClassLoader classLoader = state.newClassLoader()) {
+            return new ClassLoaderHelper(state.getPackageName(), classLoader).getPackageClassInfos();
+        }
+    }
+}
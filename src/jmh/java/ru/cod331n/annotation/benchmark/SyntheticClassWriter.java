@@ -0,0 +1,225 @@
+package ru.cod331n.annotation.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Минимальный писатель class-файлов версии 52 (Java 8) для синтетических классов: поля {@code int},
+ * {@code native}-методы {@code void m(int)} и один конструктор {@code (int)}, вызывающий конструктор
+ * {@link Object}. Любой элемент, включая параметры, можно пометить аннотацией без атрибутов.
+ */
+final class SyntheticClassWriter {
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_NATIVE = 0x0100;
+
+    private final Map<String, Integer> constants = new HashMap<>();
+    private final ByteArrayOutputStream constantPool = new ByteArrayOutputStream();
+    private final DataOutputStream constantPoolOutput = new DataOutputStream(constantPool);
+    private int constantCount = 1;
+
+    private final String internalName;
+    private final String annotationDescriptor;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+    private boolean annotated;
+
+    /**
+     * @param className  Бинарное имя класса.
+     * @param annotation Бинарное имя аннотации, которой помечаются элементы.
+     */
+    SyntheticClassWriter(final @NotNull String className, final @NotNull String annotation) {
+        this.internalName = className.replace('.', '/');
+        this.annotationDescriptor = "L" + annotation.replace('.', '/') + ";";
+    }
+
+    @NotNull
+    SyntheticClassWriter annotated(boolean annotated) {
+        this.annotated = annotated;
+        return this;
+    }
+
+    @NotNull
+    SyntheticClassWriter field(@NotNull String name, boolean annotated) {
+        fields.add(member(ACC_PUBLIC, name, "I", annotated, false, null));
+        return this;
+    }
+
+    @NotNull
+    SyntheticClassWriter method(@NotNull String name, boolean annotated, boolean parameterAnnotated) {
+        methods.add(member(ACC_PUBLIC | ACC_NATIVE, name, "(I)V", annotated, parameterAnnotated, null));
+        return this;
+    }
+
+    @NotNull
+    SyntheticClassWriter constructor(boolean annotated, boolean parameterAnnotated) {
+        int objectConstructor = methodRef("java/lang/Object", "<init>", "()V");
+        byte[] code = {
+                0x2A, // aload_0
+                (byte) 0xB7, (byte) (objectConstructor >> 8), (byte) objectConstructor, // invokespecial
+                (byte) 0xB1 // return
+        };
+
+        methods.add(member(ACC_PUBLIC, "<init>", "(I)V", annotated, parameterAnnotated, code));
+        return this;
+    }
+
+    @NotNull
+    byte[] toByteArray() {
+        try {
+            int thisClass = classRef(internalName);
+            int superClass = classRef("java/lang/Object");
+            byte[] classAttributes = annotated ? annotationsAttribute() : null;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+
+            output.writeInt(0xCAFEBABE);
+            output.writeShort(0);
+            output.writeShort(52);
+            output.writeShort(constantCount);
+            constantPool.writeTo(output);
+
+            output.writeShort(ACC_PUBLIC | ACC_SUPER);
+            output.writeShort(thisClass);
+            output.writeShort(superClass);
+            output.writeShort(0); // interfaces
+
+            output.writeShort(fields.size());
+            for (byte[] field : fields) {
+                output.write(field);
+            }
+
+            output.writeShort(methods.size());
+            for (byte[] method : methods) {
+                output.write(method);
+            }
+
+            output.writeShort(classAttributes == null ? 0 : 1);
+            if (classAttributes != null) {
+                output.write(classAttributes);
+            }
+
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @NotNull
+    private byte[] member(int access, @NotNull String name, @NotNull String descriptor, boolean annotated, boolean parameterAnnotated, @Nullable byte[] code) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+
+            output.writeShort(access);
+            output.writeShort(utf8(name));
+            output.writeShort(utf8(descriptor));
+            output.writeShort((annotated ? 1 : 0) + (parameterAnnotated ? 1 : 0) + (code != null ? 1 : 0));
+
+            if (code != null) {
+                output.writeShort(utf8("Code"));
+                output.writeInt(12 + code.length);
+                output.writeShort(1); // max_stack
+                output.writeShort(2); // max_locals: this и параметр
+                output.writeInt(code.length);
+                output.write(code);
+                output.writeShort(0); // exception_table
+                output.writeShort(0); // attributes
+            }
+
+            if (annotated) {
+                output.write(annotationsAttribute());
+            }
+
+            if (parameterAnnotated) {
+                output.writeShort(utf8("RuntimeVisibleParameterAnnotations"));
+                output.writeInt(7);
+                output.writeByte(1); // num_parameters
+                output.writeShort(1); // num_annotations
+                output.writeShort(utf8(annotationDescriptor));
+                output.writeShort(0); // element_value_pairs
+            }
+
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @NotNull
+    private byte[] annotationsAttribute() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeShort(utf8("RuntimeVisibleAnnotations"));
+        output.writeInt(6);
+        output.writeShort(1); // num_annotations
+        output.writeShort(utf8(annotationDescriptor));
+        output.writeShort(0); // element_value_pairs
+
+        return bytes.toByteArray();
+    }
+
+    private int utf8(@NotNull String value) {
+        return constant("U" + value, output -> {
+            output.writeByte(1);
+            output.writeUTF(value);
+        });
+    }
+
+    private int classRef(@NotNull String internalName) {
+        int name = utf8(internalName);
+        return constant("C" + internalName, output -> {
+            output.writeByte(7);
+            output.writeShort(name);
+        });
+    }
+
+    private int methodRef(@NotNull String owner, @NotNull String name, @NotNull String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = constant("N" + name + descriptor, output -> {
+            output.writeByte(12);
+            output.writeShort(nameIndex);
+            output.writeShort(descriptorIndex);
+        });
+
+        return constant("M" + owner + '.' + name + descriptor, output -> {
+            output.writeByte(10);
+            output.writeShort(ownerIndex);
+            output.writeShort(nameAndType);
+        });
+    }
+
+    private int constant(@NotNull String key, @NotNull ConstantWriter writer) {
+        @Nullable Integer index = constants.get(key);
+
+        if (index == null) {
+            try {
+                writer.write(constantPoolOutput);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            index = constantCount++;
+            constants.put(key, index);
+        }
+
+        return index;
+    }
+
+    private interface ConstantWriter {
+        void write(@NotNull DataOutputStream output) throws IOException;
+    }
+}
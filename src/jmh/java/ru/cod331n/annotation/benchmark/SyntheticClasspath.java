@@ -0,0 +1,217 @@
+package ru.cod331n.annotation.benchmark;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.annotation.benchmark.fixture.Marked;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Генератор синтетических пакетов для бенчмарков.
+ *
+ * <p>Классы распределяются по цепочке вложенных пакетов {@code root}, {@code root.n1}, {@code root.n1.n2} и т.д.
+ * глубиной {@link Builder#nestingDepth(int)}. Каждый класс содержит заданное число полей и методов и один
+ * конструктор; класс, его члены и параметры помечаются {@link Marked} с заданной вероятностью. Генерация
+ * детерминирована: одинаковые настройки дают одинаковые классы.</p>
+ */
+public final class SyntheticClasspath {
+    private final String packageName;
+    private final int classCount;
+    private final int membersPerClass;
+    private final double annotationDensity;
+    private final int nestingDepth;
+    private final long seed;
+
+    private SyntheticClasspath(final @NotNull Builder builder) {
+        this.packageName = builder.packageName;
+        this.classCount = builder.classCount;
+        this.membersPerClass = builder.membersPerClass;
+        this.annotationDensity = builder.annotationDensity;
+        this.nestingDepth = builder.nestingDepth;
+        this.seed = builder.seed;
+    }
+
+    @NotNull
+    @Contract(value = " -> new", pure = true)
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Корневой пакет сгенерированных классов.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Записывает class-файлы в каталог, как это делает компилятор.
+     *
+     * @param directory Корень classpath.
+     * @return Переданный каталог.
+     */
+    @NotNull
+    public Path writeDirectory(@NotNull Path directory) throws IOException {
+        for (Map.Entry<String, byte[]> entry : generate().entrySet()) {
+            Path file = directory.resolve(entry.getKey());
+            Files.createDirectories(file.getParent());
+            Files.write(file, entry.getValue());
+        }
+
+        return directory;
+    }
+
+    /**
+     * Записывает class-файлы в jar-файл вместе с записями каталогов, по которым загрузчик находит пакеты.
+     *
+     * @param jar Путь к создаваемому jar-файлу.
+     * @return Переданный путь.
+     */
+    @NotNull
+    public Path writeJar(@NotNull Path jar) throws IOException {
+        Map<String, byte[]> classFiles = generate();
+        TreeSet<String> directories = new TreeSet<>();
+
+        for (String name : classFiles.keySet()) {
+            for (int index = name.indexOf('/'); index >= 0; index = name.indexOf('/', index + 1)) {
+                directories.add(name.substring(0, index + 1));
+            }
+        }
+
+        try (OutputStream outputStream = Files.newOutputStream(jar);
+             JarOutputStream jarOutputStream = new JarOutputStream(outputStream)) {
+            for (String directory : directories) {
+                jarOutputStream.putNextEntry(new JarEntry(directory));
+                jarOutputStream.closeEntry();
+            }
+
+            for (Map.Entry<String, byte[]> entry : classFiles.entrySet()) {
+                jarOutputStream.putNextEntry(new JarEntry(entry.getKey()));
+                jarOutputStream.write(entry.getValue());
+                jarOutputStream.closeEntry();
+            }
+        }
+
+        return jar;
+    }
+
+    /**
+     * @return Пути class-файлов относительно корня classpath и их содержимое.
+     */
+    @NotNull
+    @Contract(pure = true)
+    private Map<String, byte[]> generate() {
+        Random random = new Random(seed);
+        Map<String, byte[]> classFiles = new LinkedHashMap<>();
+        String annotation = Marked.class.getName();
+
+        for (int i = 0; i < classCount; i++) {
+            StringBuilder className = new StringBuilder(packageName);
+            for (int level = 1; level <= i % (nestingDepth + 1); level++) {
+                className.append(".n").append(level);
+            }
+            className.append(".Synthetic").append(i);
+
+            SyntheticClassWriter writer = new SyntheticClassWriter(className.toString(), annotation)
+                    .annotated(random.nextDouble() < annotationDensity)
+                    .constructor(random.nextDouble() < annotationDensity, random.nextDouble() < annotationDensity);
+
+            for (int member = 0; member < membersPerClass; member++) {
+                writer.field("field" + member, random.nextDouble() < annotationDensity);
+                writer.method("method" + member, random.nextDouble() < annotationDensity, random.nextDouble() < annotationDensity);
+            }
+
+            classFiles.put(className.toString().replace('.', '/') + ".class", writer.toByteArray());
+        }
+
+        return classFiles;
+    }
+
+    public static final class Builder {
+        private String packageName = "ru.cod331n.synthetic";
+        private int classCount = 1_000;
+        private int membersPerClass = 10;
+        private double annotationDensity = 0.1;
+        private int nestingDepth = 2;
+        private long seed = 42;
+
+        private Builder() {
+        }
+
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder packageName(@NotNull String packageName) {
+            this.packageName = packageName;
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder classCount(int classCount) {
+            Preconditions.checkAndThrow(classCount < 0, () -> new IllegalArgumentException("Class count must not be negative: " + classCount));
+            this.classCount = classCount;
+            return this;
+        }
+
+        /**
+         * Задает число полей и, отдельно, число методов в каждом классе.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder membersPerClass(int membersPerClass) {
+            Preconditions.checkAndThrow(membersPerClass < 0, () -> new IllegalArgumentException("Members per class must not be negative: " + membersPerClass));
+            this.membersPerClass = membersPerClass;
+            return this;
+        }
+
+        /**
+         * Задает вероятность того, что класс, член класса или параметр будет помечен {@link Marked}.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder annotationDensity(double annotationDensity) {
+            Preconditions.checkAndThrow(
+                    annotationDensity < 0 || annotationDensity > 1,
+                    () -> new IllegalArgumentException("Annotation density must be within [0, 1]: " + annotationDensity)
+            );
+            this.annotationDensity = annotationDensity;
+            return this;
+        }
+
+        /**
+         * Задает глубину вложенных пакетов; {@code 0} - все классы в корневом пакете.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder nestingDepth(int nestingDepth) {
+            Preconditions.checkAndThrow(nestingDepth < 0, () -> new IllegalArgumentException("Nesting depth must not be negative: " + nestingDepth));
+            this.nestingDepth = nestingDepth;
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = " -> new", pure = true)
+        public SyntheticClasspath build() {
+            return new SyntheticClasspath(this);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.cod331n.annotation.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Синтетический корень classpath, общий для всех итераций бенчмарка: генерируется один раз перед запуском
+ * и удаляется после него.
+ */
+@State(Scope.Benchmark)
+public class SyntheticClasspathState {
+    @Param({"directory", "jar"})
+    public String layout;
+
+    @Param({"1000"})
+    public int classCount;
+
+    @Param({"10"})
+    public int membersPerClass;
+
+    @Param({"0.1"})
+    public double annotationDensity;
+
+    @Param({"2"})
+    public int nestingDepth;
+
+    private Path temporaryDirectory;
+    private URL root;
+    private String packageName;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        SyntheticClasspath classpath = SyntheticClasspath.builder()
+                .classCount(classCount)
+                .membersPerClass(membersPerClass)
+                .annotationDensity(annotationDensity)
+                .nestingDepth(nestingDepth)
+                .build();
+
+        temporaryDirectory = Files.createTempDirectory("synthetic-classpath");
+        packageName = classpath.getPackageName();
+
+        Path path = "jar".equals(layout)
+                ? classpath.writeJar(temporaryDirectory.resolve("synthetic.jar"))
+                : classpath.writeDirectory(Files.createDirectory(temporaryDirectory.resolve("classes")));
+        root = path.toUri().toURL();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> paths = Files.walk(temporaryDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * @return Новый загрузчик синтетического корня; аннотации и процессоры загружаются через загрузчик бенчмарка.
+     */
+    @NotNull
+    public URLClassLoader newClassLoader() {
+        return new URLClassLoader(new URL[]{root}, SyntheticClasspathState.class.getClassLoader());
+    }
+
+    @NotNull
+    public String getPackageName() {
+        return packageName;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.cod331n.annotation.benchmark.fixture;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Аннотация, которой генератор {@link ru.cod331n.annotation.benchmark.SyntheticClasspath} помечает элементы
+ * синтетических классов.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.FIELD, ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.PARAMETER})
+public @interface Marked {
+}
@@ -0,0 +1,22 @@
+package ru.cod331n.annotation.benchmark.fixture;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.AnnotationProcessor;
+import ru.cod331n.annotation.processor.AbstractAnnotationProcessor;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Процессор для сквозного бенчмарка: только считает обработанные элементы.
+ */
+@AnnotationProcessor
+public class MarkedProcessor extends AbstractAnnotationProcessor<Marked> {
+    public static final LongAdder PROCESSED = new LongAdder();
+
+    @Override
+    public void process(@Nullable Class<?> clazz, @NotNull AnnotatedElement element, @NotNull Marked annotation) {
+        PROCESSED.increment();
+    }
+}
@@ -7,9 +7,31 @@ import java.lang.annotation.Target;
 
 /**
  * Аннотация, которой должны помечаться все процессоры аннотаций, наследуемые
- * от класса {@link ru.cod331n.annotation.processor.AbstractAnnotationProcessor}
+ * от класса {@link ru.cod331n.annotation.processor.AbstractAnnotationProcessor},
+ * {@link ru.cod331n.annotation.processor.AbstractBatchAnnotationProcessor} или
+ * {@link ru.cod331n.annotation.processor.AbstractDescriptorAnnotationProcessor}
+ *
+ * <p>Атрибуты задают порядок запуска процессоров: процессор запускается только после завершения всех процессоров
+ * с меньшим {@link #order()} и всех процессоров из {@link #dependsOn()}. Независимые процессоры могут выполняться
+ * параллельно, если для запуска задан исполнитель.</p>
  */
 @Target({ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface AnnotationProcessor {
+
+    /**
+     * Порядок запуска процессора. Процессоры с меньшим значением завершаются раньше.
+     */
+    int order() default 0;
+
+    /**
+     * Процессоры, которые должны завершиться до запуска этого процессора.
+     */
+    Class<?>[] dependsOn() default {};
+
+    /**
+     * Признак того, что метод {@code process} процессора потокобезопасен, и найденные элементы можно передавать
+     * ему параллельно.
+     */
+    boolean concurrent() default false;
 }
@@ -17,7 +17,7 @@ import java.lang.reflect.AnnotatedElement;
  * @apiNote Каждый наследуемый класс должен быть помечен аннотацией {@link ru.cod331n.annotation.AnnotationProcessor},
  * чтобы стартер его увидел.
  */
-public abstract class AbstractAnnotationProcessor<T extends Annotation> {
+public abstract class AbstractAnnotationProcessor<T extends Annotation> extends BaseAnnotationProcessor<T> {
 
     /**
      * Обрабатывает аннотацию, примененную к указанному классу или элементу.
@@ -28,4 +28,18 @@ public abstract class AbstractAnnotationProcessor<T extends Annotation> {
      */
     @Contract(pure = true)
     public abstract void process(@Nullable Class<?> clazz, @NotNull AnnotatedElement element, @NotNull T annotation);
+
+    /**
+     * Отменяет обработку элемента, класс которого был изменен или удален в режиме отслеживания изменений
+     * ({@link ru.cod331n.annotation.starter.AnnotationProcessBootstrap#watch}). Вызывается с теми же аргументами,
+     * что и {@link #process}, и позволяет снять регистрацию того, что было зарегистрировано при обработке.
+     *
+     * <p>По умолчанию ничего не делает.</p>
+     *
+     * @param clazz      Класс, к которому принадлежал элемент с аннотацией, может быть {@code null}.
+     * @param element    Ранее обработанный элемент.
+     * @param annotation Ранее обработанная аннотация.
+     */
+    public void remove(@Nullable Class<?> clazz, @NotNull AnnotatedElement element, @NotNull T annotation) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package ru.cod331n.annotation.processor;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.List;
+
+/**
+ * Процессор аннотаций, получающий все найденные элементы одним вызовом, а не по одному: структуры, в которые он
+ * регистрирует элементы (планировщик, шина событий, таблица маршрутов), можно заранее выделить нужного размера
+ * и заполнить под одной блокировкой.
+ *
+ * <p>Для очень больших наборов элементов процессор может задать размер части через
+ * {@link #AbstractBatchAnnotationProcessor(int)}: тогда {@link #process(List)} вызывается для каждой части,
+ * а после последней вызывается {@link #onComplete()}. Части процессора с
+ * {@link ru.cod331n.annotation.AnnotationProcessor#concurrent()} могут обрабатываться параллельно.</p>
+ *
+ * @param <T> Тип аннотации, которую обрабатывает процессор.
+ * @apiNote Как и любой процессор, должен быть помечен аннотацией {@link ru.cod331n.annotation.AnnotationProcessor}.
+ * Не передается потоково ({@link ru.cod331n.annotation.starter.BootstrapSettings.Builder#streaming(int)}): набор
+ * элементов известен только после сканирования.
+ */
+public abstract class AbstractBatchAnnotationProcessor<T extends Annotation> extends BaseAnnotationProcessor<T> {
+    private final int chunkSize;
+
+    /**
+     * Создает процессор, получающий все элементы одним вызовом.
+     */
+    protected AbstractBatchAnnotationProcessor() {
+        this(0);
+    }
+
+    /**
+     * @param chunkSize Наибольшее количество элементов в одном вызове {@link #process(List)}, либо {@code 0},
+     *                  чтобы получать все элементы одним вызовом.
+     * @throws IllegalArgumentException если размер отрицательный.
+     */
+    protected AbstractBatchAnnotationProcessor(int chunkSize) {
+        Preconditions.checkAndThrow(chunkSize < 0, () -> new IllegalArgumentException("Chunk size cannot be negative: " + chunkSize));
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return Наибольшее количество элементов в одном вызове, либо {@code 0}, если части не используются.
+     */
+    @Contract(pure = true)
+    public final int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Обрабатывает найденные элементы. Не вызывается, если элементов нет.
+     *
+     * @param matches Все элементы в порядке обнаружения, либо очередная часть из них; список нельзя изменять.
+     */
+    public abstract void process(@NotNull List<AnnotationMatch<T>> matches);
+
+    /**
+     * Вызывается один раз после того, как обработаны все части, в том числе если элементов не было. В режиме
+     * отслеживания изменений также вызывается после каждой пачки измененных элементов.
+     *
+     * <p>По умолчанию ничего не делает.</p>
+     */
+    public void onComplete() {
+    }
+
+    /**
+     * Отменяет обработку элементов в режиме отслеживания изменений, аналогично
+     * {@link AbstractAnnotationProcessor#remove(Class, AnnotatedElement, Annotation)}.
+     *
+     * <p>По умолчанию ничего не делает.</p>
+     *
+     * @param matches Ранее обработанные элементы.
+     */
+    public void remove(@NotNull List<AnnotationMatch<T>> matches) {
+    }
+}
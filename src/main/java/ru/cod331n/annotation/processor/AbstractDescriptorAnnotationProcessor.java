@@ -0,0 +1,43 @@
+package ru.cod331n.annotation.processor;
+
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.annotation.reflect.bytecode.AnnotationInfo;
+import ru.cod331n.annotation.reflect.bytecode.ElementInfo;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+
+/**
+ * Процессор аннотаций, получающий элементы в виде легковесных описаний, прочитанных из байткода, а не объектов
+ * рефлексии. Классы с аннотированными элементами при этом не загружаются: процессор, которому достаточно имен
+ * и значений аннотаций, работает без загрузки и инициализации обрабатываемых классов. Объект рефлексии можно
+ * получить по запросу через {@link ElementInfo#resolve()}.
+ *
+ * <p>Процессор получает только аннотации, объявленные непосредственно на элементе: аннотации с
+ * {@link java.lang.annotation.Inherited}, унаследованные от суперкласса, ему не передаются.</p>
+ *
+ * @param <T> Тип аннотации, которую обрабатывает процессор.
+ * @apiNote Как и любой процессор, должен быть помечен аннотацией {@link ru.cod331n.annotation.AnnotationProcessor}.
+ */
+public abstract class AbstractDescriptorAnnotationProcessor<T extends Annotation> extends BaseAnnotationProcessor<T> {
+
+    /**
+     * Обрабатывает аннотацию, примененную к указанному элементу.
+     *
+     * @param element    Описание элемента, к которому применяется аннотация.
+     * @param annotation Описание аннотации с явно заданными значениями.
+     */
+    public abstract void process(@NotNull ElementInfo element, @NotNull AnnotationInfo annotation);
+
+    /**
+     * Отменяет обработку элемента в режиме отслеживания изменений, аналогично
+     * {@link AbstractAnnotationProcessor#remove(Class, AnnotatedElement, Annotation)}.
+     *
+     * <p>По умолчанию ничего не делает.</p>
+     *
+     * @param element    Ранее обработанный элемент.
+     * @param annotation Ранее обработанная аннотация.
+     */
+    public void remove(@NotNull ElementInfo element, @NotNull AnnotationInfo annotation) {
+    }
+}
@@ -0,0 +1,52 @@
+package ru.cod331n.annotation.processor;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+
+/**
+ * Найденный аннотированный элемент: те же значения, которые получает
+ * {@link AbstractAnnotationProcessor#process(Class, AnnotatedElement, Annotation)}.
+ *
+ * @param <T> Тип аннотации.
+ */
+public final class AnnotationMatch<T extends Annotation> {
+    private final Class<?> declaringClass;
+    private final AnnotatedElement element;
+    private final T annotation;
+
+    public AnnotationMatch(final @Nullable Class<?> declaringClass, final @NotNull AnnotatedElement element, final @NotNull T annotation) {
+        this.declaringClass = declaringClass;
+        this.element = element;
+        this.annotation = annotation;
+    }
+
+    /**
+     * @return Класс, к которому принадлежит элемент, либо {@code null} (например, для пакетов).
+     */
+    @Nullable
+    @Contract(pure = true)
+    public Class<?> getDeclaringClass() {
+        return declaringClass;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public AnnotatedElement getElement() {
+        return element;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public T getAnnotation() {
+        return annotation;
+    }
+
+    @Override
+    public String toString() {
+        return element + " @" + annotation.annotationType().getName();
+    }
+}
@@ -0,0 +1,24 @@
+package ru.cod331n.annotation.processor;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Общий базовый класс процессоров аннотаций. Не содержит методов обработки: каждый вид процессора объявляет свои.
+ *
+ * <ul>
+ *     <li>{@link AbstractAnnotationProcessor} получает элементы по одному в виде объектов рефлексии;</li>
+ *     <li>{@link AbstractBatchAnnotationProcessor} получает все элементы одним списком или частями;</li>
+ *     <li>{@link AbstractDescriptorAnnotationProcessor} получает описания элементов, прочитанные из байткода.</li>
+ * </ul>
+ *
+ * <p>Других наследников быть не может: процессор наследуется от одного из перечисленных классов.</p>
+ *
+ * @param <T> Тип аннотации, которую обрабатывает процессор.
+ * @apiNote Каждый процессор должен быть помечен аннотацией {@link ru.cod331n.annotation.AnnotationProcessor},
+ * чтобы стартер его увидел.
+ */
+public abstract class BaseAnnotationProcessor<T extends Annotation> {
+
+    BaseAnnotationProcessor() {
+    }
+}
@@ -0,0 +1,25 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+
+/**
+ * Получатель аннотированных элементов, найденных при сканировании пакета.
+ *
+ * <p>Вызывается один раз на каждую найденную пару "элемент - аннотация".</p>
+ */
+@FunctionalInterface
+public interface AnnotatedElementConsumer {
+
+    /**
+     * Принимает найденный аннотированный элемент.
+     *
+     * @param clazz      Класс, к которому принадлежит элемент, может быть {@code null} (например, для пакетов).
+     * @param element    Аннотированный элемент.
+     * @param annotation Найденная на элементе аннотация.
+     */
+    void accept(@Nullable Class<?> clazz, @NotNull AnnotatedElement element, @NotNull Annotation annotation);
+}
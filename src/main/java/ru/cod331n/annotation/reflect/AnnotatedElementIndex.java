@@ -0,0 +1,222 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.util.collection.IntList;
+import ru.cod331n.util.collection.ObjectIntMap;
+import ru.cod331n.util.tuple.Pair;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.AnnotatedType;
+import java.util.*;
+
+/**
+ * Индекс аннотированных элементов, собранный за один проход по классам пакета.
+ *
+ * <p>Сопоставляет каждому типу аннотации пары "класс - элемент", на которых она была найдена.
+ * Для пакетов класс равен {@code null}.</p>
+ *
+ * <p>Классы и элементы хранятся один раз, под целочисленными номерами, в параллельных массивах; для каждого
+ * типа аннотации хранится список номеров элементов. {@link #forEach(Class, AnnotatedElementConsumer)} обходит
+ * элементы без создания промежуточных объектов, а {@link #get(Class)} создает пары только при обращении к ним.</p>
+ *
+ * <p>Если аннотация найдена не на самом элементе, а через {@link AnnotationClosure} (составная или унаследованная),
+ * ее экземпляр запоминается и возвращается {@link #getAnnotation(Class, AnnotatedElement)}.</p>
+ *
+ * <p>Элементы различаются по {@link Object#equals(Object)}, а {@link AnnotatedType} - по ссылке: начиная с Java 12
+ * равны все использования одного типа с одинаковыми аннотациями, например, типы двух полей {@code @A String}
+ * в разных классах.</p>
+ *
+ * <p>Индекс заполняется из одного потока; после заполнения его можно читать из нескольких потоков.</p>
+ */
+public final class AnnotatedElementIndex implements AnnotatedElementConsumer {
+    private static final int NO_CLASS = -1;
+
+    private final ObjectIntMap<Class<?>> classIds = new ObjectIntMap<>();
+    private Class<?>[] classes = new Class<?>[16];
+    private int classCount;
+
+    private final ObjectIntMap<AnnotatedElement> elementIds = new ObjectIntMap<>();
+    private final ObjectIntMap<AnnotatedElement> typeUseIds = ObjectIntMap.identity();
+    private AnnotatedElement[] elements = new AnnotatedElement[16];
+    private int[] elementClasses = new int[16];
+    private int elementCount;
+
+    private final Map<Class<? extends Annotation>, Postings> postings = new LinkedHashMap<>();
+    private int size;
+
+    @Override
+    @Contract(mutates = "this")
+    public void accept(@Nullable Class<?> clazz, @NotNull AnnotatedElement element, @NotNull Annotation annotation) {
+        Class<? extends Annotation> type = annotation.annotationType();
+        int elementId = internElement(clazz, element);
+
+        postings.computeIfAbsent(type, key -> new Postings()).add(elementId, element, annotation);
+        size++;
+    }
+
+    /**
+     * Передает получателю все элементы, на которых найдена указанная аннотация, вместе с экземплярами аннотации.
+     * Обход не создает объектов.
+     *
+     * @param annotation Тип аннотации.
+     * @param consumer   Получатель элементов в порядке обнаружения.
+     */
+    public void forEach(@NotNull Class<? extends Annotation> annotation, @NotNull AnnotatedElementConsumer consumer) {
+        @Nullable Postings typePostings = postings.get(annotation);
+        if (typePostings == null) {
+            return;
+        }
+
+        for (int i = 0; i < typePostings.elementIds.size(); i++) {
+            int elementId = typePostings.elementIds.get(i);
+            AnnotatedElement element = elements[elementId];
+
+            consumer.accept(getClass(elementId), element, typePostings.getAnnotation(annotation, elementId, element));
+        }
+    }
+
+    /**
+     * @return Количество элементов, на которых найдена указанная аннотация.
+     */
+    @Contract(pure = true)
+    public int count(@NotNull Class<? extends Annotation> annotation) {
+        @Nullable Postings typePostings = postings.get(annotation);
+        return typePostings == null ? 0 : typePostings.elementIds.size();
+    }
+
+    /**
+     * Возвращает экземпляр аннотации, с которым элемент попал в индекс.
+     *
+     * @param type    Тип аннотации.
+     * @param element Элемент из {@link #get(Class)}.
+     * @return Аннотация, либо {@code null}, если элемент не найден с этой аннотацией.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public <A extends Annotation> A getAnnotation(@NotNull Class<A> type, @NotNull AnnotatedElement element) {
+        @Nullable Postings typePostings = postings.get(type);
+        int elementId = typePostings == null || typePostings.indirect == null ? ObjectIntMap.NO_VALUE : getElementIds(element).get(element);
+
+        return elementId == ObjectIntMap.NO_VALUE ? element.getAnnotation(type) : type.cast(typePostings.getAnnotation(type, elementId, element));
+    }
+
+    /**
+     * Возвращает все элементы, на которых найдена указанная аннотация.
+     *
+     * <p>Пары создаются при каждом обращении к элементу списка; для обхода без создания объектов используйте
+     * {@link #forEach(Class, AnnotatedElementConsumer)}.</p>
+     *
+     * @param annotation Тип аннотации.
+     * @return Пары "класс - элемент" в порядке обнаружения, либо пустой список.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<Pair<Class<?>, AnnotatedElement>> get(@NotNull Class<? extends Annotation> annotation) {
+        @Nullable Postings typePostings = postings.get(annotation);
+        if (typePostings == null) {
+            return Collections.emptyList();
+        }
+
+        int count = typePostings.elementIds.size();
+        return new AbstractList<Pair<Class<?>, AnnotatedElement>>() {
+            @Override
+            public Pair<Class<?>, AnnotatedElement> get(int index) {
+                int elementId = typePostings.elementIds.get(index);
+                return new Pair<>(AnnotatedElementIndex.this.getClass(elementId), elements[elementId]);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public Set<Class<? extends Annotation>> getAnnotations() {
+        return Collections.unmodifiableSet(postings.keySet());
+    }
+
+    /**
+     * @return Количество пар "аннотация - элемент" в индексе.
+     */
+    @Contract(pure = true)
+    public int size() {
+        return size;
+    }
+
+    @Nullable
+    @Contract(pure = true)
+    private Class<?> getClass(int elementId) {
+        int classId = elementClasses[elementId];
+        return classId == NO_CLASS ? null : classes[classId];
+    }
+
+    private int internElement(@Nullable Class<?> clazz, @NotNull AnnotatedElement element) {
+        int elementId = getElementIds(element).putIfAbsent(element, elementCount);
+        if (elementId != ObjectIntMap.NO_VALUE) {
+            return elementId;
+        }
+
+        if (elementCount == elements.length) {
+            elements = Arrays.copyOf(elements, elementCount * 2);
+            elementClasses = Arrays.copyOf(elementClasses, elementCount * 2);
+        }
+
+        elements[elementCount] = element;
+        elementClasses[elementCount] = clazz == null ? NO_CLASS : internClass(clazz);
+
+        return elementCount++;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private ObjectIntMap<AnnotatedElement> getElementIds(@NotNull AnnotatedElement element) {
+        return element instanceof AnnotatedType ? typeUseIds : elementIds;
+    }
+
+    private int internClass(@NotNull Class<?> clazz) {
+        int classId = classIds.putIfAbsent(clazz, classCount);
+        if (classId != ObjectIntMap.NO_VALUE) {
+            return classId;
+        }
+
+        if (classCount == classes.length) {
+            classes = Arrays.copyOf(classes, classCount * 2);
+        }
+
+        classes[classCount] = clazz;
+        return classCount++;
+    }
+
+    /**
+     * Номера элементов одного типа аннотации и экземпляры аннотации, найденные не на самих элементах.
+     */
+    private static final class Postings {
+        private final IntList elementIds = new IntList();
+        private Map<Integer, Annotation> indirect;
+
+        private void add(int elementId, @NotNull AnnotatedElement element, @NotNull Annotation annotation) {
+            elementIds.add(elementId);
+
+            @Nullable Annotation declared = element.getAnnotation(annotation.annotationType());
+            if (declared != annotation && !annotation.equals(declared)) {
+                if (indirect == null) {
+                    indirect = new HashMap<>();
+                }
+
+                indirect.put(elementId, annotation);
+            }
+        }
+
+        @NotNull
+        private Annotation getAnnotation(@NotNull Class<? extends Annotation> type, int elementId, @NotNull AnnotatedElement element) {
+            @Nullable Annotation annotation = indirect == null ? null : indirect.get(elementId);
+            return annotation == null ? element.getAnnotation(type) : annotation;
+        }
+    }
+}
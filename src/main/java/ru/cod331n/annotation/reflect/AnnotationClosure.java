@@ -0,0 +1,395 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Правила сопоставления аннотаций с элементами: помимо аннотаций, объявленных на самом элементе, могут учитываться
+ * составные аннотации (помеченные искомой как мета-аннотацией) и аннотации, унаследованные от суперклассов,
+ * интерфейсов и переопределенных методов.
+ *
+ * <p>Замыкания вычисляются один раз на тип аннотации и на класс иерархии и хранятся в {@link ClassValue}, поэтому
+ * не удерживают выгружаемые загрузчики. При сканировании проверка элемента сводится к обходу его аннотаций
+ * и чтению готовых замыканий. Экземпляр неизменяем и потокобезопасен.</p>
+ */
+public final class AnnotationClosure {
+    /**
+     * Только аннотации самого элемента, как {@link AnnotatedElement#getAnnotations()}.
+     */
+    public static final AnnotationClosure DIRECT = new AnnotationClosure(false, false);
+
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    /**
+     * Мета-аннотации типа аннотации, транзитивно, кроме {@code java.lang.annotation.*}: сначала ближайшие.
+     */
+    private static final ClassValue<Annotation[]> META_ANNOTATIONS = new ClassValue<Annotation[]>() {
+        @Override
+        protected Annotation[] computeValue(Class<?> type) {
+            return computeMetaAnnotations(type);
+        }
+    };
+
+    /**
+     * Аннотации класса вместе с аннотациями суперклассов и интерфейсов.
+     */
+    private static final ClassValue<Annotation[]> TYPE_ANNOTATIONS = new ClassValue<Annotation[]>() {
+        @Override
+        protected Annotation[] computeValue(Class<?> type) {
+            return computeTypeAnnotations(type);
+        }
+    };
+
+    /**
+     * Аннотации переопределяемых методов класса, объявленных или унаследованных, вместе с аннотациями
+     * переопределенных ими методов супертипов, по сигнатуре метода. Метод, переопределяющий обобщенный метод
+     * супертипа с конкретными типами параметров ({@code handle(String)} для {@code handle(T)}), сопоставляется
+     * с ним через мост, созданный компилятором.
+     */
+    private static final ClassValue<Map<String, Annotation[]>> METHOD_ANNOTATIONS = new ClassValue<Map<String, Annotation[]>>() {
+        @Override
+        protected Map<String, Annotation[]> computeValue(Class<?> type) {
+            return computeMethodAnnotations(type);
+        }
+    };
+
+    private final boolean metaAnnotations;
+    private final boolean inheritedAnnotations;
+
+    private AnnotationClosure(boolean metaAnnotations, boolean inheritedAnnotations) {
+        this.metaAnnotations = metaAnnotations;
+        this.inheritedAnnotations = inheritedAnnotations;
+    }
+
+    /**
+     * @param metaAnnotations      Учитывать составные аннотации.
+     * @param inheritedAnnotations Учитывать аннотации суперклассов, интерфейсов и переопределенных методов.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public static AnnotationClosure of(boolean metaAnnotations, boolean inheritedAnnotations) {
+        return metaAnnotations || inheritedAnnotations ? new AnnotationClosure(metaAnnotations, inheritedAnnotations) : DIRECT;
+    }
+
+    @Contract(pure = true)
+    public boolean isMetaAnnotations() {
+        return metaAnnotations;
+    }
+
+    @Contract(pure = true)
+    public boolean isInheritedAnnotations() {
+        return inheritedAnnotations;
+    }
+
+    /**
+     * Возвращает аннотации элемента по этим правилам. Аннотация каждого типа встречается не больше одного раза:
+     * объявленные на элементе важнее унаследованных, а унаследованные важнее мета-аннотаций. Для составной
+     * аннотации возвращается экземпляр мета-аннотации, которым она помечена.
+     *
+     * @param element Элемент.
+     * @return Аннотации элемента; список нельзя изменять.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<Annotation> getAnnotations(@NotNull AnnotatedElement element) {
+        Annotation[] annotations = inheritedAnnotations ? getInheritedAnnotations(element) : element.getAnnotations();
+
+        return Collections.unmodifiableList(Arrays.asList(metaAnnotations ? withMetaAnnotations(annotations) : annotations));
+    }
+
+    /**
+     * @return Аннотация указанного типа по этим правилам, либо {@code null}, если элемент ею не помечен.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public <A extends Annotation> A getAnnotation(@NotNull AnnotatedElement element, @NotNull Class<A> type) {
+        if (this == DIRECT) {
+            return element.getAnnotation(type);
+        }
+
+        for (Annotation annotation : getAnnotations(element)) {
+            if (annotation.annotationType() == type) {
+                return type.cast(annotation);
+            }
+        }
+
+        return null;
+    }
+
+    @Contract(pure = true)
+    public boolean isAnnotationPresent(@NotNull AnnotatedElement element, @NotNull Class<? extends Annotation> type) {
+        return this == DIRECT ? element.isAnnotationPresent(type) : getAnnotation(element, type) != null;
+    }
+
+    /**
+     * @return {@code true}, если тип аннотации совпадает с искомым или помечен им как мета-аннотацией, в том числе
+     * через другие мета-аннотации.
+     */
+    @Contract(pure = true)
+    public static boolean isComposedOf(@NotNull Class<? extends Annotation> annotationType, @NotNull Class<? extends Annotation> target) {
+        if (annotationType == target) {
+            return true;
+        }
+
+        for (Annotation metaAnnotation : META_ANNOTATIONS.get(annotationType)) {
+            if (metaAnnotation.annotationType() == target) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @NotNull
+    private static Annotation[] getInheritedAnnotations(@NotNull AnnotatedElement element) {
+        if (element instanceof Class) {
+            return TYPE_ANNOTATIONS.get((Class<?>) element);
+        }
+
+        if (element instanceof Method && isOverridable((Method) element)) {
+            Method method = (Method) element;
+            @Nullable Annotation[] annotations = METHOD_ANNOTATIONS.get(method.getDeclaringClass()).get(signature(method));
+
+            return annotations == null ? method.getAnnotations() : annotations;
+        }
+
+        return element.getAnnotations();
+    }
+
+    @NotNull
+    private static Annotation[] withMetaAnnotations(@NotNull Annotation[] annotations) {
+        boolean composed = false;
+        for (Annotation annotation : annotations) {
+            composed |= META_ANNOTATIONS.get(annotation.annotationType()).length > 0;
+        }
+
+        if (!composed) {
+            return annotations;
+        }
+
+        Map<Class<? extends Annotation>, Annotation> result = new LinkedHashMap<>();
+        for (Annotation annotation : annotations) {
+            result.putIfAbsent(annotation.annotationType(), annotation);
+        }
+
+        for (Annotation annotation : annotations) {
+            for (Annotation metaAnnotation : META_ANNOTATIONS.get(annotation.annotationType())) {
+                result.putIfAbsent(metaAnnotation.annotationType(), metaAnnotation);
+            }
+        }
+
+        return result.values().toArray(NO_ANNOTATIONS);
+    }
+
+    @NotNull
+    private static Annotation[] computeMetaAnnotations(@NotNull Class<?> type) {
+        Map<Class<? extends Annotation>, Annotation> result = new LinkedHashMap<>();
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add(type);
+
+        while (!queue.isEmpty()) {
+            for (Annotation metaAnnotation : queue.poll().getDeclaredAnnotations()) {
+                Class<? extends Annotation> metaType = metaAnnotation.annotationType();
+
+                if (metaType != type && !metaType.getName().startsWith("java.lang.annotation.") && result.putIfAbsent(metaType, metaAnnotation) == null) {
+                    queue.add(metaType);
+                }
+            }
+        }
+
+        return result.isEmpty() ? NO_ANNOTATIONS : result.values().toArray(NO_ANNOTATIONS);
+    }
+
+    @NotNull
+    private static Annotation[] computeTypeAnnotations(@NotNull Class<?> type) {
+        Annotation[] annotations = type.getAnnotations();
+
+        for (Class<?> supertype : getSupertypes(type)) {
+            annotations = merge(annotations, TYPE_ANNOTATIONS.get(supertype));
+        }
+
+        return annotations;
+    }
+
+    @NotNull
+    private static Map<String, Annotation[]> computeMethodAnnotations(@NotNull Class<?> type) {
+        Map<String, Annotation[]> result = new HashMap<>();
+
+        for (Method method : type.getDeclaredMethods()) {
+            if (isOverridable(method)) {
+                result.put(signature(method), method.getDeclaredAnnotations());
+            }
+        }
+
+        for (Class<?> supertype : getSupertypes(type)) {
+            METHOD_ANNOTATIONS.get(supertype).forEach((signature, annotations) -> result.merge(signature, annotations, AnnotationClosure::merge));
+        }
+
+        // мост имеет стертую сигнатуру метода супертипа, а вызывает объявленный метод с конкретными типами
+        for (Method method : type.getDeclaredMethods()) {
+            @Nullable Annotation[] inherited = method.isBridge() ? result.get(signature(method)) : null;
+            @Nullable Method bridged = inherited == null ? null : getBridgedMethod(type, method);
+
+            if (bridged != null) {
+                result.merge(signature(bridged), inherited, AnnotationClosure::merge);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Находит объявленный метод, который вызывает мост: метод супертипа со стертой сигнатурой моста, типы
+     * параметров которого подставлены из аргументов типов иерархии ({@code T} в {@code Handler<String>}).
+     *
+     * @return Метод, либо {@code null}, если метод супертипа или вызываемый метод не найден.
+     */
+    @Nullable
+    private static Method getBridgedMethod(@NotNull Class<?> type, @NotNull Method bridge) {
+        Map<TypeVariable<?>, Type> variables = new HashMap<>();
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add(type);
+
+        while (!queue.isEmpty()) {
+            Class<?> current = queue.poll();
+
+            if (current != type) {
+                for (Method method : current.getDeclaredMethods()) {
+                    if (isOverridable(method) && method.getName().equals(bridge.getName()) && Arrays.equals(method.getParameterTypes(), bridge.getParameterTypes())) {
+                        return getDeclaredMethod(type, bridge.getName(), erase(method.getGenericParameterTypes(), variables));
+                    }
+                }
+            }
+
+            List<Type> supertypes = new ArrayList<>(Arrays.asList(current.getGenericInterfaces()));
+            supertypes.add(0, current.getGenericSuperclass());
+
+            for (Type supertype : supertypes) {
+                if (supertype instanceof ParameterizedType) {
+                    Class<?> rawType = (Class<?>) ((ParameterizedType) supertype).getRawType();
+                    TypeVariable<?>[] parameters = rawType.getTypeParameters();
+                    Type[] arguments = ((ParameterizedType) supertype).getActualTypeArguments();
+
+                    for (int i = 0; i < parameters.length; i++) {
+                        variables.put(parameters[i], arguments[i]);
+                    }
+
+                    queue.add(rawType);
+                } else if (supertype instanceof Class) {
+                    queue.add((Class<?>) supertype);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static Method getDeclaredMethod(@NotNull Class<?> type, @NotNull String name, @NotNull Class<?>[] parameterTypes) {
+        for (Method method : type.getDeclaredMethods()) {
+            if (isOverridable(method) && method.getName().equals(name) && Arrays.equals(method.getParameterTypes(), parameterTypes)) {
+                return method;
+            }
+        }
+
+        return null;
+    }
+
+    @NotNull
+    private static Class<?>[] erase(@NotNull Type[] types, @NotNull Map<TypeVariable<?>, Type> variables) {
+        Class<?>[] erased = new Class<?>[types.length];
+        for (int i = 0; i < types.length; i++) {
+            erased[i] = erase(types[i], variables);
+        }
+
+        return erased;
+    }
+
+    /**
+     * @return Стертый тип с подставленными аргументами типов иерархии; неизвестная переменная стирается до границы.
+     */
+    @NotNull
+    private static Class<?> erase(@NotNull Type type, @NotNull Map<TypeVariable<?>, Type> variables) {
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(erase(((GenericArrayType) type).getGenericComponentType(), variables), 0).getClass();
+        }
+
+        if (type instanceof TypeVariable) {
+            @Nullable Type argument = variables.get(type);
+            return erase(argument != null ? argument : ((TypeVariable<?>) type).getBounds()[0], variables);
+        }
+
+        if (type instanceof WildcardType) {
+            return erase(((WildcardType) type).getUpperBounds()[0], variables);
+        }
+
+        return (Class<?>) type;
+    }
+
+    /**
+     * @return Суперкласс, если он есть, и затем интерфейсы в порядке объявления.
+     */
+    @NotNull
+    private static List<Class<?>> getSupertypes(@NotNull Class<?> type) {
+        List<Class<?>> supertypes = new ArrayList<>();
+
+        @Nullable Class<?> superclass = type.getSuperclass();
+        if (superclass != null && superclass != Object.class) {
+            supertypes.add(superclass);
+        }
+
+        supertypes.addAll(Arrays.asList(type.getInterfaces()));
+        return supertypes;
+    }
+
+    /**
+     * Дополняет аннотации аннотациями тех типов, которых среди них еще нет.
+     */
+    @NotNull
+    private static Annotation[] merge(@NotNull Annotation[] annotations, @NotNull Annotation[] inherited) {
+        List<Annotation> result = null;
+
+        for (Annotation annotation : inherited) {
+            if (!containsType(annotations, annotation.annotationType())) {
+                if (result == null) {
+                    result = new ArrayList<>(Arrays.asList(annotations));
+                }
+
+                result.add(annotation);
+            }
+        }
+
+        return result == null ? annotations : result.toArray(NO_ANNOTATIONS);
+    }
+
+    @Contract(pure = true)
+    private static boolean containsType(@NotNull Annotation[] annotations, @NotNull Class<? extends Annotation> type) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType() == type) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Contract(pure = true)
+    private static boolean isOverridable(@NotNull Method method) {
+        return (method.getModifiers() & (Modifier.PRIVATE | Modifier.STATIC)) == 0 && !method.isSynthetic();
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private static String signature(@NotNull Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
+    }
+}
@@ -0,0 +1,210 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.AnnotatedType;
+import java.util.*;
+
+/**
+ * Неизменяемый реестр аннотированных элементов, найденных при сканировании, для поиска аннотаций во время работы
+ * приложения без обращения к рефлексии.
+ *
+ * <p>Для каждого типа аннотации хранится хеш-таблица "элемент - значения аннотации", поэтому поиск по элементу
+ * ({@link Class}, {@link java.lang.reflect.Method}, {@link java.lang.reflect.Field} и другим) занимает постоянное
+ * время и не берет блокировок. Значения атрибутов прочитаны заранее ({@link AnnotationValues}).</p>
+ *
+ * <p>Элементы сравниваются по {@link Object#equals(Object)}, а {@link AnnotatedType} - по ссылке, как в
+ * {@link AnnotatedElementIndex}: равные использования типа в разных местах остаются разными элементами, и искать
+ * их нужно тем же экземпляром, который вернул реестр или индекс.</p>
+ *
+ * <p>Реестр содержит только те типы аннотаций и те элементы, которые были найдены при сканировании; для остальных
+ * поиск возвращает {@code null}, даже если элемент помечен аннотацией. Экземпляр потокобезопасен.</p>
+ */
+public final class AnnotationRegistry {
+    private final Map<Class<? extends Annotation>, TypeElements> elements;
+    private final int size;
+
+    private AnnotationRegistry(final @NotNull Builder builder) {
+        this.elements = new HashMap<>();
+        builder.elements.forEach((type, typeElements) -> elements.put(type, new TypeElements(typeElements)));
+        this.size = builder.size;
+    }
+
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Создает реестр из индекса сканирования.
+     *
+     * @throws RuntimeException если значения атрибутов аннотации не удалось прочитать.
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    public static AnnotationRegistry of(@NotNull AnnotatedElementIndex index) {
+        Builder builder = builder();
+        index.getAnnotations().forEach(annotation -> index.forEach(annotation, builder));
+
+        return builder.build();
+    }
+
+    /**
+     * @return Аннотация, с которой элемент найден при сканировании, либо {@code null}.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public <A extends Annotation> A getAnnotation(@NotNull AnnotatedElement element, @NotNull Class<A> type) {
+        @Nullable AnnotationValues values = getValues(element, type);
+        return values == null ? null : type.cast(values.getAnnotation());
+    }
+
+    /**
+     * @return Значения аннотации, с которой элемент найден при сканировании, либо {@code null}.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public AnnotationValues getValues(@NotNull AnnotatedElement element, @NotNull Class<? extends Annotation> type) {
+        @Nullable TypeElements typeElements = elements.get(type);
+        return typeElements == null ? null : typeElements.get(element);
+    }
+
+    @Contract(pure = true)
+    public boolean isAnnotationPresent(@NotNull AnnotatedElement element, @NotNull Class<? extends Annotation> type) {
+        return getValues(element, type) != null;
+    }
+
+    /**
+     * @return Элементы, найденные с указанной аннотацией, в порядке обнаружения.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Set<AnnotatedElement> getElements(@NotNull Class<? extends Annotation> type) {
+        @Nullable TypeElements typeElements = elements.get(type);
+        return typeElements == null ? Collections.emptySet() : typeElements.asSet();
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public Set<Class<? extends Annotation>> getAnnotationTypes() {
+        return Collections.unmodifiableSet(elements.keySet());
+    }
+
+    /**
+     * @return Количество пар "аннотация - элемент" в реестре.
+     */
+    @Contract(pure = true)
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Собирает реестр из элементов, найденных при сканировании. Заполняется из одного потока; значения
+     * каждого экземпляра аннотации читаются один раз.
+     */
+    public static final class Builder implements AnnotatedElementConsumer {
+        private final Map<Class<? extends Annotation>, TypeElements> elements = new LinkedHashMap<>();
+        private final Map<Annotation, AnnotationValues> values = new IdentityHashMap<>();
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * @throws RuntimeException если значения атрибутов аннотации не удалось прочитать.
+         */
+        @Override
+        @Contract(mutates = "this")
+        public void accept(@Nullable Class<?> clazz, @NotNull AnnotatedElement element, @NotNull Annotation annotation) {
+            AnnotationValues annotationValues = values.computeIfAbsent(annotation, AnnotationValues::new);
+
+            if (elements.computeIfAbsent(annotation.annotationType(), key -> new TypeElements()).putIfAbsent(element, annotationValues)) {
+                size++;
+            }
+        }
+
+        @NotNull
+        @Contract(value = "-> new", pure = true)
+        public AnnotationRegistry build() {
+            return new AnnotationRegistry(this);
+        }
+    }
+
+    /**
+     * Элементы одного типа аннотации со значениями: объявления в хеш-таблице, использования типов - в таблице
+     * по ссылке.
+     */
+    private static final class TypeElements {
+        private final Map<AnnotatedElement, AnnotationValues> declarations;
+        private final Map<AnnotatedElement, AnnotationValues> typeUses;
+        private final List<AnnotatedElement> order;
+
+        private TypeElements() {
+            this.declarations = new HashMap<>();
+            this.typeUses = new IdentityHashMap<>();
+            this.order = new ArrayList<>();
+        }
+
+        private TypeElements(final @NotNull TypeElements elements) {
+            this.declarations = new HashMap<>(elements.declarations);
+            this.typeUses = new IdentityHashMap<>(elements.typeUses);
+            this.order = new ArrayList<>(elements.order);
+        }
+
+        /**
+         * @return {@code true}, если элемент добавлен, и {@code false}, если он уже был.
+         */
+        @Contract(mutates = "this")
+        private boolean putIfAbsent(@NotNull AnnotatedElement element, @NotNull AnnotationValues values) {
+            if (getMap(element).putIfAbsent(element, values) != null) {
+                return false;
+            }
+
+            order.add(element);
+            return true;
+        }
+
+        @Nullable
+        @Contract(pure = true)
+        private AnnotationValues get(@NotNull AnnotatedElement element) {
+            return getMap(element).get(element);
+        }
+
+        /**
+         * @return Неизменяемое множество элементов в порядке обнаружения.
+         */
+        @NotNull
+        @Contract(value = "-> new", pure = true)
+        private Set<AnnotatedElement> asSet() {
+            List<AnnotatedElement> elements = Collections.unmodifiableList(order);
+
+            return new AbstractSet<AnnotatedElement>() {
+                @Override
+                public Iterator<AnnotatedElement> iterator() {
+                    return elements.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return elements.size();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return o instanceof AnnotatedElement && get((AnnotatedElement) o) != null;
+                }
+            };
+        }
+
+        @NotNull
+        @Contract(pure = true)
+        private Map<AnnotatedElement, AnnotationValues> getMap(@NotNull AnnotatedElement element) {
+            return element instanceof AnnotatedType ? typeUses : declarations;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Значения атрибутов экземпляра аннотации, прочитанные один раз: чтение значения не вызывает методы прокси
+ * аннотации и не копирует массивы.
+ *
+ * <p>Массивы возвращаются без копирования, поэтому их нельзя изменять. Экземпляр неизменяем и
+ * потокобезопасен.</p>
+ */
+public final class AnnotationValues {
+    /**
+     * Методы атрибутов типа аннотации, открытые для вызова. Остальные объявленные методы, например, синтетические
+     * статические методы лямбд из инициализаторов констант или добавленные инструментированием, пропускаются.
+     */
+    private static final ClassValue<Method[]> ATTRIBUTES = new ClassValue<Method[]>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            List<Method> attributes = new ArrayList<>();
+
+            for (Method method : type.getDeclaredMethods()) {
+                if (!isAttribute(method)) {
+                    continue;
+                }
+
+                try {
+                    method.setAccessible(true);
+                } catch (RuntimeException ignored) {
+                    // публичные атрибуты экспортированных аннотаций вызываются и без этого
+                }
+
+                attributes.add(method);
+            }
+
+            return attributes.toArray(new Method[0]);
+        }
+    };
+
+    private final Annotation annotation;
+    private final Map<String, Object> values;
+
+    /**
+     * @throws RuntimeException если значения атрибутов не удалось прочитать.
+     */
+    public AnnotationValues(final @NotNull Annotation annotation) {
+        this.annotation = annotation;
+        this.values = new LinkedHashMap<>();
+
+        for (Method attribute : ATTRIBUTES.get(annotation.annotationType())) {
+            try {
+                values.put(attribute.getName(), attribute.invoke(annotation));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException("Failed to read annotation attribute: " + annotation.annotationType().getName() + "." + attribute.getName(), e);
+            }
+        }
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public Annotation getAnnotation() {
+        return annotation;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public Class<? extends Annotation> getAnnotationType() {
+        return annotation.annotationType();
+    }
+
+    /**
+     * @param name Имя атрибута.
+     * @return Значение атрибута; примитивы возвращаются в обертках.
+     * @throws IllegalArgumentException если у аннотации нет такого атрибута.
+     */
+    @NotNull
+    @Contract(pure = true)
+    @SuppressWarnings("unchecked")
+    public <V> V get(@NotNull String name) {
+        Object value = values.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown attribute: " + getAnnotationType().getName() + "." + name);
+        }
+
+        return (V) value;
+    }
+
+    /**
+     * @return Значения атрибутов по именам.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Map<String, Object> asMap() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    @Override
+    public String toString() {
+        return "@" + getAnnotationType().getName() + values;
+    }
+
+    @Contract(pure = true)
+    private static boolean isAttribute(@NotNull Method method) {
+        return Modifier.isAbstract(method.getModifiers()) && !method.isSynthetic() && method.getParameterCount() == 0;
+    }
+}
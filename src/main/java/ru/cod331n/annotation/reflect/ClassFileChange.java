@@ -0,0 +1,43 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Изменение class-файла, обнаруженное {@link ClassFileWatcher}.
+ */
+public final class ClassFileChange {
+    private final String className;
+    private final Kind kind;
+
+    public ClassFileChange(final @NotNull String className, final @NotNull Kind kind) {
+        this.className = className;
+        this.kind = kind;
+    }
+
+    /**
+     * @return Бинарное имя класса.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getClassName() {
+        return className;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public Kind getKind() {
+        return kind;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + className;
+    }
+
+    public enum Kind {
+        ADDED,
+        MODIFIED,
+        REMOVED
+    }
+}
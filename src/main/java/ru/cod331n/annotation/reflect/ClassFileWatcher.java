@@ -0,0 +1,268 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Отслеживает добавление, изменение и удаление class-файлов в каталогах пакетов через {@link WatchService}.
+ *
+ * <p>События собираются в пакеты: после первого события наблюдатель ждет, пока каталоги не перестанут
+ * меняться в течение {@link #QUIET_PERIOD_MILLIS} миллисекунд, чтобы результат одной компиляции пришел одним
+ * пакетом изменений. Новые подкаталоги начинают отслеживаться автоматически. Получатель вызывается в отдельном
+ * потоке-демоне.</p>
+ */
+public final class ClassFileWatcher implements Closeable {
+    public static final long QUIET_PERIOD_MILLIS = 200;
+
+    private final WatchService watchService;
+    private final Map<WatchKey, WatchedDirectory> directories = new HashMap<>();
+    private final Map<String, Path> knownClasses = new HashMap<>();
+    private final Consumer<List<ClassFileChange>> listener;
+    private final Thread thread;
+
+    /**
+     * @param packageDirectories Каталоги пакетов и имена соответствующих им пакетов.
+     * @param listener           Получатель изменений.
+     * @throws IOException при ошибке регистрации каталогов.
+     */
+    public ClassFileWatcher(final @NotNull Map<Path, String> packageDirectories, final @NotNull Consumer<List<ClassFileChange>> listener) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.listener = listener;
+        this.thread = new Thread(this::watch, "annotation-class-file-watcher");
+        this.thread.setDaemon(true);
+
+        try {
+            for (Map.Entry<Path, String> entry : packageDirectories.entrySet()) {
+                register(entry.getKey(), entry.getValue(), null);
+            }
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Запускает поток наблюдения.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Останавливает наблюдение; получатель больше не вызывается.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new LinkedHashSet<>();
+                Map<String, ClassFileChange.Kind> changes = new LinkedHashMap<>();
+
+                @Nullable WatchKey key = watchService.take();
+                while (key != null) {
+                    poll(key, changed, changes);
+                    key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                changed.forEach(path -> classify(path, changes));
+                if (!changes.isEmpty()) {
+                    List<ClassFileChange> batch = new ArrayList<>(changes.size());
+                    changes.forEach((className, kind) -> batch.add(new ClassFileChange(className, kind)));
+
+                    notify(batch);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // наблюдение остановлено
+        }
+    }
+
+    private void poll(@NotNull WatchKey key, @NotNull Set<Path> changed, @NotNull Map<String, ClassFileChange.Kind> changes) {
+        @Nullable WatchedDirectory directory = directories.get(key);
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null) {
+                continue;
+            }
+
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                rescan(changed);
+                continue;
+            }
+
+            Path path = directory.path.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    register(path, directory.packageName + '.' + path.getFileName(), changes);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to watch directory: " + path, e);
+                }
+            } else if (path.toString().endsWith(ClassLoaderHelper.CLASS_FILE_NAME_EXTENSION)) {
+                changed.add(path);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                removeDirectory(directory.packageName + '.' + path.getFileName() + '.', changes);
+            }
+        }
+
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void classify(@NotNull Path path, @NotNull Map<String, ClassFileChange.Kind> changes) {
+        @Nullable String className = toClassName(path);
+        if (className == null) {
+            return;
+        }
+
+        boolean known = knownClasses.containsKey(className);
+
+        if (Files.isRegularFile(path)) {
+            knownClasses.put(className, path);
+            change(changes, className, known ? ClassFileChange.Kind.MODIFIED : ClassFileChange.Kind.ADDED);
+        } else if (known) {
+            knownClasses.remove(className);
+            change(changes, className, ClassFileChange.Kind.REMOVED);
+        }
+    }
+
+    /**
+     * Объединяет изменения одного класса внутри пакета: добавленный и затем измененный класс остается добавленным,
+     * добавленный и удаленный - не попадает в пакет, удаленный и снова добавленный считается измененным.
+     */
+    private static void change(@NotNull Map<String, ClassFileChange.Kind> changes, @NotNull String className, @NotNull ClassFileChange.Kind kind) {
+        @Nullable ClassFileChange.Kind previous = changes.get(className);
+
+        if (previous == ClassFileChange.Kind.ADDED && kind == ClassFileChange.Kind.REMOVED) {
+            changes.remove(className);
+        } else if (previous == ClassFileChange.Kind.ADDED) {
+            changes.put(className, ClassFileChange.Kind.ADDED);
+        } else if (previous == ClassFileChange.Kind.REMOVED && kind == ClassFileChange.Kind.ADDED) {
+            changes.put(className, ClassFileChange.Kind.MODIFIED);
+        } else {
+            changes.put(className, kind);
+        }
+    }
+
+    private void removeDirectory(@NotNull String packagePrefix, @NotNull Map<String, ClassFileChange.Kind> changes) {
+        Iterator<Map.Entry<String, Path>> iterator = knownClasses.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<String, Path> entry = iterator.next();
+
+            if (entry.getKey().startsWith(packagePrefix) && !Files.exists(entry.getValue())) {
+                iterator.remove();
+                change(changes, entry.getKey(), ClassFileChange.Kind.REMOVED);
+            }
+        }
+    }
+
+    private void rescan(@NotNull Set<Path> changed) {
+        changed.addAll(knownClasses.values());
+        directories.values().forEach(directory -> listClassFiles(directory.path).forEach(changed::add));
+    }
+
+    /**
+     * Регистрирует каталог и его подкаталоги. Class-файлы, появившиеся в новом каталоге до его регистрации,
+     * считаются добавленными; при начальной регистрации ({@code changes == null}) они только запоминаются.
+     */
+    private void register(@NotNull Path path, @NotNull String packageName, @Nullable Map<String, ClassFileChange.Kind> changes) throws IOException {
+        WatchKey key = path.register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE
+        );
+        directories.put(key, new WatchedDirectory(path, packageName));
+
+        for (Path file : listFiles(path)) {
+            String fileName = file.getFileName().toString();
+
+            if (Files.isDirectory(file)) {
+                register(file, packageName + '.' + fileName, changes);
+            } else if (fileName.endsWith(ClassLoaderHelper.CLASS_FILE_NAME_EXTENSION)) {
+                String className = packageName + '.' + fileName.substring(0, fileName.length() - ClassLoaderHelper.CLASS_FILE_NAME_EXTENSION.length());
+
+                if (knownClasses.put(className, file) == null && changes != null) {
+                    change(changes, className, ClassFileChange.Kind.ADDED);
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private String toClassName(@NotNull Path path) {
+        for (WatchedDirectory directory : directories.values()) {
+            if (directory.path.equals(path.getParent())) {
+                String fileName = path.getFileName().toString();
+                return directory.packageName + '.' + fileName.substring(0, fileName.length() - ClassLoaderHelper.CLASS_FILE_NAME_EXTENSION.length());
+            }
+        }
+
+        return null;
+    }
+
+    @NotNull
+    private static List<Path> listClassFiles(@NotNull Path directory) {
+        List<Path> classFiles = new ArrayList<>();
+
+        for (Path file : listFiles(directory)) {
+            if (file.toString().endsWith(ClassLoaderHelper.CLASS_FILE_NAME_EXTENSION)) {
+                classFiles.add(file);
+            }
+        }
+
+        return classFiles;
+    }
+
+    @NotNull
+    private static List<Path> listFiles(@NotNull Path directory) {
+        @Nullable File[] files = directory.toFile().listFiles();
+        List<Path> paths = new ArrayList<>();
+
+        if (files != null) {
+            Arrays.sort(files);
+            Arrays.stream(files).forEach(file -> paths.add(file.toPath()));
+        }
+
+        return paths;
+    }
+
+    private void notify(@NotNull List<ClassFileChange> changes) {
+        try {
+            listener.accept(changes);
+        } catch (RuntimeException e) {
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    private static final class WatchedDirectory {
+        private final Path path;
+        private final String packageName;
+
+        private WatchedDirectory(@NotNull Path path, @NotNull String packageName) {
+            this.path = path;
+            this.packageName = packageName;
+        }
+    }
+}
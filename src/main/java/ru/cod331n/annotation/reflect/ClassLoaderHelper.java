@@ -3,56 +3,662 @@ package ru.cod331n.annotation.reflect;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+import ru.cod331n.annotation.reflect.bytecode.ClassInfo;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileReader;
+import ru.cod331n.annotation.reflect.cache.PersistentScanCache;
+import ru.cod331n.annotation.reflect.cache.RootFingerprint;
+import ru.cod331n.annotation.reflect.index.AnnotationIndex;
+import ru.cod331n.annotation.reflect.jar.JarArchive;
+import ru.cod331n.annotation.reflect.jar.JarLocation;
 import ru.cod331n.util.cache.Cache;
-import ru.cod331n.util.cache.CacheHolder;
+import ru.cod331n.util.cache.CacheStats;
+import ru.cod331n.util.cache.ClassLoaderCache;
+import ru.cod331n.util.cache.ConcurrentCache;
+import ru.cod331n.util.concurrent.ParallelCollections;
 import ru.cod331n.util.validation.Preconditions;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
-import java.util.jar.JarFile;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Утилитарный класс для загрузки классов из заданного пакета.
  *
  * <p> Этот класс позволяет загружать все классы из указанного пакета, используя
- * класс загрузчика. Также кэширует результаты для повышения производительности. </p>
+ * класс загрузчика. Также кэширует результаты для повышения производительности: кэш общий для всех
+ * экземпляров, отдельный для каждого загрузчика и не удерживает ни загрузчики, ни загруженные ими классы.
+ * Запись пакета из каталога сверяется с отпечатком каталога ({@link RootFingerprint#ofDirectory(File)}) при каждом
+ * обращении, поэтому class-файлы, появившиеся или измененные после сканирования, находятся без сброса кэша. </p>
+ *
+ * <p> Помимо загрузки, позволяет прочитать сведения о классах пакета напрямую из байткода
+ * ({@link #getPackageClassInfos()}), не передавая их загрузчику классов. </p>
+ *
+ * <p> Если в настройках задан {@link ScanSettings#getExecutor()}, подкаталоги обходятся, а классы
+ * загружаются и читаются параллельно; порядок результатов при этом совпадает с последовательным обходом. </p>
+ *
+ * <p> Пакет может быть разделен между несколькими корнями classpath (каталогами и jar-файлами): сканируются все
+ * корни, найденные через {@link ClassLoader#getResources(String)}, каждый кэшируется отдельно. Корни обходятся
+ * по очереди в вызывающем потоке, а исполнителю передаются только задачи, которые не ждут других его задач,
+ * поэтому сканирование не блокирует исполнитель с любым числом потоков. {@link #getRoots()} возвращает помощники
+ * отдельных корней. Корни в jar-файлах, отброшенные {@link ScanFilter#acceptsJar(String)}, не сканируются; если
+ * отброшены все корни пакета, он сканируется как пустой. </p>
+ *
+ * <p> На Java 9 и новее корнями также становятся модули загрузочного слоя и слоев из
+ * {@link ScanSettings#getModuleLayerClasses()}, содержащие пакет ({@link ModuleScanner}):
+ * системные модули читаются из образа среды выполнения ({@code jrt:/}), а модули из jar-файлов и каталогов -
+ * так же, как корни classpath. </p>
  */
 public final class ClassLoaderHelper {
     public static final String CLASS_FILE_NAME_EXTENSION = ".class";
 
+    /**
+     * Простое имя класса, в котором компилятор сохраняет аннотации пакета.
+     */
+    public static final String PACKAGE_INFO_CLASS_NAME = "package-info";
+
+    /**
+     * Максимальное суммарное количество классов в кэше пакетов одного загрузчика.
+     */
+    public static final long MAX_CACHED_CLASSES = 100_000;
+
+    private static final ClassLoaderCache<String, LoadedClasses> PACKAGE_CACHE =
+            new ClassLoaderCache<>(() -> new ConcurrentCache<>(MAX_CACHED_CLASSES, LoadedClasses::size));
+
+    private static final ModuleScanner MODULE_SCANNER = ModuleScanner.get();
+
     private final ClassLoader classLoader;
     private final String packageName;
+    private final List<URL> packageUrls;
     private final URL packageUrl;
-    private final Cache<String, Collection<Class<?>>> packageCache;
+    private final Cache<String, LoadedClasses> packageCache;
+    private final ScanSettings settings;
 
     public ClassLoaderHelper(final @NotNull String packageName, final @Nullable ClassLoader classLoader) {
-        this.classLoader = classLoader == null ? ClassLoader.getSystemClassLoader() : classLoader;
+        this(packageName, classLoader, ScanSettings.defaults());
+    }
+
+    /**
+     * @throws IllegalArgumentException если загрузчик не нашел ни одного корня пакета.
+     */
+    public ClassLoaderHelper(final @NotNull String packageName, final @Nullable ClassLoader classLoader, final @NotNull ScanSettings settings) {
+        this(
+                packageName.replaceAll("/", "."),
+                classLoader == null ? ClassLoader.getSystemClassLoader() : classLoader,
+                settings,
+                null
+        );
+    }
+
+    private ClassLoaderHelper(final @NotNull String packageName, final @NotNull ClassLoader classLoader, final @NotNull ScanSettings settings, final @Nullable URL packageUrl) {
+        this.settings = settings;
+        this.classLoader = classLoader;
+
+        this.packageName = packageName;
+        this.packageUrls = packageUrl == null ? findPackageUrls(classLoader, packageName, settings) : Collections.singletonList(packageUrl);
+        this.packageCache = PACKAGE_CACHE.forClassLoader(classLoader);
+        this.packageUrl = packageUrls.isEmpty() ? null : packageUrls.get(0);
+    }
+
+    /**
+     * Возвращает помощники отдельных корней classpath, содержащих пакет, в порядке загрузчика классов.
+     *
+     * @return Помощники корней; для пакета из одного корня - список из этого помощника, для пакета, все корни
+     * которого отброшены фильтром, - пустой список.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<ClassLoaderHelper> getRoots() {
+        if (packageUrls.size() == 1) {
+            return Collections.singletonList(this);
+        }
+
+        List<ClassLoaderHelper> roots = new ArrayList<>(packageUrls.size());
+        packageUrls.forEach(url -> roots.add(new ClassLoaderHelper(packageName, classLoader, settings, url)));
+
+        return roots;
+    }
+
+    /**
+     * @return URL корня пакета; для пакета из нескольких корней - первого из них, для пакета, все корни которого
+     * отброшены фильтром, - {@code null}.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public URL getPackageUrl() {
+        return packageUrl;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * @return Каталог пакета, если его корень - каталог файловой системы, иначе {@code null}; для пакета из
+     * нескольких корней - каталог первого из них.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public Path getPackageDirectory() {
+        return packageUrl != null && "file".equals(packageUrl.getProtocol()) ? new File(packageUrl.getPath()).toPath() : null;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public Collection<Class<?>> getPackageClasses() {
+        if (packageUrls.size() != 1) {
+            return mapRoots(ClassLoaderHelper::getPackageClasses).stream().distinct().collect(Collectors.toList());
+        }
+
+        String key = getCacheKey(packageUrl.toExternalForm());
+        long fingerprint = getPackageFingerprint();
+
+        LoadedClasses loaded = packageCache.computeIfAbsent(key, ignored -> new LoadedClasses(loadPackageClasses(), fingerprint));
+        @Nullable List<Class<?>> classes = loaded.fingerprint == fingerprint ? loaded.get() : null;
+
+        if (classes == null) {
+            classes = loadPackageClasses();
+            packageCache.put(key, new LoadedClasses(classes, fingerprint));
+        }
+
+        return classes;
+    }
+
+    /**
+     * @return Суммарная статистика кэша загруженных классов пакетов по всем загрузчикам.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public static CacheStats getPackageCacheStats() {
+        return PACKAGE_CACHE.getStats();
+    }
+
+    /**
+     * Сбрасывает кэш загруженных классов пакетов указанного загрузчика, например, после изменения его classpath.
+     *
+     * @param classLoader Загрузчик классов.
+     */
+    public static void invalidatePackageCache(@NotNull ClassLoader classLoader) {
+        PACKAGE_CACHE.invalidate(classLoader);
+    }
+
+    /**
+     * Возвращает отпечаток каталога пакета, по которому проверяется запись кэша загруженных классов. Содержимое
+     * jar-файлов и образа среды выполнения загрузчик не перечитывает, поэтому их записи не проверяются.
+     */
+    private long getPackageFingerprint() {
+        @Nullable Path directory = getPackageDirectory();
+        return directory == null ? 0 : RootFingerprint.ofDirectory(directory.toFile());
+    }
+
+    @NotNull
+    private List<Class<?>> loadPackageClasses() {
+        return mapClassFiles((className, source) -> loadClass(className));
+    }
+
+    /**
+     * Читает сведения обо всех классах пакета из их байткода, не загружая сами классы.
+     *
+     * <p>Если задан {@link ScanSettings#getPersistentCache()}, сведения берутся из него, пока отпечаток
+     * корня пакета не изменился, а после чтения байткода сохраняются в него; файл кэша записывается один раз,
+     * после обхода всех корней пакета.</p>
+     *
+     * @return Сведения о классах в порядке обхода пакета.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<ClassFileInfo> getPackageClassInfos() {
+        Collection<ClassFileInfo> infos = collectPackageClassInfos();
+
+        @Nullable PersistentScanCache persistentCache = settings.getPersistentCache();
+        Preconditions.check(persistentCache != null, () -> persistentCache.flush());
+
+        return infos;
+    }
+
+    /**
+     * То же, что {@link #getPackageClassInfos()}, но не записывает {@link ScanSettings#getPersistentCache()} на диск:
+     * при сканировании нескольких корней файл кэша записывается один раз, после обхода всех корней.
+     */
+    @NotNull
+    @Contract(pure = true)
+    Collection<ClassFileInfo> collectPackageClassInfos() {
+        if (packageUrls.size() != 1) {
+            return mapRoots(ClassLoaderHelper::collectPackageClassInfos);
+        }
+
+        @Nullable PersistentScanCache persistentCache = settings.getPersistentCache();
+        if (persistentCache == null) {
+            return readPackageClassInfos();
+        }
+
+        String root = getCacheKey(getRootName());
+        long fingerprint = getRootFingerprint();
+
+        @Nullable Collection<ClassFileInfo> cached = persistentCache.get(root, fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+
+        Collection<ClassFileInfo> infos = readPackageClassInfos();
+        persistentCache.put(root, fingerprint, infos);
+
+        return infos;
+    }
+
+    /**
+     * Возвращает сведения о классах пакета, беря их из индекса аннотаций корня и читая байткод только тех
+     * class-файлов, которых в индексе нет: анонимных и локальных классов, классов, собранных без процессора индекса
+     * или после него. Записи индекса, для которых в корне нет class-файла, отбрасываются.
+     *
+     * @param index Индекс аннотаций корня пакета ({@link #getAnnotationIndex()}).
+     * @return Сведения о классах в порядке обхода пакета.
+     * @throws IllegalStateException если пакет найден в нескольких корнях.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<ClassFileInfo> getPackageClassInfos(@NotNull AnnotationIndex index) {
+        Preconditions.checkAndThrow(
+                packageUrls.size() > 1,
+                () -> new IllegalStateException("Package is split across several roots, read the index per root: " + packageName)
+        );
+
+        if (packageUrls.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return mapClassFiles((className, source) -> {
+            @Nullable ClassFileInfo info = index.getClassInfo(className);
+            return info != null ? info : readClassFile(className, source);
+        });
+    }
+
+    @NotNull
+    private Collection<ClassFileInfo> readPackageClassInfos() {
+        return mapClassFiles(this::readClassFile);
+    }
+
+    /**
+     * Читает из байткода сведения только о {@code package-info} пакета и его подпакетов, не загружая классы
+     * и не читая остальные class-файлы.
+     *
+     * @return Сведения о {@code package-info} в порядке обхода пакета.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<ClassFileInfo> getPackageInfoClassInfos() {
+        if (packageUrls.size() != 1) {
+            return mapRoots(ClassLoaderHelper::getPackageInfoClassInfos);
+        }
+
+        return mapClassFiles(ClassLoaderHelper::isPackageInfo, this::readClassFile);
+    }
+
+    /**
+     * @return {@code true}, если бинарное имя принадлежит классу {@code package-info}.
+     */
+    @Contract(pure = true)
+    public static boolean isPackageInfo(@NotNull String className) {
+        return className.endsWith('.' + PACKAGE_INFO_CLASS_NAME);
+    }
+
+    @NotNull
+    private ClassFileInfo readClassFile(@NotNull String className, @NotNull ClassFileSource source) {
+        try {
+            ByteBuffer buffer = source.read();
+            settings.getListener().classFileRead(className, buffer.remaining());
+
+            return ClassFileReader.read(buffer);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new RuntimeException("Failed to read class file: " + className, e);
+        }
+    }
+
+    /**
+     * Читает индекс аннотаций, записанный во время компиляции в тот же корень classpath, в котором найден пакет.
+     * Индекс относится к одному корню, поэтому для пакета из нескольких корней его нужно читать через {@link #getRoots()}.
+     *
+     * @return Индекс, ограниченный классами пакета, либо {@code null}, если корень пакета не содержит индекса или
+     * отброшен фильтром.
+     * @throws IllegalStateException если пакет найден в нескольких корнях.
+     */
+    @Nullable
+    public AnnotationIndex getAnnotationIndex() {
+        Preconditions.checkAndThrow(
+                packageUrls.size() > 1,
+                () -> new IllegalStateException("Package is split across several roots, read the index per root: " + packageName)
+        );
+
+        if (packageUrl == null) {
+            return null;
+        }
+
+        try {
+            switch (packageUrl.getProtocol()) {
+                case "jar":
+                    return getAnnotationIndexFromJar();
+                case "jrt":
+                    return getAnnotationIndexFromModule();
+                default:
+                    return getAnnotationIndexFromUrl();
+            }
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read annotation index for package: " + packageName, e);
+        }
+    }
+
+    @Nullable
+    private AnnotationIndex getAnnotationIndexFromUrl() throws IOException {
+        String packageUrl = this.packageUrl.toExternalForm();
+        int packagePathIndex = packageUrl.lastIndexOf(packageName.replace('.', '/'));
+
+        if (packagePathIndex < 0) {
+            return null;
+        }
+
+        URLConnection connection = new URL(packageUrl.substring(0, packagePathIndex) + AnnotationIndex.RESOURCE_NAME).openConnection();
+        connection.setUseCaches(false);
+
+        try (InputStream inputStream = connection.getInputStream()) {
+            return AnnotationIndex.read(inputStream, packageName);
+        }
+    }
+
+    @Nullable
+    private AnnotationIndex getAnnotationIndexFromJar() throws IOException {
+        try (JarLocation.Root root = JarLocation.parse(packageUrl).open()) {
+            @Nullable JarArchive.Entry entry = root.getArchive().getEntry(root.getPrefix() + AnnotationIndex.RESOURCE_NAME);
+
+            if (entry == null) {
+                return null;
+            }
+
+            ByteBuffer buffer = root.getArchive().read(entry);
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+
+            return AnnotationIndex.read(new ByteArrayInputStream(bytes), packageName);
+        }
+    }
+
+    @Nullable
+    private AnnotationIndex getAnnotationIndexFromModule() throws IOException {
+        try (ModuleScanner.ModuleContents contents = MODULE_SCANNER.open(packageUrl)) {
+            @Nullable ByteBuffer buffer = contents.read(AnnotationIndex.RESOURCE_NAME);
+
+            if (buffer == null) {
+                return null;
+            }
+
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+
+            return AnnotationIndex.read(new ByteArrayInputStream(bytes), packageName);
+        }
+    }
+
+    @NotNull
+    public Class<?> loadClass(@NotNull String className) {
+        try {
+            long start = System.nanoTime();
+            Class<?> clazz = classLoader.loadClass(className);
+            settings.getListener().classLoaded(className, System.nanoTime() - start);
+
+            return clazz;
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Class not found: " + className, e);
+        }
+    }
+
+    /**
+     * Загружает классы с указанными именами, параллельно, если задан {@link ScanSettings#getExecutor()}.
+     *
+     * @param classNames Бинарные имена классов.
+     * @return Классы в порядке переданных имен.
+     */
+    @NotNull
+    public List<Class<?>> loadClasses(@NotNull Collection<String> classNames) {
+        return ParallelCollections.map(classNames, this::loadClass, settings.getExecutor());
+    }
 
-        this.packageName = packageName.replaceAll("/", ".");
-        this.packageUrl = this.classLoader.getResource(packageName.replaceAll("\\.", "/"));
-        this.packageCache = new CacheHolder();
+    /**
+     * Читает полное описание класса из байткода, найденного загрузчиком, не загружая сам класс.
+     *
+     * @param className Бинарное имя класса.
+     * @return Описание класса, загружающее его по запросу тем же загрузчиком.
+     */
+    @NotNull
+    public ClassInfo readClassInfo(@NotNull String className) {
+        return readClassInfo(className, classLoader, settings.getListener());
+    }
+
+    /**
+     * Читает полное описание класса из байткода, найденного указанным загрузчиком, не загружая сам класс.
+     *
+     * @param className   Бинарное имя класса.
+     * @param classLoader Загрузчик классов.
+     * @return Описание класса, загружающее его по запросу тем же загрузчиком.
+     */
+    @NotNull
+    public static ClassInfo readClassInfo(@NotNull String className, @NotNull ClassLoader classLoader) {
+        return readClassInfo(className, classLoader, ScanListener.NONE);
+    }
+
+    @NotNull
+    private static ClassInfo readClassInfo(@NotNull String className, @NotNull ClassLoader classLoader, @NotNull ScanListener listener) {
+        String resourceName = className.replace('.', '/') + CLASS_FILE_NAME_EXTENSION;
+
+        try (InputStream inputStream = classLoader.getResourceAsStream(resourceName)) {
+            if (inputStream == null) {
+                throw new FileNotFoundException(resourceName);
+            }
+
+            byte[] bytes = ClassFileReader.readAllBytes(inputStream);
+            listener.classFileRead(className, bytes.length);
+
+            return ClassFileReader.readClassInfo(ByteBuffer.wrap(bytes), classLoader);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new RuntimeException("Failed to read class file: " + className, e);
+        }
+    }
+
+    /**
+     * Читает заголовок класса из байткода, найденного загрузчиком, не загружая сам класс.
+     *
+     * @param className Бинарное имя класса.
+     * @return Сведения о классе, либо {@code null}, если загрузчик не нашел его class-файл.
+     */
+    @Nullable
+    public ClassFileInfo readClassFileInfo(@NotNull String className) {
+        String resourceName = className.replace('.', '/') + CLASS_FILE_NAME_EXTENSION;
+
+        try (InputStream inputStream = classLoader.getResourceAsStream(resourceName)) {
+            if (inputStream == null) {
+                return null;
+            }
+
+            byte[] bytes = ClassFileReader.readAllBytes(inputStream);
+            settings.getListener().classFileRead(className, bytes.length);
+
+            return ClassFileReader.read(ByteBuffer.wrap(bytes));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new RuntimeException("Failed to read class file: " + className, e);
+        }
+    }
+
+    /**
+     * Читает описания классов с указанными именами, параллельно, если задан {@link ScanSettings#getExecutor()}.
+     *
+     * @param classNames Бинарные имена классов.
+     * @return Описания в порядке переданных имен.
+     */
+    @NotNull
+    public List<ClassInfo> readClassInfos(@NotNull Collection<String> classNames) {
+        return ParallelCollections.map(classNames, this::readClassInfo, settings.getExecutor());
+    }
+
+    /**
+     * Выполняет функцию для каждого корня пакета в вызывающем потоке и объединяет результаты в порядке корней.
+     * Функция сама ждет параллельных задач корня, поэтому ее нельзя запускать задачей того же исполнителя.
+     */
+    @NotNull
+    private <R> List<R> mapRoots(@NotNull Function<ClassLoaderHelper, Collection<R>> function) {
+        List<R> results = new ArrayList<>();
+        getRoots().forEach(root -> results.addAll(function.apply(root)));
+
+        return results;
+    }
+
+    /**
+     * @param settings Настройки: слои модулей и отбор корней в jar-файлах по имени jar-файла; отброшенные
+     *                 jar-файлы не открываются.
+     * @return Принятые корни; пустой список, если фильтр отбросил все корни.
+     * @throws IllegalArgumentException если загрузчик не нашел ни одного корня пакета.
+     */
+    @NotNull
+    private static List<URL> findPackageUrls(@NotNull ClassLoader classLoader, @NotNull String packageName, @NotNull ScanSettings settings) {
+        Map<String, URL> urls = new LinkedHashMap<>();
+
+        try {
+            Enumeration<URL> resources = classLoader.getResources(packageName.replace('.', '/'));
+
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                urls.putIfAbsent(getRootKey(url), url);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to find package roots: " + packageName, e);
+        }
+
+        // пакеты именованных модулей загрузчик ресурсами не отдает
+        MODULE_SCANNER.findPackageRoots(classLoader, packageName, settings.getModuleLayerClasses()).forEach(url -> urls.putIfAbsent(getRootKey(url), url));
 
         Preconditions.checkAndThrow(
-                packageUrl == null,
+                urls.isEmpty(),
                 () -> new IllegalArgumentException("Package not found or empty: " + packageName)
         );
+
+        List<URL> accepted = new ArrayList<>(urls.size());
+        urls.values().forEach(url -> Preconditions.check(!"jar".equals(url.getProtocol()) || settings.getFilter().acceptsJar(getJarName(url)), () -> accepted.add(url)));
+
+        return accepted;
     }
 
+    /**
+     * @return Имя самого внутреннего jar-файла корня: последней вложенной записи-jar-файла либо внешнего файла.
+     */
     @NotNull
     @Contract(pure = true)
-    public Collection<Class<?>> getPackageClasses() {
+    private static String getJarName(@NotNull URL url) {
+        JarLocation location = JarLocation.parse(url);
+        List<String> nestedEntries = location.getNestedEntries();
+
+        for (int i = nestedEntries.size() - 1; i >= 0; i--) {
+            String entry = nestedEntries.get(i);
+            if (entry.endsWith(".jar")) {
+                return entry.substring(entry.lastIndexOf('/') + 1);
+            }
+        }
+
+        return location.getFile().getName();
+    }
+
+    /**
+     * Отделяет записи кэшей, полученные с разными {@link ScanSettings#getFilter()}.
+     */
+    @NotNull
+    @Contract(pure = true)
+    private String getCacheKey(@NotNull String key) {
+        ScanFilter filter = settings.getFilter();
+        return filter.isAll() ? key : key + '#' + filter;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private static String getRootKey(@NotNull URL url) {
+        String externalForm = url.toExternalForm();
+        return externalForm.endsWith("/") ? externalForm.substring(0, externalForm.length() - 1) : externalForm;
+    }
+
+    /**
+     * Возвращает идентификатор корня пакета для {@link PersistentScanCache}: каталог пакета либо путь к пакету внутри
+     * jar-файла или модуля образа среды выполнения.
+     */
+    @NotNull
+    private String getRootName() {
+        switch (packageUrl.getProtocol()) {
+            case "jar":
+                return JarLocation.parse(packageUrl) + "!/" + packageName.replace('.', '/');
+            case "jrt":
+                return getRootKey(packageUrl);
+            default:
+                return new File(packageUrl.getPath()).getAbsolutePath();
+        }
+    }
+
+    private long getRootFingerprint() {
+        try {
+            switch (packageUrl.getProtocol()) {
+                case "jar":
+                    return RootFingerprint.ofJar(JarLocation.parse(packageUrl).getFile());
+                case "jrt":
+                    return RootFingerprint.ofRuntimeImage();
+                default:
+                    return RootFingerprint.ofDirectory(new File(packageUrl.getPath()));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to fingerprint package root: " + packageUrl, e);
+        }
+    }
+
+    @NotNull
+    private <R> List<R> mapClassFiles(@NotNull ClassFileMapper<R> mapper) {
+        return mapClassFiles(className -> true, mapper);
+    }
+
+    /**
+     * @param filter Отбор class-файлов по бинарному имени класса до их чтения.
+     */
+    @NotNull
+    private <R> List<R> mapClassFiles(@NotNull Predicate<String> filter, @NotNull ClassFileMapper<R> mapper) {
         try {
+            long start = System.nanoTime();
+
             switch (packageUrl.getProtocol()) {
                 case "file":
-                    Collection<Class<?>> classes = getPackageClasses(new File(packageUrl.getPath()), packageName);
-                    packageCache.put(packageName, classes);
-                    return classes;
+                    return mapClassFiles(listed(listClassFiles(new File(packageUrl.getPath()), packageName), start), filter, mapper);
                 case "jar":
-                    return getPackageClassesFromJar(packageUrl, packageName);
+                    try (JarLocation.Root root = JarLocation.parse(packageUrl).open()) {
+                        return mapClassFiles(listed(listClassFilesFromJar(root, packageName), start), filter, mapper);
+                    }
+                case "jrt":
+                    try (ModuleScanner.ModuleContents contents = MODULE_SCANNER.open(packageUrl)) {
+                        return mapClassFiles(listed(listClassFilesFromModule(contents, packageName), start), filter, mapper);
+                    }
                 default:
                     throw new IllegalArgumentException("Unsupported protocol: " + packageUrl.getProtocol());
             }
@@ -62,33 +668,142 @@ public final class ClassLoaderHelper {
     }
 
     @NotNull
-    @Contract(pure = true)
-    private Collection<Class<?>> getPackageClassesFromJar(@NotNull URL resource, @NotNull String packageName) throws IOException {
-        Collection<Class<?>> classes = new ArrayList<>();
-        String jarPath = resource.getPath().substring(5, resource.getPath().indexOf("!"));
+    private List<ClassFileEntry> listed(@NotNull List<ClassFileEntry> entries, long start) {
+        settings.getListener().classFilesListed(packageName, packageUrl, entries.size(), System.nanoTime() - start);
+        return entries;
+    }
+
+    @NotNull
+    private <R> List<R> mapClassFiles(@NotNull List<ClassFileEntry> entries, @NotNull Predicate<String> filter, @NotNull ClassFileMapper<R> mapper) {
+        List<ClassFileEntry> selected = new ArrayList<>(entries.size());
+        entries.forEach(entry -> Preconditions.check(filter.test(entry.className), () -> selected.add(entry)));
+
+        return ParallelCollections.map(selected, entry -> mapper.map(entry.className, entry.source), settings.getExecutor());
+    }
+
+    /**
+     * Отбирает class-файлы пакета по центральному каталогу jar-файла, не распаковывая остальные записи.
+     */
+    @NotNull
+    private List<ClassFileEntry> listClassFilesFromJar(@NotNull JarLocation.Root root, @NotNull String packageName) {
+        JarArchive archive = root.getArchive();
+        int prefixLength = root.getPrefix().length();
 
-        try (JarFile jarFile = new JarFile(jarPath)) {
-            jarFile.stream().filter(entry -> entry.getName().startsWith(packageName.replace(".", "/")))
-                    .forEach(entry -> {
-                        if (entry.getName().endsWith(CLASS_FILE_NAME_EXTENSION)) {
-                            String className = entry.getName().replace("/", ".").substring(0, entry.getName().length() - CLASS_FILE_NAME_EXTENSION.length());
-                            try {
-                                classes.add(classLoader.loadClass(className));
-                            } catch (ClassNotFoundException e) {
-                                throw new RuntimeException("Class not found in JAR file: " + className, e);
-                            }
-                        }
-                    });
+        ScanFilter filter = settings.getFilter();
+        List<ClassFileEntry> entries = new ArrayList<>();
 
-            return classes;
+        for (JarArchive.Entry entry : archive.list(root.getPrefix() + packageName.replace('.', '/') + '/', CLASS_FILE_NAME_EXTENSION)) {
+            String name = entry.getName();
+            String className = name.substring(prefixLength, name.length() - CLASS_FILE_NAME_EXTENSION.length()).replace('/', '.');
+
+            if (filter.acceptsClass(className)) {
+                entries.add(new ClassFileEntry(className, () -> archive.read(entry)));
+            }
         }
+
+        return entries;
     }
 
+    /**
+     * Отбирает class-файлы пакета по списку ресурсов модуля; содержимое читается только при обработке записи.
+     */
     @NotNull
-    @Contract(pure = true)
-    private Collection<Class<?>> getPackageClasses(@NotNull File directory, @NotNull String packageName) {
-        Collection<Class<?>> collection = new LinkedList<>();
+    private List<ClassFileEntry> listClassFilesFromModule(@NotNull ModuleScanner.ModuleContents contents, @NotNull String packageName) throws IOException {
+        ScanFilter filter = settings.getFilter();
+        List<ClassFileEntry> entries = new ArrayList<>();
+
+        for (String name : contents.listClassFiles(packageName)) {
+            String className = name.substring(0, name.length() - CLASS_FILE_NAME_EXTENSION.length()).replace('/', '.');
+
+            if (!filter.acceptsClass(className)) {
+                continue;
+            }
+
+            entries.add(new ClassFileEntry(className, () -> {
+                @Nullable ByteBuffer buffer = contents.read(name);
+                if (buffer == null) {
+                    throw new FileNotFoundException("Class file not found in module: " + name);
+                }
+
+                return buffer;
+            }));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Обходит каталог пакета, не заходя в подкаталоги, в которых {@link ScanSettings#getFilter()} не пропустит
+     * ни одного класса.
+     */
+    @NotNull
+    private List<ClassFileEntry> listClassFiles(@NotNull File directory, @NotNull String packageName) {
+        @Nullable Executor executor = settings.getExecutor();
+
+        if (!settings.getFilter().mayContainAccepted(packageName)) {
+            return new ArrayList<>();
+        }
+
+        return executor == null
+                ? listClassFiles(directory, packageName, new ArrayList<>())
+                : ParallelCollections.join(listClassFilesAsync(directory, packageName, executor));
+    }
 
+    @NotNull
+    private List<ClassFileEntry> listClassFiles(@NotNull File directory, @NotNull String packageName, @NotNull List<ClassFileEntry> entries) {
+        for (File file : listFiles(directory)) {
+            String fileName = file.getName();
+
+            if (file.isDirectory()) {
+                String subpackageName = packageName + '.' + fileName;
+                Preconditions.check(settings.getFilter().mayContainAccepted(subpackageName), () -> listClassFiles(file, subpackageName, entries));
+            } else if (fileName.endsWith(CLASS_FILE_NAME_EXTENSION)) {
+                addClassFileEntry(entries, file, packageName);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Обходит каталог, запуская обход каждого подкаталога отдельной задачей. Задачи не блокируют друг друга:
+     * результаты подкаталогов объединяются по мере готовности в порядке файлов каталога.
+     */
+    @NotNull
+    private CompletableFuture<List<ClassFileEntry>> listClassFilesAsync(@NotNull File directory, @NotNull String packageName, @NotNull Executor executor) {
+        return CompletableFuture.supplyAsync(() -> listFiles(directory), executor).thenCompose(files -> {
+            List<CompletableFuture<List<ClassFileEntry>>> parts = new ArrayList<>();
+            List<ClassFileEntry> classFiles = new ArrayList<>();
+
+            for (File file : files) {
+                String fileName = file.getName();
+
+                if (file.isDirectory()) {
+                    String subpackageName = packageName + '.' + fileName;
+
+                    if (settings.getFilter().mayContainAccepted(subpackageName)) {
+                        parts.add(CompletableFuture.completedFuture(classFiles));
+                        parts.add(listClassFilesAsync(file, subpackageName, executor));
+                        classFiles = new ArrayList<>();
+                    }
+                } else if (fileName.endsWith(CLASS_FILE_NAME_EXTENSION)) {
+                    addClassFileEntry(classFiles, file, packageName);
+                }
+            }
+
+            parts.add(CompletableFuture.completedFuture(classFiles));
+
+            return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+                List<ClassFileEntry> entries = new ArrayList<>();
+                parts.forEach(part -> entries.addAll(part.join()));
+
+                return entries;
+            });
+        });
+    }
+
+    @NotNull
+    private static File[] listFiles(@NotNull File directory) {
         Preconditions.checkAndThrow(
                 !directory.isDirectory(),
                 () -> new IllegalArgumentException("Provided path is not a directory: " + directory.getPath())
@@ -100,31 +815,80 @@ public final class ClassLoaderHelper {
                 () -> new IllegalArgumentException("Unable to list files in directory: " + directory.getPath())
         );
 
-        for (File file : files) {
-            String fileName = file.getName();
+        return files;
+    }
 
-            Preconditions.check(
-                    file.isDirectory(),
-                    () -> {
-                        String subPackageName = packageName + '.' + fileName;
-                        collection.addAll(getPackageClasses(file, subPackageName));
-                    }
-            );
-
-            Preconditions.check(
-                    fileName.endsWith(CLASS_FILE_NAME_EXTENSION),
-                    () -> {
-                        String className = packageName + '.' + fileName.substring(0, fileName.length() - CLASS_FILE_NAME_EXTENSION.length());
-                        try {
-                            Class<?> clazz = classLoader.loadClass(className);
-                            collection.add(clazz);
-                        } catch (ClassNotFoundException e) {
-                            throw new RuntimeException("Class not found: " + className, e);
-                        }
-                    }
-            );
+    /**
+     * Добавляет class-файл каталога, если класс проходит {@link ScanSettings#getFilter()}; файл читается только
+     * при обработке записи.
+     */
+    private void addClassFileEntry(@NotNull List<ClassFileEntry> entries, @NotNull File file, @NotNull String packageName) {
+        String fileName = file.getName();
+        String className = packageName + '.' + fileName.substring(0, fileName.length() - CLASS_FILE_NAME_EXTENSION.length());
+
+        if (settings.getFilter().acceptsClass(className)) {
+            entries.add(new ClassFileEntry(className, () -> ByteBuffer.wrap(Files.readAllBytes(file.toPath()))));
         }
+    }
 
-        return collection;
+    /**
+     * Источник содержимого class-файла, открываемый только по требованию.
+     */
+    @FunctionalInterface
+    private interface ClassFileSource {
+        @NotNull
+        ByteBuffer read() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ClassFileMapper<R> {
+        R map(@NotNull String className, @NotNull ClassFileSource source);
+    }
+
+    /**
+     * Классы пакета, удерживаемые по слабым ссылкам, чтобы кэш не препятствовал выгрузке загрузчика.
+     */
+    private static final class LoadedClasses {
+        private final List<WeakReference<Class<?>>> classes;
+        private final long fingerprint;
+
+        private LoadedClasses(@NotNull List<Class<?>> classes, long fingerprint) {
+            this.fingerprint = fingerprint;
+            this.classes = new ArrayList<>(classes.size());
+            classes.forEach(clazz -> this.classes.add(new WeakReference<>(clazz)));
+        }
+
+        /**
+         * @return Классы пакета, либо {@code null}, если хотя бы один из них уже выгружен.
+         */
+        @Nullable
+        private List<Class<?>> get() {
+            List<Class<?>> result = new ArrayList<>(classes.size());
+
+            for (WeakReference<Class<?>> reference : classes) {
+                @Nullable Class<?> clazz = reference.get();
+                if (clazz == null) {
+                    return null;
+                }
+
+                result.add(clazz);
+            }
+
+            return result;
+        }
+
+        private long size() {
+            return classes.size();
+        }
+    }
+
+    private static final class ClassFileEntry {
+        private final String className;
+        private final ClassFileSource source;
+
+        private ClassFileEntry(@NotNull String className, @NotNull ClassFileSource source) {
+            this.className = className;
+            this.source = source;
+        }
     }
 }
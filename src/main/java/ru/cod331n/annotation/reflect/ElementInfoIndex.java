@@ -0,0 +1,57 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.annotation.reflect.bytecode.AnnotationInfo;
+import ru.cod331n.annotation.reflect.bytecode.ClassInfo;
+import ru.cod331n.annotation.reflect.bytecode.ElementInfo;
+import ru.cod331n.util.tuple.Pair;
+
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+/**
+ * Индекс элементов, описанных байткодом, - аналог {@link AnnotatedElementIndex}, для построения которого классы
+ * не загружаются.
+ *
+ * <p>Сопоставляет каждому типу аннотации пары "элемент - аннотация" в порядке классов и их элементов.</p>
+ */
+public final class ElementInfoIndex {
+    private final Map<String, Collection<Pair<ElementInfo, AnnotationInfo>>> elements = new HashMap<>();
+
+    /**
+     * @param classes     Описания классов.
+     * @param annotations Аннотации, элементы которых нужно проиндексировать.
+     */
+    public ElementInfoIndex(final @NotNull Collection<ClassInfo> classes, final @NotNull Collection<Class<? extends Annotation>> annotations) {
+        Set<String> annotationNames = new HashSet<>();
+        annotations.forEach(annotation -> annotationNames.add(annotation.getName()));
+
+        for (ClassInfo info : classes) {
+            for (ElementInfo element : info.getElements()) {
+                for (AnnotationInfo annotation : element.getAnnotations()) {
+                    if (annotationNames.contains(annotation.getTypeName())) {
+                        elements.computeIfAbsent(annotation.getTypeName(), key -> new ArrayList<>()).add(new Pair<>(element, annotation));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает все элементы, на которых найдена указанная аннотация.
+     *
+     * @param annotation Тип аннотации.
+     * @return Пары "элемент - аннотация" в порядке обнаружения, либо пустая коллекция.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<Pair<ElementInfo, AnnotationInfo>> get(@NotNull Class<? extends Annotation> annotation) {
+        return Collections.unmodifiableCollection(elements.getOrDefault(annotation.getName(), Collections.emptyList()));
+    }
+
+    @Contract(pure = true)
+    public int size() {
+        return elements.values().stream().mapToInt(Collection::size).sum();
+    }
+}
@@ -0,0 +1,243 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.util.tuple.Pair;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Запрос элементов одного вида (классов, методов, полей или конструкторов) сканируемой области с несколькими
+ * условиями.
+ *
+ * <p>Условия на классы ({@link #annotatedWith(Class)}, {@link #inPackage(String)},
+ * {@link #inClassesWithModifiers(int)}, {@link #inSubtypesOf(Class)}, а для классов и
+ * {@link #withModifiers(int)}) сначала проверяются по индексу заголовков class-файлов: списки классов, подходящих
+ * под каждое условие, пересекаются, и загружаются только классы из пересечения. Остальные условия проверяются
+ * рефлексией на элементах этих классов; условия индекса там проверяются повторно, поэтому индекс только сужает
+ * круг классов и не меняет результат.</p>
+ *
+ * <p>Аннотации сопоставляются по {@link JavaClassesReflection#getAnnotationClosure()}. Если аннотация может
+ * достаться элементу не из его собственного байткода (через {@link Inherited}, наследование или составные
+ * аннотации), классы для нее отбираются проверкой заголовков всех классов области, как в
+ * {@link ScanSettings#isBytecodeFilter()}.</p>
+ *
+ * @param <T> Вид элементов.
+ */
+public final class ElementQuery<T extends AnnotatedElement> {
+    private final JavaClassesReflection reflection;
+    private final Function<Class<?>, Stream<T>> elements;
+    private final ToIntFunction<T> elementModifiers;
+    private final boolean classes;
+
+    private final List<Class<? extends Annotation>> annotations = new ArrayList<>();
+    private final List<Class<? extends Annotation>> excludedAnnotations = new ArrayList<>();
+    private final List<String> packageNames = new ArrayList<>();
+    private final List<Class<?>> supertypes = new ArrayList<>();
+    private Predicate<? super T> filter = element -> true;
+    private int modifiers;
+    private int classModifiers;
+
+    /**
+     * @param elements         Элементы вида, объявленные в классе.
+     * @param elementModifiers Модификаторы элемента.
+     * @param classes          {@code true}, если элементы - сами классы: тогда модификаторы элемента известны
+     *                         из индекса.
+     */
+    ElementQuery(
+            final @NotNull JavaClassesReflection reflection,
+            final @NotNull Function<Class<?>, Stream<T>> elements,
+            final @NotNull ToIntFunction<T> elementModifiers,
+            boolean classes
+    ) {
+        this.reflection = reflection;
+        this.elements = elements;
+        this.elementModifiers = elementModifiers;
+        this.classes = classes;
+    }
+
+    /**
+     * Оставляет элементы, помеченные аннотацией. Несколько вызовов требуют все аннотации сразу.
+     */
+    @NotNull
+    @Contract(value = "_ -> this", mutates = "this")
+    public ElementQuery<T> annotatedWith(@NotNull Class<? extends Annotation> annotation) {
+        annotations.add(annotation);
+        return this;
+    }
+
+    /**
+     * Отбрасывает элементы, помеченные аннотацией.
+     */
+    @NotNull
+    @Contract(value = "_ -> this", mutates = "this")
+    public ElementQuery<T> notAnnotatedWith(@NotNull Class<? extends Annotation> annotation) {
+        excludedAnnotations.add(annotation);
+        return this;
+    }
+
+    /**
+     * Оставляет элементы классов указанного пакета и вложенных в него. Несколько вызовов объединяют пакеты.
+     */
+    @NotNull
+    @Contract(value = "_ -> this", mutates = "this")
+    public ElementQuery<T> inPackage(@NotNull String packageName) {
+        packageNames.add(packageName.replace('/', '.'));
+        return this;
+    }
+
+    /**
+     * Оставляет элементы, у которых заданы все указанные модификаторы.
+     *
+     * @param modifiers Флаги {@link Modifier}.
+     */
+    @NotNull
+    @Contract(value = "_ -> this", mutates = "this")
+    public ElementQuery<T> withModifiers(int modifiers) {
+        this.modifiers |= modifiers;
+        return this;
+    }
+
+    /**
+     * Оставляет элементы, объявленные в классах, у которых заданы все указанные модификаторы.
+     *
+     * @param modifiers Флаги {@link Modifier}.
+     */
+    @NotNull
+    @Contract(value = "_ -> this", mutates = "this")
+    public ElementQuery<T> inClassesWithModifiers(int modifiers) {
+        this.classModifiers |= modifiers;
+        return this;
+    }
+
+    /**
+     * Оставляет элементы, объявленные в классах, которые наследуют указанный тип или реализуют его, не считая
+     * самого типа. Подтипы определяются по {@link JavaClassesReflection#getSubtypeIndex()}.
+     */
+    @NotNull
+    @Contract(value = "_ -> this", mutates = "this")
+    public ElementQuery<T> inSubtypesOf(@NotNull Class<?> type) {
+        supertypes.add(type);
+        return this;
+    }
+
+    /**
+     * Добавляет условие, проверяемое на загруженных элементах после всех остальных.
+     */
+    @NotNull
+    @Contract(value = "_ -> this", mutates = "this")
+    public ElementQuery<T> filter(@NotNull Predicate<? super T> filter) {
+        Predicate<? super T> previous = this.filter;
+        this.filter = element -> previous.test(element) && filter.test(element);
+        return this;
+    }
+
+    /**
+     * Выполняет запрос.
+     *
+     * @return Пары "класс - элемент" в порядке обхода области; для классов элемент совпадает с классом.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<Pair<Class<?>, T>> list() {
+        List<Pair<Class<?>, T>> result = new ArrayList<>();
+
+        for (Class<?> clazz : reflection.loadClasses(getCandidates())) {
+            if ((clazz.getModifiers() & classModifiers) != classModifiers) {
+                continue;
+            }
+
+            elements.apply(clazz).forEach(element -> {
+                if (matches(element)) {
+                    result.add(new Pair<>(clazz, element));
+                }
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * @return Номера классов индекса, подходящих под условия на классы.
+     */
+    @NotNull
+    private int[] getCandidates() {
+        ScanIndex index = reflection.getScanIndex();
+        List<int[]> postings = new ArrayList<>();
+
+        for (Class<? extends Annotation> annotation : annotations) {
+            postings.add(isDeclaredOnly(annotation)
+                    ? index.getAnnotated(annotation.getName())
+                    : index.select(reflection.createClassFileFilter(annotation)::test));
+        }
+
+        if (!packageNames.isEmpty()) {
+            List<int[]> packages = new ArrayList<>();
+            packageNames.forEach(packageName -> packages.add(index.getPackage(packageName, true)));
+            postings.add(ScanIndex.union(packages));
+        }
+
+        for (int indexedModifiers : new int[] {classModifiers, classes ? modifiers : 0}) {
+            int[] withModifiers = index.getModifiers(indexedModifiers);
+            if (withModifiers != null) {
+                postings.add(withModifiers);
+            }
+        }
+
+        for (Class<?> supertype : supertypes) {
+            postings.add(index.getClasses(reflection.getSubtypeIndex().getSubtypeNames(supertype.getName())));
+        }
+
+        return postings.isEmpty() ? index.getAll() : ScanIndex.intersect(postings);
+    }
+
+    @Contract(pure = true)
+    private boolean matches(@NotNull T element) {
+        if ((elementModifiers.applyAsInt(element) & modifiers) != modifiers) {
+            return false;
+        }
+
+        AnnotationClosure closure = reflection.getAnnotationClosure();
+        for (Class<? extends Annotation> annotation : annotations) {
+            if (!closure.isAnnotationPresent(element, annotation)) {
+                return false;
+            }
+        }
+
+        for (Class<? extends Annotation> annotation : excludedAnnotations) {
+            if (closure.isAnnotationPresent(element, annotation)) {
+                return false;
+            }
+        }
+
+        return filter.test(element);
+    }
+
+    /**
+     * @return {@code true}, если аннотация может быть найдена на элементе только в байткоде его класса.
+     */
+    @Contract(pure = true)
+    private boolean isDeclaredOnly(@NotNull Class<? extends Annotation> annotation) {
+        AnnotationClosure closure = reflection.getAnnotationClosure();
+        return !closure.isMetaAnnotations() && !closure.isInheritedAnnotations() && !annotation.isAnnotationPresent(Inherited.class);
+    }
+
+    @Override
+    public String toString() {
+        return "ElementQuery{annotations=" + annotations
+                + ", excludedAnnotations=" + excludedAnnotations
+                + ", packages=" + packageNames
+                + ", modifiers=" + Modifier.toString(modifiers)
+                + ", classModifiers=" + Modifier.toString(classModifiers)
+                + ", supertypes=" + supertypes + "}";
+    }
+}
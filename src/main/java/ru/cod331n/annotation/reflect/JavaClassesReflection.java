@@ -3,38 +3,359 @@ package ru.cod331n.annotation.reflect;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileFilter;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+import ru.cod331n.annotation.reflect.bytecode.ClassInfo;
+import ru.cod331n.annotation.reflect.cache.PersistentScanCache;
+import ru.cod331n.annotation.reflect.index.AnnotationIndex;
 import ru.cod331n.util.tuple.Pair;
 import ru.cod331n.util.validation.Preconditions;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Поиск аннотированных элементов в одном или нескольких пакетах.
+ *
+ * <p>Набор пакетов нормализуется: вложенные пакеты и повторы отбрасываются, поэтому каждый класс
+ * объединения сканируется и возвращается ровно один раз. Сканируются все корни classpath, содержащие пакеты;
+ * при заданном {@link ScanSettings#getExecutor()} классы каждого корня читаются и загружаются параллельно.</p>
+ *
+ * <p>Аннотации элементов сопоставляются по {@link ScanSettings#getAnnotationClosure()}.</p>
+ */
 @SuppressWarnings("UnstableApiUsage")
 public final class JavaClassesReflection {
+    private final List<String> packageNames;
+    private final List<PackageScope> scopes;
+    private final ScanSettings settings;
+
+    /**
+     * Помощник первого пакета: загружает и читает классы по имени через загрузчик. Есть, даже если все корни пакетов
+     * отброшены фильтром и {@link #scopes} пуст.
+     */
     private final ClassLoaderHelper classLoaderHelper;
 
+    private volatile SubtypeIndex subtypeIndex;
+    private volatile ScanIndex scanIndex;
+
     public JavaClassesReflection(final @NotNull String packageName, final @Nullable ClassLoader classLoader) {
-        this.classLoaderHelper = new ClassLoaderHelper(packageName, classLoader);
+        this(packageName, classLoader, ScanSettings.defaults());
+    }
+
+    public JavaClassesReflection(final @NotNull String packageName, final @Nullable ClassLoader classLoader, final @NotNull ScanSettings settings) {
+        this(Collections.singleton(packageName), classLoader, settings);
+    }
+
+    public JavaClassesReflection(final @NotNull Collection<String> packageNames, final @Nullable ClassLoader classLoader) {
+        this(packageNames, classLoader, ScanSettings.defaults());
+    }
+
+    public JavaClassesReflection(final @NotNull Collection<String> packageNames, final @Nullable ClassLoader classLoader, final @NotNull ScanSettings settings) {
+        Preconditions.checkAndThrow(packageNames.isEmpty(), () -> new IllegalArgumentException("Package names cannot be empty."));
+
+        this.packageNames = normalizePackageNames(packageNames);
+        this.scopes = new ArrayList<>();
+        this.settings = settings;
+
+        List<ClassLoaderHelper> helpers = new ArrayList<>(this.packageNames.size());
+        this.packageNames.forEach(packageName -> helpers.add(new ClassLoaderHelper(packageName, classLoader, settings)));
+        helpers.forEach(helper -> helper.getRoots().forEach(root -> scopes.add(new PackageScope(root, settings))));
+
+        this.classLoaderHelper = helpers.get(0);
+    }
+
+    /**
+     * @return Правила сопоставления аннотаций с элементами.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public AnnotationClosure getAnnotationClosure() {
+        return settings.getAnnotationClosure();
+    }
+
+    /**
+     * @return Отбор пакетов, классов и jar-файлов сканирования.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public ScanFilter getFilter() {
+        return settings.getFilter();
+    }
+
+    /**
+     * @return Сканируемые пакеты после нормализации, в алфавитном порядке.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<String> getPackageNames() {
+        return Collections.unmodifiableList(packageNames);
     }
 
     @NotNull
     @Contract(pure = true)
     public Collection<Class<?>> getPackageClasses() {
-        return classLoaderHelper.getPackageClasses();
+        return flatten(mapScopes(scope -> scope.getClassLoaderHelper().getPackageClasses()));
+    }
+
+    /**
+     * Возвращает классы пакетов, которые могут содержать элементы с любой из указанных аннотаций.
+     *
+     * <p>Если для пакета найден индекс аннотаций, классы отбираются по нему; если включен
+     * {@link ScanSettings#isBytecodeFilter()}, - по байткоду. В обоих случаях загружаются только подходящие классы,
+     * иначе возвращаются все классы пакета.</p>
+     *
+     * @param annotations Искомые аннотации.
+     * @return Классы-кандидаты в порядке обхода пакетов.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<Class<?>> getCandidateClasses(@NotNull Collection<Class<? extends Annotation>> annotations) {
+        Collection<ClassFileInfo> filterScope = new ArrayList<>(flatten(mapScopes(
+                scope -> scope.isFiltered() ? scope.getClassInfos() : Collections.<ClassFileInfo>emptyList()
+        )));
+
+        @Nullable ClassFileFilter filter = filterScope.isEmpty()
+                ? null
+                : new ClassFileFilter(filterScope, annotations, classLoaderHelper::loadClass, settings.getAnnotationClosure());
+
+        return flatten(mapScopes(scope -> {
+            if (filter == null || !scope.isFiltered()) {
+                return scope.getClassLoaderHelper().getPackageClasses();
+            }
+
+            List<String> classNames = new ArrayList<>();
+            filter.filter(scope.getClassInfos()).forEach(info -> classNames.add(info.getName()));
+
+            return scope.getClassLoaderHelper().loadClasses(classNames);
+        }));
+    }
+
+    /**
+     * Возвращает полные описания классов пакетов, элементы которых помечены хотя бы одной из указанных аннотаций.
+     *
+     * <p>Классы отбираются по индексам аннотаций или байткоду и не загружаются. Учитываются только аннотации,
+     * объявленные в самих классах: наследование через {@link java.lang.annotation.Inherited} не прослеживается.</p>
+     *
+     * @param annotations Искомые аннотации.
+     * @return Описания классов в порядке обхода пакетов.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<ClassInfo> getAnnotatedClassInfos(@NotNull Collection<Class<? extends Annotation>> annotations) {
+        Set<String> annotationNames = annotations.stream().map(Class::getName).collect(Collectors.toSet());
+
+        return flatten(mapScopes(scope -> {
+            List<String> classNames = new ArrayList<>();
+
+            for (ClassFileInfo info : scope.getClassInfos()) {
+                Preconditions.check(!Collections.disjoint(info.getAnnotations(), annotationNames), () -> classNames.add(info.getName()));
+            }
+
+            return scope.getClassLoaderHelper().readClassInfos(classNames);
+        }));
+    }
+
+    /**
+     * Возвращает сведения о классах пакетов из индексов аннотаций, а при их отсутствии - прочитанные из байткода.
+     * Результат запоминается на время жизни экземпляра.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<ClassFileInfo> getPackageClassInfos() {
+        Collection<ClassFileInfo> classInfos = new ArrayList<>();
+        mapScopes(PackageScope::getClassInfos).forEach(classInfos::addAll);
+
+        return classInfos;
+    }
+
+    /**
+     * Возвращает индекс подтипов, построенный по заголовкам class-файлов пакетов. Индекс строится при первом
+     * обращении и запоминается на время жизни экземпляра.
+     */
+    @NotNull
+    public SubtypeIndex getSubtypeIndex() {
+        @Nullable SubtypeIndex index = subtypeIndex;
+
+        if (index == null) {
+            synchronized (this) {
+                index = subtypeIndex;
+                if (index == null) {
+                    index = new SubtypeIndex(getPackageClassInfos(), classLoaderHelper::readClassFileInfo);
+                    subtypeIndex = index;
+                }
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Возвращает классы пакетов, которые наследуют указанный тип или реализуют его, непосредственно или через
+     * другие типы. Подтипы отбираются по {@link #getSubtypeIndex()}, и загружаются только они.
+     *
+     * @param type Класс или интерфейс.
+     * @return Подтипы в порядке обхода пакетов, без самого типа.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public <T> Collection<Class<? extends T>> getSubtypes(@NotNull Class<T> type) {
+        Set<String> subtypeNames = new HashSet<>(getSubtypeIndex().getSubtypeNames(type.getName()));
+
+        List<Class<?>> classes = flatten(mapScopes(scope -> {
+            List<String> classNames = new ArrayList<>();
+            scope.getClassInfos().forEach(info -> Preconditions.check(subtypeNames.contains(info.getName()), () -> classNames.add(info.getName())));
+
+            return scope.getClassLoaderHelper().loadClasses(classNames);
+        }));
+
+        List<Class<? extends T>> subtypes = new ArrayList<>(classes.size());
+        classes.forEach(clazz -> subtypes.add(clazz.asSubclass(type)));
+
+        return subtypes;
+    }
+
+    /**
+     * Создает запрос классов пакетов; см. {@link ElementQuery}.
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public ElementQuery<Class<?>> queryClasses() {
+        return new ElementQuery<>(this, Stream::of, Class::getModifiers, true);
+    }
+
+    /**
+     * Создает запрос методов, объявленных в классах пакетов; см. {@link ElementQuery}.
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public ElementQuery<Method> queryMethods() {
+        return new ElementQuery<>(this, clazz -> Arrays.stream(clazz.getDeclaredMethods()), Method::getModifiers, false);
+    }
+
+    /**
+     * Создает запрос полей, объявленных в классах пакетов; см. {@link ElementQuery}.
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public ElementQuery<Field> queryFields() {
+        return new ElementQuery<>(this, clazz -> Arrays.stream(clazz.getDeclaredFields()), Field::getModifiers, false);
+    }
+
+    /**
+     * Создает запрос конструкторов, объявленных в классах пакетов; см. {@link ElementQuery}.
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public ElementQuery<Constructor<?>> queryConstructors() {
+        return new ElementQuery<>(this, clazz -> Arrays.stream(clazz.getDeclaredConstructors()), Constructor::getModifiers, false);
+    }
+
+    /**
+     * Возвращает индекс заголовков классов для запросов. Индекс строится при первом обращении и запоминается
+     * на время жизни экземпляра.
+     */
+    @NotNull
+    ScanIndex getScanIndex() {
+        @Nullable ScanIndex index = scanIndex;
+
+        if (index == null) {
+            synchronized (this) {
+                index = scanIndex;
+                if (index == null) {
+                    index = new ScanIndex(mapScopes(PackageScope::getClassInfos));
+                    scanIndex = index;
+                }
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * @return Отбор классов по байткоду, учитывающий {@link #getAnnotationClosure()}.
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    ClassFileFilter createClassFileFilter(@NotNull Class<? extends Annotation> annotation) {
+        return new ClassFileFilter(getPackageClassInfos(), Collections.singleton(annotation), classLoaderHelper::loadClass, getAnnotationClosure());
+    }
+
+    /**
+     * Загружает классы индекса {@link #getScanIndex()} загрузчиками их корней.
+     *
+     * @param classIds Возрастающие номера классов.
+     * @return Классы в порядке номеров, без повторов.
+     */
+    @NotNull
+    List<Class<?>> loadClasses(@NotNull int[] classIds) {
+        ScanIndex index = getScanIndex();
+        List<List<String>> classNames = new ArrayList<>();
+        scopes.forEach(scope -> classNames.add(new ArrayList<>()));
+
+        for (int classId : classIds) {
+            classNames.get(index.getScopeIndex(classId)).add(index.getClassInfo(classId).getName());
+        }
+
+        List<Collection<Class<?>>> classes = new ArrayList<>();
+        for (int i = 0; i < scopes.size(); i++) {
+            classes.add(classNames.get(i).isEmpty() ? Collections.emptyList() : scopes.get(i).getClassLoaderHelper().loadClasses(classNames.get(i)));
+        }
+
+        return flatten(classes);
+    }
+
+    /**
+     * Возвращает каталоги файловой системы, содержащие сканируемые пакеты; корни в jar-файлах не включаются.
+     *
+     * @return Каталоги и имена пакетов, которые в них находятся.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Map<Path, String> getPackageDirectories() {
+        Map<Path, String> directories = new LinkedHashMap<>();
+
+        for (PackageScope scope : scopes) {
+            @Nullable Path directory = scope.getClassLoaderHelper().getPackageDirectory();
+            Preconditions.check(directory != null, () -> directories.put(directory, scope.getClassLoaderHelper().getPackageName()));
+        }
+
+        return directories;
+    }
+
+    /**
+     * Возвращает индексы аннотаций, записанные во время компиляции, для тех пакетов, у которых они есть,
+     * если индексы разрешены настройками.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<AnnotationIndex> getAnnotationIndexes() {
+        Collection<AnnotationIndex> indexes = new ArrayList<>();
+        scopes.forEach(scope -> scope.getAnnotationIndex().ifPresent(indexes::add));
+
+        return indexes;
     }
 
     @NotNull
     @Contract(pure = true)
     public Collection<Class<?>> getAnnotatedClasses(@NotNull Class<? extends Annotation> annotation) {
-        return getPackageClasses().stream()
-                .filter(clazz -> clazz.isAnnotationPresent(annotation))
+        return getCandidateClasses(annotation).stream()
+                .filter(clazz -> getAnnotationClosure().isAnnotationPresent(clazz, annotation))
                 .collect(Collectors.toList());
     }
 
@@ -43,7 +364,7 @@ public final class JavaClassesReflection {
     public Collection<Pair<Class<?>, Method>> getAnnotatedMethods(@NotNull Class<? extends Annotation> annotation) {
         return collectAnnotatedElements(
                 clazz -> Arrays.stream(clazz.getDeclaredMethods()),
-                Method::isAnnotationPresent,
+                getAnnotationClosure()::isAnnotationPresent,
                 annotation
         );
     }
@@ -53,7 +374,7 @@ public final class JavaClassesReflection {
     public Collection<Pair<Class<?>, Field>> getAnnotatedFields(@NotNull Class<? extends Annotation> annotation) {
         return collectAnnotatedElements(
                 clazz -> Arrays.stream(clazz.getDeclaredFields()),
-                Field::isAnnotationPresent,
+                getAnnotationClosure()::isAnnotationPresent,
                 annotation
         );
     }
@@ -63,7 +384,7 @@ public final class JavaClassesReflection {
     public Collection<Pair<Class<?>, Constructor<?>>> getAnnotatedConstructors(@NotNull Class<? extends Annotation> annotation) {
         return collectAnnotatedElements(
                 clazz -> Arrays.stream(clazz.getDeclaredConstructors()),
-                Constructor::isAnnotationPresent,
+                getAnnotationClosure()::isAnnotationPresent,
                 annotation
         );
     }
@@ -71,13 +392,13 @@ public final class JavaClassesReflection {
     @NotNull
     @Contract(pure = true)
     public Collection<Pair<Class<?>, Parameter>> getAnnotatedParameters(@NotNull Class<? extends Annotation> annotation) {
-        Collection<Pair<Class<?>, Parameter>> global = new LinkedList<>();
+        Collection<Pair<Class<?>, Parameter>> global = new ArrayList<>();
 
-        getPackageClasses().forEach(clazz -> {
+        getCandidateClasses(annotation).forEach(clazz -> {
             for (Method method : clazz.getDeclaredMethods()) {
                 for (Parameter parameter : method.getParameters()) {
                     Preconditions.check(
-                            parameter.isAnnotationPresent(annotation),
+                            getAnnotationClosure().isAnnotationPresent(parameter, annotation),
                             () -> global.add(new Pair<>(clazz, parameter))
                     );
                 }
@@ -86,7 +407,7 @@ public final class JavaClassesReflection {
             for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
                 for (Parameter parameter : constructor.getParameters()) {
                     Preconditions.check(
-                            parameter.isAnnotationPresent(annotation),
+                            getAnnotationClosure().isAnnotationPresent(parameter, annotation),
                             () -> global.add(new Pair<>(clazz, parameter))
                     );
                 }
@@ -96,20 +417,53 @@ public final class JavaClassesReflection {
         return global;
     }
 
+    /**
+     * Возвращает пакеты сканируемой области, для которых найден {@code package-info.class}. Пакеты определяются
+     * загрузкой их {@code package-info}, поэтому результат не зависит от того, какие классы JVM уже загрузила.
+     *
+     * @return Пакеты в порядке обхода области.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<Package> getPackages() {
+        return getScopePackages(info -> true);
+    }
+
+    /**
+     * Возвращает пакеты сканируемой области, которые могут быть помечены любой из указанных аннотаций.
+     *
+     * <p>Пакеты отбираются по аннотациям {@code package-info}, прочитанным из байткода, и загружаются только
+     * {@code package-info} подходящих пакетов. С {@link ScanSettings.Builder#metaAnnotations(boolean)} отбираются все
+     * аннотированные пакеты: составные аннотации проверяются уже после загрузки.</p>
+     *
+     * @param annotations Искомые аннотации.
+     * @return Пакеты-кандидаты в порядке обхода области.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<Package> getCandidatePackages(@NotNull Collection<Class<? extends Annotation>> annotations) {
+        Set<String> annotationNames = annotations.stream().map(Class::getName).collect(Collectors.toSet());
+        boolean metaAnnotations = getAnnotationClosure().isMetaAnnotations();
+
+        return getScopePackages(info -> metaAnnotations
+                ? !info.getClassAnnotations().isEmpty()
+                : !Collections.disjoint(info.getClassAnnotations(), annotationNames));
+    }
+
     @NotNull
     @Contract(pure = true)
     public Collection<Package> getAnnotatedPackages(@NotNull Class<? extends Annotation> annotation) {
-        return Arrays.stream(Package.getPackages())
-                .filter(pkg -> pkg.isAnnotationPresent(annotation))
+        return getCandidatePackages(Collections.singleton(annotation)).stream()
+                .filter(pkg -> getAnnotationClosure().isAnnotationPresent(pkg, annotation))
                 .collect(Collectors.toList());
     }
 
     @NotNull
     @Contract(pure = true)
     public Collection<Pair<Class<?>, AnnotatedType>> getAnnotatedTypesUse(@NotNull Class<? extends Annotation> annotation) {
-        Collection<Pair<Class<?>, AnnotatedType>> global = new LinkedList<>();
+        Collection<Pair<Class<?>, AnnotatedType>> global = new ArrayList<>();
 
-        getPackageClasses().forEach(clazz -> {
+        getCandidateClasses(annotation).forEach(clazz -> {
             collectAnnotatedElementsByClass(Stream.of(clazz.getAnnotatedSuperclass()), annotation, clazz, global);
             collectAnnotatedElementsByClass(Arrays.stream(clazz.getDeclaredFields()).map(Field::getAnnotatedType), annotation, clazz, global);
             collectAnnotatedElementsByClass(Arrays.stream(clazz.getDeclaredMethods()).map(Method::getAnnotatedReturnType), annotation, clazz, global);
@@ -122,9 +476,9 @@ public final class JavaClassesReflection {
     @NotNull
     @Contract(pure = true)
     public Collection<Pair<Class<?>, TypeVariable<?>>> getAnnotatedTypeParameters(@NotNull Class<? extends Annotation> annotation) {
-        Collection<Pair<Class<?>, TypeVariable<?>>> global = new LinkedList<>();
+        Collection<Pair<Class<?>, TypeVariable<?>>> global = new ArrayList<>();
 
-        getPackageClasses().forEach(clazz -> {
+        getCandidateClasses(annotation).forEach(clazz -> {
             collectAnnotatedElementsByClass(Arrays.stream(clazz.getTypeParameters()), annotation, clazz, global);
 
             Arrays.stream(clazz.getDeclaredMethods())
@@ -140,11 +494,11 @@ public final class JavaClassesReflection {
     @NotNull
     @Contract(pure = true)
     public Collection<Pair<Class<?>, Class<?>>> getAnnotatedAnnotationTypes(@NotNull Class<? extends Annotation> annotation) {
-        Collection<Pair<Class<?>, Class<?>>> global = new LinkedList<>();
+        Collection<Pair<Class<?>, Class<?>>> global = new ArrayList<>();
 
-        getPackageClasses().stream()
+        getCandidateClasses(annotation).stream()
                 .filter(Class::isAnnotation)
-                .filter(annotatedClass -> annotatedClass.isAnnotationPresent(annotation))
+                .filter(annotatedClass -> getAnnotationClosure().isAnnotationPresent(annotatedClass, annotation))
                 .forEach(annotatedClass -> global.add(new Pair<>(annotatedClass, annotatedClass)));
 
         return global;
@@ -154,6 +508,14 @@ public final class JavaClassesReflection {
     @Nullable
     @Contract(pure = true)
     public <T> T getGenericType(@NotNull Class<?> clazz) {
+        for (AnnotationIndex index : getAnnotationIndexes()) {
+            @Nullable String indexedType = index.getProcessorAnnotation(clazz.getName());
+
+            if (indexedType != null) {
+                return (T) classLoaderHelper.loadClass(indexedType);
+            }
+        }
+
         Type genericSuperclass;
 
         try {
@@ -178,6 +540,75 @@ public final class JavaClassesReflection {
                 );
     }
 
+    @NotNull
+    private List<Package> getScopePackages(@NotNull Predicate<ClassFileInfo> filter) {
+        return flatten(mapScopes(scope -> {
+            List<String> classNames = new ArrayList<>();
+            scope.getPackageInfos().forEach(info -> Preconditions.check(filter.test(info), () -> classNames.add(info.getName())));
+
+            List<Package> packages = new ArrayList<>(classNames.size());
+            scope.getClassLoaderHelper().loadClasses(classNames).forEach(clazz -> packages.add(clazz.getPackage()));
+
+            return packages;
+        }));
+    }
+
+    /**
+     * Выполняет функцию для каждого корня в вызывающем потоке, в порядке корней. Параллельно выполняются только
+     * задачи внутри корня (обход подкаталогов, чтение и загрузка классов), которые не ждут других задач
+     * исполнителя, поэтому сканирование не блокирует исполнитель с любым числом потоков.
+     *
+     * <p>Сведения о классах, прочитанные корнями в {@link ScanSettings#getPersistentCache()}, записываются на диск
+     * один раз, после обхода всех корней.</p>
+     */
+    @NotNull
+    private <R> List<R> mapScopes(@NotNull Function<PackageScope, R> function) {
+        List<R> results = new ArrayList<>(scopes.size());
+        scopes.forEach(scope -> results.add(function.apply(scope)));
+
+        @Nullable PersistentScanCache persistentCache = settings.getPersistentCache();
+        Preconditions.check(persistentCache != null, () -> persistentCache.flush());
+
+        return results;
+    }
+
+    /**
+     * Объединяет результаты корней в их порядке, оставляя только первое вхождение класса, который виден
+     * сразу в нескольких корнях.
+     */
+    @NotNull
+    @Contract(pure = true)
+    private static <T> List<T> flatten(@NotNull List<? extends Collection<T>> parts) {
+        Set<T> result = new LinkedHashSet<>();
+        parts.forEach(result::addAll);
+
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Отбрасывает повторы и пакеты, вложенные в другие пакеты набора.
+     */
+    @NotNull
+    @Contract(pure = true)
+    private static List<String> normalizePackageNames(@NotNull Collection<String> packageNames) {
+        List<String> sorted = packageNames.stream()
+                .map(packageName -> packageName.replace('/', '.'))
+                .sorted()
+                .distinct()
+                .collect(Collectors.toList());
+        List<String> normalized = new ArrayList<>();
+
+        for (String packageName : sorted) {
+            Preconditions.checkAndThrow(packageName.isEmpty(), () -> new IllegalArgumentException("Package name cannot be empty."));
+
+            if (normalized.stream().noneMatch(parent -> packageName.startsWith(parent + '.'))) {
+                normalized.add(packageName);
+            }
+        }
+
+        return normalized;
+    }
+
     @NotNull
     @Contract(pure = true)
     private <T extends AnnotatedElement> Collection<Pair<Class<?>, T>> collectAnnotatedElements(
@@ -185,9 +616,9 @@ public final class JavaClassesReflection {
             @NotNull BiPredicate<T, Class<? extends Annotation>> annotationChecker,
             @NotNull Class<? extends Annotation> annotation
     ) {
-        Collection<Pair<Class<?>, T>> global = new LinkedList<>();
+        Collection<Pair<Class<?>, T>> global = new ArrayList<>();
 
-        getPackageClasses().forEach(clazz -> collectAnnotatedElementsByClass(
+        getCandidateClasses(annotation).forEach(clazz -> collectAnnotatedElementsByClass(
                 elementSupplier.apply(clazz),
                 annotationChecker,
                 annotation,
@@ -198,6 +629,12 @@ public final class JavaClassesReflection {
         return global;
     }
 
+    @NotNull
+    @Contract(pure = true)
+    private Collection<Class<?>> getCandidateClasses(@NotNull Class<? extends Annotation> annotation) {
+        return getCandidateClasses(Collections.singleton(annotation));
+    }
+
     @Contract(mutates = "param5")
     private <T extends AnnotatedElement> void collectAnnotatedElementsByClass(
             @NotNull Stream<T> elementsStream,
@@ -219,7 +656,7 @@ public final class JavaClassesReflection {
             @NotNull Collection<Pair<Class<?>, T>> collection
     ) {
         elementsStream
-                .filter(element -> element.isAnnotationPresent(annotation))
+                .filter(element -> getAnnotationClosure().isAnnotationPresent(element, annotation))
                 .forEach(element -> collection.add(new Pair<>(clazz, element)));
     }
 }
@@ -0,0 +1,99 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Поиск пакетов в именованных модулях загрузочного слоя и слоев из {@link ScanSettings#getModuleLayerClasses()}
+ * и чтение системных модулей образа среды выполнения ({@code jrt:/}). Пакеты именованных модулей не видны через
+ * {@link ClassLoader#getResources(String)}, поэтому их корни находятся по дескрипторам модулей.
+ *
+ * <p>Реализация требует Java 9, собирается отдельно от основного кода и кладется в
+ * {@code META-INF/versions/9} multi-release jar-файла; она создается через {@link #get()}, который не загружает
+ * ее на Java 8.</p>
+ */
+public interface ModuleScanner {
+    /**
+     * Сканер для JVM без модулей: пакетов в модулях не находит.
+     */
+    ModuleScanner NONE = new ModuleScanner() {
+        @NotNull
+        @Override
+        public List<URL> findPackageRoots(@NotNull ClassLoader classLoader, @NotNull String packageName, @NotNull Collection<Class<?>> layerClasses) {
+            return Collections.emptyList();
+        }
+
+        @NotNull
+        @Override
+        public ModuleContents open(@NotNull URL root) throws IOException {
+            throw new IOException("Modules are not supported by the current JVM: " + root);
+        }
+    };
+
+    /**
+     * Возвращает корни пакета в модулях, видимых загрузчику: из загрузочного слоя и из слоев, в которых определены
+     * указанные классы, вместе с их родительскими слоями. Модули, в которых нет ни пакета, ни его подпакетов,
+     * отбрасываются по дескриптору, не открываясь.
+     *
+     * @param classLoader  Загрузчик, через который будут загружаться классы пакета.
+     * @param packageName  Имя пакета.
+     * @param layerClasses Классы, по модулям которых определяются дополнительные слои; классы безымянных модулей
+     *                     пропускаются.
+     * @return Корни по слоям, начиная с загрузочного, а в слое - в порядке имен модулей: {@code jrt:/модуль/пакет}
+     * для системных модулей, {@code jar:} и {@code file:} для модулей из jar-файлов и каталогов.
+     */
+    @NotNull
+    List<URL> findPackageRoots(@NotNull ClassLoader classLoader, @NotNull String packageName, @NotNull Collection<Class<?>> layerClasses);
+
+    /**
+     * Открывает системный модуль корня {@code jrt:/} для чтения.
+     *
+     * @param root Корень пакета в модуле.
+     * @return Содержимое модуля; его нужно закрыть после чтения.
+     * @throws IOException если модуль не найден или не может быть открыт.
+     */
+    @NotNull
+    ModuleContents open(@NotNull URL root) throws IOException;
+
+    /**
+     * @return Сканер текущей JVM, либо {@link #NONE}, если она не поддерживает модули.
+     */
+    @NotNull
+    static ModuleScanner get() {
+        try {
+            Class.forName("java.lang.module.ModuleReader");
+            return (ModuleScanner) Class.forName("ru.cod331n.annotation.reflect.module.ModuleReaderScanner")
+                    .getConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Открытый модуль. Ресурсы могут читаться из нескольких потоков одновременно.
+     */
+    interface ModuleContents extends Closeable {
+        /**
+         * @param packageName Имя пакета.
+         * @return Имена ресурсов class-файлов пакета и его подпакетов, кроме {@code module-info}, в алфавитном порядке.
+         */
+        @NotNull
+        List<String> listClassFiles(@NotNull String packageName) throws IOException;
+
+        /**
+         * @param resourceName Имя ресурса в модуле.
+         * @return Содержимое ресурса, либо {@code null}, если его нет.
+         */
+        @Nullable
+        ByteBuffer read(@NotNull String resourceName) throws IOException;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+import ru.cod331n.annotation.reflect.index.AnnotationIndex;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Один корень classpath сканируемого пакета: его загрузчик, индекс аннотаций и сведения о классах, запоминаемые
+ * на время жизни экземпляра. Использовать ли индекс, решается для каждого корня отдельно; список классов корня
+ * всегда берется из его обхода, а индекс только заменяет чтение их class-файлов.
+ */
+final class PackageScope {
+    private final ClassLoaderHelper classLoaderHelper;
+    private final ScanSettings settings;
+
+    private Collection<ClassFileInfo> classInfos;
+    private Collection<ClassFileInfo> packageInfos;
+    private Optional<AnnotationIndex> annotationIndex;
+
+    PackageScope(final @NotNull ClassLoaderHelper classLoaderHelper, final @NotNull ScanSettings settings) {
+        this.classLoaderHelper = classLoaderHelper;
+        this.settings = settings;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    ClassLoaderHelper getClassLoaderHelper() {
+        return classLoaderHelper;
+    }
+
+    /**
+     * @return {@code true}, если классы пакета можно отбирать по сведениям из индекса или байткода, не загружая их.
+     */
+    @Contract(pure = true)
+    boolean isFiltered() {
+        return settings.isBytecodeFilter() || getAnnotationIndex().isPresent();
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    Collection<ClassFileInfo> getClassInfos() {
+        if (classInfos == null) {
+            classInfos = getAnnotationIndex()
+                    .map(classLoaderHelper::getPackageClassInfos)
+                    .orElseGet(classLoaderHelper::collectPackageClassInfos);
+        }
+
+        return classInfos;
+    }
+
+    /**
+     * @return Сведения о {@code package-info} корня: из сведений о классах, если корень отбирается по ним, иначе
+     * прочитанные из байткода только этих классов.
+     */
+    @NotNull
+    @Contract(pure = true)
+    Collection<ClassFileInfo> getPackageInfos() {
+        if (packageInfos == null) {
+            if (isFiltered()) {
+                Collection<ClassFileInfo> infos = new ArrayList<>();
+                getClassInfos().forEach(info -> Preconditions.check(ClassLoaderHelper.isPackageInfo(info.getName()), () -> infos.add(info)));
+                packageInfos = infos;
+            } else {
+                packageInfos = classLoaderHelper.getPackageInfoClassInfos();
+            }
+        }
+
+        return packageInfos;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    Optional<AnnotationIndex> getAnnotationIndex() {
+        if (annotationIndex == null) {
+            annotationIndex = settings.isAnnotationIndex()
+                    ? Optional.ofNullable(classLoaderHelper.getAnnotationIndex())
+                    : Optional.empty();
+        }
+
+        return annotationIndex;
+    }
+}
@@ -0,0 +1,328 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Отбор пакетов, классов и jar-файлов при сканировании по шаблонам включения и исключения.
+ *
+ * <p>Фильтр применяется до чтения байткода и загрузки классов: исключенные подкаталоги не обходятся, записи
+ * jar-файлов и модулей отбрасываются по имени, а корни в исключенных jar-файлах не открываются.</p>
+ *
+ * <p>Шаблоны: {@code *} - любые символы, кроме разделителя ({@code .} для пакетов и классов, {@code /} для
+ * jar-файлов), {@code **} - любые символы, {@code ?} - один символ, кроме разделителя.</p>
+ *
+ * <ul>
+ *     <li>Шаблон пакета относится к пакету и всем вложенным в него: {@code ru.app.dto} исключает и
+ *     {@code ru.app.dto.v2}, {@code **.generated} - все пакеты {@code generated} с подпакетами.</li>
+ *     <li>Шаблон класса без точки сопоставляется с простым бинарным именем ({@code *Test}, {@code *$Builder}),
+ *     с точкой - с полным бинарным именем.</li>
+ *     <li>Шаблон jar-файла сопоставляется с именем jar-файла корня, для вложенных jar-файлов - с именем
+ *     вложенного ({@code *-tests.jar}). Корни в каталогах и модулях образа среды выполнения этими шаблонами не
+ *     отбираются. Пакет, все корни которого отброшены, сканируется как пустой, так же как исключенный пакет.</li>
+ * </ul>
+ *
+ * <p>Имя проходит фильтр, если оно подходит хотя бы под один шаблон включения (или их нет) и ни под один шаблон
+ * исключения. Экземпляр неизменяем; создается через {@link #builder()}.</p>
+ */
+public final class ScanFilter {
+    /**
+     * Фильтр, пропускающий все.
+     */
+    public static final ScanFilter ALL = builder().build();
+
+    private final List<Glob> includedPackages;
+    private final List<Glob> excludedPackages;
+    private final List<Glob> includedClasses;
+    private final List<Glob> excludedClasses;
+    private final List<Glob> includedJars;
+    private final List<Glob> excludedJars;
+
+    private ScanFilter(final @NotNull Builder builder) {
+        this.includedPackages = Collections.unmodifiableList(new ArrayList<>(builder.includedPackages));
+        this.excludedPackages = Collections.unmodifiableList(new ArrayList<>(builder.excludedPackages));
+        this.includedClasses = Collections.unmodifiableList(new ArrayList<>(builder.includedClasses));
+        this.excludedClasses = Collections.unmodifiableList(new ArrayList<>(builder.excludedClasses));
+        this.includedJars = Collections.unmodifiableList(new ArrayList<>(builder.includedJars));
+        this.excludedJars = Collections.unmodifiableList(new ArrayList<>(builder.excludedJars));
+    }
+
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return {@code true}, если фильтр пропускает все.
+     */
+    @Contract(pure = true)
+    public boolean isAll() {
+        return includedPackages.isEmpty() && excludedPackages.isEmpty()
+                && includedClasses.isEmpty() && excludedClasses.isEmpty()
+                && includedJars.isEmpty() && excludedJars.isEmpty();
+    }
+
+    /**
+     * @param packageName Имя пакета.
+     * @return {@code true}, если классы пакета проходят фильтр пакетов.
+     */
+    @Contract(pure = true)
+    public boolean acceptsPackage(@NotNull String packageName) {
+        return (includedPackages.isEmpty() || matchesAny(includedPackages, packageName)) && !matchesAny(excludedPackages, packageName);
+    }
+
+    /**
+     * Проверяет, нужно ли обходить пакет: в нем или во вложенных в него пакетах могут быть классы, проходящие
+     * фильтр. Проверка консервативна: {@code false} возвращается, только если таких классов точно нет.
+     *
+     * @param packageName Имя пакета.
+     */
+    @Contract(pure = true)
+    public boolean mayContainAccepted(@NotNull String packageName) {
+        if (matchesAny(excludedPackages, packageName)) {
+            return false;
+        }
+
+        if (includedPackages.isEmpty()) {
+            return true;
+        }
+
+        for (Glob glob : includedPackages) {
+            if (glob.matches(packageName) || glob.mayMatchBelow(packageName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param className Бинарное имя класса.
+     * @return {@code true}, если класс и его пакет проходят фильтр.
+     */
+    @Contract(pure = true)
+    public boolean acceptsClass(@NotNull String className) {
+        int separator = className.lastIndexOf('.');
+        String packageName = separator < 0 ? "" : className.substring(0, separator);
+
+        return acceptsPackage(packageName)
+                && (includedClasses.isEmpty() || matchesAny(includedClasses, className))
+                && !matchesAny(excludedClasses, className);
+    }
+
+    /**
+     * @param jarName Имя jar-файла без каталогов.
+     * @return {@code true}, если корни в jar-файле нужно сканировать.
+     */
+    @Contract(pure = true)
+    public boolean acceptsJar(@NotNull String jarName) {
+        return (includedJars.isEmpty() || matchesAny(includedJars, jarName)) && !matchesAny(excludedJars, jarName);
+    }
+
+    @Contract(pure = true)
+    private static boolean matchesAny(@NotNull List<Glob> globs, @NotNull String name) {
+        for (Glob glob : globs) {
+            if (glob.matches(name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Описание фильтра; у равных по шаблонам фильтров оно совпадает, поэтому используется в ключах кэшей.
+     */
+    @Override
+    public String toString() {
+        return "ScanFilter{packages=+" + includedPackages + "-" + excludedPackages
+                + ", classes=+" + includedClasses + "-" + excludedClasses
+                + ", jars=+" + includedJars + "-" + excludedJars + "}";
+    }
+
+    public static final class Builder {
+        private final List<Glob> includedPackages = new ArrayList<>();
+        private final List<Glob> excludedPackages = new ArrayList<>();
+        private final List<Glob> includedClasses = new ArrayList<>();
+        private final List<Glob> excludedClasses = new ArrayList<>();
+        private final List<Glob> includedJars = new ArrayList<>();
+        private final List<Glob> excludedJars = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Сканирует только указанные пакеты и вложенные в них.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder includePackages(@NotNull String... patterns) {
+            Arrays.stream(patterns).forEach(pattern -> includedPackages.add(Glob.ofPackage(pattern)));
+            return this;
+        }
+
+        /**
+         * Не сканирует указанные пакеты и вложенные в них; их каталоги не обходятся.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder excludePackages(@NotNull String... patterns) {
+            Arrays.stream(patterns).forEach(pattern -> excludedPackages.add(Glob.ofPackage(pattern)));
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder includeClasses(@NotNull String... patterns) {
+            Arrays.stream(patterns).forEach(pattern -> includedClasses.add(Glob.ofClass(pattern)));
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder excludeClasses(@NotNull String... patterns) {
+            Arrays.stream(patterns).forEach(pattern -> excludedClasses.add(Glob.ofClass(pattern)));
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder includeJars(@NotNull String... patterns) {
+            Arrays.stream(patterns).forEach(pattern -> includedJars.add(Glob.ofJar(pattern)));
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder excludeJars(@NotNull String... patterns) {
+            Arrays.stream(patterns).forEach(pattern -> excludedJars.add(Glob.ofJar(pattern)));
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = "-> new", pure = true)
+        public ScanFilter build() {
+            return new ScanFilter(this);
+        }
+    }
+
+    /**
+     * Скомпилированный шаблон.
+     */
+    private static final class Glob {
+        private final String pattern;
+        private final Pattern regex;
+        private final String literalPrefix;
+        private final boolean simpleName;
+
+        private Glob(final @NotNull String pattern, final @NotNull Pattern regex, boolean simpleName) {
+            this.pattern = pattern;
+            this.regex = regex;
+            this.literalPrefix = getLiteralPrefix(pattern);
+            this.simpleName = simpleName;
+        }
+
+        @NotNull
+        private static Glob ofPackage(@NotNull String pattern) {
+            String normalized = check(pattern).replace('/', '.');
+            return new Glob(normalized, Pattern.compile(toRegex(normalized, '.') + "(\\..*)?"), false);
+        }
+
+        @NotNull
+        private static Glob ofClass(@NotNull String pattern) {
+            String normalized = check(pattern).replace('/', '.');
+            return new Glob(normalized, Pattern.compile(toRegex(normalized, '.')), normalized.indexOf('.') < 0);
+        }
+
+        @NotNull
+        private static Glob ofJar(@NotNull String pattern) {
+            return new Glob(check(pattern), Pattern.compile(toRegex(pattern, '/')), false);
+        }
+
+        @Contract(pure = true)
+        private boolean matches(@NotNull String name) {
+            return regex.matcher(simpleName ? name.substring(name.lastIndexOf('.') + 1) : name).matches();
+        }
+
+        /**
+         * @return {@code false}, если шаблон точно не подходит ни под один пакет, вложенный в указанный: такой пакет
+         * должен начинаться и с постоянной части шаблона, и с имени указанного пакета.
+         */
+        @Contract(pure = true)
+        private boolean mayMatchBelow(@NotNull String packageName) {
+            String below = packageName + '.';
+            return below.startsWith(literalPrefix) || literalPrefix.startsWith(below);
+        }
+
+        @NotNull
+        @Contract(pure = true)
+        private static String toRegex(@NotNull String glob, char separator) {
+            String anyExceptSeparator = "[^" + Pattern.quote(String.valueOf(separator)) + "]";
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+
+                if (c != '*' && c != '?') {
+                    literal.append(c);
+                    continue;
+                }
+
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+
+                if (c == '?') {
+                    regex.append(anyExceptSeparator);
+                } else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i++;
+                } else {
+                    regex.append(anyExceptSeparator).append('*');
+                }
+            }
+
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+
+            return regex.toString();
+        }
+
+        @NotNull
+        @Contract(pure = true)
+        private static String getLiteralPrefix(@NotNull String glob) {
+            int wildcard = glob.length();
+            for (int i = 0; i < glob.length(); i++) {
+                if (glob.charAt(i) == '*' || glob.charAt(i) == '?') {
+                    wildcard = i;
+                    break;
+                }
+            }
+
+            return glob.substring(0, wildcard);
+        }
+
+        @NotNull
+        @Contract(pure = true)
+        private static String check(@NotNull String pattern) {
+            Preconditions.checkAndThrow(pattern.isEmpty(), () -> new IllegalArgumentException("Pattern cannot be empty."));
+            return pattern;
+        }
+
+        @Override
+        public String toString() {
+            return pattern;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+import ru.cod331n.util.collection.IntList;
+import ru.cod331n.util.collection.ObjectIntMap;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Индекс классов сканируемой области для запросов {@link ElementQuery}, построенный по заголовкам class-файлов.
+ *
+ * <p>Классы получают номера в порядке обхода области. Для каждой упомянутой в классах аннотации, для каждого
+ * пакета и для флагов доступа, совпадающих у заголовка и {@link Class#getModifiers()}, хранится возрастающий
+ * список номеров классов. Запрос пересекает списки своих условий, поэтому число проверяемых классов зависит от
+ * размера результата, а не от размера области.</p>
+ *
+ * <p>Экземпляр неизменяем и потокобезопасен.</p>
+ */
+final class ScanIndex {
+    /**
+     * Флаги, которые в заголовке вложенного класса не уже, чем в {@link Class#getModifiers()}: защищенный вложенный
+     * класс в заголовке публичный, а {@code private} и {@code static} в заголовке не записываются.
+     */
+    static final int INDEXED_MODIFIERS = Modifier.PUBLIC | Modifier.FINAL | Modifier.INTERFACE | Modifier.ABSTRACT;
+
+    private final ClassFileInfo[] classInfos;
+    private final int[] scopeIndexes;
+    private final ObjectIntMap<String> classIds = new ObjectIntMap<>();
+    private final Map<String, IntList> annotationPostings = new HashMap<>();
+    private final Map<String, IntList> packagePostings = new HashMap<>();
+    private final Map<Integer, IntList> modifierPostings = new HashMap<>();
+
+    /**
+     * @param scopeClassInfos Сведения о классах каждого корня области, в порядке обхода.
+     */
+    ScanIndex(final @NotNull List<? extends Collection<ClassFileInfo>> scopeClassInfos) {
+        List<ClassFileInfo> infos = new ArrayList<>();
+        IntList scopes = new IntList();
+
+        for (int scopeIndex = 0; scopeIndex < scopeClassInfos.size(); scopeIndex++) {
+            for (ClassFileInfo info : scopeClassInfos.get(scopeIndex)) {
+                if (!ClassLoaderHelper.isPackageInfo(info.getName())) {
+                    infos.add(info);
+                    scopes.add(scopeIndex);
+                }
+            }
+        }
+
+        this.classInfos = infos.toArray(new ClassFileInfo[0]);
+        this.scopeIndexes = scopes.toArray();
+
+        for (int classId = 0; classId < classInfos.length; classId++) {
+            ClassFileInfo info = classInfos[classId];
+            classIds.putIfAbsent(info.getName(), classId);
+
+            for (String annotation : info.getAnnotations()) {
+                annotationPostings.computeIfAbsent(annotation, key -> new IntList()).add(classId);
+            }
+
+            packagePostings.computeIfAbsent(getPackageName(info.getName()), key -> new IntList()).add(classId);
+
+            for (int modifier = 1; modifier <= INDEXED_MODIFIERS; modifier <<= 1) {
+                if ((modifier & INDEXED_MODIFIERS & info.getAccess()) != 0) {
+                    modifierPostings.computeIfAbsent(modifier, key -> new IntList()).add(classId);
+                }
+            }
+        }
+    }
+
+    @Contract(pure = true)
+    int size() {
+        return classInfos.length;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    ClassFileInfo getClassInfo(int classId) {
+        return classInfos[classId];
+    }
+
+    /**
+     * @return Номер корня области, в котором найден класс.
+     */
+    @Contract(pure = true)
+    int getScopeIndex(int classId) {
+        return scopeIndexes[classId];
+    }
+
+    /**
+     * @return Номера всех классов области.
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    int[] getAll() {
+        int[] all = new int[classInfos.length];
+        for (int classId = 0; classId < all.length; classId++) {
+            all[classId] = classId;
+        }
+
+        return all;
+    }
+
+    /**
+     * @return Номера классов, упоминающих аннотацию на любом своем элементе.
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    int[] getAnnotated(@NotNull String annotationName) {
+        return toArray(annotationPostings.get(annotationName));
+    }
+
+    /**
+     * @param subpackages Включать ли вложенные пакеты.
+     * @return Номера классов пакета.
+     */
+    @NotNull
+    @Contract(value = "_, _ -> new", pure = true)
+    int[] getPackage(@NotNull String packageName, boolean subpackages) {
+        if (!subpackages) {
+            return toArray(packagePostings.get(packageName));
+        }
+
+        List<int[]> postings = new ArrayList<>();
+        packagePostings.forEach((name, classes) -> {
+            if (name.equals(packageName) || name.startsWith(packageName + '.')) {
+                postings.add(classes.toArray());
+            }
+        });
+
+        return union(postings);
+    }
+
+    /**
+     * @param modifiers Флаги {@link Modifier}; учитываются только {@link #INDEXED_MODIFIERS}.
+     * @return Номера классов, в заголовках которых заданы все индексируемые флаги, либо {@code null}, если среди
+     * флагов нет индексируемых.
+     */
+    @Nullable
+    @Contract(pure = true)
+    int[] getModifiers(int modifiers) {
+        List<int[]> postings = new ArrayList<>();
+
+        for (int modifier = 1; modifier <= INDEXED_MODIFIERS; modifier <<= 1) {
+            if ((modifier & INDEXED_MODIFIERS & modifiers) != 0) {
+                postings.add(toArray(modifierPostings.get(modifier)));
+            }
+        }
+
+        return postings.isEmpty() ? null : intersect(postings);
+    }
+
+    /**
+     * @return Номера классов с указанными именами, в порядке обхода области; неизвестные имена пропускаются.
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    int[] getClasses(@NotNull Collection<String> classNames) {
+        IntList ids = new IntList(classNames.size());
+        classNames.forEach(name -> {
+            int classId = classIds.get(name);
+            if (classId != ObjectIntMap.NO_VALUE) {
+                ids.add(classId);
+            }
+        });
+
+        int[] result = ids.toArray();
+        Arrays.sort(result);
+
+        return result;
+    }
+
+    /**
+     * @return Номера классов, сведения о которых удовлетворяют условию; проверяются все классы области.
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    int[] select(@NotNull Predicate<ClassFileInfo> filter) {
+        IntList ids = new IntList();
+        for (int classId = 0; classId < classInfos.length; classId++) {
+            if (filter.test(classInfos[classId])) {
+                ids.add(classId);
+            }
+        }
+
+        return ids.toArray();
+    }
+
+    /**
+     * Пересекает возрастающие списки номеров, начиная с самых коротких.
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    static int[] intersect(@NotNull List<int[]> postings) {
+        List<int[]> sorted = new ArrayList<>(postings);
+        sorted.sort(Comparator.comparingInt(ids -> ids.length));
+
+        int[] result = sorted.get(0).clone();
+        int size = result.length;
+
+        for (int i = 1; i < sorted.size() && size > 0; i++) {
+            int[] other = sorted.get(i);
+            int kept = 0;
+            int position = 0;
+
+            for (int j = 0; j < size; j++) {
+                position = search(other, position, result[j]);
+                if (position < other.length && other[position] == result[j]) {
+                    result[kept++] = result[j];
+                }
+            }
+
+            size = kept;
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Объединяет возрастающие списки номеров без повторов.
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    static int[] union(@NotNull List<int[]> postings) {
+        int total = 0;
+        for (int[] ids : postings) {
+            total += ids.length;
+        }
+
+        int[] all = new int[total];
+        int offset = 0;
+        for (int[] ids : postings) {
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+
+        Arrays.sort(all);
+
+        int size = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (size == 0 || all[size - 1] != all[i]) {
+                all[size++] = all[i];
+            }
+        }
+
+        return Arrays.copyOf(all, size);
+    }
+
+    /**
+     * Экспоненциальный поиск: длинный список пересекается с коротким за время, зависящее от длины короткого.
+     *
+     * @return Первая позиция не раньше {@code from}, значение в которой не меньше искомого.
+     */
+    @Contract(pure = true)
+    private static int search(@NotNull int[] ids, int from, int value) {
+        int step = 1;
+        int high = from;
+
+        while (high < ids.length && ids[high] < value) {
+            from = high + 1;
+            high += step;
+            step <<= 1;
+        }
+
+        int index = Arrays.binarySearch(ids, from, Math.min(high + 1, ids.length), value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    private static int[] toArray(@Nullable IntList postings) {
+        return postings == null ? new int[0] : postings.toArray();
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private static String getPackageName(@NotNull String className) {
+        int separator = className.lastIndexOf('.');
+        return separator < 0 ? "" : className.substring(0, separator);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Получатель событий сканирования пакета: перечисления class-файлов, чтения байткода и загрузки классов.
+ *
+ * <p>При параллельном сканировании ({@link ScanSettings#getExecutor()}) методы вызываются из разных потоков
+ * одновременно. Все методы по умолчанию ничего не делают.</p>
+ */
+public interface ScanListener {
+    ScanListener NONE = new ScanListener() {
+    };
+
+    /**
+     * Вызывается после перечисления class-файлов одного корня пакета.
+     *
+     * @param packageName Имя пакета.
+     * @param root        Корень пакета: каталог или место в jar-файле.
+     * @param count       Количество найденных class-файлов, включая вложенные пакеты.
+     * @param nanos       Время перечисления в наносекундах.
+     */
+    default void classFilesListed(@NotNull String packageName, @NotNull URL root, int count, long nanos) {
+    }
+
+    /**
+     * Вызывается после чтения байткода класса без его загрузки.
+     *
+     * @param className Бинарное имя класса.
+     * @param bytes     Размер class-файла.
+     */
+    default void classFileRead(@NotNull String className, int bytes) {
+    }
+
+    /**
+     * Вызывается после загрузки класса загрузчиком.
+     *
+     * @param className Бинарное имя класса.
+     * @param nanos     Время загрузки в наносекундах; для уже загруженного класса близко к нулю.
+     */
+    default void classLoaded(@NotNull String className, long nanos) {
+    }
+
+    /**
+     * @return Получатель, передающий каждое событие всем указанным получателям по порядку.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static ScanListener of(@NotNull ScanListener... listeners) {
+        List<ScanListener> delegates = Arrays.asList(listeners.clone());
+
+        return new ScanListener() {
+            @Override
+            public void classFilesListed(@NotNull String packageName, @NotNull URL root, int count, long nanos) {
+                delegates.forEach(listener -> listener.classFilesListed(packageName, root, count, nanos));
+            }
+
+            @Override
+            public void classFileRead(@NotNull String className, int bytes) {
+                delegates.forEach(listener -> listener.classFileRead(className, bytes));
+            }
+
+            @Override
+            public void classLoaded(@NotNull String className, long nanos) {
+                delegates.forEach(listener -> listener.classLoaded(className, nanos));
+            }
+        };
+    }
+}
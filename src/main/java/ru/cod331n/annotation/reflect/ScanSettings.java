@@ -0,0 +1,291 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.cache.PersistentScanCache;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Настройки сканирования пакета.
+ *
+ * <p>Экземпляр неизменяем; создается через {@link #builder()}. Настройки по умолчанию
+ * ({@link #defaults()}) соответствуют простому обходу пакета с загрузкой всех классов.</p>
+ */
+public final class ScanSettings {
+    private static final ScanSettings DEFAULTS = builder().build();
+
+    private final boolean bytecodeFilter;
+    private final boolean annotationIndex;
+    private final PersistentScanCache persistentCache;
+    private final Executor executor;
+    private final ScanListener listener;
+    private final AnnotationClosure annotationClosure;
+    private final ScanFilter filter;
+    private final List<Class<?>> moduleLayerClasses;
+
+    private ScanSettings(final @NotNull Builder builder) {
+        this.bytecodeFilter = builder.bytecodeFilter;
+        this.annotationIndex = builder.annotationIndex;
+        this.persistentCache = builder.persistentCache;
+        this.executor = builder.executor;
+        this.listener = builder.listener;
+        this.annotationClosure = AnnotationClosure.of(builder.metaAnnotations, builder.inheritedAnnotations);
+        this.filter = builder.filter;
+        this.moduleLayerClasses = Collections.unmodifiableList(new ArrayList<>(builder.moduleLayerClasses));
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public static ScanSettings defaults() {
+        return DEFAULTS;
+    }
+
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Построитель, заполненный значениями этих настроек.
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.bytecodeFilter = bytecodeFilter;
+        builder.annotationIndex = annotationIndex;
+        builder.persistentCache = persistentCache;
+        builder.executor = executor;
+        builder.listener = listener;
+        builder.metaAnnotations = annotationClosure.isMetaAnnotations();
+        builder.inheritedAnnotations = annotationClosure.isInheritedAnnotations();
+        builder.filter = filter;
+        builder.moduleLayerClasses.addAll(moduleLayerClasses);
+
+        return builder;
+    }
+
+    /**
+     * @return {@code true}, если перед загрузкой классы отбираются по байткоду и загрузчику передаются
+     * только те, что ссылаются на искомые аннотации.
+     */
+    @Contract(pure = true)
+    public boolean isBytecodeFilter() {
+        return bytecodeFilter;
+    }
+
+    /**
+     * @return {@code true}, если при наличии индекса аннотаций, записанного во время компиляции, классы
+     * отбираются по нему: пакет обходится только для списка class-файлов, а читаются лишь те, которых нет в индексе.
+     */
+    @Contract(pure = true)
+    public boolean isAnnotationIndex() {
+        return annotationIndex;
+    }
+
+    /**
+     * @return Кэш результатов сканирования на диске, либо {@code null}, если он не используется.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public PersistentScanCache getPersistentCache() {
+        return persistentCache;
+    }
+
+    /**
+     * @return Исполнитель для параллельного сканирования, либо {@code null}, если пакет сканируется последовательно.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return Получатель событий сканирования; {@link ScanListener#NONE}, если он не задан.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public ScanListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @return Правила сопоставления аннотаций с элементами; {@link AnnotationClosure#DIRECT}, если учитываются
+     * только аннотации самих элементов.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public AnnotationClosure getAnnotationClosure() {
+        return annotationClosure;
+    }
+
+    /**
+     * @return Отбор пакетов, классов и jar-файлов; {@link ScanFilter#ALL}, если он не задан.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public ScanFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @return Классы, модули которых задают слои для поиска пакетов в модулях помимо загрузочного.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<Class<?>> getModuleLayerClasses() {
+        return moduleLayerClasses;
+    }
+
+    public static final class Builder {
+        private boolean bytecodeFilter;
+        private boolean annotationIndex = true;
+        private PersistentScanCache persistentCache;
+        private Executor executor;
+        private ScanListener listener = ScanListener.NONE;
+        private boolean metaAnnotations;
+        private boolean inheritedAnnotations;
+        private ScanFilter filter = ScanFilter.ALL;
+        private final List<Class<?>> moduleLayerClasses = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Включает предварительный отбор классов по байткоду: пул констант и атрибуты
+         * {@code RuntimeVisible*Annotations} читаются без загрузки класса, а загрузчику передаются
+         * только классы, ссылающиеся хотя бы на одну из искомых аннотаций.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder bytecodeFilter(boolean bytecodeFilter) {
+            this.bytecodeFilter = bytecodeFilter;
+            return this;
+        }
+
+        /**
+         * Разрешает использовать индекс аннотаций из {@value ru.cod331n.annotation.reflect.index.AnnotationIndex#RESOURCE_NAME},
+         * если он есть в корне classpath, содержащем пакет. Включено по умолчанию.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder annotationIndex(boolean annotationIndex) {
+            this.annotationIndex = annotationIndex;
+            return this;
+        }
+
+        /**
+         * Сохраняет результаты чтения байткода в указанный файл и использует их при следующих запусках, пока
+         * не изменится отпечаток корня classpath (размер, время изменения и CRC центрального каталога jar-файла
+         * или времена изменения файлов каталога). Имеет смысл вместе с {@link #bytecodeFilter(boolean)}.
+         *
+         * @param file Файл кэша, либо {@code null}, чтобы не использовать кэш.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder persistentCache(@Nullable Path file) {
+            this.persistentCache = file == null ? null : new PersistentScanCache(file);
+            return this;
+        }
+
+        /**
+         * Включает параллельное сканирование в общем {@link ForkJoinPool}.
+         */
+        @NotNull
+        @Contract(value = "-> this", mutates = "this")
+        public Builder parallel() {
+            return parallel(ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Включает параллельное сканирование на указанном исполнителе: подкаталоги обходятся, а классы загружаются
+         * и читаются параллельно. Порядок найденных классов остается таким же, как при последовательном обходе.
+         * Задачи исполнителя не ждут друг друга, поэтому число его потоков может быть любым.
+         *
+         * @param executor Исполнитель, либо {@code null} для последовательного сканирования.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder parallel(@Nullable Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Задает получателя событий сканирования: перечисления class-файлов, чтения байткода и загрузки классов.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder listener(@NotNull ScanListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Включает составные аннотации: элемент, помеченный аннотацией, которая сама помечена искомой
+         * (непосредственно или через другие мета-аннотации), считается помеченным искомой. Процессор получает
+         * экземпляр мета-аннотации. Так как составная аннотация может иметь другие {@link java.lang.annotation.Target},
+         * элементы проверяются во всех контекстах объявлений, а не только из {@code @Target} искомой аннотации.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder metaAnnotations(boolean metaAnnotations) {
+            this.metaAnnotations = metaAnnotations;
+            return this;
+        }
+
+        /**
+         * Включает наследование аннотаций: класс считается помеченным аннотациями своих суперклассов и интерфейсов,
+         * а метод - аннотациями переопределенных им методов, независимо от {@link java.lang.annotation.Inherited}.
+         * Собственные аннотации элемента важнее унаследованных.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder inheritedAnnotations(boolean inheritedAnnotations) {
+            this.inheritedAnnotations = inheritedAnnotations;
+            return this;
+        }
+
+        /**
+         * Задает отбор пакетов, классов и jar-файлов. Отбор выполняется по именам до чтения байткода и загрузки
+         * классов: исключенные подкаталоги не обходятся, а исключенные jar-файлы не открываются.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder filter(@NotNull ScanFilter filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /**
+         * Ищет пакеты и в модулях слоев, в которых определены указанные классы, и в их родительских слоях; без этого
+         * просматривается только загрузочный слой. Нужен для слоев, созданных приложением, например, через
+         * {@code ModuleLayer.defineModulesWithOneLoader}; загрузчик сканирования должен видеть загрузчики их модулей.
+         * На Java 8 не действует.
+         *
+         * @param classes Классы из модулей нужных слоев.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder moduleLayersOf(@NotNull Class<?>... classes) {
+            moduleLayerClasses.addAll(Arrays.asList(classes));
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = "-> new", pure = true)
+        public ScanSettings build() {
+            return new ScanSettings(this);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Индекс подтипов классов сканируемой области, построенный по заголовкам class-файлов: суперклассам и интерфейсам.
+ *
+ * <p>Запрос не загружает классы. Если класс области наследует искомый тип через класс вне области (например,
+ * через базовый класс библиотеки), заголовки таких промежуточных типов читаются из байткода один раз и
+ * запоминаются. Результаты запросов также запоминаются; экземпляр потокобезопасен.</p>
+ */
+public final class SubtypeIndex {
+    private final List<ClassFileInfo> classInfos;
+    private final Set<String> classNames;
+    private final Map<String, List<String>> directSubtypes;
+    private final Function<String, ClassFileInfo> headerReader;
+    private final Map<String, Set<String>> externalSupertypes = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> subtypes = new ConcurrentHashMap<>();
+
+    /**
+     * @param classInfos   Сведения о классах области в порядке обхода.
+     * @param headerReader Чтение заголовка класса вне области по имени; возвращает {@code null}, если
+     *                     class-файл не найден.
+     */
+    public SubtypeIndex(final @NotNull Collection<ClassFileInfo> classInfos, final @NotNull Function<String, ClassFileInfo> headerReader) {
+        this.classInfos = new ArrayList<>(classInfos);
+        this.classNames = new HashSet<>();
+        this.directSubtypes = new HashMap<>();
+        this.headerReader = headerReader;
+
+        for (ClassFileInfo info : classInfos) {
+            classNames.add(info.getName());
+
+            if (info.getSuperName() != null) {
+                directSubtypes.computeIfAbsent(info.getSuperName(), key -> new ArrayList<>()).add(info.getName());
+            }
+
+            for (String interfaceName : info.getInterfaceNames()) {
+                directSubtypes.computeIfAbsent(interfaceName, key -> new ArrayList<>()).add(info.getName());
+            }
+        }
+    }
+
+    /**
+     * Возвращает классы области, которые наследуют указанный тип или реализуют его, непосредственно или
+     * через другие типы. Сам тип в результат не входит.
+     *
+     * @param typeName Бинарное имя класса или интерфейса.
+     * @return Имена подтипов в порядке обхода области.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<String> getSubtypeNames(@NotNull String typeName) {
+        @Nullable List<String> cached = subtypes.get(typeName);
+        if (cached != null) {
+            return cached;
+        }
+
+        Set<String> found = new HashSet<>();
+        collectSubtypes(typeName, found);
+
+        // подтипы через промежуточные типы вне области
+        for (String supertype : directSubtypes.keySet()) {
+            if (!classNames.contains(supertype) && !supertype.equals(typeName) && getExternalSupertypes(supertype).contains(typeName)) {
+                collectSubtypes(supertype, found);
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        for (ClassFileInfo info : classInfos) {
+            if (found.contains(info.getName()) && !info.getName().equals(typeName)) {
+                result.add(info.getName());
+            }
+        }
+
+        result = Collections.unmodifiableList(result);
+        subtypes.put(typeName, result);
+
+        return result;
+    }
+
+    private void collectSubtypes(@NotNull String typeName, @NotNull Set<String> found) {
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(typeName);
+
+        while (!queue.isEmpty()) {
+            for (String subtype : directSubtypes.getOrDefault(queue.poll(), Collections.emptyList())) {
+                if (found.add(subtype)) {
+                    queue.add(subtype);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Все супертипы класса вне области, прочитанные из заголовков его и его предков.
+     */
+    @NotNull
+    private Set<String> getExternalSupertypes(@NotNull String className) {
+        @Nullable Set<String> cached = externalSupertypes.get(className);
+        if (cached != null) {
+            return cached;
+        }
+
+        Set<String> supertypes = new HashSet<>();
+        @Nullable ClassFileInfo info = className.equals("java.lang.Object") ? null : headerReader.apply(className);
+
+        if (info != null) {
+            List<String> direct = new ArrayList<>(info.getInterfaceNames());
+            if (info.getSuperName() != null) {
+                direct.add(info.getSuperName());
+            }
+
+            for (String supertype : direct) {
+                supertypes.add(supertype);
+                supertypes.addAll(getExternalSupertypes(supertype));
+            }
+        }
+
+        externalSupertypes.put(className, supertypes);
+        return supertypes;
+    }
+}
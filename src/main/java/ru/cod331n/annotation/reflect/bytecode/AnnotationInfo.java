@@ -0,0 +1,120 @@
+package ru.cod331n.annotation.reflect.bytecode;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Аннотация, прочитанная из байткода: имя типа и явно заданные значения атрибутов.
+ *
+ * <p>Значения представлены так же, как в {@link Annotation}, за исключением ссылок на другие типы: примитивы
+ * упакованы, строки - {@link String}, константы перечислений - {@link EnumConstant}, классы - {@link ClassReference},
+ * вложенные аннотации - {@link AnnotationInfo}, массивы - {@link java.util.List}. Значения по умолчанию хранятся
+ * в классе аннотации, а не в байткоде элемента, поэтому для незаданных атрибутов возвращается {@code null}.</p>
+ */
+public final class AnnotationInfo {
+    private final String typeName;
+    private final Map<String, Object> values;
+
+    AnnotationInfo(final @NotNull String typeName, final @NotNull Map<String, Object> values) {
+        this.typeName = typeName;
+        this.values = values;
+    }
+
+    /**
+     * @return Бинарное имя типа аннотации.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getTypeName() {
+        return typeName;
+    }
+
+    @Contract(pure = true)
+    public boolean is(@NotNull Class<? extends Annotation> annotation) {
+        return typeName.equals(annotation.getName());
+    }
+
+    /**
+     * @return Явно заданные значения атрибутов в порядке байткода.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Map<String, Object> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * @param name Имя атрибута.
+     * @return Значение атрибута, либо {@code null}, если оно не задано явно.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public Object getValue(@NotNull String name) {
+        return values.get(name);
+    }
+
+    @Override
+    public String toString() {
+        return "@" + typeName + values;
+    }
+
+    /**
+     * Значение атрибута-перечисления.
+     */
+    public static final class EnumConstant {
+        private final String typeName;
+        private final String name;
+
+        EnumConstant(final @NotNull String typeName, final @NotNull String name) {
+            this.typeName = typeName;
+            this.name = name;
+        }
+
+        @NotNull
+        @Contract(pure = true)
+        public String getTypeName() {
+            return typeName;
+        }
+
+        @NotNull
+        @Contract(pure = true)
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return typeName + '.' + name;
+        }
+    }
+
+    /**
+     * Значение атрибута-класса, например, {@code String.class} или {@code int[].class}.
+     */
+    public static final class ClassReference {
+        private final String typeName;
+
+        ClassReference(final @NotNull String typeName) {
+            this.typeName = typeName;
+        }
+
+        /**
+         * @return Имя типа в виде исходного кода: {@code java.lang.String}, {@code int}, {@code int[]}.
+         */
+        @NotNull
+        @Contract(pure = true)
+        public String getTypeName() {
+            return typeName;
+        }
+
+        @Override
+        public String toString() {
+            return typeName + ".class";
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package ru.cod331n.annotation.reflect.bytecode;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.AnnotationClosure;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Отбирает классы, которые могут содержать элементы с искомыми аннотациями, по сведениям из байткода.
+ *
+ * <p>Класс отбирается, если ссылается хотя бы на одну из аннотаций. Для аннотаций с {@link Inherited}
+ * дополнительно отбираются наследники классов, помеченных ими: суперклассы из сканируемой области
+ * проверяются по байткоду, а суперклассы вне ее загружаются и проверяются рефлексией.</p>
+ *
+ * <p>С {@link AnnotationClosure#isMetaAnnotations()} искомые аннотации дополняются составными: аннотациями,
+ * на которые ссылаются классы области и которые помечены искомыми. Составные аннотации из области проверяются
+ * по байткоду, остальные загружаются. С {@link AnnotationClosure#isInheritedAnnotations()} все искомые аннотации
+ * считаются наследуемыми, а наследники отбираются и по интерфейсам, и по аннотациям методов супертипов.</p>
+ */
+public final class ClassFileFilter {
+    private final Map<String, ClassFileInfo> scope;
+    private final Set<String> annotations;
+    private final Set<String> inheritedAnnotationNames;
+    private final Function<String, Class<?>> classLoader;
+    private final AnnotationClosure closure;
+    private final Map<String, Boolean> inheritedMatches;
+    private final Map<String, Boolean> composedMatches;
+
+    public ClassFileFilter(
+            final @NotNull Collection<ClassFileInfo> scope,
+            final @NotNull Collection<Class<? extends Annotation>> annotations,
+            final @NotNull Function<String, Class<?>> classLoader
+    ) {
+        this(scope, annotations, classLoader, AnnotationClosure.DIRECT);
+    }
+
+    public ClassFileFilter(
+            final @NotNull Collection<ClassFileInfo> scope,
+            final @NotNull Collection<Class<? extends Annotation>> annotations,
+            final @NotNull Function<String, Class<?>> classLoader,
+            final @NotNull AnnotationClosure closure
+    ) {
+        this.scope = new HashMap<>();
+        scope.forEach(info -> this.scope.put(info.getName(), info));
+
+        this.annotations = new HashSet<>();
+        this.inheritedAnnotationNames = new HashSet<>();
+        this.classLoader = classLoader;
+        this.closure = closure;
+        this.inheritedMatches = new HashMap<>();
+        this.composedMatches = new HashMap<>();
+
+        for (Class<? extends Annotation> annotation : annotations) {
+            this.annotations.add(annotation.getName());
+            addInherited(annotation);
+        }
+
+        if (closure.isMetaAnnotations()) {
+            Set<String> referenced = new LinkedHashSet<>();
+            scope.forEach(info -> referenced.addAll(info.getAnnotations()));
+
+            for (String name : referenced) {
+                @Nullable Class<? extends Annotation> composed = this.annotations.contains(name) ? null : loadComposed(name, annotations);
+
+                if (composed != null) {
+                    this.annotations.add(name);
+                    addInherited(composed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Отбирает классы, сохраняя их исходный порядок.
+     *
+     * @param infos Сведения о классах сканируемой области.
+     * @return Сведения об отобранных классах.
+     */
+    @NotNull
+    public List<ClassFileInfo> filter(@NotNull Collection<ClassFileInfo> infos) {
+        List<ClassFileInfo> result = new ArrayList<>();
+
+        for (ClassFileInfo info : infos) {
+            if (test(info)) {
+                result.add(info);
+            }
+        }
+
+        return result;
+    }
+
+    @Contract(pure = true)
+    public boolean test(@NotNull ClassFileInfo info) {
+        return !Collections.disjoint(info.getAnnotations(), annotations)
+                || (!inheritedAnnotationNames.isEmpty() && inheritsAnnotation(info));
+    }
+
+    private boolean inheritsAnnotation(@NotNull ClassFileInfo info) {
+        if (inheritsAnnotation(info.getSuperName())) {
+            return true;
+        }
+
+        if (closure.isInheritedAnnotations()) {
+            for (String interfaceName : info.getInterfaceNames()) {
+                if (inheritsAnnotation(interfaceName)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean inheritsAnnotation(@Nullable String className) {
+        if (className == null || className.startsWith("java.")) {
+            return false;
+        }
+
+        @Nullable Boolean cached = inheritedMatches.get(className);
+        if (cached != null) {
+            return cached;
+        }
+
+        @Nullable ClassFileInfo info = scope.get(className);
+        boolean matches;
+
+        if (info == null) {
+            matches = isInheritedAnnotationPresent(classLoader.apply(className));
+        } else {
+            Set<String> inheritable = closure.isInheritedAnnotations() ? info.getAnnotations() : info.getClassAnnotations();
+            matches = !Collections.disjoint(inheritable, inheritedAnnotationNames) || inheritsAnnotation(info);
+        }
+
+        inheritedMatches.put(className, matches);
+        return matches;
+    }
+
+    @Contract(pure = true)
+    private boolean isInheritedAnnotationPresent(@NotNull Class<?> clazz) {
+        if (containsInherited(closure.getAnnotations(clazz))) {
+            return true;
+        }
+
+        if (closure.isInheritedAnnotations()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (containsInherited(closure.getAnnotations(method))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Contract(pure = true)
+    private boolean containsInherited(@NotNull Collection<Annotation> annotations) {
+        for (Annotation annotation : annotations) {
+            if (inheritedAnnotationNames.contains(annotation.annotationType().getName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void addInherited(@NotNull Class<? extends Annotation> annotation) {
+        if (closure.isInheritedAnnotations() || annotation.isAnnotationPresent(Inherited.class)) {
+            inheritedAnnotationNames.add(annotation.getName());
+        }
+    }
+
+    /**
+     * Проверяет, является ли аннотация составной из искомых, и загружает ее, если да.
+     *
+     * @param name    Имя аннотации, на которую ссылается класс области.
+     * @param targets Искомые аннотации.
+     * @return Составная аннотация, либо {@code null}.
+     */
+    @Nullable
+    private Class<? extends Annotation> loadComposed(@NotNull String name, @NotNull Collection<Class<? extends Annotation>> targets) {
+        if (!isComposed(name, targets)) {
+            return null;
+        }
+
+        try {
+            return classLoader.apply(name).asSubclass(Annotation.class);
+        } catch (RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private boolean isComposed(@NotNull String name, @NotNull Collection<Class<? extends Annotation>> targets) {
+        if (name.startsWith("java.lang.annotation.")) {
+            return false;
+        }
+
+        @Nullable Boolean cached = composedMatches.get(name);
+        if (cached != null) {
+            return cached;
+        }
+
+        // защита от циклов мета-аннотаций
+        composedMatches.put(name, false);
+
+        @Nullable ClassFileInfo info = scope.get(name);
+        boolean matches = false;
+
+        if (info != null) {
+            for (String metaAnnotation : info.getClassAnnotations()) {
+                matches |= targets.stream().anyMatch(target -> target.getName().equals(metaAnnotation)) || isComposed(metaAnnotation, targets);
+            }
+        } else {
+            try {
+                Class<?> clazz = classLoader.apply(name);
+                matches = clazz.isAnnotation() && targets.stream().anyMatch(target -> AnnotationClosure.isComposedOf(clazz.asSubclass(Annotation.class), target));
+            } catch (RuntimeException | LinkageError e) {
+                matches = false;
+            }
+        }
+
+        composedMatches.put(name, matches);
+        return matches;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.cod331n.annotation.reflect.bytecode;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Сведения о классе, прочитанные из его байткода без загрузки через {@link ClassLoader}.
+ *
+ * <p>Все имена хранятся в бинарном виде, в котором их возвращает {@link Class#getName()}.</p>
+ */
+public final class ClassFileInfo {
+    private final String name;
+    private final String superName;
+    private final List<String> interfaceNames;
+    private final int access;
+    private final Set<String> classAnnotations;
+    private final Set<String> annotations;
+
+    public ClassFileInfo(
+            final @NotNull String name,
+            final @Nullable String superName,
+            final @NotNull List<String> interfaceNames,
+            final int access,
+            final @NotNull Set<String> classAnnotations,
+            final @NotNull Set<String> annotations
+    ) {
+        this.name = name;
+        this.superName = superName;
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+        this.access = access;
+        this.classAnnotations = Collections.unmodifiableSet(classAnnotations);
+        this.annotations = Collections.unmodifiableSet(annotations);
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Имя суперкласса, либо {@code null} для {@link Object}, интерфейсов модулей и {@code package-info}.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public String getSuperName() {
+        return superName;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * @return Флаги доступа класса из заголовка class-файла.
+     */
+    @Contract(pure = true)
+    public int getAccess() {
+        return access;
+    }
+
+    /**
+     * @return Аннотации, объявленные непосредственно на классе.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Set<String> getClassAnnotations() {
+        return classAnnotations;
+    }
+
+    /**
+     * @return Все аннотации с временем жизни {@code RUNTIME}, упомянутые в классе: на самом классе, полях, методах,
+     * параметрах и использованиях типов.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Set<String> getAnnotations() {
+        return annotations;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassFileInfo{" + name + '}';
+    }
+}
@@ -0,0 +1,624 @@
+package ru.cod331n.annotation.reflect.bytecode;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Минимальный читатель class-файлов.
+ *
+ * <p>Разбирает пул констант, заголовок класса и атрибуты {@code RuntimeVisibleAnnotations},
+ * {@code RuntimeVisibleParameterAnnotations} и {@code RuntimeVisibleTypeAnnotations} класса, полей и методов.
+ * Тела методов и прочие атрибуты пропускаются без разбора. Строки пула констант декодируются только по запросу.</p>
+ *
+ * <p>{@link #read(ByteBuffer)} собирает только имена аннотаций, {@link #readClassInfo(ByteBuffer, ClassLoader)} -
+ * полное описание членов класса и значения их аннотаций, без аннотаций типов.</p>
+ */
+public final class ClassFileReader {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS = "RuntimeVisibleParameterAnnotations";
+    private static final String RUNTIME_VISIBLE_TYPE_ANNOTATIONS = "RuntimeVisibleTypeAnnotations";
+
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+    private final String[] strings;
+
+    private ClassFileReader(@NotNull ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        Preconditions.checkAndThrow(
+                buffer.getInt() != MAGIC,
+                () -> new IllegalArgumentException("Not a class file")
+        );
+
+        buffer.getShort(); // minor_version
+        buffer.getShort(); // major_version
+
+        int constantPoolCount = u2();
+        this.offsets = new int[constantPoolCount];
+        this.strings = new String[constantPoolCount];
+
+        for (int index = 1; index < constantPoolCount; index++) {
+            int tag = u1();
+            offsets[index] = buffer.position();
+
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    skip(u2());
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skip(8);
+                    index++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag: " + tag);
+            }
+        }
+    }
+
+    /**
+     * Читает сведения о классе из буфера, начиная с его текущей позиции.
+     *
+     * @param buffer Содержимое class-файла.
+     * @return Сведения о классе.
+     * @throws IllegalArgumentException если содержимое не является корректным class-файлом.
+     */
+    @NotNull
+    public static ClassFileInfo read(@NotNull ByteBuffer buffer) {
+        try {
+            return new ClassFileReader(buffer.slice()).readClass();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed class file", e);
+        }
+    }
+
+    @NotNull
+    public static ClassFileInfo read(@NotNull InputStream inputStream) throws IOException {
+        return read(ByteBuffer.wrap(readAllBytes(inputStream)));
+    }
+
+    /**
+     * Читает полное описание класса из буфера, начиная с его текущей позиции.
+     *
+     * @param buffer      Содержимое class-файла.
+     * @param classLoader Загрузчик, которым описание будет загружать класс по запросу.
+     * @return Описание класса.
+     * @throws IllegalArgumentException если содержимое не является корректным class-файлом.
+     */
+    @NotNull
+    public static ClassInfo readClassInfo(@NotNull ByteBuffer buffer, @NotNull ClassLoader classLoader) {
+        try {
+            return new ClassFileReader(buffer.slice()).readClassInfo(classLoader);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed class file", e);
+        }
+    }
+
+    @NotNull
+    public static byte[] readAllBytes(@NotNull InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(inputStream.available(), 1024));
+        byte[] chunk = new byte[8192];
+
+        int read;
+        while ((read = inputStream.read(chunk)) != -1) {
+            outputStream.write(chunk, 0, read);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    @NotNull
+    private ClassFileInfo readClass() {
+        int access = u2();
+        String name = className(u2());
+        int superIndex = u2();
+        String superName = superIndex == 0 ? null : className(superIndex);
+
+        int interfacesCount = u2();
+        List<String> interfaceNames = new ArrayList<>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(className(u2()));
+        }
+
+        Set<String> annotations = new HashSet<>();
+        readMembers(annotations); // fields
+        readMembers(annotations); // methods
+
+        Set<String> classAnnotations = new HashSet<>();
+        readAttributes(classAnnotations, annotations);
+        annotations.addAll(classAnnotations);
+
+        return new ClassFileInfo(name, superName, interfaceNames, access, classAnnotations, annotations);
+    }
+
+    @NotNull
+    private ClassInfo readClassInfo(@NotNull ClassLoader classLoader) {
+        int access = u2();
+        String name = className(u2());
+        int superIndex = u2();
+        String superName = superIndex == 0 ? null : className(superIndex);
+
+        int interfacesCount = u2();
+        List<String> interfaceNames = new ArrayList<>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(className(u2()));
+        }
+
+        ClassInfo info = new ClassInfo(name, superName, interfaceNames, access, classLoader);
+        readMemberInfos(info, true);
+        readMemberInfos(info, false);
+
+        List<AnnotationInfo> annotations = new ArrayList<>();
+        readAnnotationInfoAttributes(annotations, new ArrayList<>());
+        info.addElement(new ElementInfo(info, ElementType.TYPE, name, "L" + name.replace('.', '/') + ";", access, -1, annotations));
+
+        return info;
+    }
+
+    private void readMemberInfos(@NotNull ClassInfo info, boolean fields) {
+        int count = u2();
+
+        for (int i = 0; i < count; i++) {
+            int access = u2();
+            String name = utf8(u2());
+            String descriptor = utf8(u2());
+
+            List<AnnotationInfo> annotations = new ArrayList<>();
+            List<List<AnnotationInfo>> parameters = new ArrayList<>();
+            readAnnotationInfoAttributes(annotations, parameters);
+
+            if (fields) {
+                info.addElement(new ElementInfo(info, ElementType.FIELD, name, descriptor, access, -1, annotations));
+                continue;
+            }
+
+            if ("<clinit>".equals(name)) {
+                continue;
+            }
+
+            ElementType kind = "<init>".equals(name) ? ElementType.CONSTRUCTOR : ElementType.METHOD;
+            info.addElement(new ElementInfo(info, kind, name, descriptor, access, -1, annotations));
+
+            // Атрибут может не учитывать синтетические параметры в начале дескриптора,
+            // например, ссылку на внешний класс в конструкторе внутреннего класса.
+            int shift = Math.max(parameterCount(descriptor) - parameters.size(), 0);
+            for (int parameter = 0; parameter < parameters.size(); parameter++) {
+                List<AnnotationInfo> parameterAnnotations = parameters.get(parameter);
+
+                if (!parameterAnnotations.isEmpty()) {
+                    info.addElement(new ElementInfo(info, ElementType.PARAMETER, name, descriptor, access, parameter + shift, parameterAnnotations));
+                }
+            }
+        }
+    }
+
+    private void readAnnotationInfoAttributes(@NotNull List<AnnotationInfo> declared, @NotNull List<List<AnnotationInfo>> parameters) {
+        int count = u2();
+
+        for (int i = 0; i < count; i++) {
+            String attributeName = utf8(u2());
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+
+            switch (attributeName) {
+                case RUNTIME_VISIBLE_ANNOTATIONS:
+                    readAnnotationInfos(declared);
+                    break;
+                case RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS:
+                    int parameterCount = u1();
+                    for (int parameter = 0; parameter < parameterCount; parameter++) {
+                        List<AnnotationInfo> annotations = new ArrayList<>();
+                        readAnnotationInfos(annotations);
+                        parameters.add(annotations);
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            buffer.position(end);
+        }
+    }
+
+    private void readAnnotationInfos(@NotNull List<AnnotationInfo> annotations) {
+        int count = u2();
+
+        for (int i = 0; i < count; i++) {
+            annotations.add(readAnnotationInfo());
+        }
+    }
+
+    @NotNull
+    private AnnotationInfo readAnnotationInfo() {
+        String type = descriptorToName(utf8(u2()));
+        int pairs = u2();
+        Map<String, Object> values = pairs == 0 ? Collections.emptyMap() : new LinkedHashMap<>();
+
+        for (int i = 0; i < pairs; i++) {
+            String name = utf8(u2());
+            values.put(name, readElementValue());
+        }
+
+        return new AnnotationInfo(type, values);
+    }
+
+    @NotNull
+    private Object readElementValue() {
+        int tag = u1();
+
+        switch (tag) {
+            case 'B':
+                return (byte) buffer.getInt(offsets[u2()]);
+            case 'C':
+                return (char) buffer.getInt(offsets[u2()]);
+            case 'S':
+                return (short) buffer.getInt(offsets[u2()]);
+            case 'I':
+                return buffer.getInt(offsets[u2()]);
+            case 'Z':
+                return buffer.getInt(offsets[u2()]) != 0;
+            case 'J':
+                return buffer.getLong(offsets[u2()]);
+            case 'F':
+                return buffer.getFloat(offsets[u2()]);
+            case 'D':
+                return buffer.getDouble(offsets[u2()]);
+            case 's':
+                return utf8(u2());
+            case 'e':
+                String enumType = descriptorToName(utf8(u2()));
+                return new AnnotationInfo.EnumConstant(enumType, utf8(u2()));
+            case 'c':
+                return new AnnotationInfo.ClassReference(descriptorToTypeName(utf8(u2())));
+            case '@':
+                return readAnnotationInfo();
+            case '[':
+                int count = u2();
+                List<Object> values = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    values.add(readElementValue());
+                }
+                return Collections.unmodifiableList(values);
+            default:
+                throw new IllegalArgumentException("Unknown element value tag: " + (char) tag);
+        }
+    }
+
+    private void readMembers(@NotNull Set<String> annotations) {
+        int count = u2();
+
+        for (int i = 0; i < count; i++) {
+            skip(6); // access_flags, name_index, descriptor_index
+            readAttributes(annotations, annotations);
+        }
+    }
+
+    private void readAttributes(@NotNull Set<String> declared, @NotNull Set<String> nested) {
+        int count = u2();
+
+        for (int i = 0; i < count; i++) {
+            String attributeName = utf8(u2());
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+
+            switch (attributeName) {
+                case RUNTIME_VISIBLE_ANNOTATIONS:
+                    readAnnotations(declared);
+                    break;
+                case RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS:
+                    int parameters = u1();
+                    for (int parameter = 0; parameter < parameters; parameter++) {
+                        readAnnotations(nested);
+                    }
+                    break;
+                case RUNTIME_VISIBLE_TYPE_ANNOTATIONS:
+                    readTypeAnnotations(nested);
+                    break;
+                default:
+                    break;
+            }
+
+            buffer.position(end);
+        }
+    }
+
+    private void readAnnotations(@NotNull Set<String> annotations) {
+        int count = u2();
+
+        for (int i = 0; i < count; i++) {
+            annotations.add(readAnnotation());
+        }
+    }
+
+    private void readTypeAnnotations(@NotNull Set<String> annotations) {
+        int count = u2();
+
+        for (int i = 0; i < count; i++) {
+            skipTypeAnnotationTarget();
+            skip(u1() * 2); // type_path
+            annotations.add(readAnnotation());
+        }
+    }
+
+    private void skipTypeAnnotationTarget() {
+        int targetType = u1();
+
+        switch (targetType) {
+            case 0x00: // type_parameter_target
+            case 0x01:
+            case 0x16: // formal_parameter_target
+                skip(1);
+                break;
+            case 0x10: // supertype_target
+            case 0x17: // throws_target
+            case 0x42: // catch_target
+            case 0x43: // offset_target
+            case 0x44:
+            case 0x45:
+            case 0x46:
+                skip(2);
+                break;
+            case 0x11: // type_parameter_bound_target
+            case 0x12:
+                skip(2);
+                break;
+            case 0x13: // empty_target
+            case 0x14:
+            case 0x15:
+                break;
+            case 0x40: // localvar_target
+            case 0x41:
+                skip(u2() * 6);
+                break;
+            case 0x47: // type_argument_target
+            case 0x48:
+            case 0x49:
+            case 0x4A:
+            case 0x4B:
+                skip(3);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type annotation target: " + targetType);
+        }
+    }
+
+    @NotNull
+    private String readAnnotation() {
+        String type = descriptorToName(utf8(u2()));
+        int pairs = u2();
+
+        for (int i = 0; i < pairs; i++) {
+            skip(2); // element_name_index
+            skipElementValue();
+        }
+
+        return type;
+    }
+
+    private void skipElementValue() {
+        int tag = u1();
+
+        switch (tag) {
+            case 'e':
+                skip(4);
+                break;
+            case '@':
+                readAnnotation();
+                break;
+            case '[':
+                int count = u2();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue();
+                }
+                break;
+            default:
+                skip(2);
+                break;
+        }
+    }
+
+    @NotNull
+    private String className(int index) {
+        return utf8(u2At(offsets[index])).replace('/', '.');
+    }
+
+    @NotNull
+    private String utf8(int index) {
+        @Nullable String value = strings[index];
+
+        if (value == null) {
+            value = decodeUtf8(offsets[index]);
+            strings[index] = value;
+        }
+
+        return value;
+    }
+
+    /**
+     * Декодирует строку в модифицированной кодировке UTF-8, принятой в class-файлах.
+     */
+    @NotNull
+    private String decodeUtf8(int offset) {
+        int length = u2At(offset);
+        int position = offset + 2;
+        int end = position + length;
+        char[] chars = new char[length];
+        int count = 0;
+
+        while (position < end) {
+            int b = buffer.get(position++) & 0xFF;
+
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get(position++) & 0x3F));
+            } else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer.get(position++) & 0x3F) << 6) | (buffer.get(position++) & 0x3F));
+            }
+        }
+
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Преобразует дескриптор вида {@code Lru/cod331n/Type;} в бинарное имя {@code ru.cod331n.Type}.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static String descriptorToName(@NotNull String descriptor) {
+        return descriptor.startsWith("L") && descriptor.endsWith(";")
+                ? descriptor.substring(1, descriptor.length() - 1).replace('/', '.')
+                : descriptor;
+    }
+
+    /**
+     * Преобразует дескриптор типа в имя в виде исходного кода: {@code [I} в {@code int[]},
+     * {@code Ljava/lang/String;} в {@code java.lang.String}.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static String descriptorToTypeName(@NotNull String descriptor) {
+        int dimensions = 0;
+        while (descriptor.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+
+        String element = descriptor.substring(dimensions);
+        StringBuilder builder = new StringBuilder();
+
+        switch (element.charAt(0)) {
+            case 'L':
+                builder.append(descriptorToName(element));
+                break;
+            case 'V':
+                builder.append("void");
+                break;
+            case 'Z':
+                builder.append("boolean");
+                break;
+            case 'B':
+                builder.append("byte");
+                break;
+            case 'C':
+                builder.append("char");
+                break;
+            case 'S':
+                builder.append("short");
+                break;
+            case 'I':
+                builder.append("int");
+                break;
+            case 'J':
+                builder.append("long");
+                break;
+            case 'F':
+                builder.append("float");
+                break;
+            case 'D':
+                builder.append("double");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type descriptor: " + descriptor);
+        }
+
+        for (int i = 0; i < dimensions; i++) {
+            builder.append("[]");
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * @return Количество параметров в дескрипторе метода.
+     */
+    @Contract(pure = true)
+    static int parameterCount(@NotNull String descriptor) {
+        int count = 0;
+        int position = 1;
+
+        while (descriptor.charAt(position) != ')') {
+            char c = descriptor.charAt(position);
+
+            if (c == '[') {
+                position++;
+                continue;
+            }
+
+            position = c == 'L' ? descriptor.indexOf(';', position) + 1 : position + 1;
+            count++;
+        }
+
+        return count;
+    }
+
+    private int u1() {
+        return buffer.get() & 0xFF;
+    }
+
+    private int u2() {
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    private int u2At(int offset) {
+        return buffer.getShort(offset) & 0xFFFF;
+    }
+
+    private void skip(int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+}
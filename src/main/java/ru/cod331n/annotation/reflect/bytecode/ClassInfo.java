@@ -0,0 +1,170 @@
+package ru.cod331n.annotation.reflect.bytecode;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.ElementType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Легковесное описание класса, прочитанное из байткода: имя, модификаторы, иерархия, аннотации с их значениями
+ * и описания членов класса.
+ *
+ * <p>Класс загружается только при вызове {@link #load()} или {@link ElementInfo#resolve()}; до этого описание
+ * не требует ни загрузки, ни инициализации класса.</p>
+ */
+public final class ClassInfo {
+    private final String name;
+    private final String superName;
+    private final List<String> interfaceNames;
+    private final int access;
+    private final ClassLoader classLoader;
+
+    private final List<ElementInfo> fields = new ArrayList<>();
+    private final List<ElementInfo> methods = new ArrayList<>();
+    private final List<ElementInfo> parameters = new ArrayList<>();
+    private ElementInfo typeElement;
+
+    private volatile Class<?> loadedClass;
+
+    ClassInfo(
+            final @NotNull String name,
+            final @Nullable String superName,
+            final @NotNull List<String> interfaceNames,
+            int access,
+            final @NotNull ClassLoader classLoader
+    ) {
+        this.name = name;
+        this.superName = superName;
+        this.interfaceNames = interfaceNames;
+        this.access = access;
+        this.classLoader = classLoader;
+    }
+
+    void addElement(@NotNull ElementInfo element) {
+        switch (element.getKind()) {
+            case TYPE:
+                typeElement = element;
+                break;
+            case FIELD:
+                fields.add(element);
+                break;
+            case PARAMETER:
+                parameters.add(element);
+                break;
+            default:
+                methods.add(element);
+                break;
+        }
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    @Contract(pure = true)
+    public String getSuperName() {
+        return superName;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public List<String> getInterfaceNames() {
+        return Collections.unmodifiableList(interfaceNames);
+    }
+
+    /**
+     * @return Флаги доступа класса ({@code ACC_*}), совместимые с {@link java.lang.reflect.Modifier}.
+     */
+    @Contract(pure = true)
+    public int getAccess() {
+        return access;
+    }
+
+    /**
+     * @return Описание самого класса как элемента {@link ElementType#TYPE}.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public ElementInfo getTypeElement() {
+        return typeElement;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public List<ElementInfo> getFields() {
+        return Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * @return Методы и конструкторы класса, без статического инициализатора.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<ElementInfo> getMethods() {
+        return Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * @return Параметры методов и конструкторов, помеченные хотя бы одной аннотацией.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<ElementInfo> getParameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * @return Все элементы класса: сам класс, поля, методы и конструкторы, аннотированные параметры.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<ElementInfo> getElements() {
+        List<ElementInfo> elements = new ArrayList<>(1 + fields.size() + methods.size() + parameters.size());
+        elements.add(typeElement);
+        elements.addAll(fields);
+        elements.addAll(methods);
+        elements.addAll(parameters);
+
+        return elements;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Загружает описываемый класс без инициализации. Результат запоминается.
+     *
+     * @return Загруженный класс.
+     */
+    @NotNull
+    public Class<?> load() {
+        @Nullable Class<?> clazz = loadedClass;
+
+        if (clazz == null) {
+            try {
+                clazz = Class.forName(name, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException("Class not found: " + name, e);
+            }
+
+            loadedClass = clazz;
+        }
+
+        return clazz;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassInfo{" + name + '}';
+    }
+}
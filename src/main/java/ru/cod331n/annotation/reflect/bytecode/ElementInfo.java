@@ -0,0 +1,224 @@
+package ru.cod331n.annotation.reflect.bytecode;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Легковесное описание элемента класса, прочитанное из байткода: самого класса, поля, метода, конструктора или
+ * параметра. Соответствующий объект рефлексии создается только при вызове {@link #resolve()}.
+ */
+public final class ElementInfo {
+    private final ClassInfo declaringClass;
+    private final ElementType kind;
+    private final String name;
+    private final String descriptor;
+    private final int access;
+    private final int parameterIndex;
+    private final List<AnnotationInfo> annotations;
+
+    private volatile AnnotatedElement resolved;
+
+    ElementInfo(
+            final @NotNull ClassInfo declaringClass,
+            final @NotNull ElementType kind,
+            final @NotNull String name,
+            final @NotNull String descriptor,
+            int access,
+            int parameterIndex,
+            final @NotNull List<AnnotationInfo> annotations
+    ) {
+        this.declaringClass = declaringClass;
+        this.kind = kind;
+        this.name = name;
+        this.descriptor = descriptor;
+        this.access = access;
+        this.parameterIndex = parameterIndex;
+        this.annotations = annotations;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public ClassInfo getDeclaringClass() {
+        return declaringClass;
+    }
+
+    /**
+     * @return Вид элемента: {@link ElementType#TYPE}, {@link ElementType#FIELD}, {@link ElementType#METHOD},
+     * {@link ElementType#CONSTRUCTOR} или {@link ElementType#PARAMETER}.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public ElementType getKind() {
+        return kind;
+    }
+
+    /**
+     * @return Имя элемента: бинарное имя класса, имя поля или метода, {@code <init>} для конструктора;
+     * для параметра - имя его метода.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Дескриптор JVM: типа поля, метода или конструктора; для класса - дескриптор класса; для параметра -
+     * дескриптор его метода.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * @return Флаги доступа ({@code ACC_*}), совместимые с {@link java.lang.reflect.Modifier}; для параметра - флаги
+     * его метода.
+     */
+    @Contract(pure = true)
+    public int getAccess() {
+        return access;
+    }
+
+    /**
+     * @return Индекс параметра в дескрипторе метода, либо {@code -1}, если элемент не является параметром.
+     */
+    @Contract(pure = true)
+    public int getParameterIndex() {
+        return parameterIndex;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public List<AnnotationInfo> getAnnotations() {
+        return Collections.unmodifiableList(annotations);
+    }
+
+    /**
+     * @param annotation Тип аннотации.
+     * @return Аннотация элемента указанного типа, либо {@code null}, если ее нет.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public AnnotationInfo getAnnotation(@NotNull Class<? extends Annotation> annotation) {
+        for (AnnotationInfo info : annotations) {
+            if (info.is(annotation)) {
+                return info;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Загружает класс элемента и находит соответствующий объект рефлексии. Результат запоминается.
+     *
+     * @return {@link Class}, {@link java.lang.reflect.Field}, {@link Method}, {@link Constructor} или
+     * {@link java.lang.reflect.Parameter}.
+     */
+    @NotNull
+    public AnnotatedElement resolve() {
+        @Nullable AnnotatedElement element = resolved;
+
+        if (element == null) {
+            element = resolveElement();
+            resolved = element;
+        }
+
+        return element;
+    }
+
+    @NotNull
+    private AnnotatedElement resolveElement() {
+        Class<?> clazz = declaringClass.load();
+
+        switch (kind) {
+            case TYPE:
+                return clazz;
+            case FIELD:
+                try {
+                    return clazz.getDeclaredField(name);
+                } catch (NoSuchFieldException e) {
+                    throw new IllegalStateException("Field not found: " + clazz.getName() + '.' + name, e);
+                }
+            case PARAMETER:
+                return resolveExecutable(clazz).getParameters()[parameterIndex];
+            default:
+                return resolveExecutable(clazz);
+        }
+    }
+
+    @NotNull
+    private Executable resolveExecutable(@NotNull Class<?> clazz) {
+        if ("<init>".equals(name)) {
+            for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+                if (descriptor.equals(methodDescriptor(constructor.getParameterTypes(), void.class))) {
+                    return constructor;
+                }
+            }
+        } else {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getName().equals(name) && descriptor.equals(methodDescriptor(method.getParameterTypes(), method.getReturnType()))) {
+                    return method;
+                }
+            }
+        }
+
+        throw new IllegalStateException("Method not found: " + clazz.getName() + '.' + name + descriptor);
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private static String methodDescriptor(@NotNull Class<?>[] parameterTypes, @NotNull Class<?> returnType) {
+        StringBuilder builder = new StringBuilder("(");
+
+        for (Class<?> parameterType : parameterTypes) {
+            appendDescriptor(builder, parameterType);
+        }
+
+        appendDescriptor(builder.append(')'), returnType);
+        return builder.toString();
+    }
+
+    private static void appendDescriptor(@NotNull StringBuilder builder, @NotNull Class<?> type) {
+        while (type.isArray()) {
+            builder.append('[');
+            type = type.getComponentType();
+        }
+
+        if (!type.isPrimitive()) {
+            builder.append('L').append(type.getName().replace('.', '/')).append(';');
+        } else if (type == void.class) {
+            builder.append('V');
+        } else if (type == boolean.class) {
+            builder.append('Z');
+        } else if (type == long.class) {
+            builder.append('J');
+        } else {
+            builder.append(Character.toUpperCase(type.getName().charAt(0)));
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case TYPE:
+                return kind + " " + name;
+            case FIELD:
+                return kind + " " + declaringClass.getName() + '.' + name + ':' + descriptor;
+            default:
+                return kind + " " + declaringClass.getName() + '.' + name + descriptor + (parameterIndex < 0 ? "" : "#" + parameterIndex);
+        }
+    }
+}
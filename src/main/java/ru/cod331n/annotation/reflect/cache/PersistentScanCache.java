@@ -0,0 +1,385 @@
+package ru.cod331n.annotation.reflect.cache;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Кэш результатов сканирования, сохраняемый на диск между запусками.
+ *
+ * <p>Записи хранятся по корням classpath вместе с их отпечатком ({@link RootFingerprint}). Пока отпечаток
+ * корня не изменился, сведения о его классах берутся из кэша, и class-файлы не читаются.</p>
+ *
+ * <p>Файл имеет компактный двоичный формат и читается один раз, при первом обращении, одним чтением в память кучи,
+ * без отображения, чтобы его можно было заменить и на Windows. Записи разбираются только при обращении к ним;
+ * каждая содержит собственную таблицу строк, поэтому при обновлении одного корня остальные записи копируются без
+ * изменений.</p>
+ *
+ * <p>{@link #put} меняет только записи в памяти; на диск они попадают одной атомарной заменой файла в {@link #flush()},
+ * который сканирование вызывает после обхода всех корней. При записи отбрасываются корни, к которым не обращались
+ * с момента чтения файла, например, jar-файлы прежних версий, поэтому файл не растет без ограничений. Один файл
+ * следует использовать для одного набора сканируемых пакетов.</p>
+ *
+ * <p>Кэш не влияет на результат сканирования: поврежденный или недоступный файл считается промахом, а ошибка
+ * записи только пишется в журнал ({@code java.util.logging}).</p>
+ */
+public final class PersistentScanCache {
+    private static final int MAGIC = 0x41505343; // "APSC"
+    private static final int VERSION = 1;
+    private static final int NONE = -1;
+
+    private static final Logger LOGGER = Logger.getLogger(PersistentScanCache.class.getName());
+
+    private final Path file;
+
+    /**
+     * Записи файла, прочитанные при первом обращении, с изменениями, еще не записанными на диск.
+     */
+    private Map<EntryKey, ByteBuffer> entries;
+    private final Set<String> seenRoots = new HashSet<>();
+    private boolean dirty;
+
+    public PersistentScanCache(final @NotNull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Возвращает сохраненные сведения о классах корня, если его отпечаток не изменился.
+     *
+     * @param root        Идентификатор корня.
+     * @param fingerprint Текущий отпечаток корня.
+     * @return Сведения о классах, либо {@code null}, если записи нет или она устарела.
+     */
+    @Nullable
+    @Contract(mutates = "this")
+    public synchronized Collection<ClassFileInfo> get(@NotNull String root, long fingerprint) {
+        seenRoots.add(root);
+
+        EntryKey key = new EntryKey(root, fingerprint);
+        @Nullable ByteBuffer block = getEntries().get(key);
+        if (block == null) {
+            return null;
+        }
+
+        try {
+            return decode(block);
+        } catch (IOException | RuntimeException e) {
+            entries.remove(key);
+            dirty = true;
+
+            return null;
+        }
+    }
+
+    /**
+     * Запоминает сведения о классах корня, заменяя предыдущую запись этого корня. На диск запись попадает
+     * при следующем {@link #flush()}.
+     *
+     * @param root        Идентификатор корня.
+     * @param fingerprint Отпечаток корня, для которого получены сведения.
+     * @param infos       Сведения о классах корня.
+     */
+    @Contract(mutates = "this")
+    public synchronized void put(@NotNull String root, long fingerprint, @NotNull Collection<ClassFileInfo> infos) {
+        seenRoots.add(root);
+
+        byte[] block;
+        try {
+            block = encode(infos);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to encode scan cache entry: " + root, e);
+            return;
+        }
+
+        Map<EntryKey, ByteBuffer> rootEntries = getEntries();
+        rootEntries.keySet().removeIf(key -> key.root.equals(root));
+        rootEntries.put(new EntryKey(root, fingerprint), ByteBuffer.wrap(block));
+        dirty = true;
+    }
+
+    /**
+     * Записывает изменения на диск одной атомарной заменой файла, если они есть, отбрасывая записи корней, к которым
+     * не обращались. Если файл не удалось записать, ошибка пишется в журнал, а файл остается прежним; изменения
+     * остаются в памяти до следующего вызова.
+     */
+    @Contract(mutates = "this")
+    public synchronized void flush() {
+        if (!dirty) {
+            return;
+        }
+
+        entries.keySet().removeIf(key -> !seenRoots.contains(key.root));
+
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                    output.writeInt(entries.size());
+
+                    for (Map.Entry<EntryKey, ByteBuffer> entry : entries.entrySet()) {
+                        ByteBuffer block = entry.getValue();
+
+                        output.writeUTF(entry.getKey().root);
+                        output.writeLong(entry.getKey().fingerprint);
+                        output.writeInt(block.remaining());
+
+                        byte[] bytes = new byte[block.remaining()];
+                        block.duplicate().get(bytes);
+                        output.write(bytes);
+                    }
+                }
+
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            dirty = false;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to write scan cache: " + file, e);
+        }
+    }
+
+    /**
+     * @return Записи файла; поврежденный или недоступный файл считается пустым.
+     */
+    @NotNull
+    private Map<EntryKey, ByteBuffer> getEntries() {
+        if (entries == null) {
+            try {
+                entries = readEntries();
+            } catch (IOException | RuntimeException e) {
+                entries = new LinkedHashMap<>();
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Читает файл в память кучи и делит его на блоки записей; блоки ссылаются на прочитанный буфер, а не на файл.
+     *
+     * @throws IOException если файл не удалось прочитать или он поврежден.
+     */
+    @NotNull
+    private Map<EntryKey, ByteBuffer> readEntries() throws IOException {
+        Map<EntryKey, ByteBuffer> entries = new LinkedHashMap<>();
+        ByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Scan cache is too large: " + file);
+            }
+
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // дочитываем файл целиком
+            }
+            buffer.flip();
+        } catch (NoSuchFileException e) {
+            return entries;
+        }
+
+        DataInputStream input = new DataInputStream(new ByteBufferInputStream(buffer));
+        if (buffer.remaining() < 8 || input.readInt() != MAGIC || input.readInt() != VERSION) {
+            return entries;
+        }
+
+        int count = readCount(input, buffer.remaining());
+        for (int i = 0; i < count; i++) {
+            EntryKey key = new EntryKey(input.readUTF(), input.readLong());
+            int length = readCount(input, buffer.remaining());
+
+            ByteBuffer block = buffer.duplicate();
+            block.limit(buffer.position() + length);
+            entries.put(key, block.slice());
+
+            buffer.position(buffer.position() + length);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Читает количество или длину и проверяет, что оно не выходит за оставшиеся данные.
+     *
+     * @throws IOException если значение отрицательно или больше {@code limit}.
+     */
+    private static int readCount(@NotNull DataInputStream input, int limit) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > limit) {
+            throw new IOException("Corrupt scan cache: invalid length " + count);
+        }
+
+        return count;
+    }
+
+    @NotNull
+    private static byte[] encode(@NotNull Collection<ClassFileInfo> infos) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        infos.forEach(info -> {
+            strings.putIfAbsent(info.getName(), strings.size());
+            Optional.ofNullable(info.getSuperName()).ifPresent(name -> strings.putIfAbsent(name, strings.size()));
+            info.getInterfaceNames().forEach(name -> strings.putIfAbsent(name, strings.size()));
+            info.getAnnotations().forEach(name -> strings.putIfAbsent(name, strings.size()));
+        });
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(strings.size());
+            for (String string : strings.keySet()) {
+                output.writeUTF(string);
+            }
+
+            output.writeInt(infos.size());
+            for (ClassFileInfo info : infos) {
+                output.writeInt(strings.get(info.getName()));
+                output.writeInt(info.getSuperName() == null ? NONE : strings.get(info.getSuperName()));
+                output.writeInt(info.getAccess());
+                writeIds(output, info.getInterfaceNames(), strings);
+                writeIds(output, info.getClassAnnotations(), strings);
+                writeIds(output, info.getAnnotations(), strings);
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @NotNull
+    private static Collection<ClassFileInfo> decode(@NotNull ByteBuffer block) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteBufferInputStream(block.duplicate()));
+        int size = block.remaining();
+
+        String[] strings = new String[readCount(input, size)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = input.readUTF();
+        }
+
+        int count = readCount(input, size);
+        Collection<ClassFileInfo> infos = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            String name = readString(input, strings);
+            int superId = input.readInt();
+            int access = input.readInt();
+            List<String> interfaceNames = readIds(input, strings, size, new ArrayList<>());
+            Set<String> classAnnotations = readIds(input, strings, size, new HashSet<>());
+            Set<String> annotations = readIds(input, strings, size, new HashSet<>());
+
+            if (superId < NONE || superId >= strings.length) {
+                throw new IOException("Corrupt scan cache: invalid string id " + superId);
+            }
+
+            infos.add(new ClassFileInfo(name, superId == NONE ? null : strings[superId], interfaceNames, access, classAnnotations, annotations));
+        }
+
+        return infos;
+    }
+
+    private static void writeIds(@NotNull DataOutputStream output, @NotNull Collection<String> values, @NotNull Map<String, Integer> strings) throws IOException {
+        output.writeInt(values.size());
+
+        for (String value : values) {
+            output.writeInt(strings.get(value));
+        }
+    }
+
+    @NotNull
+    private static <C extends Collection<String>> C readIds(@NotNull DataInputStream input, @NotNull String[] strings, int limit, @NotNull C collection) throws IOException {
+        int count = readCount(input, limit);
+
+        for (int i = 0; i < count; i++) {
+            collection.add(readString(input, strings));
+        }
+
+        return collection;
+    }
+
+    @NotNull
+    private static String readString(@NotNull DataInputStream input, @NotNull String[] strings) throws IOException {
+        int id = input.readInt();
+        if (id < 0 || id >= strings.length) {
+            throw new IOException("Corrupt scan cache: invalid string id " + id);
+        }
+
+        return strings[id];
+    }
+
+    private static final class EntryKey {
+        private final String root;
+        private final long fingerprint;
+
+        private EntryKey(@NotNull String root, long fingerprint) {
+            this.root = root;
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof EntryKey)) {
+                return false;
+            }
+
+            EntryKey key = (EntryKey) o;
+            return fingerprint == key.fingerprint && root.equals(key.root);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(root, fingerprint);
+        }
+    }
+
+    /**
+     * Поток чтения поверх {@link ByteBuffer}, позволяющий разбирать прочитанный в память файл через {@link DataInputStream}.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(@NotNull ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+
+            return count;
+        }
+    }
+}
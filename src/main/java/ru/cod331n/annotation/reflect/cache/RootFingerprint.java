@@ -0,0 +1,125 @@
+package ru.cod331n.annotation.reflect.cache;
+
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Отпечатки корней classpath, по которым {@link PersistentScanCache} определяет, изменился ли корень с момента
+ * последнего сканирования.
+ */
+public final class RootFingerprint {
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+    private RootFingerprint() {
+        throw new AssertionError("Utility class couldn't be initialized");
+    }
+
+    /**
+     * Вычисляет отпечаток jar-файла по его размеру, времени изменения и CRC центрального каталога.
+     *
+     * @param jar jar-файл.
+     * @return Отпечаток jar-файла.
+     * @throws IOException при ошибке чтения файла.
+     */
+    public static long ofJar(@NotNull File jar) throws IOException {
+        try (FileChannel channel = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer tail = read(channel, Math.max(0, size - END_OF_CENTRAL_DIRECTORY_SIZE - MAX_COMMENT_LENGTH), size);
+
+            CRC32 crc = new CRC32();
+            crc.update(centralDirectory(channel, tail));
+
+            return (31 * size + jar.lastModified()) * 31 + crc.getValue();
+        }
+    }
+
+    /**
+     * Вычисляет отпечаток каталога по именам, размерам и временам изменения всех вложенных файлов.
+     *
+     * @param directory Каталог.
+     * @return Отпечаток каталога.
+     */
+    public static long ofDirectory(@NotNull File directory) {
+        return ofDirectory(directory, "", 17);
+    }
+
+    /**
+     * Вычисляет отпечаток образа среды выполнения ({@code jrt:/}) по его каталогу и версии: образ не меняется,
+     * пока не сменится сама JVM.
+     *
+     * @return Отпечаток образа текущей JVM.
+     */
+    public static long ofRuntimeImage() {
+        return 31L * System.getProperty("java.home").hashCode() + System.getProperty("java.runtime.version", "").hashCode();
+    }
+
+    private static long ofDirectory(@NotNull File directory, @NotNull String path, long hash) {
+        File[] files = directory.listFiles();
+        Preconditions.checkAndThrow(
+                files == null,
+                () -> new IllegalArgumentException("Unable to list files in directory: " + directory.getPath())
+        );
+
+        Arrays.sort(files);
+
+        for (File file : files) {
+            String filePath = path + '/' + file.getName();
+            hash = 31 * hash + filePath.hashCode();
+
+            if (file.isDirectory()) {
+                hash = ofDirectory(file, filePath, hash);
+            } else {
+                hash = 31 * hash + file.lastModified();
+                hash = 31 * hash + file.length();
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Возвращает центральный каталог jar-файла, либо весь прочитанный хвост файла, если центральный каталог
+     * не удалось найти или он записан в формате ZIP64.
+     */
+    @NotNull
+    private static ByteBuffer centralDirectory(@NotNull FileChannel channel, @NotNull ByteBuffer tail) throws IOException {
+        tail.order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int position = tail.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; position >= 0; position--) {
+            if (tail.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                long size = tail.getInt(position + 12) & 0xFFFFFFFFL;
+                long offset = tail.getInt(position + 16) & 0xFFFFFFFFL;
+
+                return size == ZIP64_MARKER || offset == ZIP64_MARKER
+                        ? tail
+                        : read(channel, offset, offset + size);
+            }
+        }
+
+        return tail;
+    }
+
+    @NotNull
+    private static ByteBuffer read(@NotNull FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+
+        while (buffer.hasRemaining() && channel.read(buffer, from + buffer.position()) >= 0) {
+            // читаем до конца диапазона
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+}
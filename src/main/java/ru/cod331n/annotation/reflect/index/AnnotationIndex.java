@@ -0,0 +1,151 @@
+package ru.cod331n.annotation.reflect.index;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Индекс аннотаций, записанный во время компиляции процессором из модуля {@code annotation-index}.
+ *
+ * <p>Хранит для каждого класса корня то же, что {@link ClassFileInfo} читает из байткода, а также
+ * обрабатываемую аннотацию каждого процессора. Позволяет отобрать классы пакета без чтения class-файлов.</p>
+ *
+ * <p>Индекс не полон: анонимных и локальных классов и классов, собранных без процессора, в нем нет, а записи
+ * удаленных классов могут остаться. Поэтому он используется только как источник сведений о классах, найденных
+ * при обходе корня ({@link #getClassInfo(String)}).</p>
+ */
+public final class AnnotationIndex {
+    public static final String RESOURCE_NAME = "META-INF/ru.cod331n/annotation-index";
+
+    private static final String NONE = "-";
+
+    private final Map<String, String> processors;
+    private final Map<String, ClassFileInfo> classInfos;
+
+    private AnnotationIndex(final @NotNull Map<String, String> processors, final @NotNull Map<String, ClassFileInfo> classInfos) {
+        this.processors = processors;
+        this.classInfos = classInfos;
+    }
+
+    /**
+     * Читает индекс, оставляя только классы указанного пакета и его подпакетов.
+     *
+     * @param inputStream Содержимое файла индекса.
+     * @param packageName Имя сканируемого пакета.
+     * @return Прочитанный индекс.
+     * @throws IOException при ошибке чтения.
+     */
+    @NotNull
+    public static AnnotationIndex read(@NotNull InputStream inputStream, @NotNull String packageName) throws IOException {
+        String prefix = packageName + '.';
+        Map<String, String> processors = new HashMap<>();
+        Map<String, ClassEntry> classes = new LinkedHashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] fields = line.split("\t");
+                if (!fields[1].startsWith(prefix)) {
+                    continue;
+                }
+
+                switch (fields[0]) {
+                    case "class":
+                        classes.put(fields[1], new ClassEntry(fields));
+                        break;
+                    case "processor":
+                        processors.put(fields[1], fields[2]);
+                        break;
+                    case "annotation":
+                        @Nullable ClassEntry entry = classes.get(fields[1]);
+                        if (entry != null) {
+                            entry.addAnnotation(fields[2], fields[3]);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IOException("Malformed annotation index", e);
+        }
+
+        Map<String, ClassFileInfo> classInfos = new LinkedHashMap<>();
+        classes.forEach((name, entry) -> classInfos.put(name, entry.toClassFileInfo()));
+
+        return new AnnotationIndex(processors, classInfos);
+    }
+
+    /**
+     * @return Сведения о классах пакета в порядке индекса.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Collection<ClassFileInfo> getClassInfos() {
+        return Collections.unmodifiableCollection(classInfos.values());
+    }
+
+    /**
+     * @param className Бинарное имя класса.
+     * @return Сведения о классе, либо {@code null}, если его нет в индексе.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public ClassFileInfo getClassInfo(@NotNull String className) {
+        return classInfos.get(className);
+    }
+
+    /**
+     * Возвращает имя аннотации, которую обрабатывает процессор.
+     *
+     * @param processorName Бинарное имя класса процессора.
+     * @return Бинарное имя аннотации, либо {@code null}, если процессор не записан в индекс.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public String getProcessorAnnotation(@NotNull String processorName) {
+        return processors.get(processorName);
+    }
+
+    private static final class ClassEntry {
+        private final String name;
+        private final int access;
+        private final String superName;
+        private final List<String> interfaceNames;
+        private final Set<String> classAnnotations = new HashSet<>();
+        private final Set<String> annotations = new HashSet<>();
+
+        private ClassEntry(@NotNull String[] fields) {
+            this.name = fields[1];
+            this.access = Integer.parseInt(fields[2]);
+            this.superName = NONE.equals(fields[3]) ? null : fields[3];
+            this.interfaceNames = NONE.equals(fields[4]) ? Collections.emptyList() : Arrays.asList(fields[4].split(","));
+        }
+
+        private void addAnnotation(@NotNull String annotation, @NotNull String kind) {
+            annotations.add(annotation);
+
+            if ("TYPE".equals(kind) || "PACKAGE".equals(kind)) {
+                classAnnotations.add(annotation);
+            }
+        }
+
+        @NotNull
+        private ClassFileInfo toClassFileInfo() {
+            return new ClassFileInfo(name, superName, interfaceNames, access, classAnnotations, annotations);
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package ru.cod331n.annotation.reflect.jar;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Читатель jar-файлов, который не распаковывает ненужные записи.
+ *
+ * <p>Центральный каталог отображается в память, а записи отбираются сравнением байтов имени с префиксом, без
+ * создания строк для неподходящих записей. Содержимое записи читается только по запросу: несжатые записи
+ * возвращаются без копирования, сжатые распаковываются целиком. Вложенный jar-файл, записанный без сжатия
+ * (как в {@code BOOT-INF/lib} исполняемых jar-файлов), открывается как область внешнего файла без копирования.</p>
+ */
+public final class JarArchive implements Closeable {
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+    private static final int ZIP64_EXTRA_FIELD = 0x0001;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final Data data;
+    private final ByteBuffer centralDirectory;
+    private final long baseOffset;
+    private final int entryCount;
+
+    private JarArchive(final @NotNull Data data) throws IOException {
+        this.data = data;
+
+        long size = data.size();
+        long tailOffset = Math.max(0, size - END_OF_CENTRAL_DIRECTORY_SIZE - MAX_COMMENT_LENGTH);
+        ByteBuffer tail = data.map(tailOffset, (int) (size - tailOffset));
+
+        int end = findEndOfCentralDirectory(tail);
+        Preconditions.checkAndThrow(end < 0, () -> new IOException("End of central directory not found"));
+
+        long count = tail.getShort(end + 10) & 0xFFFF;
+        long directorySize = tail.getInt(end + 12) & ZIP64_MARKER;
+        long directoryOffset = tail.getInt(end + 16) & ZIP64_MARKER;
+        long directoryEnd = tailOffset + end;
+
+        if (end >= ZIP64_LOCATOR_SIZE && tail.getInt(end - ZIP64_LOCATOR_SIZE) == ZIP64_LOCATOR_SIGNATURE) {
+            long locatorPosition = tailOffset + end - ZIP64_LOCATOR_SIZE;
+            long recordOffset = tail.getLong(end - ZIP64_LOCATOR_SIZE + 8);
+            @Nullable ByteBuffer record = mapZip64Record(recordOffset, locatorPosition);
+
+            // смещение в локаторе тоже отсчитывается от начала архива: если перед архивом записаны данные,
+            // запись ищется на своем обычном месте, сразу перед локатором
+            if (record == null) {
+                recordOffset = locatorPosition - ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE;
+                record = mapZip64Record(recordOffset, locatorPosition);
+            }
+
+            Preconditions.checkAndThrow(record == null, () -> new IOException("Malformed ZIP64 end of central directory"));
+
+            count = record.getLong(32);
+            directorySize = record.getLong(40);
+            directoryOffset = record.getLong(48);
+            directoryEnd = recordOffset;
+        }
+
+        Preconditions.checkAndThrow(
+                count > Integer.MAX_VALUE || directorySize > Integer.MAX_VALUE,
+                () -> new IOException("Central directory is too large")
+        );
+
+        // Смещения отсчитываются от начала архива; если перед архивом записаны данные (например, скрипт запуска),
+        // центральный каталог фактически находится дальше, чем указано в его конце.
+        long directoryPosition = directoryEnd - directorySize;
+        this.baseOffset = directoryPosition - directoryOffset;
+        this.entryCount = (int) count;
+        this.centralDirectory = data.map(directoryPosition, (int) directorySize);
+    }
+
+    /**
+     * @return Запись ZIP64 конца центрального каталога по указанному смещению, либо {@code null}, если смещение
+     * выходит за область перед локатором или по нему нет записи.
+     */
+    @Nullable
+    private ByteBuffer mapZip64Record(long offset, long locatorPosition) throws IOException {
+        if (offset < 0 || offset > locatorPosition - ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE) {
+            return null;
+        }
+
+        ByteBuffer record = data.map(offset, ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE);
+        return record.getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE ? record : null;
+    }
+
+    /**
+     * Открывает jar-файл.
+     *
+     * @param file jar-файл.
+     * @return Открытый архив; должен быть закрыт после использования.
+     * @throws IOException при ошибке чтения файла или неверном формате архива.
+     */
+    @NotNull
+    public static JarArchive open(@NotNull File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            return new JarArchive(new FileData(channel, 0, channel.size(), true));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Открывает jar-файл, вложенный в этот архив. Закрывать вложенный архив не требуется: он использует
+     * ресурсы внешнего и становится недействительным вместе с ним.
+     *
+     * @param entry Запись вложенного jar-файла.
+     * @return Вложенный архив.
+     * @throws IOException при ошибке чтения или неверном формате вложенного архива.
+     */
+    @NotNull
+    public JarArchive openNested(@NotNull Entry entry) throws IOException {
+        if (entry.method == STORED) {
+            return new JarArchive(data.region(dataOffset(entry), entry.compressedSize));
+        }
+
+        return new JarArchive(new BufferData(read(entry)));
+    }
+
+    /**
+     * Возвращает запись с указанным именем.
+     *
+     * @param name Полное имя записи.
+     * @return Запись, либо {@code null}, если такой записи нет.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public Entry getEntry(@NotNull String name) {
+        List<Entry> entries = list(name, "");
+
+        for (Entry entry : entries) {
+            if (entry.name.equals(name)) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Возвращает записи, имена которых начинаются с префикса и заканчиваются суффиксом, в порядке центрального
+     * каталога. Имена остальных записей не декодируются.
+     *
+     * @param prefix Префикс имени, например, {@code com/example/}.
+     * @param suffix Суффикс имени, например, {@code .class}.
+     * @return Подходящие записи.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<Entry> list(@NotNull String prefix, @NotNull String suffix) {
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        byte[] suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer directory = centralDirectory;
+        List<Entry> entries = new ArrayList<>();
+
+        int position = 0;
+        for (int i = 0; i < entryCount; i++) {
+            Preconditions.checkAndThrow(
+                    directory.getInt(position) != CENTRAL_HEADER_SIGNATURE,
+                    () -> new IllegalStateException("Malformed central directory")
+            );
+
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            int nameOffset = position + CENTRAL_HEADER_SIZE;
+
+            if (nameLength >= prefixBytes.length + suffixBytes.length
+                    && matches(directory, nameOffset, prefixBytes)
+                    && matches(directory, nameOffset + nameLength - suffixBytes.length, suffixBytes)) {
+                entries.add(readEntry(directory, position, nameOffset, nameLength, extraLength));
+            }
+
+            position = nameOffset + nameLength + extraLength + commentLength;
+        }
+
+        return entries;
+    }
+
+    /**
+     * Читает содержимое записи. Несжатые записи возвращаются без копирования.
+     *
+     * @param entry Запись этого архива.
+     * @return Содержимое записи.
+     * @throws IOException при ошибке чтения или неподдерживаемом методе сжатия.
+     */
+    @NotNull
+    public ByteBuffer read(@NotNull Entry entry) throws IOException {
+        Preconditions.checkAndThrow(
+                entry.size > Integer.MAX_VALUE || entry.compressedSize > Integer.MAX_VALUE,
+                () -> new IOException("Entry is too large: " + entry.name)
+        );
+
+        ByteBuffer compressed = data.read(dataOffset(entry), (int) entry.compressedSize);
+
+        switch (entry.method) {
+            case STORED:
+                return compressed;
+            case DEFLATED:
+                return inflate(compressed, (int) entry.size, entry.name);
+            default:
+                throw new IOException("Unsupported compression method " + entry.method + ": " + entry.name);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        data.close();
+    }
+
+    private long dataOffset(@NotNull Entry entry) throws IOException {
+        long offset = baseOffset + entry.localHeaderOffset;
+        ByteBuffer header = data.read(offset, LOCAL_HEADER_SIZE);
+
+        Preconditions.checkAndThrow(
+                header.getInt(0) != LOCAL_HEADER_SIGNATURE,
+                () -> new IOException("Malformed local header: " + entry.name)
+        );
+
+        return offset + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+    }
+
+    @NotNull
+    private static Entry readEntry(@NotNull ByteBuffer directory, int position, int nameOffset, int nameLength, int extraLength) {
+        byte[] name = new byte[nameLength];
+        ByteBuffer nameBuffer = directory.duplicate();
+        nameBuffer.position(nameOffset);
+        nameBuffer.get(name);
+
+        int method = directory.getShort(position + 10) & 0xFFFF;
+        long compressedSize = directory.getInt(position + 20) & ZIP64_MARKER;
+        long size = directory.getInt(position + 24) & ZIP64_MARKER;
+        long localHeaderOffset = directory.getInt(position + 42) & ZIP64_MARKER;
+
+        if (size == ZIP64_MARKER || compressedSize == ZIP64_MARKER || localHeaderOffset == ZIP64_MARKER) {
+            int extra = nameOffset + nameLength;
+            int extraEnd = extra + extraLength;
+
+            while (extra + 4 <= extraEnd) {
+                int id = directory.getShort(extra) & 0xFFFF;
+                int length = directory.getShort(extra + 2) & 0xFFFF;
+                int field = extra + 4;
+
+                if (id == ZIP64_EXTRA_FIELD) {
+                    if (size == ZIP64_MARKER) {
+                        size = directory.getLong(field);
+                        field += 8;
+                    }
+
+                    if (compressedSize == ZIP64_MARKER) {
+                        compressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+
+                    if (localHeaderOffset == ZIP64_MARKER) {
+                        localHeaderOffset = directory.getLong(field);
+                    }
+
+                    break;
+                }
+
+                extra = field + length;
+            }
+        }
+
+        return new Entry(new String(name, StandardCharsets.UTF_8), method, compressedSize, size, localHeaderOffset);
+    }
+
+    @Contract(pure = true)
+    private static boolean matches(@NotNull ByteBuffer buffer, int offset, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Contract(pure = true)
+    private static int findEndOfCentralDirectory(@NotNull ByteBuffer tail) {
+        for (int position = tail.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; position >= 0; position--) {
+            if (tail.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                return position;
+            }
+        }
+
+        return -1;
+    }
+
+    @NotNull
+    private static ByteBuffer inflate(@NotNull ByteBuffer compressed, int size, @NotNull String name) throws IOException {
+        Inflater inflater = new Inflater(true);
+        byte[] input = new byte[compressed.remaining()];
+        compressed.get(input);
+
+        try {
+            byte[] output = new byte[size];
+            inflater.setInput(input);
+
+            int length = 0;
+            while (length < size && !inflater.finished()) {
+                int inflated = inflater.inflate(output, length, size - length);
+
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+
+                length += inflated;
+            }
+
+            Preconditions.checkAndThrow(length != size, () -> new IOException("Truncated entry: " + name));
+
+            return ByteBuffer.wrap(output);
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed compressed entry: " + name, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Запись центрального каталога.
+     */
+    public static final class Entry {
+        private final String name;
+        private final int method;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+
+        private Entry(@NotNull String name, int method, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        @NotNull
+        @Contract(pure = true)
+        public String getName() {
+            return name;
+        }
+
+        @Contract(pure = true)
+        public long getSize() {
+            return size;
+        }
+
+        @Contract(pure = true)
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    /**
+     * Байты архива: область файла либо буфер в памяти.
+     */
+    private interface Data extends Closeable {
+        long size();
+
+        /**
+         * Отображает область в память; используется для центрального каталога.
+         */
+        @NotNull
+        ByteBuffer map(long offset, int length) throws IOException;
+
+        /**
+         * Читает область; используется для содержимого отдельных записей.
+         */
+        @NotNull
+        ByteBuffer read(long offset, int length) throws IOException;
+
+        @NotNull
+        Data region(long offset, long length);
+    }
+
+    private static final class FileData implements Data {
+        private final FileChannel channel;
+        private final long offset;
+        private final long length;
+        private final boolean owner;
+
+        private FileData(@NotNull FileChannel channel, long offset, long length, boolean owner) {
+            this.channel = channel;
+            this.offset = offset;
+            this.length = length;
+            this.owner = owner;
+        }
+
+        @Override
+        public long size() {
+            return length;
+        }
+
+        @Override
+        @NotNull
+        public ByteBuffer map(long offset, int length) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, this.offset + offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        @Override
+        @NotNull
+        public ByteBuffer read(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, this.offset + offset + buffer.position());
+                Preconditions.checkAndThrow(read < 0, () -> new IOException("Unexpected end of archive"));
+            }
+
+            buffer.flip();
+            return buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        @Override
+        @NotNull
+        public Data region(long offset, long length) {
+            return new FileData(channel, this.offset + offset, length, false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (owner) {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class BufferData implements Data {
+        private final ByteBuffer buffer;
+
+        private BufferData(@NotNull ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public long size() {
+            return buffer.remaining();
+        }
+
+        @Override
+        @NotNull
+        public ByteBuffer map(long offset, int length) {
+            return read(offset, length);
+        }
+
+        @Override
+        @NotNull
+        public ByteBuffer read(long offset, int length) {
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(buffer.position() + (int) offset);
+            slice.limit(slice.position() + length);
+
+            return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        @Override
+        @NotNull
+        public Data region(long offset, long length) {
+            return new BufferData(read(offset, (int) length));
+        }
+
+        @Override
+        public void close() {
+            // буфер освобождается сборщиком мусора
+        }
+    }
+}
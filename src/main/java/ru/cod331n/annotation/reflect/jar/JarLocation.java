@@ -0,0 +1,222 @@
+package ru.cod331n.annotation.reflect.jar;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Разобранный {@code jar:}-URL: внешний jar-файл, цепочка вложенных записей и путь внутри последней из них.
+ *
+ * <p>Поддерживаются обычные URL ({@code jar:file:/app.jar!/com/example}), вложенные jar-файлы и каталоги классов
+ * исполняемых jar-файлов ({@code jar:file:/app.jar!/BOOT-INF/lib/lib.jar!/com/example},
+ * {@code jar:file:/app.jar!/BOOT-INF/classes!/com/example}), а также URL вида
+ * {@code jar:nested:/app.jar/!BOOT-INF/lib/lib.jar!/com/example}.</p>
+ */
+public final class JarLocation {
+    private static final String SEPARATOR = "!/";
+    private static final String NESTED_PROTOCOL = "nested:";
+    private static final String NESTED_SEPARATOR = "/!";
+
+    private final File file;
+    private final List<String> nestedEntries;
+    private final String path;
+
+    private JarLocation(final @NotNull File file, final @NotNull List<String> nestedEntries, final @NotNull String path) {
+        this.file = file;
+        this.nestedEntries = nestedEntries;
+        this.path = path;
+    }
+
+    /**
+     * Разбирает URL ресурса внутри jar-файла.
+     *
+     * @param url URL с протоколом {@code jar}.
+     * @return Разобранный URL.
+     * @throws IllegalArgumentException если URL не указывает на ресурс внутри jar-файла.
+     */
+    @NotNull
+    public static JarLocation parse(@NotNull URL url) {
+        Preconditions.checkAndThrow(
+                !"jar".equals(url.getProtocol()),
+                () -> new IllegalArgumentException("Not a jar URL: " + url)
+        );
+
+        String spec = url.getPath();
+        int pathSeparator = spec.lastIndexOf(SEPARATOR);
+        Preconditions.checkAndThrow(pathSeparator < 0, () -> new IllegalArgumentException("Malformed jar URL: " + url));
+
+        List<String> segments = new ArrayList<>(Arrays.asList(spec.substring(0, pathSeparator).split(SEPARATOR)));
+        String path = spec.substring(pathSeparator + SEPARATOR.length());
+        String outer = segments.remove(0);
+
+        if (outer.startsWith(NESTED_PROTOCOL)) {
+            outer = "file:" + outer.substring(NESTED_PROTOCOL.length());
+
+            int nestedSeparator = outer.indexOf(NESTED_SEPARATOR);
+            if (nestedSeparator >= 0) {
+                segments.add(0, outer.substring(nestedSeparator + NESTED_SEPARATOR.length()));
+                outer = outer.substring(0, nestedSeparator);
+            }
+        }
+
+        Preconditions.checkAndThrow(!outer.startsWith("file:"), () -> new IllegalArgumentException("Unsupported jar URL: " + url));
+
+        List<String> nestedEntries = new ArrayList<>(segments.size());
+        segments.forEach(segment -> nestedEntries.add(decode(trimSlashes(segment))));
+
+        return new JarLocation(toFile(outer), nestedEntries, decode(trimSlashes(path)));
+    }
+
+    /**
+     * @return Внешний jar-файл.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return Вложенные записи от внешнего jar-файла к внутреннему: jar-файлы либо каталоги классов.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<String> getNestedEntries() {
+        return Collections.unmodifiableList(nestedEntries);
+    }
+
+    /**
+     * @return Путь ресурса внутри последней вложенной записи, без начального и конечного {@code /}.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Открывает архив, содержащий ресурс, проходя по вложенным jar-файлам.
+     *
+     * <p>Вложенная запись, которая не является jar-файлом (например, {@code BOOT-INF/classes}), становится
+     * префиксом корня: {@link Root#getPrefix()} нужно добавлять к именам записей.</p>
+     *
+     * @return Корень внутри открытого архива; архив нужно закрыть после использования.
+     * @throws IOException при ошибке чтения архива.
+     */
+    @NotNull
+    public Root open() throws IOException {
+        JarArchive outerArchive = JarArchive.open(file);
+
+        try {
+            JarArchive archive = outerArchive;
+            String prefix = "";
+
+            for (String nestedEntry : nestedEntries) {
+                @Nullable JarArchive.Entry entry = archive.getEntry(prefix + nestedEntry);
+
+                if (entry != null && !entry.isDirectory()) {
+                    archive = archive.openNested(entry);
+                    prefix = "";
+                } else {
+                    prefix = prefix + nestedEntry + '/';
+                }
+            }
+
+            return new Root(outerArchive, archive, prefix);
+        } catch (IOException | RuntimeException e) {
+            outerArchive.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(file.getAbsolutePath());
+        nestedEntries.forEach(entry -> builder.append(SEPARATOR).append(entry));
+
+        return builder.toString();
+    }
+
+    @NotNull
+    private static File toFile(@NotNull String fileUrl) {
+        try {
+            return new File(new URI(fileUrl));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return new File(decode(fileUrl.substring("file:".length())));
+        }
+    }
+
+    @NotNull
+    private static String decode(@NotNull String value) {
+        try {
+            return URLDecoder.decode(value.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    @NotNull
+    private static String trimSlashes(@NotNull String value) {
+        int from = 0;
+        int to = value.length();
+
+        while (from < to && value.charAt(from) == '/') {
+            from++;
+        }
+
+        while (to > from && value.charAt(to - 1) == '/') {
+            to--;
+        }
+
+        return value.substring(from, to);
+    }
+
+    /**
+     * Открытый архив, содержащий ресурс, и префикс имен его записей.
+     */
+    public static final class Root implements Closeable {
+        private final JarArchive outerArchive;
+        private final JarArchive archive;
+        private final String prefix;
+
+        private Root(@NotNull JarArchive outerArchive, @NotNull JarArchive archive, @NotNull String prefix) {
+            this.outerArchive = outerArchive;
+            this.archive = archive;
+            this.prefix = prefix;
+        }
+
+        @NotNull
+        @Contract(pure = true)
+        public JarArchive getArchive() {
+            return archive;
+        }
+
+        /**
+         * @return Префикс имен записей корня, пустой либо оканчивающийся на {@code /}.
+         */
+        @NotNull
+        @Contract(pure = true)
+        public String getPrefix() {
+            return prefix;
+        }
+
+        @Override
+        public void close() throws IOException {
+            outerArchive.close();
+        }
+    }
+}
@@ -2,10 +2,16 @@ package ru.cod331n.annotation.starter;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.ScanSettings;
 import ru.cod331n.annotation.starter.logic.AnnotationBootstrapLogic;
+import ru.cod331n.annotation.starter.logic.AnnotationWatcher;
+import ru.cod331n.annotation.starter.logic.BootstrapFuture;
 import ru.cod331n.util.validation.Preconditions;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * Класс для инициализации и запуска обработки аннотаций.
@@ -33,9 +39,31 @@ public final class AnnotationProcessBootstrap {
      * @throws IllegalArgumentException если переданное имя пакета пустое.
      */
     public static void run(@NotNull String packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader) {
+        run(packageName, classLoader, ScanSettings.defaults());
+    }
+
+    /**
+     * Запускает процесс обработки аннотаций в указанном пакете с заданными настройками сканирования.
+     *
+     * @param packageName Имя пакета, в котором будет выполнена обработка аннотаций.
+     * @param settings    Настройки сканирования пакета.
+     * @throws IllegalArgumentException если переданное имя пакета пустое.
+     */
+    public static void run(@NotNull String packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader, @NotNull ScanSettings settings) {
+        run(packageName, classLoader, BootstrapSettings.builder().scanSettings(settings).build());
+    }
+
+    /**
+     * Запускает процесс обработки аннотаций в указанном пакете с заданными настройками запуска.
+     *
+     * @param packageName Имя пакета, в котором будет выполнена обработка аннотаций.
+     * @param settings    Настройки сканирования пакета и вызова процессоров.
+     * @throws IllegalArgumentException если переданное имя пакета пустое.
+     */
+    public static void run(@NotNull String packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader, @NotNull BootstrapSettings settings) {
         Preconditions.checkAndThrow(packageName.isEmpty(), () -> new IllegalArgumentException("Package name cannot be empty."));
 
-        logic.run(packageName, classLoader);
+        logic.run(packageName, classLoader, settings);
     }
 
     /**
@@ -45,8 +73,122 @@ public final class AnnotationProcessBootstrap {
      * @throws IllegalArgumentException если переданное имя пакета пустое.
      */
     public static void run(@NotNull Collection<String> packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader) {
+        run(packageName, classLoader, ScanSettings.defaults());
+    }
+
+    /**
+     * Запускает процесс обработки аннотаций в указанных пакетах с заданными настройками сканирования.
+     *
+     * @param packageName Имена пакетов, в которых будет выполнена обработка аннотаций.
+     * @param settings    Настройки сканирования пакетов.
+     * @throws IllegalArgumentException если переданное имя пакета пустое.
+     */
+    public static void run(@NotNull Collection<String> packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader, @NotNull ScanSettings settings) {
+        run(packageName, classLoader, BootstrapSettings.builder().scanSettings(settings).build());
+    }
+
+    /**
+     * Запускает процесс обработки аннотаций в указанных пакетах с заданными настройками запуска.
+     *
+     * <p>Пакеты сканируются одним проходом: вложенные пакеты и повторы отбрасываются, а процессоры из любого
+     * пакета набора применяются к элементам всех пакетов набора.</p>
+     *
+     * @param packageName Имена пакетов, в которых будет выполнена обработка аннотаций.
+     * @param settings    Настройки сканирования пакетов и вызова процессоров.
+     * @throws IllegalArgumentException если переданное имя пакета пустое.
+     */
+    public static void run(@NotNull Collection<String> packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader, @NotNull BootstrapSettings settings) {
+        Preconditions.checkAndThrow(packageName.isEmpty(), () -> new IllegalArgumentException("Package name cannot be empty."));
+
+        logic.run(packageName, classLoader, settings);
+    }
+
+    /**
+     * Запускает обработку аннотаций в указанном пакете на указанном исполнителе, не блокируя вызывающий поток.
+     *
+     * @param packageName Имя пакета, в котором будет выполнена обработка аннотаций.
+     * @param executor    Исполнитель, в котором будет выполнен запуск.
+     * @return Задача запуска; см. {@link #runAsync(Collection, ClassLoader, BootstrapSettings, Executor)}.
+     * @throws IllegalArgumentException если переданное имя пакета пустое.
+     */
+    @NotNull
+    public static BootstrapFuture runAsync(@NotNull String packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader, @NotNull Executor executor) {
+        return runAsync(packageName, classLoader, BootstrapSettings.defaults(), executor);
+    }
+
+    /**
+     * Запускает обработку аннотаций в указанном пакете с заданными настройками запуска на указанном исполнителе.
+     *
+     * @param packageName Имя пакета, в котором будет выполнена обработка аннотаций.
+     * @param settings    Настройки сканирования пакета и вызова процессоров.
+     * @param executor    Исполнитель, в котором будет выполнен запуск.
+     * @return Задача запуска; см. {@link #runAsync(Collection, ClassLoader, BootstrapSettings, Executor)}.
+     * @throws IllegalArgumentException если переданное имя пакета пустое.
+     */
+    @NotNull
+    public static BootstrapFuture runAsync(@NotNull String packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader, @NotNull BootstrapSettings settings, @NotNull Executor executor) {
+        Preconditions.checkAndThrow(packageName.isEmpty(), () -> new IllegalArgumentException("Package name cannot be empty."));
+
+        return runAsync(Collections.singleton(packageName), classLoader, settings, executor);
+    }
+
+    /**
+     * Запускает обработку аннотаций в указанных пакетах на указанном исполнителе, не блокируя вызывающий поток:
+     * сканирование и обработка идут параллельно с остальным запуском приложения.
+     *
+     * <p>Задача завершается итогами запуска, либо исключением, которое выбросил бы
+     * {@link #run(Collection, ClassLoader, BootstrapSettings)}. Ее отмена останавливает запуск перед очередным
+     * процессором; {@link BootstrapFuture#getProcessor(Class)} позволяет дождаться отдельного процессора.</p>
+     *
+     * @param packageName Имена пакетов, в которых будет выполнена обработка аннотаций.
+     * @param settings    Настройки сканирования пакетов и вызова процессоров.
+     * @param executor    Исполнитель, в котором будет выполнен запуск.
+     * @return Задача запуска.
+     * @throws IllegalArgumentException если переданное имя пакета пустое.
+     */
+    @NotNull
+    public static BootstrapFuture runAsync(@NotNull Collection<String> packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader, @NotNull BootstrapSettings settings, @NotNull Executor executor) {
+        Preconditions.checkAndThrow(packageName.isEmpty(), () -> new IllegalArgumentException("Package name cannot be empty."));
+
+        return logic.runAsync(packageName, classLoader, settings, executor);
+    }
+
+    /**
+     * Обрабатывает аннотации в указанном пакете и затем отслеживает изменения его class-файлов, передавая
+     * процессорам только измененные элементы.
+     *
+     * <p>Все классы загружаются одним загрузчиком, поэтому обрабатываются добавленные и удаленные классы;
+     * чтобы повторно обрабатывать измененные классы, используйте
+     * {@link #watch(Collection, Supplier, BootstrapSettings)} с фабрикой новых загрузчиков.</p>
+     *
+     * @param packageName Имя пакета, в котором будет выполнена обработка аннотаций.
+     * @return Запущенный наблюдатель; его нужно закрыть, чтобы остановить отслеживание.
+     * @throws IllegalArgumentException если переданное имя пакета пустое.
+     */
+    @NotNull
+    public static AnnotationWatcher watch(@NotNull String packageName, @Nullable("If null, then will use the System.getClassLoader()") ClassLoader classLoader) {
+        Preconditions.checkAndThrow(packageName.isEmpty(), () -> new IllegalArgumentException("Package name cannot be empty."));
+
+        return watch(Collections.singleton(packageName), () -> classLoader, BootstrapSettings.defaults());
+    }
+
+    /**
+     * Обрабатывает аннотации в указанных пакетах и затем отслеживает изменения class-файлов в их каталогах.
+     * Удаленные и измененные классы передаются в {@link ru.cod331n.annotation.processor.AbstractAnnotationProcessor#remove},
+     * добавленные и измененные - в {@code process}.
+     *
+     * @param packageName  Имена пакетов, в которых будет выполнена обработка аннотаций.
+     * @param classLoaders Фабрика загрузчиков: первый используется для полного прохода, каждый следующий - для
+     *                     загрузки измененных классов. Аннотации и процессоры новые загрузчики должны получать от
+     *                     того же родителя, что и первый.
+     * @param settings     Настройки сканирования пакетов и вызова процессоров.
+     * @return Запущенный наблюдатель; его нужно закрыть, чтобы остановить отслеживание.
+     * @throws IllegalArgumentException если переданное имя пакета пустое.
+     */
+    @NotNull
+    public static AnnotationWatcher watch(@NotNull Collection<String> packageName, @NotNull Supplier<ClassLoader> classLoaders, @NotNull BootstrapSettings settings) {
         Preconditions.checkAndThrow(packageName.isEmpty(), () -> new IllegalArgumentException("Package name cannot be empty."));
 
-        packageName.forEach(name -> run(name, classLoader));
+        return logic.watch(packageName, classLoaders, settings);
     }
 }
\ No newline at end of file
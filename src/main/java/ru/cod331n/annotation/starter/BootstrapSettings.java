@@ -0,0 +1,235 @@
+package ru.cod331n.annotation.starter;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.AnnotationRegistry;
+import ru.cod331n.annotation.reflect.ScanListener;
+import ru.cod331n.annotation.reflect.ScanSettings;
+import ru.cod331n.annotation.starter.metrics.BootstrapListener;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Настройки запуска обработки аннотаций: настройки сканирования пакета, исполнитель, на котором вызываются процессоры,
+ * потоковый режим передачи элементов, получатель метрик запуска и получатель реестра аннотаций.
+ *
+ * <p>Экземпляр неизменяем; создается через {@link #builder()}.</p>
+ */
+public final class BootstrapSettings {
+    private static final BootstrapSettings DEFAULTS = builder().build();
+
+    private final ScanSettings scanSettings;
+    private final Executor dispatchExecutor;
+    private final int streamingBufferSize;
+    private final BootstrapListener listener;
+    private final Duration slowProcessorThreshold;
+    private final Consumer<AnnotationRegistry> registryPublisher;
+
+    private BootstrapSettings(final @NotNull Builder builder) {
+        this.dispatchExecutor = builder.dispatchExecutor;
+        this.streamingBufferSize = builder.streamingBufferSize;
+        this.listener = builder.listener;
+        this.slowProcessorThreshold = builder.slowProcessorThreshold;
+        this.registryPublisher = builder.registryPublisher;
+
+        ScanListener scanListener = builder.scanSettings.getListener();
+        this.scanSettings = listener == BootstrapListener.NONE
+                ? builder.scanSettings
+                : builder.scanSettings.toBuilder()
+                .listener(scanListener == ScanListener.NONE ? listener : ScanListener.of(scanListener, listener))
+                .build();
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public static BootstrapSettings defaults() {
+        return DEFAULTS;
+    }
+
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public ScanSettings getScanSettings() {
+        return scanSettings;
+    }
+
+    /**
+     * @return Исполнитель, на котором вызываются процессоры, либо {@code null}, если они вызываются последовательно
+     * в вызывающем потоке.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public Executor getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
+    /**
+     * @return Размер буфера потокового режима, либо {@code 0}, если элементы передаются процессорам после сканирования.
+     */
+    @Contract(pure = true)
+    public int getStreamingBufferSize() {
+        return streamingBufferSize;
+    }
+
+    /**
+     * @return Получатель событий запуска; {@link BootstrapListener#NONE}, если он не задан.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public BootstrapListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @return Порог, после которого процессор считается медленным, либо {@code null}, если порог не задан.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public Duration getSlowProcessorThreshold() {
+        return slowProcessorThreshold;
+    }
+
+    /**
+     * @return Получатель реестра аннотаций, либо {@code null}, если реестр не строится.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public Consumer<AnnotationRegistry> getRegistryPublisher() {
+        return registryPublisher;
+    }
+
+    public static final class Builder {
+        private ScanSettings scanSettings = ScanSettings.defaults();
+        private Executor dispatchExecutor;
+        private int streamingBufferSize;
+        private BootstrapListener listener = BootstrapListener.NONE;
+        private Duration slowProcessorThreshold;
+        private Consumer<AnnotationRegistry> registryPublisher;
+
+        private Builder() {
+        }
+
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder scanSettings(@NotNull ScanSettings scanSettings) {
+            this.scanSettings = scanSettings;
+            return this;
+        }
+
+        /**
+         * Запускает независимые процессоры параллельно на указанном исполнителе с соблюдением
+         * {@link ru.cod331n.annotation.AnnotationProcessor#order()} и {@link ru.cod331n.annotation.AnnotationProcessor#dependsOn()}.
+         * Элементы процессоров с {@link ru.cod331n.annotation.AnnotationProcessor#concurrent()} также обрабатываются параллельно.
+         *
+         * @param dispatchExecutor Исполнитель, либо {@code null} для последовательного вызова процессоров.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder dispatchExecutor(@Nullable Executor dispatchExecutor) {
+            this.dispatchExecutor = dispatchExecutor;
+            return this;
+        }
+
+        /**
+         * Вызывает процессоры на виртуальных потоках, по одному потоку на задачу.
+         *
+         * @throws UnsupportedOperationException если виртуальные потоки не поддерживаются текущей JVM (до Java 21).
+         */
+        @NotNull
+        @Contract(value = "-> this", mutates = "this")
+        public Builder virtualThreads() {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return dispatchExecutor((ExecutorService) factory.invoke(null));
+            } catch (ReflectiveOperationException e) {
+                throw new UnsupportedOperationException("Virtual threads are not supported by this JVM", e);
+            }
+        }
+
+        /**
+         * Передает найденные элементы процессорам первой стадии (с наименьшим порядком и без зависимостей) сразу, пока
+         * сканирование продолжается в отдельном потоке. Между сканером и процессорами хранится не больше
+         * {@code bufferSize} элементов: при заполненном буфере сканер ожидает. Элементы остальных процессоров
+         * собираются и передаются после сканирования, как обычно.
+         *
+         * @param bufferSize Размер буфера, либо {@code 0}, чтобы отключить потоковый режим.
+         * @throws IllegalArgumentException если размер отрицательный.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder streaming(int bufferSize) {
+            Preconditions.checkAndThrow(bufferSize < 0, () -> new IllegalArgumentException("Buffer size cannot be negative: " + bufferSize));
+
+            this.streamingBufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Задает получателя метрик запуска: времени фаз, событий сканирования и итогов процессоров. Получатель также
+         * добавляется к получателю событий из настроек сканирования. Для нескольких получателей используйте
+         * {@link BootstrapListener#of(BootstrapListener...)}.
+         *
+         * @param listener Получатель, например, {@link ru.cod331n.annotation.starter.metrics.BootstrapMetrics}
+         *                 или {@link BootstrapListener#jfr()}.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder listener(@NotNull BootstrapListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Включает предупреждение о медленных процессорах: если суммарное время обработки элементов процессором
+         * превышает порог, в журнал пишется предупреждение, а получателю передается
+         * {@link BootstrapListener#slowProcessor}.
+         *
+         * @param threshold Порог, либо {@code null}, чтобы отключить предупреждение.
+         * @throws IllegalArgumentException если порог отрицательный.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder slowProcessorThreshold(@Nullable Duration threshold) {
+            Preconditions.checkAndThrow(
+                    threshold != null && threshold.isNegative(),
+                    () -> new IllegalArgumentException("Threshold cannot be negative: " + threshold)
+            );
+
+            this.slowProcessorThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Строит по найденным элементам неизменяемый {@link AnnotationRegistry} и передает его получателю после
+         * завершения всех процессоров. Реестр содержит элементы процессоров, кроме
+         * {@link ru.cod331n.annotation.processor.AbstractDescriptorAnnotationProcessor}; в режиме отслеживания
+         * изменений новый реестр передается получателю и после каждой пачки изменений.
+         *
+         * @param publisher Получатель реестра, например, поле приложения, либо {@code null}, чтобы не строить реестр.
+         */
+        @NotNull
+        @Contract(value = "_ -> this", mutates = "this")
+        public Builder registry(@Nullable Consumer<AnnotationRegistry> publisher) {
+            this.registryPublisher = publisher;
+            return this;
+        }
+
+        @NotNull
+        @Contract(value = "-> new", pure = true)
+        public BootstrapSettings build() {
+            return new BootstrapSettings(this);
+        }
+    }
+}
@@ -1,46 +1,427 @@
 package ru.cod331n.annotation.starter.logic;
 
+import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import ru.cod331n.annotation.AnnotationProcessor;
 import ru.cod331n.annotation.processor.AbstractAnnotationProcessor;
+import ru.cod331n.annotation.processor.AbstractBatchAnnotationProcessor;
+import ru.cod331n.annotation.processor.AbstractDescriptorAnnotationProcessor;
+import ru.cod331n.annotation.processor.AnnotationMatch;
+import ru.cod331n.annotation.processor.BaseAnnotationProcessor;
+import ru.cod331n.annotation.reflect.AnnotatedElementIndex;
+import ru.cod331n.annotation.reflect.AnnotationRegistry;
+import ru.cod331n.annotation.reflect.ElementInfoIndex;
 import ru.cod331n.annotation.reflect.JavaClassesReflection;
+import ru.cod331n.annotation.reflect.ScanSettings;
+import ru.cod331n.annotation.reflect.bytecode.AnnotationInfo;
+import ru.cod331n.annotation.reflect.bytecode.ElementInfo;
+import ru.cod331n.annotation.starter.BootstrapSettings;
+import ru.cod331n.annotation.starter.metrics.BootstrapPhase;
+import ru.cod331n.util.concurrent.ParallelCollections;
 import ru.cod331n.util.tuple.Pair;
 import ru.cod331n.util.validation.Preconditions;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public final class AnnotationBootstrapLogic {
     public void run(@NotNull String packageName, @Nullable ClassLoader classLoader) {
-        final JavaClassesReflection reflection = new JavaClassesReflection(packageName, classLoader);
+        run(packageName, classLoader, ScanSettings.defaults());
+    }
+
+    public void run(@NotNull String packageName, @Nullable ClassLoader classLoader, @NotNull ScanSettings settings) {
+        run(packageName, classLoader, BootstrapSettings.builder().scanSettings(settings).build());
+    }
+
+    public void run(@NotNull String packageName, @Nullable ClassLoader classLoader, @NotNull BootstrapSettings settings) {
+        run(Collections.singleton(packageName), classLoader, settings);
+    }
+
+    /**
+     * Сканирует объединение пакетов один раз: процессоры, найденные в любом из пакетов, получают элементы
+     * из всех пакетов, причем каждый элемент - ровно один раз.
+     *
+     * <p>Элементы для {@link AbstractDescriptorAnnotationProcessor} читаются из байткода; если других процессоров
+     * нет, классы пакетов, кроме самих процессоров, не загружаются.</p>
+     *
+     * <p>Время фаз и итоги процессоров передаются {@link BootstrapSettings#getListener()}.</p>
+     */
+    public void run(@NotNull Collection<String> packageNames, @Nullable ClassLoader classLoader, @NotNull BootstrapSettings settings) {
+        run(packageNames, classLoader, settings, null);
+    }
+
+    /**
+     * Запускает {@link #run(Collection, ClassLoader, BootstrapSettings)} на указанном исполнителе и сразу возвращает
+     * задачу запуска.
+     *
+     * @param executor Исполнитель, в котором ищутся процессоры и сканируются пакеты. Если он же задан как
+     *                 {@link BootstrapSettings#getDispatchExecutor()}, в нем должно хватать потоков на ожидание
+     *                 процессоров, как у {@link java.util.concurrent.ForkJoinPool}.
+     * @return Задача, завершающаяся итогами запуска; ее отмена останавливает запуск.
+     */
+    @NotNull
+    public BootstrapFuture runAsync(
+            @NotNull Collection<String> packageNames,
+            @Nullable ClassLoader classLoader,
+            @NotNull BootstrapSettings settings,
+            @NotNull Executor executor
+    ) {
+        BootstrapFuture future = new BootstrapFuture();
+
+        try {
+            executor.execute(() -> {
+                try {
+                    future.checkCancelled();
+                    future.complete(run(packageNames, classLoader, settings, future));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    future.finish();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            future.finish();
+        }
+
+        return future;
+    }
+
+    /**
+     * @param future Задача асинхронного запуска, либо {@code null} для блокирующего.
+     */
+    @NotNull
+    private BootstrapResult run(
+            @NotNull Collection<String> packageNames,
+            @Nullable ClassLoader classLoader,
+            @NotNull BootstrapSettings settings,
+            @Nullable BootstrapFuture future
+    ) {
+        long start = System.nanoTime();
+        BootstrapInstrumentation instrumentation = new BootstrapInstrumentation(settings);
+        long discoveryStart = instrumentation.start();
+
+        final JavaClassesReflection reflection = new JavaClassesReflection(packageNames, classLoader, settings.getScanSettings());
+        ProcessorScheduler scheduler = new ProcessorScheduler(discoverProcessors(reflection));
+        instrumentation.phaseCompleted(BootstrapPhase.DISCOVERY, discoveryStart);
+
+        List<Class<?>> processorClasses = new ArrayList<>();
+        scheduler.getProcessors().forEach(definition -> processorClasses.add(definition.getProcessorClass()));
+        if (future != null) {
+            future.discovered(processorClasses);
+            future.checkCancelled();
+        }
+
+        long scanStart = instrumentation.start();
+        Set<Class<? extends Annotation>> annotations = getAnnotations(scheduler, false);
+        ElementInfoIndex descriptors = describe(reflection, getAnnotations(scheduler, true));
+
+        ElementTypeChecker checker = new ElementTypeChecker(reflection, instrumentation.getListener());
+        @Nullable Executor executor = settings.getDispatchExecutor();
+
+        if (settings.getStreamingBufferSize() == 0) {
+            AnnotatedElementIndex index = checker.check(annotations);
+            instrumentation.phaseCompleted(BootstrapPhase.SCAN, scanStart);
+
+            runProcessors(scheduler, track(definition -> dispatch(definition, index, descriptors, executor, instrumentation), future), executor, instrumentation);
+
+            @Nullable AnnotationRegistry registry = settings.getRegistryPublisher() == null ? null : AnnotationRegistry.of(index);
+            return complete(processorClasses, index.size() + descriptors.size(), start, settings, registry);
+        }
+
+        List<ProcessorDefinition> reflective = new ArrayList<>(scheduler.getProcessors());
+        reflective.removeIf(ProcessorDefinition::isDescriptor);
+
+        // пакетным процессорам нужен полный набор элементов
+        List<ProcessorDefinition> streamed = new ArrayList<>(scheduler.getFirstStage());
+        streamed.removeIf(definition -> definition.isDescriptor() || definition.isBatch());
+
+        // в потоковом режиме индекс содержит не все элементы, поэтому реестр заполняется при сканировании
+        @Nullable AnnotationRegistry.Builder registry = settings.getRegistryPublisher() == null ? null : AnnotationRegistry.builder();
+
+        StreamingDispatcher dispatcher = new StreamingDispatcher(streamed, reflective, settings.getStreamingBufferSize(), instrumentation);
+        AnnotatedElementIndex deferred = dispatcher.run(consumer -> checker.check(annotations, registry == null ? consumer : (clazz, element, annotation) -> {
+            registry.accept(clazz, element, annotation);
+            consumer.accept(clazz, element, annotation);
+        }));
+        instrumentation.phaseCompleted(BootstrapPhase.SCAN, scanStart);
+
+        runProcessors(scheduler, track(definition -> streamed.contains(definition)
+                ? CompletableFuture.completedFuture(null)
+                : dispatch(definition, deferred, descriptors, executor, instrumentation), future), executor, instrumentation);
+        return complete(processorClasses, dispatcher.getElementCount() + descriptors.size(), start, settings, registry == null ? null : registry.build());
+    }
+
+    /**
+     * Передает реестр аннотаций получателю из настроек и собирает итоги запуска.
+     */
+    @NotNull
+    private static BootstrapResult complete(
+            @NotNull List<Class<?>> processorClasses,
+            int elementCount,
+            long start,
+            @NotNull BootstrapSettings settings,
+            @Nullable AnnotationRegistry registry
+    ) {
+        @Nullable Consumer<AnnotationRegistry> publisher = settings.getRegistryPublisher();
+        if (publisher != null && registry != null) {
+            publisher.accept(registry);
+        }
+
+        return new BootstrapResult(processorClasses, elementCount, System.nanoTime() - start, registry);
+    }
+
+    /**
+     * Обрабатывает пакеты, как {@link #run(Collection, ClassLoader, BootstrapSettings)}, и затем отслеживает
+     * изменения class-файлов в их каталогах, передавая процессорам только измененные элементы.
+     *
+     * @param classLoaders Фабрика загрузчиков: первый загрузчик используется для полного прохода, а каждый следующий -
+     *                     для загрузки добавленных и измененных классов. Новые загрузчики должны загружать аннотации
+     *                     и процессоры через того же родителя, что и первый.
+     * @return Запущенный наблюдатель; его нужно закрыть, чтобы остановить отслеживание.
+     */
+    @NotNull
+    public AnnotationWatcher watch(@NotNull Collection<String> packageNames, @NotNull Supplier<ClassLoader> classLoaders, @NotNull BootstrapSettings settings) {
+        BootstrapInstrumentation instrumentation = new BootstrapInstrumentation(settings);
+        long discoveryStart = instrumentation.start();
+
+        final JavaClassesReflection reflection = new JavaClassesReflection(packageNames, classLoaders.get(), settings.getScanSettings());
+        ProcessorScheduler scheduler = new ProcessorScheduler(discoverProcessors(reflection));
+        instrumentation.phaseCompleted(BootstrapPhase.DISCOVERY, discoveryStart);
+
+        Set<Class<? extends Annotation>> annotations = getAnnotations(scheduler, false);
+        Set<Class<? extends Annotation>> descriptorAnnotations = getAnnotations(scheduler, true);
+        @Nullable Executor executor = settings.getDispatchExecutor();
+
+        AnnotationWatcher watcher;
+        try {
+            watcher = new AnnotationWatcher(reflection, scheduler, annotations, descriptorAnnotations, classLoaders, executor, instrumentation, settings.getRegistryPublisher());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to watch packages: " + reflection.getPackageNames(), e);
+        }
+
+        long scanStart = instrumentation.start();
+        AnnotatedElementIndex index = new ElementTypeChecker(reflection, instrumentation.getListener()).check(annotations);
+        ElementInfoIndex descriptors = describe(reflection, descriptorAnnotations);
+        instrumentation.phaseCompleted(BootstrapPhase.SCAN, scanStart);
+
+        runProcessors(scheduler, definition -> dispatch(definition, index, descriptors, executor, instrumentation), executor, instrumentation);
+        watcher.start(index, descriptors);
+
+        return watcher;
+    }
+
+    /**
+     * @param descriptor {@code true} - аннотации процессоров описаний элементов, {@code false} - остальных процессоров.
+     */
+    @NotNull
+    @Contract(pure = true)
+    private static Set<Class<? extends Annotation>> getAnnotations(@NotNull ProcessorScheduler scheduler, boolean descriptor) {
+        Set<Class<? extends Annotation>> annotations = new LinkedHashSet<>();
+        scheduler.getProcessors().forEach(definition -> Preconditions.check(
+                definition.isDescriptor() == descriptor,
+                () -> annotations.add(definition.getAnnotation())
+        ));
+
+        return annotations;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private static ElementInfoIndex describe(@NotNull JavaClassesReflection reflection, @NotNull Set<Class<? extends Annotation>> annotations) {
+        return new ElementInfoIndex(
+                annotations.isEmpty() ? Collections.emptyList() : reflection.getAnnotatedClassInfos(annotations),
+                annotations
+        );
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private Collection<ProcessorDefinition> discoverProcessors(@NotNull JavaClassesReflection reflection) {
+        Collection<ProcessorDefinition> processors = new ArrayList<>();
 
         reflection.getAnnotatedClasses(AnnotationProcessor.class).forEach(clazz -> {
+            // составные аннотации процессоров и абстрактные базовые процессоры, помеченные через них или наследование
+            if (clazz.isAnnotation() || (Modifier.isAbstract(clazz.getModifiers()) && !clazz.isAnnotationPresent(AnnotationProcessor.class))) {
+                return;
+            }
+
             try {
                 Object processorInstance = clazz.getDeclaredConstructor().newInstance();
                 Class<? extends Annotation> annotationProcessing = reflection.getGenericType(clazz);
 
                 Preconditions.checkAndThrow(
-                        !(processorInstance instanceof AbstractAnnotationProcessor) || Objects.isNull(annotationProcessing),
+                        !(processorInstance instanceof BaseAnnotationProcessor) || Objects.isNull(annotationProcessing),
                         () -> new RuntimeException("Unable to determine generic type for processor: " + clazz.getName())
                 );
 
-                AbstractAnnotationProcessor<? extends Annotation> processor = (AbstractAnnotationProcessor<? extends Annotation>) processorInstance;
-
-                ElementTypeChecker elementTypeChecker = new ElementTypeChecker(reflection);
-                Collection<Pair<Class<?>, ? extends AnnotatedElement>> annotatedElements = elementTypeChecker.check(annotationProcessing);
-
-                annotatedElements.forEach(pair -> processor.process(
-                        pair.getLeft(),
-                        pair.getRight(),
-                        pair.getRight().getAnnotation(reflection.getGenericType(clazz)))
-                );
-
+                processors.add(new ProcessorDefinition(
+                        clazz,
+                        (BaseAnnotationProcessor<? extends Annotation>) processorInstance,
+                        annotationProcessing,
+                        reflection.getAnnotationClosure().getAnnotation(clazz, AnnotationProcessor.class)
+                ));
             } catch (Exception e) {
                 throw new RuntimeException("Failed to process annotations for class: " + clazz.getName(), e);
             }
         });
+
+        return processors;
+    }
+
+    /**
+     * Оборачивает задачу процессора для асинхронного запуска; для блокирующего возвращает ее без изменений.
+     */
+    @NotNull
+    @Contract(pure = true)
+    private static Function<ProcessorDefinition, CompletableFuture<Void>> track(
+            @NotNull Function<ProcessorDefinition, CompletableFuture<Void>> task,
+            @Nullable BootstrapFuture future
+    ) {
+        return future == null ? task : future.track(task);
+    }
+
+    /**
+     * Запускает процессоры через планировщик, замеряя фазу {@link BootstrapPhase#DISPATCH}, и передает итоги
+     * процессоров получателю.
+     */
+    static void runProcessors(
+            @NotNull ProcessorScheduler scheduler,
+            @NotNull Function<ProcessorDefinition, CompletableFuture<Void>> task,
+            @Nullable Executor executor,
+            @NotNull BootstrapInstrumentation instrumentation
+    ) {
+        long start = instrumentation.start();
+        scheduler.run(task, executor);
+        instrumentation.phaseCompleted(BootstrapPhase.DISPATCH, start);
+        instrumentation.completed(scheduler.getProcessors());
+    }
+
+    /**
+     * Передает процессору все найденные элементы его аннотации. Элементы процессоров с
+     * {@link ru.cod331n.annotation.AnnotationProcessor#concurrent()} обрабатываются параллельно, если задан исполнитель;
+     * для {@link AbstractBatchAnnotationProcessor} параллельно обрабатываются части элементов.
+     */
+    @NotNull
+    static CompletableFuture<Void> dispatch(
+            @NotNull ProcessorDefinition definition,
+            @NotNull AnnotatedElementIndex index,
+            @NotNull ElementInfoIndex descriptors,
+            @Nullable Executor executor,
+            @NotNull BootstrapInstrumentation instrumentation
+    ) {
+        if (definition.isBatch()) {
+            return dispatchBatch(definition, index, executor, instrumentation);
+        }
+
+        if (definition.isDescriptor()) {
+            return dispatch(definition, descriptors.get(definition.getAnnotation()), instrumentation.time(definition, pair -> process(definition, pair.getLeft(), pair.getRight())), executor);
+        }
+
+        if (executor != null && definition.isConcurrent()) {
+            return dispatch(definition, index.get(definition.getAnnotation()), instrumentation.time(definition, pair -> process(definition, index, pair)), executor);
+        }
+
+        // последовательно элементы передаются прямо из индекса, без промежуточных пар
+        try {
+            index.forEach(definition.getAnnotation(), instrumentation.time(definition, (clazz, element, annotation) -> process(definition, clazz, element, annotation)));
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            throw processingFailure(definition, e);
+        }
+    }
+
+    /**
+     * Передает пакетному процессору элементы одним списком или частями и после всех частей вызывает
+     * {@link AbstractBatchAnnotationProcessor#onComplete()}.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private static <T extends Annotation> CompletableFuture<Void> dispatchBatch(
+            @NotNull ProcessorDefinition definition,
+            @NotNull AnnotatedElementIndex index,
+            @Nullable Executor executor,
+            @NotNull BootstrapInstrumentation instrumentation
+    ) {
+        AbstractBatchAnnotationProcessor<T> processor = (AbstractBatchAnnotationProcessor<T>) definition.getProcessor();
+        Class<T> annotation = (Class<T>) definition.getAnnotation();
+
+        List<AnnotationMatch<T>> matches = new ArrayList<>(index.count(annotation));
+        index.forEach(annotation, (clazz, element, found) -> matches.add(new AnnotationMatch<>(clazz, element, annotation.cast(found))));
+
+        int chunkSize = processor.getChunkSize() == 0 ? Math.max(matches.size(), 1) : processor.getChunkSize();
+        List<List<AnnotationMatch<T>>> chunks = new ArrayList<>();
+        for (int from = 0; from < matches.size(); from += chunkSize) {
+            chunks.add(Collections.unmodifiableList(matches.subList(from, Math.min(from + chunkSize, matches.size()))));
+        }
+
+        return dispatch(definition, chunks, instrumentation.timeBatch(definition, processor::process), executor)
+                .thenRun(() -> {
+                    try {
+                        processor.onComplete();
+                    } catch (Exception e) {
+                        throw processingFailure(definition, e);
+                    }
+                });
+    }
+
+    @NotNull
+    private static <E> CompletableFuture<Void> dispatch(
+            @NotNull ProcessorDefinition definition,
+            @NotNull Collection<E> elements,
+            @NotNull Consumer<E> action,
+            @Nullable Executor executor
+    ) {
+        try {
+            if (executor == null || !definition.isConcurrent()) {
+                elements.forEach(action);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            return ParallelCollections.forEachAsync(elements, action, executor)
+                    .handle((ignored, e) -> {
+                        Preconditions.checkAndThrow(e != null, () -> processingFailure(definition, e instanceof CompletionException ? e.getCause() : e));
+                        return null;
+                    });
+        } catch (Exception e) {
+            throw processingFailure(definition, e);
+        }
+    }
+
+    private static void process(@NotNull ProcessorDefinition definition, @NotNull AnnotatedElementIndex index, @NotNull Pair<Class<?>, AnnotatedElement> pair) {
+        process(definition, pair.getLeft(), pair.getRight(), index.getAnnotation(definition.getAnnotation(), pair.getRight()));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends Annotation> void process(@NotNull ProcessorDefinition definition, @Nullable Class<?> clazz, @NotNull AnnotatedElement element, @NotNull Annotation annotation) {
+        AbstractAnnotationProcessor<T> processor = (AbstractAnnotationProcessor<T>) definition.getProcessor();
+        processor.process(clazz, element, (T) annotation);
+    }
+
+    static void process(@NotNull ProcessorDefinition definition, @NotNull ElementInfo element, @NotNull AnnotationInfo annotation) {
+        ((AbstractDescriptorAnnotationProcessor<?>) definition.getProcessor()).process(element, annotation);
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    static RuntimeException processingFailure(@NotNull ProcessorDefinition definition, @NotNull Throwable cause) {
+        return new RuntimeException("Failed to process annotations for class: " + definition.getProcessorClass().getName(), cause);
     }
 }
@@ -0,0 +1,260 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.processor.AbstractAnnotationProcessor;
+import ru.cod331n.annotation.processor.AbstractBatchAnnotationProcessor;
+import ru.cod331n.annotation.processor.AbstractDescriptorAnnotationProcessor;
+import ru.cod331n.annotation.processor.AnnotationMatch;
+import ru.cod331n.annotation.reflect.AnnotatedElementIndex;
+import ru.cod331n.annotation.reflect.AnnotationRegistry;
+import ru.cod331n.annotation.reflect.ClassFileChange;
+import ru.cod331n.annotation.reflect.ClassFileWatcher;
+import ru.cod331n.annotation.reflect.ClassLoaderHelper;
+import ru.cod331n.annotation.reflect.ElementInfoIndex;
+import ru.cod331n.annotation.reflect.JavaClassesReflection;
+import ru.cod331n.annotation.reflect.bytecode.AnnotationInfo;
+import ru.cod331n.annotation.reflect.bytecode.ClassInfo;
+import ru.cod331n.annotation.reflect.bytecode.ElementInfo;
+import ru.cod331n.util.tuple.Pair;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Режим отслеживания изменений: после первого полного прохода повторно обрабатывает только измененные классы.
+ *
+ * <p>Для удаленных и измененных классов процессорам вызывается {@link AbstractAnnotationProcessor#remove} для
+ * каждого ранее обработанного элемента, в порядке, обратном обработке. {@link AbstractBatchAnnotationProcessor}
+ * получает ранее обработанные элементы всех удаленных и измененных классов пачки одним вызовом
+ * {@link AbstractBatchAnnotationProcessor#remove(List)} после отмены у остальных процессоров. Добавленные и
+ * измененные классы загружаются новым загрузчиком из фабрики загрузчиков, и их элементы передаются процессорам, как
+ * при обычном запуске; для {@link AbstractDescriptorAnnotationProcessor} классы только читаются этим загрузчиком как
+ * байткод. Отслеживаются только корни пакетов в каталогах файловой системы.</p>
+ *
+ * <p>Если задан получатель реестра ({@link ru.cod331n.annotation.starter.BootstrapSettings.Builder#registry}),
+ * после первого прохода и после каждой пачки изменений ему передается новый {@link AnnotationRegistry} с текущими
+ * элементами.</p>
+ */
+public final class AnnotationWatcher implements Closeable {
+    private final JavaClassesReflection reflection;
+    private final ProcessorScheduler scheduler;
+    private final Set<Class<? extends Annotation>> annotations;
+    private final Set<Class<? extends Annotation>> descriptorAnnotations;
+    private final Supplier<ClassLoader> classLoaders;
+    private final Executor executor;
+    private final BootstrapInstrumentation instrumentation;
+    private final @Nullable Consumer<AnnotationRegistry> registryPublisher;
+    private final Map<String, List<ProcessedElement>> processedElements = new LinkedHashMap<>();
+    private final List<AnnotationMatch<?>> packageMatches = new ArrayList<>();
+    private final ClassFileWatcher classFileWatcher;
+
+    AnnotationWatcher(
+            final @NotNull JavaClassesReflection reflection,
+            final @NotNull ProcessorScheduler scheduler,
+            final @NotNull Set<Class<? extends Annotation>> annotations,
+            final @NotNull Set<Class<? extends Annotation>> descriptorAnnotations,
+            final @NotNull Supplier<ClassLoader> classLoaders,
+            final @Nullable Executor executor,
+            final @NotNull BootstrapInstrumentation instrumentation,
+            final @Nullable Consumer<AnnotationRegistry> registryPublisher
+    ) throws IOException {
+        this.reflection = reflection;
+        this.scheduler = scheduler;
+        this.annotations = annotations;
+        this.descriptorAnnotations = descriptorAnnotations;
+        this.classLoaders = classLoaders;
+        this.executor = executor;
+        this.instrumentation = instrumentation;
+        this.registryPublisher = registryPublisher;
+        this.classFileWatcher = new ClassFileWatcher(reflection.getPackageDirectories(), this::apply);
+    }
+
+    void start(@NotNull AnnotatedElementIndex index, @NotNull ElementInfoIndex descriptors) {
+        record(index, descriptors);
+        publishRegistry();
+        classFileWatcher.start();
+    }
+
+    /**
+     * Применяет пакет изменений: отменяет обработку удаленных и измененных классов и обрабатывает
+     * добавленные и измененные.
+     *
+     * @param changes Изменения class-файлов.
+     */
+    public synchronized void apply(@NotNull List<ClassFileChange> changes) {
+        List<String> loadedClassNames = new ArrayList<>();
+        Map<ProcessorDefinition, List<AnnotationMatch<?>>> batchRemovals = new LinkedHashMap<>();
+        boolean removed = false;
+
+        for (ClassFileChange change : changes) {
+            @Nullable List<ProcessedElement> elements = processedElements.remove(change.getClassName());
+
+            if (elements != null) {
+                removed = true;
+                for (int i = elements.size() - 1; i >= 0; i--) {
+                    ProcessedElement element = elements.get(i);
+
+                    if (element.definition.isBatch()) {
+                        batchRemovals.computeIfAbsent(element.definition, key -> new ArrayList<>()).add(element.match);
+                    } else {
+                        element.remove();
+                    }
+                }
+            }
+
+            if (change.getKind() != ClassFileChange.Kind.REMOVED && reflection.getFilter().acceptsClass(change.getClassName())) {
+                loadedClassNames.add(change.getClassName());
+            }
+        }
+
+        batchRemovals.forEach(AnnotationWatcher::removeBatch);
+
+        if (loadedClassNames.isEmpty()) {
+            if (removed) {
+                publishRegistry();
+            }
+
+            return;
+        }
+
+        @Nullable ClassLoader classLoader = classLoaders.get();
+        if (classLoader == null) {
+            classLoader = ClassLoader.getSystemClassLoader();
+        }
+
+        List<Class<?>> classes = new ArrayList<>(loadedClassNames.size());
+        List<ClassInfo> classInfos = new ArrayList<>();
+
+        for (String className : loadedClassNames) {
+            if (!annotations.isEmpty()) {
+                try {
+                    classes.add(Class.forName(className, false, classLoader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    throw new RuntimeException("Class not found: " + className, e);
+                }
+            }
+
+            if (!descriptorAnnotations.isEmpty()) {
+                classInfos.add(ClassLoaderHelper.readClassInfo(className, classLoader));
+            }
+        }
+
+        BootstrapInstrumentation batchInstrumentation = instrumentation.next();
+        AnnotatedElementIndex index = new ElementTypeChecker(reflection, instrumentation.getListener()).check(classes, annotations);
+        ElementInfoIndex descriptors = new ElementInfoIndex(classInfos, descriptorAnnotations);
+        AnnotationBootstrapLogic.runProcessors(
+                scheduler,
+                definition -> AnnotationBootstrapLogic.dispatch(definition, index, descriptors, executor, batchInstrumentation),
+                executor,
+                batchInstrumentation
+        );
+        record(index, descriptors);
+        publishRegistry();
+    }
+
+    /**
+     * Останавливает отслеживание изменений. Уже обработанные элементы не отменяются.
+     */
+    @Override
+    public void close() throws IOException {
+        classFileWatcher.close();
+    }
+
+    private void record(@NotNull AnnotatedElementIndex index, @NotNull ElementInfoIndex descriptors) {
+        for (ProcessorDefinition definition : scheduler.getProcessors()) {
+            if (definition.isDescriptor()) {
+                for (Pair<ElementInfo, AnnotationInfo> pair : descriptors.get(definition.getAnnotation())) {
+                    processedElements.computeIfAbsent(pair.getLeft().getDeclaringClass().getName(), key -> new ArrayList<>())
+                            .add(new ProcessedElement(definition, null, () -> removeDescriptor(definition, pair)));
+                }
+
+                continue;
+            }
+
+            index.forEach(definition.getAnnotation(), (clazz, element, annotation) -> {
+                AnnotationMatch<?> match = new AnnotationMatch<>(clazz, element, annotation);
+
+                if (clazz == null) {
+                    packageMatches.add(match);
+                    return;
+                }
+
+                processedElements.computeIfAbsent(clazz.getName(), key -> new ArrayList<>())
+                        .add(new ProcessedElement(definition, match, () -> remove(definition, clazz, element, annotation)));
+            });
+        }
+    }
+
+    /**
+     * Передает получателю из настроек реестр с элементами, обработанными на текущий момент.
+     */
+    private void publishRegistry() {
+        if (registryPublisher == null) {
+            return;
+        }
+
+        AnnotationRegistry.Builder registry = AnnotationRegistry.builder();
+        packageMatches.forEach(match -> registry.accept(match.getDeclaringClass(), match.getElement(), match.getAnnotation()));
+        processedElements.values().forEach(elements -> elements.forEach(element -> {
+            if (element.match != null) {
+                registry.accept(element.match.getDeclaringClass(), element.match.getElement(), element.match.getAnnotation());
+            }
+        }));
+
+        registryPublisher.accept(registry.build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Annotation> void remove(
+            @NotNull ProcessorDefinition definition,
+            @Nullable Class<?> clazz,
+            @NotNull AnnotatedElement element,
+            @NotNull Annotation annotation
+    ) {
+        AbstractAnnotationProcessor<T> processor = (AbstractAnnotationProcessor<T>) definition.getProcessor();
+        processor.remove(clazz, element, (T) annotation);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void removeBatch(@NotNull ProcessorDefinition definition, @NotNull List<AnnotationMatch<?>> matches) {
+        try {
+            ((AbstractBatchAnnotationProcessor) definition.getProcessor()).remove(Collections.unmodifiableList(matches));
+        } catch (Exception e) {
+            throw AnnotationBootstrapLogic.processingFailure(definition, e);
+        }
+    }
+
+    private static void removeDescriptor(@NotNull ProcessorDefinition definition, @NotNull Pair<ElementInfo, AnnotationInfo> pair) {
+        ((AbstractDescriptorAnnotationProcessor<?>) definition.getProcessor()).remove(pair.getLeft(), pair.getRight());
+    }
+
+    private static final class ProcessedElement {
+        private final ProcessorDefinition definition;
+        private final @Nullable AnnotationMatch<?> match;
+        private final Runnable removal;
+
+        /**
+         * @param match Найденный элемент, либо {@code null} для описания элемента из байткода.
+         */
+        private ProcessedElement(@NotNull ProcessorDefinition definition, @Nullable AnnotationMatch<?> match, @NotNull Runnable removal) {
+            this.definition = definition;
+            this.match = match;
+            this.removal = removal;
+        }
+
+        private void remove() {
+            try {
+                removal.run();
+            } catch (Exception e) {
+                throw AnnotationBootstrapLogic.processingFailure(definition, e);
+            }
+        }
+    }
+}
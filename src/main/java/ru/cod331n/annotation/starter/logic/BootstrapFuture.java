@@ -0,0 +1,134 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Асинхронный запуск обработки аннотаций: завершается итогами запуска, либо исключением первого упавшего
+ * процессора.
+ *
+ * <p>{@link #cancel(boolean)} останавливает запуск: процессоры, которые еще не начали обработку, не запускаются.
+ * Уже начатые фазы (сканирование пакетов и обработка элементов одним процессором) не прерываются и
+ * дорабатывают до конца; отмена учитывается между ними.</p>
+ *
+ * <p>{@link #getProcessor(Class)} позволяет дождаться отдельного процессора, не дожидаясь остальных.</p>
+ */
+public final class BootstrapFuture extends CompletableFuture<BootstrapResult> {
+    private final Map<Class<?>, CompletableFuture<Void>> processors = new ConcurrentHashMap<>();
+    private volatile Set<Class<?>> discovered;
+    private volatile boolean finished;
+
+    BootstrapFuture() {
+    }
+
+    /**
+     * Возвращает задачу указанного процессора. Ее можно запросить до того, как процессоры найдены.
+     *
+     * <p>Задача завершается после того, как процессор обработал все свои элементы; исключением процессора, если он
+     * упал; отменяется, если запуск отменен или завершился ошибкой до того, как процессор был запущен. Если
+     * процессор не найден в пакетах, задача завершается {@link IllegalArgumentException}.</p>
+     *
+     * @param processorClass Класс процессора.
+     * @return Задача процессора; ее отмена не влияет на запуск.
+     */
+    @NotNull
+    public CompletableFuture<Void> getProcessor(@NotNull Class<?> processorClass) {
+        CompletableFuture<Void> future = processors.computeIfAbsent(processorClass, key -> new CompletableFuture<>());
+
+        @Nullable Set<Class<?>> processorClasses = discovered;
+        if (processorClasses != null && !processorClasses.contains(processorClass)) {
+            future.completeExceptionally(notFound(processorClass));
+        } else if (finished) {
+            future.cancel(false);
+        }
+
+        CompletableFuture<Void> copy = new CompletableFuture<>();
+        future.whenComplete((ignored, e) -> {
+            if (e == null) {
+                copy.complete(null);
+            } else if (e instanceof CancellationException) {
+                copy.cancel(false);
+            } else {
+                copy.completeExceptionally(e);
+            }
+        });
+
+        return copy;
+    }
+
+    /**
+     * Запоминает найденные процессоры; задачи запрошенных ранее неизвестных процессоров завершаются ошибкой.
+     */
+    void discovered(@NotNull Collection<Class<?>> processorClasses) {
+        discovered = Collections.unmodifiableSet(new HashSet<>(processorClasses));
+
+        processors.forEach((processorClass, future) -> {
+            if (!discovered.contains(processorClass)) {
+                future.completeExceptionally(notFound(processorClass));
+            }
+        });
+    }
+
+    /**
+     * Оборачивает задачу процессора: перед запуском проверяет отмену, а после завершения завершает задачу,
+     * возвращаемую {@link #getProcessor(Class)}.
+     */
+    @NotNull
+    Function<ProcessorDefinition, CompletableFuture<Void>> track(@NotNull Function<ProcessorDefinition, CompletableFuture<Void>> task) {
+        return definition -> {
+            checkCancelled();
+
+            CompletableFuture<Void> future = processors.computeIfAbsent(definition.getProcessorClass(), key -> new CompletableFuture<>());
+            CompletableFuture<Void> result;
+            try {
+                result = task.apply(definition);
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+                throw e;
+            }
+
+            return result.whenComplete((ignored, e) -> {
+                if (e == null) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                }
+            });
+        };
+    }
+
+    /**
+     * @throws CancellationException если запуск отменен.
+     */
+    void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Bootstrap was cancelled");
+        }
+    }
+
+    /**
+     * Отменяет задачи процессоров, которые так и не были запущены.
+     */
+    void finish() {
+        finished = true;
+        processors.values().forEach(future -> future.cancel(false));
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private static IllegalArgumentException notFound(@NotNull Class<?> processorClass) {
+        return new IllegalArgumentException("Annotation processor not found: " + processorClass.getName());
+    }
+}
@@ -0,0 +1,183 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.AnnotatedElementConsumer;
+import ru.cod331n.annotation.reflect.AnnotatedElementIndex;
+import ru.cod331n.annotation.starter.BootstrapSettings;
+import ru.cod331n.annotation.starter.metrics.BootstrapListener;
+import ru.cod331n.annotation.starter.metrics.BootstrapPhase;
+import ru.cod331n.annotation.starter.metrics.ProcessorMetrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Замеры одного запуска для {@link BootstrapListener}: время фаз и время обработки элементов каждым процессором.
+ *
+ * <p>Если получатель и порог медленных процессоров не заданы, замеры не выполняются и обработка элементов
+ * не оборачивается.</p>
+ */
+final class BootstrapInstrumentation {
+    private static final Logger LOGGER = Logger.getLogger(AnnotationBootstrapLogic.class.getName());
+
+    private final BootstrapListener listener;
+    private final Duration slowProcessorThreshold;
+    private final boolean enabled;
+    private final Map<ProcessorDefinition, Timings> timings = new ConcurrentHashMap<>();
+
+    BootstrapInstrumentation(final @NotNull BootstrapSettings settings) {
+        this.listener = settings.getListener();
+        this.slowProcessorThreshold = settings.getSlowProcessorThreshold();
+        this.enabled = listener != BootstrapListener.NONE || slowProcessorThreshold != null;
+    }
+
+    private BootstrapInstrumentation(final @NotNull BootstrapInstrumentation previous) {
+        this.listener = previous.listener;
+        this.slowProcessorThreshold = previous.slowProcessorThreshold;
+        this.enabled = previous.enabled;
+    }
+
+    /**
+     * @return Замеры следующего запуска с тем же получателем, например, для очередной пачки изменений.
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    BootstrapInstrumentation next() {
+        return new BootstrapInstrumentation(this);
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    BootstrapListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @return Отметка начала фазы для {@link #phaseCompleted(BootstrapPhase, long)}.
+     */
+    @Contract(pure = true)
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void phaseCompleted(@NotNull BootstrapPhase phase, long start) {
+        if (enabled) {
+            listener.phaseCompleted(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Оборачивает обработку элементов процессором замером времени каждого элемента.
+     */
+    @NotNull
+    @Contract(pure = true)
+    <E> Consumer<E> time(@NotNull ProcessorDefinition definition, @NotNull Consumer<E> action) {
+        if (!enabled) {
+            return action;
+        }
+
+        Timings processorTimings = timings.computeIfAbsent(definition, key -> new Timings());
+        return element -> {
+            long start = System.nanoTime();
+            try {
+                action.accept(element);
+            } finally {
+                processorTimings.record(System.nanoTime() - start, 1);
+            }
+        };
+    }
+
+    /**
+     * Оборачивает обработку элементов из {@link AnnotatedElementIndex#forEach} замером времени каждого элемента.
+     */
+    @NotNull
+    @Contract(pure = true)
+    AnnotatedElementConsumer time(@NotNull ProcessorDefinition definition, @NotNull AnnotatedElementConsumer action) {
+        if (!enabled) {
+            return action;
+        }
+
+        Timings processorTimings = timings.computeIfAbsent(definition, key -> new Timings());
+        return (clazz, element, annotation) -> {
+            long start = System.nanoTime();
+            try {
+                action.accept(clazz, element, annotation);
+            } finally {
+                processorTimings.record(System.nanoTime() - start, 1);
+            }
+        };
+    }
+
+    /**
+     * Оборачивает обработку частей элементов пакетным процессором замером времени каждой части; в итогах
+     * процессора учитываются все элементы части.
+     */
+    @NotNull
+    @Contract(pure = true)
+    <E> Consumer<List<E>> timeBatch(@NotNull ProcessorDefinition definition, @NotNull Consumer<List<E>> action) {
+        if (!enabled) {
+            return action;
+        }
+
+        Timings processorTimings = timings.computeIfAbsent(definition, key -> new Timings());
+        return elements -> {
+            long start = System.nanoTime();
+            try {
+                action.accept(elements);
+            } finally {
+                processorTimings.record(System.nanoTime() - start, elements.size());
+            }
+        };
+    }
+
+    /**
+     * Передает получателю итоги процессоров и предупреждает о процессорах, превысивших порог.
+     *
+     * @param processors Процессоры запуска в порядке последовательного запуска.
+     */
+    void completed(@NotNull Collection<ProcessorDefinition> processors) {
+        if (!enabled) {
+            return;
+        }
+
+        for (ProcessorDefinition definition : processors) {
+            @Nullable Timings processorTimings = timings.get(definition);
+            ProcessorMetrics metrics = processorTimings == null
+                    ? new ProcessorMetrics(definition.getProcessorClass(), definition.getAnnotation(), 0, 0, 0)
+                    : processorTimings.toMetrics(definition);
+
+            if (slowProcessorThreshold != null && metrics.getNanos() > slowProcessorThreshold.toNanos()) {
+                LOGGER.warning("Slow annotation processor (threshold " + slowProcessorThreshold.toMillis() + "ms): " + metrics);
+                listener.slowProcessor(metrics, slowProcessorThreshold);
+            }
+
+            listener.processorCompleted(metrics);
+        }
+    }
+
+    private static final class Timings {
+        private final LongAdder elements = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private void record(long elapsed, int count) {
+            elements.add(count);
+            nanos.add(elapsed);
+            maxNanos.accumulate(elapsed);
+        }
+
+        @NotNull
+        private ProcessorMetrics toMetrics(@NotNull ProcessorDefinition definition) {
+            return new ProcessorMetrics(definition.getProcessorClass(), definition.getAnnotation(), elements.sum(), nanos.sum(), maxNanos.get());
+        }
+    }
+}
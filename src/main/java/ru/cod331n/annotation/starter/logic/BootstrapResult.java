@@ -0,0 +1,70 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.AnnotationRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Итоги завершенного запуска обработки аннотаций.
+ */
+public final class BootstrapResult {
+    private final List<Class<?>> processorClasses;
+    private final int elementCount;
+    private final long nanos;
+    private final AnnotationRegistry registry;
+
+    BootstrapResult(final @NotNull List<Class<?>> processorClasses, int elementCount, long nanos, final @Nullable AnnotationRegistry registry) {
+        this.processorClasses = Collections.unmodifiableList(new ArrayList<>(processorClasses));
+        this.elementCount = elementCount;
+        this.nanos = nanos;
+        this.registry = registry;
+    }
+
+    /**
+     * @return Классы найденных процессоров в порядке запуска.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<Class<?>> getProcessorClasses() {
+        return processorClasses;
+    }
+
+    /**
+     * @return Количество найденных пар "аннотация - элемент", переданных процессорам.
+     */
+    @Contract(pure = true)
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * @return Время от начала поиска процессоров до завершения последнего из них, в наносекундах.
+     */
+    @Contract(pure = true)
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return Реестр аннотаций, либо {@code null}, если он не задан в
+     * {@link ru.cod331n.annotation.starter.BootstrapSettings.Builder#registry}.
+     */
+    @Nullable
+    @Contract(pure = true)
+    public AnnotationRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public String toString() {
+        return "BootstrapResult{processors=" + processorClasses.size()
+                + ", elements=" + elementCount
+                + ", time=" + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms}";
+    }
+}
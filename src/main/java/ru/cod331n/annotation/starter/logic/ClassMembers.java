@@ -0,0 +1,56 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Члены класса, запрашиваемые через рефлексию не более одного раза за проход сканирования.
+ */
+final class ClassMembers {
+    private final Class<?> clazz;
+
+    private Method[] methods;
+    private Field[] fields;
+    private Constructor<?>[] constructors;
+
+    ClassMembers(final @NotNull Class<?> clazz) {
+        this.clazz = clazz;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    Class<?> getDeclaringClass() {
+        return clazz;
+    }
+
+    @NotNull
+    Method[] getMethods() {
+        if (methods == null) {
+            methods = clazz.getDeclaredMethods();
+        }
+
+        return methods;
+    }
+
+    @NotNull
+    Field[] getFields() {
+        if (fields == null) {
+            fields = clazz.getDeclaredFields();
+        }
+
+        return fields;
+    }
+
+    @NotNull
+    Constructor<?>[] getConstructors() {
+        if (constructors == null) {
+            constructors = clazz.getDeclaredConstructors();
+        }
+
+        return constructors;
+    }
+}
@@ -3,47 +3,278 @@ package ru.cod331n.annotation.starter.logic;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.AnnotatedElementConsumer;
+import ru.cod331n.annotation.reflect.AnnotatedElementIndex;
+import ru.cod331n.annotation.reflect.AnnotationClosure;
+import ru.cod331n.annotation.reflect.ClassLoaderHelper;
 import ru.cod331n.annotation.reflect.JavaClassesReflection;
-import ru.cod331n.util.tuple.Pair;
+import ru.cod331n.annotation.starter.metrics.BootstrapListener;
 import ru.cod331n.util.validation.Preconditions;
 
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Target;
-import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.*;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
+/**
+ * Сопоставляет аннотации с типами элементов из их {@link Target} и собирает аннотированные элементы
+ * для всех переданных аннотаций за один проход: каждый класс и каждый его член посещается ровно один раз.
+ * Аннотации элементов сопоставляются по {@link JavaClassesReflection#getAnnotationClosure()}.
+ *
+ * <p>Если задан получатель событий, время обхода и количество найденных элементов по каждому {@link ElementType}
+ * передаются ему в {@link BootstrapListener#elementTypeScanned} после каждого прохода.</p>
+ */
 public class ElementTypeChecker {
-    private final Map<ElementType, Function<Class<? extends Annotation>, Collection<? extends Pair<Class<?>, ? extends AnnotatedElement>>>> elementHandlers;
+    /**
+     * Контексты, в которых применима аннотация без {@link Target}.
+     */
+    private static final ElementType[] DEFAULT_TARGETS = {
+            ElementType.TYPE, ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER,
+            ElementType.CONSTRUCTOR, ElementType.ANNOTATION_TYPE, ElementType.PACKAGE
+    };
 
-    protected ElementTypeChecker(final @NotNull JavaClassesReflection reflection) {
-        elementHandlers = new HashMap<>();
+    private final JavaClassesReflection reflection;
+    private final BootstrapListener listener;
+    private final AnnotationClosure closure;
+    private final Map<ElementType, ElementCollector> elementCollectors;
 
-        elementHandlers.put(ElementType.TYPE, ann -> reflection.getAnnotatedClasses(ann).stream().map(cls -> new Pair<Class<?>, AnnotatedElement>(cls, cls)).collect(Collectors.toList()));
-        elementHandlers.put(ElementType.FIELD, reflection::getAnnotatedFields);
-        elementHandlers.put(ElementType.METHOD, reflection::getAnnotatedMethods);
-        elementHandlers.put(ElementType.PACKAGE, ann -> reflection.getAnnotatedPackages(ann).stream().map(pkg -> new Pair<Class<?>, AnnotatedElement>(null, pkg)).collect(Collectors.toList()));
-        elementHandlers.put(ElementType.PARAMETER, reflection::getAnnotatedParameters);
-        elementHandlers.put(ElementType.CONSTRUCTOR, reflection::getAnnotatedConstructors);
-        elementHandlers.put(ElementType.TYPE_USE, reflection::getAnnotatedTypesUse);
-        elementHandlers.put(ElementType.TYPE_PARAMETER, reflection::getAnnotatedTypeParameters);
-        elementHandlers.put(ElementType.ANNOTATION_TYPE, reflection::getAnnotatedAnnotationTypes);
+    protected ElementTypeChecker(final @NotNull JavaClassesReflection reflection) {
+        this(reflection, BootstrapListener.NONE);
     }
 
+    protected ElementTypeChecker(final @NotNull JavaClassesReflection reflection, final @NotNull BootstrapListener listener) {
+        this.reflection = reflection;
+        this.listener = listener;
+        this.closure = reflection.getAnnotationClosure();
+        this.elementCollectors = new EnumMap<>(ElementType.class);
+
+        elementCollectors.put(ElementType.TYPE, (members, annotations, consumer) ->
+                collect(members.getDeclaringClass(), members.getDeclaringClass(), annotations, consumer));
+        elementCollectors.put(ElementType.FIELD, (members, annotations, consumer) ->
+                collect(members.getDeclaringClass(), members.getFields(), annotations, consumer));
+        elementCollectors.put(ElementType.METHOD, (members, annotations, consumer) ->
+                collect(members.getDeclaringClass(), members.getMethods(), annotations, consumer));
+        elementCollectors.put(ElementType.CONSTRUCTOR, (members, annotations, consumer) ->
+                collect(members.getDeclaringClass(), members.getConstructors(), annotations, consumer));
+        elementCollectors.put(ElementType.PARAMETER, (members, annotations, consumer) -> {
+            for (Method method : members.getMethods()) {
+                collect(members.getDeclaringClass(), method.getParameters(), annotations, consumer);
+            }
+
+            for (Constructor<?> constructor : members.getConstructors()) {
+                collect(members.getDeclaringClass(), constructor.getParameters(), annotations, consumer);
+            }
+        });
+        elementCollectors.put(ElementType.TYPE_USE, (members, annotations, consumer) -> {
+            Class<?> clazz = members.getDeclaringClass();
+            AnnotatedType annotatedSuperclass = clazz.getAnnotatedSuperclass();
+
+            Preconditions.check(annotatedSuperclass != null, () -> collect(clazz, annotatedSuperclass, annotations, consumer));
+
+            for (Field field : members.getFields()) {
+                collect(clazz, field.getAnnotatedType(), annotations, consumer);
+            }
+
+            for (Method method : members.getMethods()) {
+                collect(clazz, method.getAnnotatedReturnType(), annotations, consumer);
+            }
+
+            for (Constructor<?> constructor : members.getConstructors()) {
+                collect(clazz, constructor.getAnnotatedParameterTypes(), annotations, consumer);
+            }
+        });
+        elementCollectors.put(ElementType.TYPE_PARAMETER, (members, annotations, consumer) -> {
+            Class<?> clazz = members.getDeclaringClass();
+            collect(clazz, clazz.getTypeParameters(), annotations, consumer);
+
+            for (Method method : members.getMethods()) {
+                collect(clazz, method.getTypeParameters(), annotations, consumer);
+            }
+
+            for (Constructor<?> constructor : members.getConstructors()) {
+                collect(clazz, constructor.getTypeParameters(), annotations, consumer);
+            }
+        });
+        elementCollectors.put(ElementType.ANNOTATION_TYPE, (members, annotations, consumer) -> {
+            Class<?> clazz = members.getDeclaringClass();
+            Preconditions.check(clazz.isAnnotation(), () -> collect(clazz, clazz, annotations, consumer));
+        });
+    }
 
+    /**
+     * Собирает элементы, помеченные любой из переданных аннотаций, в индекс.
+     *
+     * @param annotations Типы аннотаций, которые обрабатывают процессоры.
+     * @return Индекс "аннотация - элементы".
+     */
     @NotNull
     @Contract(pure = true)
-    protected Collection<Pair<Class<?>, ? extends AnnotatedElement>> check(@NotNull Class<? extends Annotation> annotation) {
-        Collection<Pair<Class<?>, ? extends AnnotatedElement>> collection = new LinkedList<>();
+    protected AnnotatedElementIndex check(@NotNull Collection<Class<? extends Annotation>> annotations) {
+        AnnotatedElementIndex index = new AnnotatedElementIndex();
+        check(annotations, index);
+
+        return index;
+    }
 
-        Arrays.stream(annotation.getAnnotation(Target.class).value()).forEach(elementType -> {
-            @Nullable Function<Class<? extends Annotation>, Collection<? extends Pair<Class<?>, ? extends AnnotatedElement>>> handler = elementHandlers.get(elementType);
+    /**
+     * Обходит классы пакета один раз и передает каждый найденный элемент получателю.
+     *
+     * @param annotations Типы аннотаций, которые обрабатывают процессоры.
+     * @param consumer    Получатель найденных элементов.
+     */
+    protected void check(@NotNull Collection<Class<? extends Annotation>> annotations, @NotNull AnnotatedElementConsumer consumer) {
+        Map<ElementType, Set<Class<? extends Annotation>>> targets = groupByElementType(annotations, reflection.getAnnotationClosure());
 
-            Preconditions.check(handler != null, () -> collection.addAll(handler.apply(annotation)));
+        @Nullable Set<Class<? extends Annotation>> packageAnnotations = targets.remove(ElementType.PACKAGE);
+        Preconditions.check(packageAnnotations != null, () -> {
+            long start = System.nanoTime();
+            int[] matched = new int[1];
+            Collection<Package> packages = reflection.getCandidatePackages(packageAnnotations);
+
+            for (Package pkg : packages) {
+                collect(null, pkg, packageAnnotations, (clazz, element, annotation) -> {
+                    matched[0]++;
+                    consumer.accept(clazz, element, annotation);
+                });
+            }
+
+            listener.elementTypeScanned(ElementType.PACKAGE, packages.size(), matched[0], System.nanoTime() - start);
         });
 
-        return collection;
+        targets.keySet().retainAll(elementCollectors.keySet());
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        Set<Class<? extends Annotation>> classAnnotations = new HashSet<>();
+        targets.values().forEach(classAnnotations::addAll);
+
+        check(reflection.getCandidateClasses(classAnnotations), targets, consumer);
+    }
+
+    /**
+     * Собирает элементы только указанных классов, не обходя пакет. Аннотации пакетов при этом не проверяются.
+     *
+     * @param classes     Проверяемые классы, например, измененные в режиме отслеживания изменений.
+     * @param annotations Типы аннотаций, которые обрабатывают процессоры.
+     * @return Индекс "аннотация - элементы".
+     */
+    @NotNull
+    @Contract(pure = true)
+    protected AnnotatedElementIndex check(@NotNull Collection<Class<?>> classes, @NotNull Collection<Class<? extends Annotation>> annotations) {
+        Map<ElementType, Set<Class<? extends Annotation>>> targets = groupByElementType(annotations, reflection.getAnnotationClosure());
+        targets.keySet().retainAll(elementCollectors.keySet());
+
+        AnnotatedElementIndex index = new AnnotatedElementIndex();
+        check(classes, targets, index);
+
+        return index;
+    }
+
+    private void check(
+            @NotNull Collection<Class<?>> candidates,
+            @NotNull Map<ElementType, Set<Class<? extends Annotation>>> targets,
+            @NotNull AnnotatedElementConsumer consumer
+    ) {
+        // аннотации package-info относятся к пакету и собираются по ElementType.PACKAGE
+        List<Class<?>> classes = new ArrayList<>(candidates.size());
+        candidates.forEach(clazz -> Preconditions.check(!ClassLoaderHelper.isPackageInfo(clazz.getName()), () -> classes.add(clazz)));
+
+        if (listener == BootstrapListener.NONE) {
+            for (Class<?> clazz : classes) {
+                ClassMembers members = new ClassMembers(clazz);
+                targets.forEach((elementType, elementAnnotations) ->
+                        elementCollectors.get(elementType).collect(members, elementAnnotations, consumer));
+            }
+
+            return;
+        }
+
+        // [время в наносекундах, найдено элементов] по типам элементов
+        Map<ElementType, long[]> statistics = new EnumMap<>(ElementType.class);
+        targets.keySet().forEach(elementType -> statistics.put(elementType, new long[2]));
+
+        for (Class<?> clazz : classes) {
+            ClassMembers members = new ClassMembers(clazz);
+            targets.forEach((elementType, elementAnnotations) -> {
+                long[] elementTypeStatistics = statistics.get(elementType);
+                long start = System.nanoTime();
+
+                elementCollectors.get(elementType).collect(members, elementAnnotations, (declaringClass, element, annotation) -> {
+                    elementTypeStatistics[1]++;
+                    consumer.accept(declaringClass, element, annotation);
+                });
+
+                elementTypeStatistics[0] += System.nanoTime() - start;
+            });
+        }
+
+        statistics.forEach((elementType, elementTypeStatistics) ->
+                listener.elementTypeScanned(elementType, classes.size(), (int) elementTypeStatistics[1], elementTypeStatistics[0]));
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private static Map<ElementType, Set<Class<? extends Annotation>>> groupByElementType(
+            @NotNull Collection<Class<? extends Annotation>> annotations,
+            @NotNull AnnotationClosure closure
+    ) {
+        Map<ElementType, Set<Class<? extends Annotation>>> targets = new EnumMap<>(ElementType.class);
+
+        for (Class<? extends Annotation> annotation : annotations) {
+            @Nullable Target target = annotation.getAnnotation(Target.class);
+
+            Set<ElementType> elementTypes = EnumSet.noneOf(ElementType.class);
+            Preconditions.check(target != null, () -> elementTypes.addAll(Arrays.asList(target.value())));
+
+            // составная аннотация может быть применима там, где неприменима искомая; собственные контексты искомой,
+            // например TYPE_USE, при этом остаются
+            if (target == null || closure.isMetaAnnotations()) {
+                elementTypes.addAll(Arrays.asList(DEFAULT_TARGETS));
+            }
+
+            for (ElementType elementType : elementTypes) {
+                // TYPE включает типы аннотаций, и они не должны найтись дважды
+                if (elementType != ElementType.ANNOTATION_TYPE || !elementTypes.contains(ElementType.TYPE)) {
+                    targets.computeIfAbsent(elementType, key -> new HashSet<>()).add(annotation);
+                }
+            }
+        }
+
+        return targets;
+    }
+
+    private void collect(
+            @Nullable Class<?> clazz,
+            @NotNull AnnotatedElement[] elements,
+            @NotNull Set<Class<? extends Annotation>> annotations,
+            @NotNull AnnotatedElementConsumer consumer
+    ) {
+        for (AnnotatedElement element : elements) {
+            collect(clazz, element, annotations, consumer);
+        }
+    }
+
+    private void collect(
+            @Nullable Class<?> clazz,
+            @NotNull AnnotatedElement element,
+            @NotNull Set<Class<? extends Annotation>> annotations,
+            @NotNull AnnotatedElementConsumer consumer
+    ) {
+        for (Annotation annotation : closure.getAnnotations(element)) {
+            Preconditions.check(
+                    annotations.contains(annotation.annotationType()),
+                    () -> consumer.accept(clazz, element, annotation)
+            );
+        }
+    }
+
+    /**
+     * Сборщик элементов одного {@link ElementType} из членов класса.
+     */
+    @FunctionalInterface
+    private interface ElementCollector {
+        void collect(@NotNull ClassMembers members, @NotNull Set<Class<? extends Annotation>> annotations, @NotNull AnnotatedElementConsumer consumer);
     }
 }
@@ -0,0 +1,95 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.AnnotationProcessor;
+import ru.cod331n.annotation.processor.AbstractBatchAnnotationProcessor;
+import ru.cod331n.annotation.processor.AbstractDescriptorAnnotationProcessor;
+import ru.cod331n.annotation.processor.BaseAnnotationProcessor;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Найденный процессор аннотаций вместе с типом аннотации, которую он обрабатывает.
+ */
+final class ProcessorDefinition {
+    private final Class<?> processorClass;
+    private final BaseAnnotationProcessor<? extends Annotation> processor;
+    private final Class<? extends Annotation> annotation;
+    private final int order;
+    private final List<Class<?>> dependencies;
+    private final boolean concurrent;
+
+    /**
+     * @param attributes Атрибуты процессора, например, из составной или унаследованной аннотации, либо {@code null}
+     *                   для значений по умолчанию.
+     */
+    ProcessorDefinition(
+            final @NotNull Class<?> processorClass,
+            final @NotNull BaseAnnotationProcessor<? extends Annotation> processor,
+            final @NotNull Class<? extends Annotation> annotation,
+            final @Nullable AnnotationProcessor attributes
+    ) {
+        this.processorClass = processorClass;
+        this.processor = processor;
+        this.annotation = annotation;
+
+        this.order = attributes == null ? 0 : attributes.order();
+        this.dependencies = attributes == null ? Collections.emptyList() : Arrays.asList(attributes.dependsOn());
+        this.concurrent = attributes != null && attributes.concurrent();
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    Class<?> getProcessorClass() {
+        return processorClass;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    BaseAnnotationProcessor<? extends Annotation> getProcessor() {
+        return processor;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    Class<? extends Annotation> getAnnotation() {
+        return annotation;
+    }
+
+    @Contract(pure = true)
+    int getOrder() {
+        return order;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    List<Class<?>> getDependencies() {
+        return dependencies;
+    }
+
+    @Contract(pure = true)
+    boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * @return {@code true}, если процессор получает описания элементов из байткода, а не объекты рефлексии.
+     */
+    @Contract(pure = true)
+    boolean isDescriptor() {
+        return processor instanceof AbstractDescriptorAnnotationProcessor;
+    }
+
+    /**
+     * @return {@code true}, если процессор получает все элементы одним вызовом или частями.
+     */
+    @Contract(pure = true)
+    boolean isBatch() {
+        return processor instanceof AbstractBatchAnnotationProcessor;
+    }
+}
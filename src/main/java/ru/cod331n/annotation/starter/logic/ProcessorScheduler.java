@@ -0,0 +1,154 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.util.concurrent.ParallelCollections;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Планировщик запуска процессоров с учетом {@link ru.cod331n.annotation.AnnotationProcessor#order()} и
+ * {@link ru.cod331n.annotation.AnnotationProcessor#dependsOn()}.
+ *
+ * <p>Процессор запускается после завершения всех процессоров с меньшим порядком и всех своих зависимостей.
+ * Без исполнителя процессоры вызываются последовательно в порядке, удовлетворяющем этим условиям; с исполнителем
+ * независимые процессоры выполняются параллельно.</p>
+ */
+final class ProcessorScheduler {
+    private final List<ProcessorDefinition> processors;
+
+    ProcessorScheduler(final @NotNull Collection<ProcessorDefinition> processors) {
+        this.processors = sort(processors);
+    }
+
+    /**
+     * @return Процессоры в порядке последовательного запуска.
+     */
+    @NotNull
+    @Contract(pure = true)
+    List<ProcessorDefinition> getProcessors() {
+        return processors;
+    }
+
+    /**
+     * Возвращает процессоры, которые могут начать работу сразу: с наименьшим порядком и без зависимостей.
+     *
+     * @return Процессоры первой стадии в порядке последовательного запуска.
+     */
+    @NotNull
+    @Contract(pure = true)
+    List<ProcessorDefinition> getFirstStage() {
+        List<ProcessorDefinition> stage = new ArrayList<>();
+
+        for (ProcessorDefinition definition : processors) {
+            if (definition.getOrder() == processors.get(0).getOrder() && definition.getDependencies().isEmpty()) {
+                stage.add(definition);
+            }
+        }
+
+        return stage;
+    }
+
+    /**
+     * Запускает задачи всех процессоров и ожидает их завершения.
+     *
+     * @param task     Задача процессора; возвращает задачу, завершающуюся после обработки всех его элементов.
+     * @param executor Исполнитель, либо {@code null} для последовательного запуска в вызывающем потоке.
+     */
+    void run(@NotNull Function<ProcessorDefinition, CompletableFuture<Void>> task, @Nullable Executor executor) {
+        if (executor == null) {
+            processors.forEach(definition -> ParallelCollections.join(task.apply(definition)));
+            return;
+        }
+
+        Map<Class<?>, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> previousOrders = new ArrayList<>();
+        List<CompletableFuture<Void>> currentOrder = new ArrayList<>();
+        int order = processors.isEmpty() ? 0 : processors.get(0).getOrder();
+
+        for (ProcessorDefinition definition : processors) {
+            if (definition.getOrder() != order) {
+                previousOrders.addAll(currentOrder);
+                currentOrder.clear();
+                order = definition.getOrder();
+            }
+
+            List<CompletableFuture<Void>> prerequisites = new ArrayList<>(previousOrders);
+            definition.getDependencies().forEach(dependency -> prerequisites.add(futures.get(dependency)));
+
+            CompletableFuture<Void> future = CompletableFuture.allOf(prerequisites.toArray(new CompletableFuture<?>[0]))
+                    .thenComposeAsync(ignored -> task.apply(definition), executor);
+
+            futures.put(definition.getProcessorClass(), future);
+            currentOrder.add(future);
+        }
+
+        futures.values().forEach(future -> ParallelCollections.join(future.exceptionally(e -> null)));
+        futures.values().forEach(ParallelCollections::join);
+    }
+
+    /**
+     * Упорядочивает процессоры топологически: по порядку, затем по зависимостям, затем в порядке обнаружения.
+     */
+    @NotNull
+    private static List<ProcessorDefinition> sort(@NotNull Collection<ProcessorDefinition> processors) {
+        Map<Class<?>, ProcessorDefinition> byClass = new LinkedHashMap<>();
+        processors.forEach(definition -> byClass.put(definition.getProcessorClass(), definition));
+
+        for (ProcessorDefinition definition : processors) {
+            for (Class<?> dependency : definition.getDependencies()) {
+                @Nullable ProcessorDefinition required = byClass.get(dependency);
+
+                Preconditions.checkAndThrow(
+                        required == null,
+                        () -> new IllegalArgumentException("Processor " + definition.getProcessorClass().getName()
+                                + " depends on " + dependency.getName() + ", which was not found")
+                );
+                Preconditions.checkAndThrow(
+                        required.getOrder() > definition.getOrder(),
+                        () -> new IllegalArgumentException("Processor " + definition.getProcessorClass().getName()
+                                + " depends on " + dependency.getName() + ", which has a greater order")
+                );
+            }
+        }
+
+        List<ProcessorDefinition> ordered = new ArrayList<>(processors);
+        ordered.sort(Comparator.comparingInt(ProcessorDefinition::getOrder));
+
+        List<ProcessorDefinition> sorted = new ArrayList<>(ordered.size());
+        Set<Class<?>> visited = new HashSet<>();
+        Set<Class<?>> visiting = new LinkedHashSet<>();
+        ordered.forEach(definition -> visit(definition, byClass, visited, visiting, sorted));
+
+        return sorted;
+    }
+
+    private static void visit(
+            @NotNull ProcessorDefinition definition,
+            @NotNull Map<Class<?>, ProcessorDefinition> byClass,
+            @NotNull Set<Class<?>> visited,
+            @NotNull Set<Class<?>> visiting,
+            @NotNull List<ProcessorDefinition> sorted
+    ) {
+        Class<?> processorClass = definition.getProcessorClass();
+        if (visited.contains(processorClass)) {
+            return;
+        }
+
+        Preconditions.checkAndThrow(
+                !visiting.add(processorClass),
+                () -> new IllegalStateException("Cyclic processor dependency: " + visiting)
+        );
+
+        definition.getDependencies().forEach(dependency -> visit(byClass.get(dependency), byClass, visited, visiting, sorted));
+
+        visiting.remove(processorClass);
+        visited.add(processorClass);
+        sorted.add(definition);
+    }
+}
@@ -0,0 +1,169 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.AnnotatedElementConsumer;
+import ru.cod331n.annotation.reflect.AnnotatedElementIndex;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Передает элементы процессорам по мере их обнаружения: сканер работает в отдельном потоке и кладет элементы
+ * в ограниченную очередь, а вызывающий поток забирает их и вызывает процессоры. При заполненной очереди сканер
+ * ожидает, поэтому одновременно в памяти находится не больше размера буфера элементов.
+ *
+ * <p>Потоково обрабатываются только переданные процессоры; элементы остальных собираются в индекс, который
+ * возвращается после завершения сканирования.</p>
+ */
+final class StreamingDispatcher {
+    private static final StreamedElement END = new StreamedElement(null, null, null, null);
+
+    private final Map<Class<? extends Annotation>, List<ProcessorDefinition>> streamed = new HashMap<>();
+    private final Map<ProcessorDefinition, Consumer<StreamedElement>> actions = new HashMap<>();
+    private final Set<Class<? extends Annotation>> deferred = new HashSet<>();
+    private final BlockingQueue<StreamedElement> queue;
+    private int elementCount;
+
+    StreamingDispatcher(
+            final @NotNull Collection<ProcessorDefinition> streamedProcessors,
+            final @NotNull Collection<ProcessorDefinition> processors,
+            int bufferSize,
+            final @NotNull BootstrapInstrumentation instrumentation
+    ) {
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+
+        streamedProcessors.forEach(definition -> {
+            streamed.computeIfAbsent(definition.getAnnotation(), key -> new ArrayList<>()).add(definition);
+            actions.put(definition, instrumentation.time(definition, StreamedElement::process));
+        });
+        processors.stream()
+                .filter(definition -> !streamedProcessors.contains(definition))
+                .forEach(definition -> deferred.add(definition.getAnnotation()));
+    }
+
+    /**
+     * Запускает сканирование и обрабатывает элементы потоковых процессоров до его завершения.
+     *
+     * @param scan Сканирование, передающее найденные элементы получателю.
+     * @return Индекс элементов остальных процессоров.
+     */
+    @NotNull
+    AnnotatedElementIndex run(@NotNull Consumer<AnnotatedElementConsumer> scan) {
+        AnnotatedElementIndex index = new AnnotatedElementIndex();
+        Throwable[] scanFailure = new Throwable[1];
+
+        Thread scanner = new Thread(() -> {
+            try {
+                scan.accept((clazz, element, annotation) -> accept(clazz, element, annotation, index));
+            } catch (Throwable e) {
+                scanFailure[0] = e;
+            } finally {
+                putEnd();
+            }
+        }, "annotation-scanner");
+        scanner.setDaemon(true);
+        scanner.start();
+
+        try {
+            for (StreamedElement element = take(); element != END; element = take()) {
+                actions.get(element.definition).accept(element);
+            }
+        } catch (RuntimeException | Error e) {
+            scanner.interrupt();
+            throw e;
+        }
+
+        join(scanner);
+        if (scanFailure[0] instanceof RuntimeException) {
+            throw (RuntimeException) scanFailure[0];
+        } else if (scanFailure[0] instanceof Error) {
+            throw (Error) scanFailure[0];
+        }
+
+        return index;
+    }
+
+    /**
+     * @return Количество найденных пар "аннотация - элемент", переданных потоково или собранных в индекс; доступно
+     * после {@link #run(Consumer)}.
+     */
+    @Contract(pure = true)
+    int getElementCount() {
+        return elementCount;
+    }
+
+    private void accept(@Nullable Class<?> clazz, @NotNull AnnotatedElement element, @NotNull Annotation annotation, @NotNull AnnotatedElementIndex index) {
+        elementCount++;
+
+        for (ProcessorDefinition definition : streamed.getOrDefault(annotation.annotationType(), Collections.emptyList())) {
+            try {
+                queue.put(new StreamedElement(definition, clazz, element, annotation));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Streaming was cancelled", e);
+            }
+        }
+
+        if (deferred.contains(annotation.annotationType())) {
+            index.accept(clazz, element, annotation);
+        }
+    }
+
+    private void putEnd() {
+        // после отмены читателя нет, и маркер конца не нужен
+        if (!Thread.currentThread().isInterrupted()) {
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @NotNull
+    private StreamedElement take() {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Streaming was interrupted", e);
+        }
+    }
+
+    private static void join(@NotNull Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Streaming was interrupted", e);
+        }
+    }
+
+    private static final class StreamedElement {
+        private final ProcessorDefinition definition;
+        private final Class<?> clazz;
+        private final AnnotatedElement element;
+        private final Annotation annotation;
+
+        private StreamedElement(ProcessorDefinition definition, Class<?> clazz, AnnotatedElement element, Annotation annotation) {
+            this.definition = definition;
+            this.clazz = clazz;
+            this.element = element;
+            this.annotation = annotation;
+        }
+
+        private void process() {
+            try {
+                AnnotationBootstrapLogic.process(definition, clazz, element, annotation);
+            } catch (Exception e) {
+                throw AnnotationBootstrapLogic.processingFailure(definition, e);
+            }
+        }
+    }
+}
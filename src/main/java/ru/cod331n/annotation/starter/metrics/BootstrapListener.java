@@ -0,0 +1,123 @@
+package ru.cod331n.annotation.starter.metrics;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.annotation.reflect.ScanListener;
+
+import java.lang.annotation.ElementType;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Получатель событий запуска обработки аннотаций: помимо событий сканирования ({@link ScanListener}) получает
+ * время фаз, время обхода рефлексией по {@link ElementType} и итоги каждого процессора.
+ *
+ * <p>Задается через {@link ru.cod331n.annotation.starter.BootstrapSettings.Builder#listener(BootstrapListener)}.
+ * События сканирования могут приходить из разных потоков одновременно. Все методы по умолчанию ничего не делают.</p>
+ *
+ * @see BootstrapMetrics
+ */
+public interface BootstrapListener extends ScanListener {
+    BootstrapListener NONE = new BootstrapListener() {
+    };
+
+    /**
+     * Вызывается после завершения фазы.
+     *
+     * @param phase Фаза.
+     * @param nanos Длительность фазы в наносекундах.
+     */
+    default void phaseCompleted(@NotNull BootstrapPhase phase, long nanos) {
+    }
+
+    /**
+     * Вызывается после обхода классов рефлексией для одного типа элементов.
+     *
+     * @param elementType Тип элементов.
+     * @param classes     Количество обойденных классов; для {@link ElementType#PACKAGE} - пакетов.
+     * @param matched     Количество найденных аннотированных элементов.
+     * @param nanos       Суммарное время обхода в наносекундах.
+     */
+    default void elementTypeScanned(@NotNull ElementType elementType, int classes, int matched, long nanos) {
+    }
+
+    /**
+     * Вызывается после того, как процессор обработал все свои элементы.
+     */
+    default void processorCompleted(@NotNull ProcessorMetrics metrics) {
+    }
+
+    /**
+     * Вызывается перед {@link #processorCompleted}, если процессор обрабатывал элементы дольше порога
+     * {@link ru.cod331n.annotation.starter.BootstrapSettings.Builder#slowProcessorThreshold(Duration)}.
+     */
+    default void slowProcessor(@NotNull ProcessorMetrics metrics, @NotNull Duration threshold) {
+    }
+
+    /**
+     * @return Получатель, передающий каждое событие всем указанным получателям по порядку.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static BootstrapListener of(@NotNull BootstrapListener... listeners) {
+        List<BootstrapListener> delegates = Arrays.asList(listeners.clone());
+
+        return new BootstrapListener() {
+            @Override
+            public void classFilesListed(@NotNull String packageName, @NotNull URL root, int count, long nanos) {
+                delegates.forEach(listener -> listener.classFilesListed(packageName, root, count, nanos));
+            }
+
+            @Override
+            public void classFileRead(@NotNull String className, int bytes) {
+                delegates.forEach(listener -> listener.classFileRead(className, bytes));
+            }
+
+            @Override
+            public void classLoaded(@NotNull String className, long nanos) {
+                delegates.forEach(listener -> listener.classLoaded(className, nanos));
+            }
+
+            @Override
+            public void phaseCompleted(@NotNull BootstrapPhase phase, long nanos) {
+                delegates.forEach(listener -> listener.phaseCompleted(phase, nanos));
+            }
+
+            @Override
+            public void elementTypeScanned(@NotNull ElementType elementType, int classes, int matched, long nanos) {
+                delegates.forEach(listener -> listener.elementTypeScanned(elementType, classes, matched, nanos));
+            }
+
+            @Override
+            public void processorCompleted(@NotNull ProcessorMetrics metrics) {
+                delegates.forEach(listener -> listener.processorCompleted(metrics));
+            }
+
+            @Override
+            public void slowProcessor(@NotNull ProcessorMetrics metrics, @NotNull Duration threshold) {
+                delegates.forEach(listener -> listener.slowProcessor(metrics, threshold));
+            }
+        };
+    }
+
+    /**
+     * Возвращает получатель, записывающий события в Java Flight Recorder. Записываются фазы, сканирование корней,
+     * обход по типам элементов и итоги процессоров; события включаются и настраиваются в конфигурации записи
+     * по имени {@code ru.cod331n.annotation.*}.
+     *
+     * @return Получатель событий JFR, либо {@link #NONE}, если текущая JVM не поддерживает {@code jdk.jfr}.
+     */
+    @NotNull
+    static BootstrapListener jfr() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (BootstrapListener) Class.forName("ru.cod331n.annotation.starter.metrics.jfr.JfrBootstrapListener")
+                    .getConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return NONE;
+        }
+    }
+}
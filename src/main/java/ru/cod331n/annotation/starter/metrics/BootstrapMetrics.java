@@ -0,0 +1,174 @@
+package ru.cod331n.annotation.starter.metrics;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.annotation.ElementType;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Получатель, накапливающий счетчики и время запуска обработки аннотаций.
+ *
+ * <p>Собирает количество перечисленных, прочитанных и загруженных классов, объем прочитанного байткода, время
+ * фаз, время обхода рефлексией по {@link ElementType} и итоги процессоров. Один экземпляр можно использовать
+ * для нескольких запусков, например, в режиме отслеживания изменений: значения суммируются. Безопасен для
+ * использования из нескольких потоков.</p>
+ *
+ * <pre>{@code
+ * BootstrapMetrics metrics = new BootstrapMetrics();
+ * AnnotationProcessBootstrap.run("ru.cod331n", null, BootstrapSettings.builder().listener(metrics).build());
+ * System.out.println(metrics);
+ * }</pre>
+ */
+public final class BootstrapMetrics implements BootstrapListener {
+    private final LongAdder classesScanned = new LongAdder();
+    private final LongAdder classFilesRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder classesLoaded = new LongAdder();
+    private final LongAdder classLoadingNanos = new LongAdder();
+
+    private final Map<BootstrapPhase, Long> phaseNanos = new EnumMap<>(BootstrapPhase.class);
+    private final Map<ElementType, Long> elementTypeNanos = new EnumMap<>(ElementType.class);
+    private final Map<ElementType, Long> elementTypeMatches = new EnumMap<>(ElementType.class);
+    private final Map<Class<?>, ProcessorMetrics> processors = new LinkedHashMap<>();
+    private final List<ProcessorMetrics> slowProcessors = new ArrayList<>();
+
+    @Override
+    public void classFilesListed(@NotNull String packageName, @NotNull URL root, int count, long nanos) {
+        classesScanned.add(count);
+    }
+
+    @Override
+    public void classFileRead(@NotNull String className, int bytes) {
+        classFilesRead.increment();
+        bytesRead.add(bytes);
+    }
+
+    @Override
+    public void classLoaded(@NotNull String className, long nanos) {
+        classesLoaded.increment();
+        classLoadingNanos.add(nanos);
+    }
+
+    @Override
+    public synchronized void phaseCompleted(@NotNull BootstrapPhase phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    @Override
+    public synchronized void elementTypeScanned(@NotNull ElementType elementType, int classes, int matched, long nanos) {
+        elementTypeNanos.merge(elementType, nanos, Long::sum);
+        elementTypeMatches.merge(elementType, (long) matched, Long::sum);
+    }
+
+    @Override
+    public synchronized void processorCompleted(@NotNull ProcessorMetrics metrics) {
+        processors.merge(metrics.getProcessorClass(), metrics, ProcessorMetrics::plus);
+    }
+
+    @Override
+    public synchronized void slowProcessor(@NotNull ProcessorMetrics metrics, @NotNull Duration threshold) {
+        slowProcessors.add(metrics);
+    }
+
+    /**
+     * @return Количество class-файлов, найденных при перечислении корней пакетов. Корни с индексом аннотаций
+     * не перечисляются и не учитываются.
+     */
+    @Contract(pure = true)
+    public long getClassesScanned() {
+        return classesScanned.sum();
+    }
+
+    /**
+     * @return Количество class-файлов, байткод которых был прочитан без загрузки класса.
+     */
+    @Contract(pure = true)
+    public long getClassFilesRead() {
+        return classFilesRead.sum();
+    }
+
+    @Contract(pure = true)
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Contract(pure = true)
+    public long getClassesLoaded() {
+        return classesLoaded.sum();
+    }
+
+    /**
+     * @return Суммарное время загрузки классов в наносекундах; при параллельной загрузке суммируется по потокам.
+     */
+    @Contract(pure = true)
+    public long getClassLoadingNanos() {
+        return classLoadingNanos.sum();
+    }
+
+    @Contract(pure = true)
+    public synchronized long getPhaseNanos(@NotNull BootstrapPhase phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    @Contract(pure = true)
+    public synchronized long getElementTypeNanos(@NotNull ElementType elementType) {
+        return elementTypeNanos.getOrDefault(elementType, 0L);
+    }
+
+    /**
+     * @return Количество найденных аннотированных элементов указанного типа.
+     */
+    @Contract(pure = true)
+    public synchronized long getElementTypeMatches(@NotNull ElementType elementType) {
+        return elementTypeMatches.getOrDefault(elementType, 0L);
+    }
+
+    /**
+     * @return Итоги процессоров в порядке их завершения.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public synchronized List<ProcessorMetrics> getProcessors() {
+        return Collections.unmodifiableList(new ArrayList<>(processors.values()));
+    }
+
+    /**
+     * @return Итоги процессоров, превысивших порог медленной обработки.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public synchronized List<ProcessorMetrics> getSlowProcessors() {
+        return Collections.unmodifiableList(new ArrayList<>(slowProcessors));
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("BootstrapMetrics{");
+
+        phaseNanos.forEach((phase, nanos) -> builder.append(phase.name().toLowerCase()).append('=')
+                .append(TimeUnit.NANOSECONDS.toMillis(nanos)).append("ms, "));
+
+        builder.append("classesScanned=").append(getClassesScanned())
+                .append(", classFilesRead=").append(getClassFilesRead())
+                .append(", bytesRead=").append(getBytesRead())
+                .append(", classesLoaded=").append(getClassesLoaded())
+                .append(", classLoading=").append(TimeUnit.NANOSECONDS.toMillis(getClassLoadingNanos())).append("ms")
+                .append(", reflection=").append(elementTypeNanos.keySet().stream()
+                        .map(type -> type + ":" + TimeUnit.NANOSECONDS.toMillis(elementTypeNanos.get(type)) + "ms/" + elementTypeMatches.get(type))
+                        .collect(Collectors.joining(", ", "[", "]")))
+                .append(", processors=").append(processors.values());
+
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,21 @@
+package ru.cod331n.annotation.starter.metrics;
+
+/**
+ * Фазы запуска обработки аннотаций.
+ */
+public enum BootstrapPhase {
+    /**
+     * Поиск процессоров: сканирование пакетов на {@link ru.cod331n.annotation.AnnotationProcessor}
+     * и создание экземпляров процессоров.
+     */
+    DISCOVERY,
+    /**
+     * Поиск аннотированных элементов: перечисление и отбор классов, их загрузка и обход рефлексией.
+     * В потоковом режиме включает обработку элементов процессорами первой стадии.
+     */
+    SCAN,
+    /**
+     * Передача найденных элементов процессорам.
+     */
+    DISPATCH
+}
@@ -0,0 +1,91 @@
+package ru.cod331n.annotation.starter.metrics;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.annotation.Annotation;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Итог работы одного процессора за запуск: количество обработанных элементов и время, проведенное в его
+ * {@code process}. Для процессоров, обрабатывающих элементы параллельно, время суммируется по всем потокам.
+ */
+public final class ProcessorMetrics {
+    private final Class<?> processorClass;
+    private final Class<? extends Annotation> annotation;
+    private final long elements;
+    private final long nanos;
+    private final long maxElementNanos;
+
+    public ProcessorMetrics(
+            final @NotNull Class<?> processorClass,
+            final @NotNull Class<? extends Annotation> annotation,
+            long elements,
+            long nanos,
+            long maxElementNanos
+    ) {
+        this.processorClass = processorClass;
+        this.annotation = annotation;
+        this.elements = elements;
+        this.nanos = nanos;
+        this.maxElementNanos = maxElementNanos;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public Class<?> getProcessorClass() {
+        return processorClass;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    public Class<? extends Annotation> getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * @return Количество элементов, переданных процессору.
+     */
+    @Contract(pure = true)
+    public long getElements() {
+        return elements;
+    }
+
+    /**
+     * @return Суммарное время обработки в наносекундах.
+     */
+    @Contract(pure = true)
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return Наибольшее время обработки одного элемента в наносекундах; для пакетного процессора - одного вызова.
+     */
+    @Contract(pure = true)
+    public long getMaxElementNanos() {
+        return maxElementNanos;
+    }
+
+    /**
+     * @return Сумма двух итогов одного и того же процессора, например, за несколько пачек изменений.
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    public ProcessorMetrics plus(@NotNull ProcessorMetrics other) {
+        return new ProcessorMetrics(
+                processorClass,
+                annotation,
+                elements + other.elements,
+                nanos + other.nanos,
+                Math.max(maxElementNanos, other.maxElementNanos)
+        );
+    }
+
+    @Override
+    public String toString() {
+        return processorClass.getName() + "{elements=" + elements
+                + ", time=" + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms"
+                + ", maxElementTime=" + TimeUnit.NANOSECONDS.toMillis(maxElementNanos) + "ms}";
+    }
+}
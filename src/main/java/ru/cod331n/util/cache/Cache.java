@@ -4,6 +4,8 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.function.Function;
+
 /**
  * Интерфейс для кэша, который сопоставляет ключи с соответствующими значениями.
  *
@@ -42,4 +44,33 @@ public interface Cache<K, V> {
      */
     @Contract(pure = true)
     boolean containsKey(@NotNull K key);
+
+    /**
+     * Возвращает значение, связанное с ключом, а при его отсутствии вычисляет, сохраняет и возвращает новое.
+     * Одновременные запросы одного ключа вычисляют значение один раз.
+     *
+     * @param key    Ключ для поиска значения. Не может быть {@code null}.
+     * @param loader Функция вычисления значения по ключу.
+     * @return Сохраненное или вычисленное значение.
+     */
+    @NotNull
+    @Contract(mutates = "this")
+    V computeIfAbsent(@NotNull K key, @NotNull Function<? super K, ? extends V> loader);
+
+    /**
+     * Удаляет значение, связанное с указанным ключом, если оно присутствует в кэше.
+     *
+     * @param key Ключ удаляемого значения. Не может быть {@code null}.
+     */
+    @Contract(mutates = "this")
+    void invalidate(@NotNull K key);
+
+    /**
+     * Возвращает статистику обращений к кэшу.
+     *
+     * @return Снимок статистики на момент вызова.
+     */
+    @NotNull
+    @Contract(pure = true)
+    CacheStats getStats();
 }
@@ -0,0 +1,60 @@
+package ru.cod331n.util.cache;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Снимок статистики обращений к кэшу: попадания, промахи и вытеснения.
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    @Contract(pure = true)
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    @Contract(pure = true)
+    public long getMissCount() {
+        return missCount;
+    }
+
+    @Contract(pure = true)
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return Доля попаданий среди всех обращений, либо {@code 1.0}, если обращений не было.
+     */
+    @Contract(pure = true)
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Складывает эту статистику с другой.
+     *
+     * @param other Статистика другого кэша.
+     * @return Новый снимок с суммарными значениями.
+     */
+    @NotNull
+    @Contract(value = "_ -> new", pure = true)
+    public CacheStats plus(@NotNull CacheStats other) {
+        return new CacheStats(hitCount + other.hitCount, missCount + other.missCount, evictionCount + other.evictionCount);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + '}';
+    }
+}
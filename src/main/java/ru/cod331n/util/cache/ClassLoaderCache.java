@@ -0,0 +1,69 @@
+package ru.cod331n.util.cache;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Набор кэшей, по одному на каждый {@link ClassLoader}, со слабыми ссылками на загрузчики.
+ *
+ * <p>Кэш загрузчика удаляется вместе с ним, когда загрузчик становится недостижим, например, после выгрузки
+ * плагина. Чтобы это работало, значения кэша не должны сильно ссылаться на классы загрузчика: иначе через них
+ * удерживался бы и сам загрузчик.</p>
+ *
+ * @param <K> Тип ключей.
+ * @param <V> Тип значений.
+ */
+public final class ClassLoaderCache<K, V> {
+    private final Map<ClassLoader, Cache<K, V>> caches = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Supplier<? extends Cache<K, V>> cacheFactory;
+
+    public ClassLoaderCache(final @NotNull Supplier<? extends Cache<K, V>> cacheFactory) {
+        this.cacheFactory = cacheFactory;
+    }
+
+    /**
+     * Возвращает кэш указанного загрузчика, создавая его при первом обращении.
+     *
+     * @param classLoader Загрузчик классов.
+     * @return Кэш загрузчика.
+     */
+    @NotNull
+    public Cache<K, V> forClassLoader(@NotNull ClassLoader classLoader) {
+        return caches.computeIfAbsent(classLoader, key -> cacheFactory.get());
+    }
+
+    /**
+     * Удаляет кэш указанного загрузчика.
+     *
+     * @param classLoader Загрузчик классов.
+     */
+    public void invalidate(@NotNull ClassLoader classLoader) {
+        caches.remove(classLoader);
+    }
+
+    /**
+     * @return Суммарная статистика кэшей всех еще достижимых загрузчиков.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public CacheStats getStats() {
+        Collection<Cache<K, V>> snapshot;
+        synchronized (caches) {
+            snapshot = new ArrayList<>(caches.values());
+        }
+
+        CacheStats stats = new CacheStats(0, 0, 0);
+        for (Cache<K, V> cache : snapshot) {
+            stats = stats.plus(cache.getStats());
+        }
+
+        return stats;
+    }
+}
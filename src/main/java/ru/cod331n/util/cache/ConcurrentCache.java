@@ -0,0 +1,240 @@
+package ru.cod331n.util.cache;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.util.concurrent.ParallelCollections;
+import ru.cod331n.util.validation.Preconditions;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Потокобезопасный кэш с ограничением по суммарному весу значений.
+ *
+ * <p>Вес значения определяется переданной функцией (для ограничения по количеству записей - единица на запись).
+ * При превышении максимального веса вытесняются записи, к которым дольше всего не обращались. Значение для ключа
+ * вычисляется вне блокировок, а одновременные запросы того же ключа ожидают результата первого вычисления.</p>
+ *
+ * <p>Вес записи прибавляется к суммарному не больше одного раза и вычитается, только если был прибавлен: запись,
+ * удаленная до учета веса, в суммарный вес не попадает.</p>
+ *
+ * @param <K> Тип ключей.
+ * @param <V> Тип значений.
+ */
+public final class ConcurrentCache<K, V> implements Cache<K, V> {
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long maximumWeight;
+    private final ToLongFunction<? super V> weigher;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong weight = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Создает кэш, ограниченный количеством записей.
+     *
+     * @param maximumSize Максимальное количество записей.
+     */
+    public ConcurrentCache(long maximumSize) {
+        this(maximumSize, value -> 1);
+    }
+
+    /**
+     * Создает кэш, ограниченный суммарным весом значений.
+     *
+     * @param maximumWeight Максимальный суммарный вес.
+     * @param weigher       Функция вычисления веса значения.
+     */
+    public ConcurrentCache(long maximumWeight, final @NotNull ToLongFunction<? super V> weigher) {
+        Preconditions.checkAndThrow(maximumWeight < 0, () -> new IllegalArgumentException("Maximum weight cannot be negative: " + maximumWeight));
+
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @Nullable V get(@NotNull K key) {
+        @Nullable Entry<V> entry = entries.get(key);
+
+        if (entry == null || !entry.isLoaded()) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        entry.touch(clock.incrementAndGet());
+
+        return entry.getValue();
+    }
+
+    @Override
+    @Contract(mutates = "this")
+    public void put(@NotNull K key, @NotNull V value) {
+        Entry<V> entry = new Entry<>(clock.incrementAndGet());
+        entry.weight = weigher.applyAsLong(value);
+        entry.future.complete(value);
+
+        release(entries.put(key, entry));
+        charge(entry);
+        evict();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean containsKey(@NotNull K key) {
+        @Nullable Entry<V> entry = entries.get(key);
+        return entry != null && entry.isLoaded();
+    }
+
+    @Override
+    @NotNull
+    @Contract(mutates = "this")
+    public V computeIfAbsent(@NotNull K key, @NotNull Function<? super K, ? extends V> loader) {
+        Entry<V> created = new Entry<>(clock.incrementAndGet());
+        @Nullable Entry<V> existing = entries.putIfAbsent(key, created);
+
+        if (existing != null) {
+            hits.increment();
+            existing.touch(clock.incrementAndGet());
+
+            return ParallelCollections.join(existing.future);
+        }
+
+        misses.increment();
+
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, created);
+            created.future.completeExceptionally(e);
+            throw e;
+        }
+
+        // вес учитывается до публикации значения: запись, удаленная сразу после публикации, вычтет уже учтенный вес
+        created.weight = weigher.applyAsLong(value);
+        charge(created);
+        created.future.complete(value);
+        evict();
+
+        return value;
+    }
+
+    @Override
+    @Contract(mutates = "this")
+    public void invalidate(@NotNull K key) {
+        release(entries.remove(key));
+    }
+
+    @Override
+    @NotNull
+    @Contract(pure = true)
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * @return Текущий суммарный вес загруженных значений.
+     */
+    @Contract(pure = true)
+    public long getWeight() {
+        return weight.get();
+    }
+
+    /**
+     * Прибавляет вес записи к суммарному, если запись еще не удалена из кэша.
+     */
+    private void charge(@NotNull Entry<V> entry) {
+        if (entry.state.compareAndSet(Entry.NEW, Entry.CHARGED)) {
+            weight.addAndGet(entry.weight);
+        }
+    }
+
+    /**
+     * Отмечает запись удаленной и вычитает ее вес, если он был учтен.
+     */
+    private void release(@Nullable Entry<V> entry) {
+        if (entry != null && entry.state.getAndSet(Entry.RELEASED) == Entry.CHARGED) {
+            weight.addAndGet(-entry.weight);
+        }
+    }
+
+    /**
+     * Вытесняет записи, к которым дольше всего не обращались, пока суммарный вес превышает максимальный.
+     */
+    private void evict() {
+        synchronized (entries) {
+            while (weight.get() > maximumWeight) {
+                @Nullable Map.Entry<K, Entry<V>> eldest = null;
+
+                for (Map.Entry<K, Entry<V>> candidate : entries.entrySet()) {
+                    if (candidate.getValue().isCharged() && (eldest == null || candidate.getValue().lastAccess < eldest.getValue().lastAccess)) {
+                        eldest = candidate;
+                    }
+                }
+
+                if (eldest == null) {
+                    return;
+                }
+
+                if (entries.remove(eldest.getKey(), eldest.getValue())) {
+                    release(eldest.getValue());
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        /**
+         * Вес еще не учтен.
+         */
+        private static final int NEW = 0;
+        /**
+         * Вес учтен в суммарном весе кэша.
+         */
+        private static final int CHARGED = 1;
+        /**
+         * Запись удалена; ее вес больше не учитывается.
+         */
+        private static final int RELEASED = 2;
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(NEW);
+        private volatile long weight;
+        private volatile long lastAccess;
+
+        private Entry(long lastAccess) {
+            this.lastAccess = lastAccess;
+        }
+
+        @Contract(pure = true)
+        private boolean isLoaded() {
+            return future.isDone() && !future.isCompletedExceptionally();
+        }
+
+        @Contract(pure = true)
+        private boolean isCharged() {
+            return state.get() == CHARGED;
+        }
+
+        @NotNull
+        private V getValue() {
+            return future.join();
+        }
+
+        private void touch(long time) {
+            lastAccess = time;
+        }
+    }
+}
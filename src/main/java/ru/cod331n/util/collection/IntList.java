@@ -0,0 +1,75 @@
+package ru.cod331n.util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Расширяемый список примитивных {@code int} без упаковки значений.
+ *
+ * <p>Экземпляр не потокобезопасен: после заполнения его можно читать из нескольких потоков, если запись
+ * опубликована безопасно.</p>
+ */
+public final class IntList {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Начальная емкость.
+     */
+    public IntList(int capacity) {
+        this.values = new int[Math.max(capacity, 1)];
+    }
+
+    @Contract(mutates = "this")
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+
+        values[size++] = value;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException если индекс вне списка.
+     */
+    @Contract(pure = true)
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+
+        return values[index];
+    }
+
+    @Contract(pure = true)
+    public int size() {
+        return size;
+    }
+
+    @Contract(pure = true)
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return Копия значений списка.
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
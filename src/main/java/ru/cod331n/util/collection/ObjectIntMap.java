@@ -0,0 +1,147 @@
+package ru.cod331n.util.collection;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Отображение объектов в неотрицательные {@code int} с открытой адресацией: ключи и значения хранятся в двух
+ * массивах, без узлов и упаковки значений. Ключи сравниваются по {@link Object#equals(Object)}, а в отображении из
+ * {@link #identity()} - по ссылке.
+ *
+ * <p>Экземпляр не потокобезопасен: после заполнения его можно читать из нескольких потоков, если запись
+ * опубликована безопасно.</p>
+ *
+ * @param <K> Тип ключей.
+ */
+public final class ObjectIntMap<K> {
+    /**
+     * Значение, которое {@link #get(Object)} возвращает для отсутствующего ключа.
+     */
+    public static final int NO_VALUE = -1;
+
+    private final boolean identity;
+    private Object[] keys;
+    private int[] values;
+    private int size;
+
+    public ObjectIntMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize Ожидаемое количество ключей.
+     */
+    public ObjectIntMap(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    private ObjectIntMap(int expectedSize, boolean identity) {
+        this.identity = identity;
+
+        // емкость - степень двойки, не меньше удвоенного размера: позиция ключа вычисляется маской
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+
+        this.keys = new Object[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Создает отображение, которое сравнивает ключи по ссылке, а не по {@link Object#equals(Object)}.
+     * Нужно для ключей, разные экземпляры которых могут быть равны, но обозначают разные объекты.
+     */
+    @NotNull
+    @Contract(value = "-> new", pure = true)
+    public static <K> ObjectIntMap<K> identity() {
+        return new ObjectIntMap<>(16, true);
+    }
+
+    /**
+     * @return Значение ключа, либо {@link #NO_VALUE}, если ключа нет.
+     */
+    @Contract(pure = true)
+    public int get(@NotNull Object key) {
+        int mask = keys.length - 1;
+
+        for (int slot = hash(key) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (matches(keys[slot], key)) {
+                return values[slot];
+            }
+        }
+
+        return NO_VALUE;
+    }
+
+    /**
+     * Связывает ключ со значением, если ключа еще нет.
+     *
+     * @param value Неотрицательное значение.
+     * @return Прежнее значение ключа, либо {@link #NO_VALUE}, если ключ добавлен.
+     * @throws IllegalArgumentException если значение отрицательное.
+     */
+    @Contract(mutates = "this")
+    public int putIfAbsent(@NotNull K key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative: " + value);
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        for (; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (matches(keys[slot], key)) {
+                return values[slot];
+            }
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+
+        return NO_VALUE;
+    }
+
+    @Contract(pure = true)
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new Object[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @Contract(pure = true)
+    private boolean matches(@NotNull Object stored, @NotNull Object key) {
+        return identity ? stored == key : stored.equals(key);
+    }
+
+    @Contract(pure = true)
+    private int hash(@NotNull Object key) {
+        int hash = (identity ? System.identityHashCode(key) : key.hashCode()) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "ObjectIntMap{size=" + size + ", capacity=" + keys.length + ", identity=" + identity + '}';
+    }
+}
@@ -0,0 +1,111 @@
+package ru.cod331n.util.concurrent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Утилитарный класс для параллельной обработки коллекций с сохранением порядка элементов.
+ *
+ * <p>Элементы делятся на последовательные части, каждая часть обрабатывается отдельной задачей, а результаты
+ * собираются в исходном порядке. Поэтому результат не зависит от того, в каком порядке завершились задачи.</p>
+ */
+public final class ParallelCollections {
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelCollections() {
+        throw new AssertionError("Utility class couldn't be initialized");
+    }
+
+    /**
+     * Применяет функцию ко всем элементам, параллельно на указанном исполнителе, либо последовательно
+     * в текущем потоке, если исполнитель не задан.
+     *
+     * @param elements Элементы для обработки.
+     * @param mapper   Функция обработки.
+     * @param executor Исполнитель, либо {@code null} для последовательной обработки.
+     * @return Результаты в порядке исходных элементов.
+     */
+    @NotNull
+    public static <T, R> List<R> map(@NotNull Collection<T> elements, @NotNull Function<? super T, ? extends R> mapper, @Nullable Executor executor) {
+        List<T> list = elements instanceof List ? (List<T>) elements : new ArrayList<>(elements);
+
+        if (executor == null || list.size() < 2) {
+            List<R> result = new ArrayList<>(list.size());
+            list.forEach(element -> result.add(mapper.apply(element)));
+
+            return result;
+        }
+
+        int chunkSize = Math.max(1, list.size() / (parallelism(executor) * CHUNKS_PER_THREAD));
+        List<CompletableFuture<List<R>>> chunks = new ArrayList<>();
+
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            List<T> chunk = list.subList(from, Math.min(list.size(), from + chunkSize));
+            chunks.add(CompletableFuture.supplyAsync(() -> map(chunk, mapper, null), executor));
+        }
+
+        List<R> result = new ArrayList<>(list.size());
+        chunks.forEach(chunk -> result.addAll(join(chunk)));
+
+        return result;
+    }
+
+    /**
+     * Асинхронно применяет действие ко всем элементам частями на указанном исполнителе. Метод не блокирует
+     * вызывающий поток, поэтому его можно вызывать из задач того же исполнителя.
+     *
+     * @param elements Элементы для обработки.
+     * @param action   Действие над элементом.
+     * @param executor Исполнитель.
+     * @return Задача, завершающаяся после обработки всех элементов.
+     */
+    @NotNull
+    public static <T> CompletableFuture<Void> forEachAsync(@NotNull Collection<T> elements, @NotNull Consumer<? super T> action, @NotNull Executor executor) {
+        List<T> list = elements instanceof List ? (List<T>) elements : new ArrayList<>(elements);
+        int chunkSize = Math.max(1, list.size() / (parallelism(executor) * CHUNKS_PER_THREAD));
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            List<T> chunk = list.subList(from, Math.min(list.size(), from + chunkSize));
+            chunks.add(CompletableFuture.runAsync(() -> chunk.forEach(action), executor));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Ожидает завершения задачи и возвращает ее результат, пробрасывая исходное непроверяемое исключение задачи
+     * вместо {@link CompletionException}.
+     */
+    public static <T> T join(@NotNull CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private static int parallelism(@NotNull Executor executor) {
+        return executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+    }
+}
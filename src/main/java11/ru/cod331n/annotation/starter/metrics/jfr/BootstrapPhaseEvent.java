@@ -0,0 +1,21 @@
+package ru.cod331n.annotation.starter.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("ru.cod331n.annotation.BootstrapPhase")
+@Label("Bootstrap Phase")
+@Category({"Annotation Processor", "Bootstrap"})
+@Description("Completed phase of annotation processing bootstrap")
+final class BootstrapPhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
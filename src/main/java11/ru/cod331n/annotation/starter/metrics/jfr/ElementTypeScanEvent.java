@@ -0,0 +1,27 @@
+package ru.cod331n.annotation.starter.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("ru.cod331n.annotation.ElementTypeScan")
+@Label("Element Type Scan")
+@Category({"Annotation Processor", "Bootstrap"})
+@Description("Reflection over scanned classes for one element type")
+final class ElementTypeScanEvent extends Event {
+    @Label("Element Type")
+    String elementType;
+
+    @Label("Classes")
+    int classes;
+
+    @Label("Matched Elements")
+    int matched;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -0,0 +1,69 @@
+package ru.cod331n.annotation.starter.metrics.jfr;
+
+import org.jetbrains.annotations.NotNull;
+import ru.cod331n.annotation.starter.metrics.BootstrapListener;
+import ru.cod331n.annotation.starter.metrics.BootstrapPhase;
+import ru.cod331n.annotation.starter.metrics.ProcessorMetrics;
+
+import java.lang.annotation.ElementType;
+import java.net.URL;
+
+/**
+ * Записывает события запуска в Java Flight Recorder. Требует {@code jdk.jfr}; создается через
+ * {@link BootstrapListener#jfr()}, который не загружает этот класс на JVM без JFR.
+ *
+ * <p>Загрузка отдельных классов не записывается: ее покрывает встроенное событие {@code jdk.ClassLoad}.</p>
+ */
+public final class JfrBootstrapListener implements BootstrapListener {
+
+    @Override
+    public void classFilesListed(@NotNull String packageName, @NotNull URL root, int count, long nanos) {
+        PackageRootScanEvent event = new PackageRootScanEvent();
+
+        if (event.shouldCommit()) {
+            event.packageName = packageName;
+            event.root = root.toExternalForm();
+            event.classFiles = count;
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void phaseCompleted(@NotNull BootstrapPhase phase, long nanos) {
+        BootstrapPhaseEvent event = new BootstrapPhaseEvent();
+
+        if (event.shouldCommit()) {
+            event.phase = phase.name();
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void elementTypeScanned(@NotNull ElementType elementType, int classes, int matched, long nanos) {
+        ElementTypeScanEvent event = new ElementTypeScanEvent();
+
+        if (event.shouldCommit()) {
+            event.elementType = elementType.name();
+            event.classes = classes;
+            event.matched = matched;
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void processorCompleted(@NotNull ProcessorMetrics metrics) {
+        ProcessorEvent event = new ProcessorEvent();
+
+        if (event.shouldCommit()) {
+            event.processor = metrics.getProcessorClass();
+            event.annotation = metrics.getAnnotation();
+            event.elements = metrics.getElements();
+            event.elapsed = metrics.getNanos();
+            event.maxElapsed = metrics.getMaxElementNanos();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.cod331n.annotation.starter.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("ru.cod331n.annotation.PackageRootScan")
+@Label("Package Root Scan")
+@Category({"Annotation Processor", "Bootstrap"})
+@Description("Class files listed in one classpath root of a scanned package")
+final class PackageRootScanEvent extends Event {
+    @Label("Package")
+    String packageName;
+
+    @Label("Root")
+    String root;
+
+    @Label("Class Files")
+    int classFiles;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
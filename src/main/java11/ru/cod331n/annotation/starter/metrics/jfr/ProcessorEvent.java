@@ -0,0 +1,31 @@
+package ru.cod331n.annotation.starter.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("ru.cod331n.annotation.Processor")
+@Label("Annotation Processor")
+@Category({"Annotation Processor", "Bootstrap"})
+@Description("Elements handled by one annotation processor")
+final class ProcessorEvent extends Event {
+    @Label("Processor")
+    Class<?> processor;
+
+    @Label("Annotation")
+    Class<?> annotation;
+
+    @Label("Elements")
+    long elements;
+
+    @Label("Processing Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    @Label("Max Element Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long maxElapsed;
+}
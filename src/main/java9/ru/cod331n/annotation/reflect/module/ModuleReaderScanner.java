@@ -0,0 +1,189 @@
+package ru.cod331n.annotation.reflect.module;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.cod331n.annotation.reflect.ModuleScanner;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.lang.module.ResolvedModule;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link ModuleScanner} на основе {@link ModuleLayer} и {@link ModuleReader}. Требует Java 9; создается через
+ * {@link ModuleScanner#get()}.
+ */
+public final class ModuleReaderScanner implements ModuleScanner {
+    private static final String MODULE_INFO = "module-info.class";
+
+    @NotNull
+    @Override
+    public List<URL> findPackageRoots(@NotNull ClassLoader classLoader, @NotNull String packageName, @NotNull Collection<Class<?>> layerClasses) {
+        List<URL> roots = new ArrayList<>();
+
+        for (ModuleLayer layer : getLayers(layerClasses)) {
+            List<Module> modules = new ArrayList<>(layer.modules());
+            modules.sort(Comparator.comparing(Module::getName));
+
+            for (Module module : modules) {
+                if (!containsPackage(module, packageName) || !isVisible(module.getClassLoader(), classLoader)) {
+                    continue;
+                }
+
+                layer.configuration().findModule(module.getName())
+                        .flatMap(resolved -> resolved.reference().location())
+                        .map(location -> toRoot(location, packageName))
+                        .ifPresent(roots::add);
+            }
+        }
+
+        return roots;
+    }
+
+    /**
+     * @return Загрузочный слой, затем слои модулей указанных классов и их родительские слои, без повторов.
+     */
+    @NotNull
+    @Contract(pure = true)
+    private static Collection<ModuleLayer> getLayers(@NotNull Collection<Class<?>> layerClasses) {
+        Set<ModuleLayer> layers = new LinkedHashSet<>();
+        layers.add(ModuleLayer.boot());
+
+        for (Class<?> clazz : layerClasses) {
+            @Nullable ModuleLayer layer = clazz.getModule().getLayer();
+            if (layer != null) {
+                addWithParents(layer, layers);
+            }
+        }
+
+        return layers;
+    }
+
+    private static void addWithParents(@NotNull ModuleLayer layer, @NotNull Set<ModuleLayer> layers) {
+        layer.parents().forEach(parent -> addWithParents(parent, layers));
+        layers.add(layer);
+    }
+
+    @NotNull
+    @Override
+    public ModuleContents open(@NotNull URL root) throws IOException {
+        String path = root.getPath().startsWith("/") ? root.getPath().substring(1) : root.getPath();
+        String moduleName = path.contains("/") ? path.substring(0, path.indexOf('/')) : path;
+
+        ModuleReference reference = ModuleLayer.boot().configuration().findModule(moduleName)
+                .map(ResolvedModule::reference)
+                .or(() -> ModuleFinder.ofSystem().find(moduleName))
+                .orElseThrow(() -> new FileNotFoundException("Module not found: " + moduleName));
+
+        return new ReaderContents(reference.open());
+    }
+
+    @Contract(pure = true)
+    private static boolean containsPackage(@NotNull Module module, @NotNull String packageName) {
+        String prefix = packageName + '.';
+        return module.getPackages().stream().anyMatch(name -> name.equals(packageName) || name.startsWith(prefix));
+    }
+
+    /**
+     * @return {@code true}, если модуль определен начальным загрузчиком, самим загрузчиком или одним из его предков.
+     */
+    @Contract(pure = true)
+    private static boolean isVisible(@Nullable ClassLoader moduleLoader, @NotNull ClassLoader classLoader) {
+        if (moduleLoader == null) {
+            return true;
+        }
+
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+            if (loader == moduleLoader) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Nullable
+    private static URL toRoot(@NotNull URI location, @NotNull String packageName) {
+        String packagePath = packageName.replace('.', '/');
+
+        try {
+            switch (location.getScheme()) {
+                case "jrt":
+                    return new URL(location + "/" + packagePath);
+                case "file":
+                    Path module = Paths.get(location);
+                    return Files.isDirectory(module)
+                            ? module.resolve(packagePath).toUri().toURL()
+                            : new URL("jar:" + location + "!/" + packagePath);
+                default:
+                    return null;
+            }
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("Failed to resolve module root: " + location, e);
+        }
+    }
+
+    private static final class ReaderContents implements ModuleContents {
+        private final ModuleReader reader;
+
+        private ReaderContents(final @NotNull ModuleReader reader) {
+            this.reader = reader;
+        }
+
+        @NotNull
+        @Override
+        public List<String> listClassFiles(@NotNull String packageName) throws IOException {
+            String prefix = packageName.replace('.', '/') + '/';
+
+            try (Stream<String> names = reader.list()) {
+                return names
+                        .filter(name -> name.startsWith(prefix) && name.endsWith(".class") && !name.endsWith(MODULE_INFO))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+
+        @Nullable
+        @Override
+        public ByteBuffer read(@NotNull String resourceName) throws IOException {
+            Optional<ByteBuffer> buffer = reader.read(resourceName);
+            if (!buffer.isPresent()) {
+                return null;
+            }
+
+            try {
+                ByteBuffer copy = ByteBuffer.allocate(buffer.get().remaining());
+                copy.put(buffer.get().duplicate());
+                copy.flip();
+
+                return copy;
+            } finally {
+                reader.release(buffer.get());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.cod331n.annotation.reflect;
+
+import org.junit.jupiter.api.Test;
+import ru.cod331n.util.tuple.Pair;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnnotatedElementIndexTest {
+
+    @Test
+    void keepsEqualTypeUseSitesApart() throws NoSuchFieldException {
+        List<Field> fields = Arrays.asList(First.class.getDeclaredField("x"), First.class.getDeclaredField("y"), Second.class.getDeclaredField("z"));
+        AnnotatedElementIndex index = new AnnotatedElementIndex();
+        List<AnnotatedType> types = new ArrayList<>();
+
+        for (Field field : fields) {
+            AnnotatedType type = field.getAnnotatedType();
+            types.add(type);
+            index.accept(field.getDeclaringClass(), type, type.getAnnotation(Use.class));
+        }
+
+        List<Pair<Class<?>, AnnotatedElement>> found = index.get(Use.class);
+        assertEquals(3, found.size());
+        assertEquals(3, index.count(Use.class));
+
+        for (int i = 0; i < fields.size(); i++) {
+            assertEquals(fields.get(i).getDeclaringClass(), found.get(i).getLeft(), fields.get(i).getName());
+            assertTrue(found.get(i).getRight() == types.get(i), fields.get(i).getName());
+            assertNotNull(index.getAnnotation(Use.class, types.get(i)));
+        }
+
+        List<Class<?>> classes = new ArrayList<>();
+        index.forEach(Use.class, (clazz, element, annotation) -> classes.add(clazz));
+        assertEquals(Arrays.asList(First.class, First.class, Second.class), classes);
+    }
+
+    @Test
+    void internsEqualDeclarationsOnce() throws NoSuchFieldException {
+        AnnotatedElementIndex index = new AnnotatedElementIndex();
+        Field field = First.class.getDeclaredField("marked");
+
+        // getDeclaredField возвращает новую копию поля, равную прежней
+        index.accept(First.class, field, field.getAnnotation(Marker.class));
+        index.accept(First.class, First.class.getDeclaredField("marked"), field.getAnnotation(Marker.class));
+
+        assertEquals(2, index.count(Marker.class));
+        assertTrue(index.get(Marker.class).get(0).getRight() == index.get(Marker.class).get(1).getRight());
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE_USE)
+    @interface Use {
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+    }
+
+    static class First {
+        @Use String x;
+        @Use String y;
+
+        @Marker
+        int marked;
+    }
+
+    static class Second {
+        @Use String z;
+    }
+}
@@ -0,0 +1,83 @@
+package ru.cod331n.annotation.reflect;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnnotationRegistryTest {
+
+    @Test
+    void keepsEqualTypeUseSitesApart() throws NoSuchFieldException {
+        List<Field> fields = Arrays.asList(First.class.getDeclaredField("x"), First.class.getDeclaredField("y"), Second.class.getDeclaredField("z"));
+        AnnotatedElementIndex index = new AnnotatedElementIndex();
+        List<AnnotatedType> types = new ArrayList<>();
+
+        for (Field field : fields) {
+            AnnotatedType type = field.getAnnotatedType();
+            types.add(type);
+            index.accept(field.getDeclaringClass(), type, type.getAnnotation(Use.class));
+        }
+
+        AnnotationRegistry registry = AnnotationRegistry.of(index);
+        assertEquals(3, registry.size());
+
+        List<AnnotatedElement> elements = new ArrayList<>(registry.getElements(Use.class));
+        assertEquals(3, elements.size());
+
+        for (int i = 0; i < types.size(); i++) {
+            assertTrue(elements.get(i) == types.get(i), fields.get(i).getName());
+            assertTrue(registry.getElements(Use.class).contains(types.get(i)), fields.get(i).getName());
+
+            AnnotationValues values = registry.getValues(types.get(i), Use.class);
+            assertNotNull(values, fields.get(i).getName());
+            assertEquals("text", values.get("value"));
+        }
+    }
+
+    @Test
+    void findsDeclarationsByEquality() throws NoSuchFieldException {
+        Field field = First.class.getDeclaredField("marked");
+        AnnotationRegistry.Builder builder = AnnotationRegistry.builder();
+        builder.accept(First.class, field, field.getAnnotation(Marker.class));
+        builder.accept(First.class, First.class.getDeclaredField("marked"), field.getAnnotation(Marker.class));
+        AnnotationRegistry registry = builder.build();
+
+        assertEquals(1, registry.size());
+        assertTrue(registry.isAnnotationPresent(First.class.getDeclaredField("marked"), Marker.class));
+        assertFalse(registry.isAnnotationPresent(First.class.getDeclaredField("x"), Marker.class));
+        assertNull(registry.getAnnotation(field, Use.class));
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE_USE)
+    @interface Use {
+        String value();
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+    }
+
+    static class First {
+        @Use("text") String x;
+        @Use("text") String y;
+
+        @Marker
+        int marked;
+    }
+
+    static class Second {
+        @Use("text") String z;
+    }
+}
@@ -0,0 +1,66 @@
+package ru.cod331n.annotation.reflect;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnnotationValuesTest {
+
+    @Test
+    void readsAttributes() {
+        AnnotationValues values = new AnnotationValues(Annotated.class.getAnnotation(Plain.class));
+
+        assertEquals(new HashSet<>(Arrays.asList("name", "count", "tags")), values.asMap().keySet());
+        assertEquals("plain", values.get("name"));
+        assertEquals(3, (int) values.get("count"));
+        assertArrayEquals(new String[]{"a", "b"}, values.<String[]>get("tags"));
+        assertThrows(IllegalArgumentException.class, () -> values.get("missing"));
+    }
+
+    /**
+     * Лямбды в инициализаторах констант компилируются в синтетические статические методы типа аннотации; они не
+     * атрибуты и не должны вызываться.
+     */
+    @Test
+    void skipsSyntheticMethodsOfAnnotationType() {
+        assertTrue(Arrays.stream(WithConstants.class.getDeclaredMethods()).anyMatch(method -> method.isSynthetic() && Modifier.isStatic(method.getModifiers())));
+
+        AnnotationValues values = new AnnotationValues(Annotated.class.getAnnotation(WithConstants.class));
+
+        assertEquals(1, values.asMap().size(), values.toString());
+        assertEquals("constants", values.get("value"));
+        assertEquals("constant", WithConstants.SUPPLIER.get());
+        assertEquals("value", WithConstants.FUNCTION.apply("value"));
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Plain {
+        String name();
+
+        int count() default 3;
+
+        String[] tags() default {"a", "b"};
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface WithConstants {
+        Supplier<String> SUPPLIER = () -> "constant";
+
+        Function<String, String> FUNCTION = text -> text;
+
+        String value();
+    }
+
+    @Plain(name = "plain")
+    @WithConstants("constants")
+    static class Annotated {
+    }
+}
@@ -0,0 +1,118 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+import ru.cod331n.annotation.reflect.fixture.split.FirstRootClass;
+import ru.cod331n.annotation.reflect.fixture.split.SecondRootClass;
+import ru.cod331n.annotation.reflect.fixture.split.sub.NestedClass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassLoaderHelperTest {
+    private static final String PACKAGE_NAME = FirstRootClass.class.getPackage().getName();
+
+    private static final Set<String> CLASS_NAMES = new HashSet<>(Arrays.asList(
+            FirstRootClass.class.getName(),
+            SecondRootClass.class.getName(),
+            NestedClass.class.getName()
+    ));
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Пакет из нескольких корней не должен занимать потоки исполнителя ожиданием задач того же исполнителя:
+     * с одним потоком такое ожидание никогда не завершается.
+     */
+    @Test
+    void scansSplitPackageWithSingleThreadExecutor() throws IOException {
+        assertSplitPackageScan(1);
+    }
+
+    @Test
+    void scansSplitPackageWithSeveralThreads() throws IOException {
+        assertSplitPackageScan(4);
+    }
+
+    @Test
+    void rescansDirectoryAfterNewClassFiles() throws IOException {
+        Path root = directory.resolve("root");
+        copyClassFile(FirstRootClass.class, root);
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toUri().toURL()}, null)) {
+            assertEquals(Collections.singleton(FirstRootClass.class.getName()), classNames(new ClassLoaderHelper(PACKAGE_NAME, classLoader)));
+            assertEquals(Collections.singleton(FirstRootClass.class.getName()), classNames(new ClassLoaderHelper(PACKAGE_NAME, classLoader)));
+
+            copyClassFile(SecondRootClass.class, root);
+            copyClassFile(NestedClass.class, root);
+
+            assertEquals(CLASS_NAMES, classNames(new ClassLoaderHelper(PACKAGE_NAME, classLoader)));
+        }
+    }
+
+    private void assertSplitPackageScan(int threads) throws IOException {
+        Path firstRoot = directory.resolve("first");
+        Path secondRoot = directory.resolve("second");
+        copyClassFile(FirstRootClass.class, firstRoot);
+        copyClassFile(NestedClass.class, firstRoot);
+        copyClassFile(SecondRootClass.class, secondRoot);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{firstRoot.toUri().toURL(), secondRoot.toUri().toURL()}, null)) {
+            ScanSettings settings = ScanSettings.builder().parallel(executor).build();
+
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                ClassLoaderHelper helper = new ClassLoaderHelper(PACKAGE_NAME, classLoader, settings);
+                assertEquals(2, helper.getRoots().size());
+
+                assertEquals(CLASS_NAMES, classNames(helper));
+
+                assertEquals(CLASS_NAMES, names(helper.getPackageClassInfos()));
+                assertEquals(CLASS_NAMES, names(new JavaClassesReflection(Collections.singleton(PACKAGE_NAME), classLoader, settings).getPackageClassInfos()));
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @NotNull
+    private static Set<String> classNames(@NotNull ClassLoaderHelper helper) {
+        Set<String> names = new HashSet<>();
+        helper.getPackageClasses().forEach(clazz -> names.add(clazz.getName()));
+
+        return names;
+    }
+
+    @NotNull
+    private static Set<String> names(@NotNull Collection<ClassFileInfo> infos) {
+        Set<String> names = new HashSet<>();
+        infos.forEach(info -> names.add(info.getName()));
+
+        return names;
+    }
+
+    private static void copyClassFile(@NotNull Class<?> type, @NotNull Path root) throws IOException {
+        String resourceName = type.getName().replace('.', '/') + ClassLoaderHelper.CLASS_FILE_NAME_EXTENSION;
+        Path target = root.resolve(resourceName);
+        Files.createDirectories(target.getParent());
+
+        try (InputStream inputStream = type.getClassLoader().getResourceAsStream(resourceName)) {
+            assertNotNull(inputStream, resourceName);
+            Files.copy(inputStream, target);
+        }
+    }
+}
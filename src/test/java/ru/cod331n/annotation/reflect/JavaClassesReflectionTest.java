@@ -0,0 +1,114 @@
+package ru.cod331n.annotation.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+import ru.cod331n.annotation.reflect.fixture.split.FirstRootClass;
+import ru.cod331n.annotation.reflect.fixture.split.SecondRootClass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaClassesReflectionTest {
+    private static final String PACKAGE_NAME = FirstRootClass.class.getPackage().getName();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Пакет, все корни которого отброшены фильтром jar-файлов, сканируется как пустой: запросы возвращают пустые
+     * результаты, а не падают на отсутствующем корне.
+     */
+    @Test
+    void scansPackageInExcludedJarAsEmpty() throws IOException {
+        Path jar = directory.resolve("excluded.jar");
+        writeJar(jar, FirstRootClass.class, SecondRootClass.class);
+
+        ScanSettings settings = ScanSettings.builder()
+                .filter(ScanFilter.builder().excludeJars("excluded.jar").build())
+                .metaAnnotations(true)
+                .build();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+            JavaClassesReflection reflection = new JavaClassesReflection(PACKAGE_NAME, classLoader, settings);
+
+            assertTrue(reflection.getPackageClasses().isEmpty());
+            assertTrue(reflection.getPackageClassInfos().isEmpty());
+            assertTrue(reflection.getCandidateClasses(Collections.singleton(Deprecated.class)).isEmpty());
+            assertTrue(reflection.getSubtypeIndex().getSubtypeNames(Object.class.getName()).isEmpty());
+            assertTrue(reflection.getSubtypes(Object.class).isEmpty());
+            assertTrue(reflection.queryClasses().annotatedWith(Deprecated.class).list().isEmpty());
+            assertTrue(reflection.queryMethods().inSubtypesOf(Object.class).list().isEmpty());
+        }
+    }
+
+    @Test
+    void sharesPersistentCacheBetweenScans() throws IOException {
+        Path first = directory.resolve("first.jar");
+        Path second = directory.resolve("second.jar");
+        writeJar(first, FirstRootClass.class);
+        writeJar(second, SecondRootClass.class);
+
+        Path cacheFile = directory.resolve("scan.cache");
+        Set<String> expected = new HashSet<>(Arrays.asList(FirstRootClass.class.getName(), SecondRootClass.class.getName()));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{first.toUri().toURL(), second.toUri().toURL()}, null)) {
+            JavaClassesReflection reflection = new JavaClassesReflection(PACKAGE_NAME, classLoader, ScanSettings.builder().persistentCache(cacheFile).build());
+            assertEquals(expected, names(reflection.getPackageClassInfos()));
+            assertTrue(Files.exists(cacheFile));
+
+            ScanSettings settings = ScanSettings.builder().persistentCache(cacheFile).build();
+            assertEquals(expected, names(new JavaClassesReflection(PACKAGE_NAME, classLoader, settings).getPackageClassInfos()));
+            assertEquals(expected, names(new ClassLoaderHelper(PACKAGE_NAME, classLoader, settings).getPackageClassInfos()));
+        }
+    }
+
+    @NotNull
+    private static Set<String> names(@NotNull Collection<ClassFileInfo> infos) {
+        Set<String> names = new HashSet<>();
+        infos.forEach(info -> names.add(info.getName()));
+
+        return names;
+    }
+
+    private static void writeJar(@NotNull Path jar, @NotNull Class<?>... classes) throws IOException {
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+            // загрузчик находит пакет в jar-файле по записи его каталога
+            String folder = "";
+            for (String name : PACKAGE_NAME.split("\\.")) {
+                folder += name + '/';
+                output.putNextEntry(new JarEntry(folder));
+                output.closeEntry();
+            }
+
+            for (Class<?> type : classes) {
+                String resourceName = type.getName().replace('.', '/') + ClassLoaderHelper.CLASS_FILE_NAME_EXTENSION;
+                output.putNextEntry(new JarEntry(resourceName));
+                copy(type, resourceName, output);
+                output.closeEntry();
+            }
+        }
+    }
+
+    private static void copy(@NotNull Class<?> type, @NotNull String resourceName, @NotNull OutputStream output) throws IOException {
+        try (InputStream inputStream = type.getClassLoader().getResourceAsStream(resourceName)) {
+            assertNotNull(inputStream, resourceName);
+
+            byte[] buffer = new byte[8192];
+            for (int read; (read = inputStream.read(buffer)) >= 0; ) {
+                output.write(buffer, 0, read);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package ru.cod331n.annotation.reflect.bytecode;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сверяет результат чтения class-файлов, созданных javac, с рефлексией.
+ */
+class ClassFileReaderTest {
+    private static final int ACC_ENUM = 0x4000;
+
+    @Test
+    void readsHeaderOfNestedClass() throws IOException {
+        ClassFileInfo info = read(Outer.class);
+
+        assertEquals(Outer.class.getName(), info.getName());
+        assertEquals(Object.class.getName(), info.getSuperName());
+        assertEquals(Arrays.asList(Runnable.class.getName(), Serializable.class.getName()), info.getInterfaceNames());
+        assertEquals(Collections.singleton(Marker.class.getName()), info.getClassAnnotations());
+        assertTrue(info.getAnnotations().contains(Marker.class.getName()));
+        assertTrue(info.getAnnotations().contains(TypeMarker.class.getName()), "type annotations are collected");
+    }
+
+    @Test
+    void readsInnerClass() throws IOException {
+        ClassFileInfo info = read(Outer.Inner.class);
+
+        assertEquals(Outer.Inner.class.getName(), info.getName());
+        assertTrue(info.getClassAnnotations().isEmpty());
+        assertEquals(Collections.singleton(Marker.class.getName()), info.getAnnotations());
+        assertRoundTrip(Outer.Inner.class);
+    }
+
+    @Test
+    void readsAnonymousClass() throws IOException {
+        Class<?> anonymous = new Outer("").anonymous().getClass();
+        ClassFileInfo info = read(anonymous);
+
+        assertTrue(anonymous.isAnonymousClass());
+        assertEquals(anonymous.getName(), info.getName());
+        assertEquals(Object.class.getName(), info.getSuperName());
+        assertEquals(Collections.singleton(Marker.class.getName()), info.getAnnotations());
+        assertRoundTrip(anonymous);
+    }
+
+    @Test
+    void readsEnumAndAnnotationValues() throws IOException {
+        ClassFileInfo info = read(Color.class);
+
+        assertEquals(Enum.class.getName(), info.getSuperName());
+        assertTrue((info.getAccess() & ACC_ENUM) != 0);
+
+        AnnotationInfo marker = readClassInfo(Color.class).getTypeElement().getAnnotation(Marker.class);
+        assertNotNull(marker);
+        assertEquals("enum", marker.getValue("value"));
+        assertEquals(Arrays.asList(1, 2), marker.getValue("numbers"));
+
+        AnnotationInfo.EnumConstant kind = (AnnotationInfo.EnumConstant) marker.getValue("kind");
+        assertNotNull(kind);
+        assertEquals(ElementType.class.getName(), kind.getTypeName());
+        assertEquals(ElementType.FIELD.name(), kind.getName());
+
+        AnnotationInfo.ClassReference type = (AnnotationInfo.ClassReference) marker.getValue("type");
+        assertNotNull(type);
+        assertEquals(String.class.getName(), type.getTypeName());
+
+        assertRoundTrip(Color.class);
+    }
+
+    @Test
+    void readsParameterAnnotations() throws IOException {
+        ClassInfo info = readClassInfo(Outer.class);
+        List<Parameter> parameters = new ArrayList<>();
+        info.getParameters().forEach(element -> parameters.add((Parameter) element.resolve()));
+
+        List<Parameter> expected = new ArrayList<>();
+        for (Executable executable : getExecutables(Outer.class)) {
+            Arrays.stream(executable.getParameters()).filter(parameter -> parameter.isAnnotationPresent(Marker.class)).forEach(expected::add);
+        }
+
+        assertEquals(expected.size(), parameters.size());
+        assertTrue(parameters.containsAll(expected), parameters.toString());
+
+        ElementInfo second = info.getParameters().stream().filter(element -> element.getParameterIndex() == 1).findFirst().orElse(null);
+        assertNotNull(second);
+        assertEquals("parameters", second.getName());
+        assertEquals("(IJLjava/lang/String;)V", second.getDescriptor());
+        assertRoundTrip(Outer.class);
+    }
+
+    @Test
+    void rejectsMalformedClassFile() throws IOException {
+        byte[] bytes = getBytes(Outer.class);
+
+        assertThrows(IllegalArgumentException.class, () -> ClassFileReader.read(ByteBuffer.wrap(new byte[]{1, 2, 3, 4})));
+        assertThrows(IllegalArgumentException.class, () -> ClassFileReader.read(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length / 2))));
+    }
+
+    /**
+     * Проверяет, что каждый элемент из байткода разрешается в объект рефлексии с той же аннотацией и что найдены
+     * все помеченные элементы.
+     */
+    private static void assertRoundTrip(@NotNull Class<?> type) throws IOException {
+        int marked = 0;
+
+        for (ElementInfo element : readClassInfo(type).getElements()) {
+            AnnotatedElement resolved = element.resolve();
+            @Nullable AnnotationInfo info = element.getAnnotation(Marker.class);
+            @Nullable Marker marker = resolved.getAnnotation(Marker.class);
+
+            assertEquals(marker != null, info != null, element.toString());
+            if (marker != null) {
+                marked++;
+                assertEquals(marker.value(), info.getValue("value") == null ? "" : info.getValue("value"), element.toString());
+            }
+        }
+
+        assertEquals(countMarked(type), marked, type.getName());
+    }
+
+    private static int countMarked(@NotNull Class<?> type) {
+        List<AnnotatedElement> elements = new ArrayList<>();
+        elements.add(type);
+        elements.addAll(Arrays.asList(type.getDeclaredFields()));
+
+        for (Executable executable : getExecutables(type)) {
+            elements.add(executable);
+            elements.addAll(Arrays.asList(executable.getParameters()));
+        }
+
+        return (int) elements.stream().filter(element -> element.isAnnotationPresent(Marker.class)).count();
+    }
+
+    @NotNull
+    private static List<Executable> getExecutables(@NotNull Class<?> type) {
+        List<Executable> executables = new ArrayList<>(Arrays.asList(type.getDeclaredMethods()));
+        executables.addAll(Arrays.asList(type.getDeclaredConstructors()));
+
+        return executables;
+    }
+
+    @NotNull
+    private static ClassFileInfo read(@NotNull Class<?> type) throws IOException {
+        return ClassFileReader.read(ByteBuffer.wrap(getBytes(type)));
+    }
+
+    @NotNull
+    private static ClassInfo readClassInfo(@NotNull Class<?> type) throws IOException {
+        return ClassFileReader.readClassInfo(ByteBuffer.wrap(getBytes(type)), type.getClassLoader());
+    }
+
+    private static byte[] getBytes(@NotNull Class<?> type) throws IOException {
+        try (InputStream inputStream = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+            assertNotNull(inputStream, type.getName());
+            return ClassFileReader.readAllBytes(inputStream);
+        }
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+        String value() default "";
+
+        int[] numbers() default {};
+
+        ElementType kind() default ElementType.TYPE;
+
+        Class<?> type() default Object.class;
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE_USE)
+    @interface TypeMarker {
+    }
+
+    @Marker("outer")
+    static class Outer implements Runnable, Serializable {
+        @Marker("field")
+        int field;
+
+        List<@TypeMarker String> typed;
+
+        @Marker("constructor")
+        Outer(@Marker("constructor parameter") String value) {
+        }
+
+        @Override
+        @Marker("method")
+        public void run() {
+        }
+
+        void parameters(int plain, @Marker("second") long wide, @Marker("third") String text) {
+        }
+
+        @NotNull
+        Object anonymous() {
+            return new Object() {
+                @Override
+                @Marker("anonymous")
+                public String toString() {
+                    return "";
+                }
+            };
+        }
+
+        class Inner {
+            @Marker("inner")
+            void method() {
+            }
+        }
+    }
+
+    @Marker(value = "enum", numbers = {1, 2}, kind = ElementType.FIELD, type = String.class)
+    enum Color {
+        @Marker("constant")
+        RED,
+        GREEN
+    }
+}
@@ -0,0 +1,121 @@
+package ru.cod331n.annotation.reflect.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.cod331n.annotation.reflect.bytecode.ClassFileInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentScanCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesFileOnlyOnFlush() {
+        Path file = directory.resolve("scan.cache");
+        PersistentScanCache cache = new PersistentScanCache(file);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("root" + i, i, infos("pkg.A" + i));
+        }
+
+        assertFalse(Files.exists(file));
+        cache.flush();
+        assertTrue(Files.exists(file));
+
+        PersistentScanCache reopened = new PersistentScanCache(file);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(names(infos("pkg.A" + i)), names(reopened.get("root" + i, i)));
+        }
+        assertNull(reopened.get("root0", 42));
+    }
+
+    @Test
+    void skipsWriteWhenNothingChanged() throws IOException {
+        Path file = directory.resolve("scan.cache");
+        PersistentScanCache cache = new PersistentScanCache(file);
+        cache.put("root", 1, infos("pkg.A"));
+        cache.flush();
+
+        PersistentScanCache reopened = new PersistentScanCache(file);
+        assertNotNull(reopened.get("root", 1));
+
+        // записи уже прочитаны в память: файл не должен появиться снова, если ничего не изменилось
+        Files.delete(file);
+        reopened.flush();
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void dropsRootsNotSeenInScan() {
+        Path file = directory.resolve("scan.cache");
+        PersistentScanCache cache = new PersistentScanCache(file);
+        cache.put("lib-1.0.jar", 1, infos("pkg.Old"));
+        cache.put("app", 1, infos("pkg.App"));
+        cache.flush();
+
+        PersistentScanCache next = new PersistentScanCache(file);
+        assertNotNull(next.get("app", 1));
+        assertNull(next.get("lib-1.1.jar", 2));
+        next.put("lib-1.1.jar", 2, infos("pkg.New"));
+        next.flush();
+
+        PersistentScanCache reopened = new PersistentScanCache(file);
+        assertNull(reopened.get("lib-1.0.jar", 1));
+        assertEquals(names(infos("pkg.App")), names(reopened.get("app", 1)));
+        assertEquals(names(infos("pkg.New")), names(reopened.get("lib-1.1.jar", 2)));
+    }
+
+    @Test
+    void replacesEntryOfChangedRoot() {
+        Path file = directory.resolve("scan.cache");
+        PersistentScanCache cache = new PersistentScanCache(file);
+        cache.put("root", 1, infos("pkg.A"));
+        cache.put("root", 2, infos("pkg.B"));
+        cache.flush();
+
+        PersistentScanCache reopened = new PersistentScanCache(file);
+        assertNull(reopened.get("root", 1));
+        assertEquals(names(infos("pkg.B")), names(reopened.get("root", 2)));
+    }
+
+    @Test
+    void treatsCorruptFileAsEmpty() throws IOException {
+        Path file = directory.resolve("scan.cache");
+        Files.write(file, new byte[]{0x41, 0x50, 0x53, 0x43, 0, 0, 0, 1, 0x7F, 0, 0, 0});
+
+        PersistentScanCache cache = new PersistentScanCache(file);
+        assertNull(cache.get("root", 1));
+
+        cache.put("root", 1, infos("pkg.A"));
+        cache.flush();
+        assertEquals(names(infos("pkg.A")), names(new PersistentScanCache(file).get("root", 1)));
+    }
+
+    @NotNull
+    private static Collection<ClassFileInfo> infos(@NotNull String... names) {
+        List<ClassFileInfo> infos = new ArrayList<>();
+        for (String name : names) {
+            infos.add(new ClassFileInfo(name, Object.class.getName(), Collections.emptyList(), 1, Collections.emptySet(), Collections.singleton("pkg.Marker")));
+        }
+
+        return infos;
+    }
+
+    @NotNull
+    private static List<String> names(Collection<ClassFileInfo> infos) {
+        assertNotNull(infos);
+
+        List<String> names = new ArrayList<>();
+        infos.forEach(info -> names.add(info.getName()));
+
+        return names;
+    }
+}
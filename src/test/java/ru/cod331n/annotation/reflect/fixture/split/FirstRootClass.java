@@ -0,0 +1,4 @@
+package ru.cod331n.annotation.reflect.fixture.split;
+
+public class FirstRootClass {
+}
@@ -0,0 +1,209 @@
+package ru.cod331n.annotation.reflect.jar;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JarArchiveTest {
+    /**
+     * Больше 65535 записей: {@link ZipOutputStream} записывает конец центрального каталога в формате ZIP64.
+     */
+    private static final int ZIP64_ENTRY_COUNT = 70_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsStoredAndDeflatedEntries() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("pkg/", new byte[0]);
+        entries.put("pkg/A.class", bytes("deflated content deflated content deflated content"));
+        entries.put("pkg/sub/B.class", bytes("stored content"));
+        entries.put("pkg/readme.txt", bytes("text"));
+        entries.put("other/C.class", bytes("other"));
+
+        try (JarArchive archive = JarArchive.open(write("plain.jar", zip(entries, "pkg/sub/B.class")))) {
+            assertEquals(Arrays.asList("pkg/A.class", "pkg/sub/B.class"), names(archive.list("pkg/", ".class")));
+            assertEntries(archive, entries);
+
+            JarArchive.Entry folder = archive.getEntry("pkg/");
+            assertNotNull(folder);
+            assertTrue(folder.isDirectory());
+            assertNull(archive.getEntry("pkg/Missing.class"));
+        }
+    }
+
+    @Test
+    void readsArchiveWithPreamble() throws IOException {
+        Map<String, byte[]> entries = Collections.singletonMap("pkg/A.class", bytes("content"));
+
+        try (JarArchive archive = JarArchive.open(write("launcher.jar", concat(bytes("#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n"), zip(entries))))) {
+            assertEntries(archive, entries);
+        }
+    }
+
+    @Test
+    void readsZip64Archive() throws IOException {
+        try (JarArchive archive = JarArchive.open(write("zip64.jar", zip(manyEntries())))) {
+            assertZip64(archive);
+        }
+    }
+
+    @Test
+    void readsZip64ArchiveWithPreamble() throws IOException {
+        try (JarArchive archive = JarArchive.open(write("zip64-launcher.jar", concat(bytes("#!/bin/sh\n"), zip(manyEntries()))))) {
+            assertZip64(archive);
+        }
+    }
+
+    @Test
+    void opensStoredNestedJar() throws IOException {
+        assertNested(true);
+    }
+
+    @Test
+    void opensDeflatedNestedJar() throws IOException {
+        assertNested(false);
+    }
+
+    @Test
+    void rejectsTruncatedArchive() throws IOException {
+        byte[] jar = zip(Collections.singletonMap("pkg/A.class", bytes("content")));
+
+        for (int length : new int[]{0, 10, jar.length / 2, jar.length - 1}) {
+            File file = write("truncated-" + length + ".jar", Arrays.copyOf(jar, length));
+            assertThrows(IOException.class, () -> JarArchive.open(file).close(), "length " + length);
+        }
+    }
+
+    private void assertNested(boolean stored) throws IOException {
+        Map<String, byte[]> innerEntries = new LinkedHashMap<>();
+        innerEntries.put("pkg/A.class", bytes("inner deflated inner deflated inner deflated"));
+        innerEntries.put("pkg/B.class", bytes("inner stored"));
+        byte[] inner = zip(innerEntries, "pkg/B.class");
+
+        Map<String, byte[]> outerEntries = new LinkedHashMap<>();
+        outerEntries.put("BOOT-INF/classes/pkg/Outer.class", bytes("outer"));
+        outerEntries.put("BOOT-INF/lib/inner.jar", inner);
+
+        byte[] outer = stored ? zip(outerEntries, "BOOT-INF/lib/inner.jar") : zip(outerEntries);
+
+        try (JarArchive archive = JarArchive.open(write("outer.jar", concat(bytes("preamble"), outer)))) {
+            JarArchive.Entry entry = archive.getEntry("BOOT-INF/lib/inner.jar");
+            assertNotNull(entry);
+            assertEquals(inner.length, entry.getSize());
+
+            JarArchive nested = archive.openNested(entry);
+            assertEquals(Arrays.asList("pkg/A.class", "pkg/B.class"), names(nested.list("pkg/", ".class")));
+            assertEntries(nested, innerEntries);
+        }
+    }
+
+    private static void assertZip64(@NotNull JarArchive archive) throws IOException {
+        List<JarArchive.Entry> entries = archive.list("many/", ".txt");
+        assertEquals(ZIP64_ENTRY_COUNT, entries.size());
+
+        JarArchive.Entry last = entries.get(entries.size() - 1);
+        assertEquals("many/" + (ZIP64_ENTRY_COUNT - 1) + ".txt", last.getName());
+        assertEquals(String.valueOf(ZIP64_ENTRY_COUNT - 1), string(archive.read(last)));
+    }
+
+    private static void assertEntries(@NotNull JarArchive archive, @NotNull Map<String, byte[]> expected) throws IOException {
+        for (Map.Entry<String, byte[]> expectedEntry : expected.entrySet()) {
+            JarArchive.Entry entry = archive.getEntry(expectedEntry.getKey());
+            assertNotNull(entry, expectedEntry.getKey());
+            assertEquals(expectedEntry.getValue().length, entry.getSize(), entry.getName());
+
+            ByteBuffer buffer = archive.read(entry);
+            byte[] content = new byte[buffer.remaining()];
+            buffer.get(content);
+            assertArrayEquals(expectedEntry.getValue(), content);
+        }
+    }
+
+    @NotNull
+    private static Map<String, byte[]> manyEntries() {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < ZIP64_ENTRY_COUNT; i++) {
+            entries.put("many/" + i + ".txt", bytes(String.valueOf(i)));
+        }
+
+        return entries;
+    }
+
+    /**
+     * @param storedNames Записи, которые сохраняются без сжатия; остальные сжимаются.
+     */
+    private static byte[] zip(@NotNull Map<String, byte[]> entries, @NotNull String... storedNames) throws IOException {
+        Set<String> stored = new HashSet<>(Arrays.asList(storedNames));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ZipOutputStream output = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+
+                if (stored.contains(entry.getKey())) {
+                    CRC32 crc = new CRC32();
+                    crc.update(entry.getValue());
+
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(entry.getValue().length);
+                    zipEntry.setCompressedSize(entry.getValue().length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+
+                output.putNextEntry(zipEntry);
+                output.write(entry.getValue());
+                output.closeEntry();
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @NotNull
+    private File write(@NotNull String name, byte[] content) throws IOException {
+        return Files.write(directory.resolve(name), content).toFile();
+    }
+
+    @NotNull
+    private static List<String> names(@NotNull List<JarArchive.Entry> entries) {
+        List<String> names = new ArrayList<>();
+        entries.forEach(entry -> names.add(entry.getName()));
+
+        return names;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+
+        return result;
+    }
+
+    private static byte[] bytes(@NotNull String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    private static String string(@NotNull ByteBuffer buffer) {
+        byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+
+        return new String(content, StandardCharsets.UTF_8);
+    }
+}
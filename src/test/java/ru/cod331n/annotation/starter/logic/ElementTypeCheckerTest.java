@@ -0,0 +1,57 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import ru.cod331n.annotation.reflect.AnnotatedElementIndex;
+import ru.cod331n.annotation.reflect.JavaClassesReflection;
+import ru.cod331n.annotation.reflect.ScanSettings;
+import ru.cod331n.annotation.starter.logic.fixture.typeuse.TypeParameterOnly;
+import ru.cod331n.annotation.starter.logic.fixture.typeuse.TypeUseHolder;
+import ru.cod331n.annotation.starter.logic.fixture.typeuse.TypeUseOnly;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ElementTypeCheckerTest {
+    private static final List<Class<? extends Annotation>> ANNOTATIONS = Arrays.asList(TypeUseOnly.class, TypeParameterOnly.class);
+
+    @Test
+    void findsTypeUseTargets() {
+        assertTypeUseTargets(check(false));
+    }
+
+    @Test
+    void findsTypeUseTargetsWithMetaAnnotations() {
+        assertTypeUseTargets(check(true));
+    }
+
+    private static void assertTypeUseTargets(@NotNull AnnotatedElementIndex index) {
+        assertEquals(2, index.count(TypeUseOnly.class));
+        index.get(TypeUseOnly.class).forEach(pair -> {
+            assertEquals(TypeUseHolder.class, pair.getLeft());
+            assertTrue(pair.getRight() instanceof AnnotatedType, pair.getRight().toString());
+        });
+        assertTrue(index.get(TypeUseOnly.class).get(0).getRight() != index.get(TypeUseOnly.class).get(1).getRight());
+
+        assertEquals(1, index.count(TypeParameterOnly.class));
+        assertEquals(TypeUseHolder.class.getTypeParameters()[0], index.get(TypeParameterOnly.class).get(0).getRight());
+        assertTrue(index.get(TypeParameterOnly.class).get(0).getRight() instanceof TypeVariable);
+    }
+
+    @NotNull
+    private static AnnotatedElementIndex check(boolean metaAnnotations) {
+        ScanSettings settings = ScanSettings.builder().metaAnnotations(metaAnnotations).build();
+        JavaClassesReflection reflection = new JavaClassesReflection(
+                TypeUseHolder.class.getPackage().getName(),
+                TypeUseHolder.class.getClassLoader(),
+                settings
+        );
+
+        return new ElementTypeChecker(reflection).check(ANNOTATIONS);
+    }
+}
@@ -0,0 +1,209 @@
+package ru.cod331n.annotation.starter.logic;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import ru.cod331n.annotation.AnnotationProcessor;
+import ru.cod331n.annotation.processor.AbstractAnnotationProcessor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.AnnotatedElement;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessorSchedulerTest {
+
+    @Test
+    void ordersByOrderThenDependenciesThenDiscovery() {
+        ProcessorScheduler scheduler = new ProcessorScheduler(definitions(Plain.class, Dependent.class, Dependency.class, Early.class, Late.class));
+
+        assertEquals(
+                Arrays.asList(Early.class, Plain.class, Dependency.class, Dependent.class, Late.class),
+                processorClasses(scheduler.getProcessors())
+        );
+        assertEquals(Arrays.asList(Early.class), processorClasses(scheduler.getFirstStage()));
+    }
+
+    @Test
+    void firstStageExcludesProcessorsWithDependencies() {
+        ProcessorScheduler scheduler = new ProcessorScheduler(definitions(Dependent.class, Plain.class, Dependency.class));
+
+        // зависимость ставится перед зависимым процессором, обнаруженным раньше нее
+        assertEquals(Arrays.asList(Dependency.class, Dependent.class, Plain.class), processorClasses(scheduler.getProcessors()));
+        assertEquals(Arrays.asList(Dependency.class, Plain.class), processorClasses(scheduler.getFirstStage()));
+    }
+
+    @Test
+    void rejectsCyclicDependencies() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> new ProcessorScheduler(definitions(CycleA.class, CycleB.class)));
+
+        assertTrue(e.getMessage().contains(CycleA.class.getName()), e.getMessage());
+        assertTrue(e.getMessage().contains(CycleB.class.getName()), e.getMessage());
+    }
+
+    @Test
+    void rejectsMissingDependency() {
+        assertThrows(IllegalArgumentException.class, () -> new ProcessorScheduler(definitions(Dependent.class)));
+    }
+
+    @Test
+    void rejectsDependencyWithGreaterOrder() {
+        assertThrows(IllegalArgumentException.class, () -> new ProcessorScheduler(definitions(DependsOnLate.class, Late.class)));
+    }
+
+    @Test
+    void runsDependenciesAndEarlierOrdersFirst() {
+        ProcessorScheduler scheduler = new ProcessorScheduler(definitions(Early.class, Plain.class, Dependent.class, Dependency.class, Late.class));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+                scheduler.run(definition -> CompletableFuture.runAsync(() -> {
+                    String name = definition.getProcessorClass().getSimpleName();
+                    events.add("start " + name);
+                    Thread.yield();
+                    events.add("end " + name);
+                }, executor), executor);
+
+                assertBefore(events, "end Early", "start Plain", "start Dependency", "start Dependent", "start Late");
+                assertBefore(events, "end Dependency", "start Dependent");
+                assertBefore(events, "end Plain", "start Late");
+                assertBefore(events, "end Dependent", "start Late");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void runsSequentiallyWithoutExecutor() {
+        ProcessorScheduler scheduler = new ProcessorScheduler(definitions(Late.class, Dependent.class, Dependency.class));
+        List<Class<?>> calls = new ArrayList<>();
+
+        scheduler.run(definition -> {
+            calls.add(definition.getProcessorClass());
+            return CompletableFuture.completedFuture(null);
+        }, null);
+
+        assertEquals(Arrays.asList(Dependency.class, Dependent.class, Late.class), calls);
+    }
+
+    @Test
+    void propagatesProcessorFailure() {
+        ProcessorScheduler scheduler = new ProcessorScheduler(definitions(Plain.class, Late.class));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Class<?>> calls = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> scheduler.run(definition -> {
+                calls.add(definition.getProcessorClass());
+                if (definition.getProcessorClass() == Plain.class) {
+                    throw new IllegalStateException("failed");
+                }
+
+                return CompletableFuture.completedFuture(null);
+            }, executor));
+
+            assertNotNull(findCause(e, IllegalStateException.class), e.toString());
+            assertEquals(Collections.singletonList(Plain.class), calls);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertBefore(@NotNull List<String> events, @NotNull String first, @NotNull String... later) {
+        int index = events.indexOf(first);
+        assertTrue(index >= 0, first + " in " + events);
+
+        for (String event : later) {
+            assertTrue(events.indexOf(event) > index, first + " before " + event + " in " + events);
+        }
+    }
+
+    @Nullable
+    private static Throwable findCause(@Nullable Throwable throwable, @NotNull Class<? extends Throwable> type) {
+        while (throwable != null && !type.isInstance(throwable)) {
+            throwable = throwable.getCause();
+        }
+
+        return throwable;
+    }
+
+    @NotNull
+    private static List<Class<?>> processorClasses(@NotNull List<ProcessorDefinition> definitions) {
+        List<Class<?>> classes = new ArrayList<>();
+        definitions.forEach(definition -> classes.add(definition.getProcessorClass()));
+
+        return classes;
+    }
+
+    @NotNull
+    @SafeVarargs
+    private static List<ProcessorDefinition> definitions(@NotNull Class<? extends NoopProcessor>... processorClasses) {
+        List<ProcessorDefinition> definitions = new ArrayList<>();
+
+        for (Class<? extends NoopProcessor> processorClass : processorClasses) {
+            try {
+                definitions.add(new ProcessorDefinition(
+                        processorClass,
+                        processorClass.getDeclaredConstructor().newInstance(),
+                        Marker.class,
+                        processorClass.getAnnotation(AnnotationProcessor.class)
+                ));
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("Failed to create processor: " + processorClass.getName(), e);
+            }
+        }
+
+        return definitions;
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+    }
+
+    static class NoopProcessor extends AbstractAnnotationProcessor<Marker> {
+        @Override
+        public void process(@Nullable Class<?> clazz, @NotNull AnnotatedElement element, @NotNull Marker annotation) {
+        }
+    }
+
+    @AnnotationProcessor(order = -1)
+    static class Early extends NoopProcessor {
+    }
+
+    @AnnotationProcessor
+    static class Plain extends NoopProcessor {
+    }
+
+    @AnnotationProcessor
+    static class Dependency extends NoopProcessor {
+    }
+
+    @AnnotationProcessor(dependsOn = Dependency.class)
+    static class Dependent extends NoopProcessor {
+    }
+
+    @AnnotationProcessor(order = 1)
+    static class Late extends NoopProcessor {
+    }
+
+    @AnnotationProcessor(dependsOn = Late.class)
+    static class DependsOnLate extends NoopProcessor {
+    }
+
+    @AnnotationProcessor(dependsOn = CycleB.class)
+    static class CycleA extends NoopProcessor {
+    }
+
+    @AnnotationProcessor(dependsOn = CycleA.class)
+    static class CycleB extends NoopProcessor {
+    }
+}
@@ -0,0 +1,11 @@
+package ru.cod331n.annotation.starter.logic.fixture.typeuse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE_PARAMETER)
+public @interface TypeParameterOnly {
+}
@@ -0,0 +1,6 @@
+package ru.cod331n.annotation.starter.logic.fixture.typeuse;
+
+public class TypeUseHolder<@TypeParameterOnly T> {
+    public @TypeUseOnly String first;
+    public @TypeUseOnly String second;
+}
@@ -0,0 +1,197 @@
+package ru.cod331n.util.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentCacheTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(10, String::length);
+
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals("aaaa", cache.get("a"));
+        cache.put("c", "cccc");
+
+        assertEquals(8, cache.getWeight());
+        assertTrue(cache.containsKey("a"));
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("c"));
+        assertEquals(1, cache.getStats().getEvictionCount());
+
+        cache.put("a", "a");
+        assertEquals(5, cache.getWeight());
+        cache.invalidate("a");
+        cache.invalidate("c");
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void loadsKeyOnceForConcurrentRequests() throws Exception {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            Future<String> first = executor.submit(() -> cache.computeIfAbsent("key", key -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+
+                return "value";
+            }));
+            loading.await();
+
+            List<Future<String>> waiting = new ArrayList<>();
+            for (int i = 0; i < THREADS - 1; i++) {
+                waiting.add(executor.submit(() -> cache.computeIfAbsent("key", key -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+
+            release.countDown();
+            assertEquals("value", first.get(30, TimeUnit.SECONDS));
+            for (Future<String> future : waiting) {
+                assertEquals("value", future.get(30, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getWeight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void removesFailedLoads() {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(100);
+
+        assertThrows(IllegalStateException.class, () -> cache.computeIfAbsent("key", key -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        assertFalse(cache.containsKey("key"));
+        assertEquals(0, cache.getWeight());
+        assertEquals("value", cache.computeIfAbsent("key", key -> "value"));
+        assertEquals(1, cache.getWeight());
+    }
+
+    /**
+     * Поток, ожидающий загрузки ключа, удаляет запись сразу после публикации значения: вес этой записи должен
+     * быть либо не учтен, либо вычтен.
+     */
+    @Test
+    void keepsWeightWhenEntryIsInvalidatedRightAfterLoad() throws Exception {
+        ConcurrentCache<Integer, String> cache = new ConcurrentCache<>(Long.MAX_VALUE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+                for (int i = 0; i < 2_000; i++) {
+                    int key = i;
+                    CountDownLatch loading = new CountDownLatch(1);
+                    CountDownLatch waiting = new CountDownLatch(1);
+
+                    Future<?> loader = executor.submit(() -> cache.computeIfAbsent(key, k -> {
+                        loading.countDown();
+                        await(waiting);
+
+                        return "value";
+                    }));
+                    loading.await();
+
+                    Future<?> invalidator = executor.submit(() -> {
+                        waiting.countDown();
+                        cache.computeIfAbsent(key, k -> "other");
+                        cache.invalidate(key);
+                    });
+
+                    loader.get();
+                    invalidator.get();
+                    cache.invalidate(key);
+
+                    assertEquals(0, cache.getWeight(), "iteration " + i);
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void keepsWeightWithinBoundUnderContention() throws Exception {
+        int maximumWeight = 50;
+        int keys = 200;
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(maximumWeight, value -> value % 3 + 1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int thread = 0; thread < THREADS; thread++) {
+                int seed = thread;
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                    for (int i = 0; i < 20_000; i++) {
+                        int key = random.nextInt(keys);
+
+                        switch ((i + seed) % 4) {
+                            case 0:
+                                cache.put(key, key);
+                                break;
+                            case 1:
+                                cache.invalidate(key);
+                                break;
+                            default:
+                                assertEquals(key, (int) cache.computeIfAbsent(key, k -> k));
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long weight = cache.getWeight();
+        assertTrue(weight >= 0 && weight <= maximumWeight, "weight " + weight);
+
+        long expected = 0;
+        for (int key = 0; key < keys; key++) {
+            if (cache.containsKey(key)) {
+                expected += key % 3 + 1;
+            }
+        }
+        assertEquals(expected, weight);
+
+        for (int key = 0; key < keys; key++) {
+            cache.invalidate(key);
+        }
+        assertEquals(0, cache.getWeight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}